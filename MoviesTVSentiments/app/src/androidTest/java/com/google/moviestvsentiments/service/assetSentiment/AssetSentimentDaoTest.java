@@ -10,6 +10,7 @@ import androidx.test.ext.junit.runners.AndroidJUnit4;
 import com.google.moviestvsentiments.model.Asset;
 import com.google.moviestvsentiments.model.AssetSentiment;
 import com.google.moviestvsentiments.model.AssetType;
+import com.google.moviestvsentiments.model.SentimentEvent;
 import com.google.moviestvsentiments.model.SentimentType;
 import com.google.moviestvsentiments.model.UserSentiment;
 import com.google.moviestvsentiments.service.database.SentimentsDatabase;
@@ -227,4 +228,44 @@ public class AssetSentimentDaoTest {
 
         assertThat(sentiments).isEmpty();
     }
+
+    @Test
+    public void applySentimentEvent_newerEvent_updatesSentiment() {
+        assetSentimentDao.updateSentiment("accountName", "assetId", AssetType.MOVIE,
+                SentimentType.THUMBS_DOWN, false, Instant.ofEpochSecond(1));
+
+        assetSentimentDao.applySentimentEvent("accountName", SentimentEvent.create("assetId",
+                AssetType.MOVIE, SentimentType.THUMBS_UP, Instant.ofEpochSecond(2), false));
+        UserSentiment sentiment = assetSentimentDao.getSentiment("accountName", "assetId",
+                AssetType.MOVIE);
+
+        assertThat(sentiment.sentimentType).isEqualTo(SentimentType.THUMBS_UP);
+        assertThat(sentiment.timestamp).isEqualTo(Instant.ofEpochSecond(2));
+    }
+
+    @Test
+    public void applySentimentEvent_olderEvent_keepsSentiment() {
+        assetSentimentDao.updateSentiment("accountName", "assetId", AssetType.MOVIE,
+                SentimentType.THUMBS_DOWN, true, Instant.ofEpochSecond(2));
+
+        assetSentimentDao.applySentimentEvent("accountName", SentimentEvent.create("assetId",
+                AssetType.MOVIE, SentimentType.THUMBS_UP, Instant.ofEpochSecond(1), false));
+        UserSentiment sentiment = assetSentimentDao.getSentiment("accountName", "assetId",
+                AssetType.MOVIE);
+
+        assertThat(sentiment.sentimentType).isEqualTo(SentimentType.THUMBS_DOWN);
+        assertThat(sentiment.isPending).isTrue();
+    }
+
+    @Test
+    public void applySentimentEvent_deletedEvent_removesSentiment() {
+        assetSentimentDao.updateSentiment("accountName", "assetId", AssetType.MOVIE,
+                SentimentType.THUMBS_DOWN, false, Instant.ofEpochSecond(1));
+
+        assetSentimentDao.applySentimentEvent("accountName", SentimentEvent.create("assetId",
+                AssetType.MOVIE, SentimentType.THUMBS_DOWN, Instant.ofEpochSecond(2), true));
+
+        assertThat(assetSentimentDao.getSentiment("accountName", "assetId", AssetType.MOVIE))
+                .isNull();
+    }
 }
@@ -9,8 +9,15 @@ import com.google.moviestvsentiments.model.SentimentType;
 import com.google.moviestvsentiments.model.UserSentiment;
 import com.google.moviestvsentiments.service.web.ApiResponse;
 import com.google.moviestvsentiments.service.web.WebService;
+import java.io.IOException;
 import java.time.Instant;
 import java.util.List;
+import okhttp3.Request;
+import okhttp3.ResponseBody;
+import okio.Timeout;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
 
 /**
  * A mock WebService for use in instrumented tests.
@@ -50,4 +57,60 @@ public class TestWebService implements WebService {
     public ApiResponse<List<UserSentiment>> syncPendingSentiments(List<UserSentiment> sentiments) {
         return new ApiResponse(new RuntimeException(ERROR));
     }
+
+    @Override
+    public Call<ResponseBody> streamSentimentEvents(String accountName) {
+        return new FailedCall<>();
+    }
+
+    /**
+     * A Call that fails with an IOException whenever it is executed.
+     */
+    private static class FailedCall<T> implements Call<T> {
+
+        private boolean executed;
+        private boolean canceled;
+
+        @Override
+        public Response<T> execute() throws IOException {
+            executed = true;
+            throw new IOException(ERROR);
+        }
+
+        @Override
+        public void enqueue(Callback<T> callback) {
+            executed = true;
+            callback.onFailure(this, new IOException(ERROR));
+        }
+
+        @Override
+        public boolean isExecuted() {
+            return executed;
+        }
+
+        @Override
+        public void cancel() {
+            canceled = true;
+        }
+
+        @Override
+        public boolean isCanceled() {
+            return canceled;
+        }
+
+        @Override
+        public Call<T> clone() {
+            return new FailedCall<>();
+        }
+
+        @Override
+        public Request request() {
+            return new Request.Builder().url("http://localhost/").build();
+        }
+
+        @Override
+        public Timeout timeout() {
+            return Timeout.NONE;
+        }
+    }
 }
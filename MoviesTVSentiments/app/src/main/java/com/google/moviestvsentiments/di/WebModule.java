@@ -2,7 +2,10 @@ package com.google.moviestvsentiments.di;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.google.moviestvsentiments.service.web.ContentNegotiationInterceptor;
 import com.google.moviestvsentiments.service.web.LiveDataCallAdapterFactory;
+import com.google.moviestvsentiments.service.web.SmileConverterFactory;
 import com.google.moviestvsentiments.service.web.SynchronousCallAdapterFactory;
 import com.google.moviestvsentiments.service.web.WebService;
 import javax.inject.Singleton;
@@ -10,8 +13,8 @@ import dagger.Module;
 import dagger.Provides;
 import dagger.hilt.InstallIn;
 import dagger.hilt.android.components.ApplicationComponent;
+import okhttp3.OkHttpClient;
 import retrofit2.Retrofit;
-import retrofit2.converter.jackson.JacksonConverterFactory;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 
 /**
@@ -24,20 +27,30 @@ public class WebModule {
     private static final String API_BASE_URL = "http://10.0.2.2:8080";
 
     /**
-     * Returns the singleton WebService object.
+     * Returns the singleton WebService object. Requests and responses are sent as gzip compressed
+     * Jackson Smile, falling back to JSON for responses that the server only sends as JSON.
      */
     @Provides
     @Singleton
     public WebService provideWebService() {
-        ObjectMapper mapper = new ObjectMapper();
-        mapper.registerModule(new JavaTimeModule());
-        mapper.configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
+        OkHttpClient client = new OkHttpClient.Builder()
+                .addInterceptor(new ContentNegotiationInterceptor())
+                .build();
         Retrofit retrofit = new Retrofit.Builder()
                 .baseUrl(API_BASE_URL)
-                .addConverterFactory(JacksonConverterFactory.create(mapper))
+                .client(client)
+                .addConverterFactory(SmileConverterFactory.create(
+                        createMapper(new ObjectMapper(new SmileFactory())),
+                        createMapper(new ObjectMapper())))
                 .addCallAdapterFactory(new LiveDataCallAdapterFactory())
                 .addCallAdapterFactory(new SynchronousCallAdapterFactory())
                 .build();
         return retrofit.create(WebService.class);
     }
+
+    private static ObjectMapper createMapper(ObjectMapper mapper) {
+        mapper.registerModule(new JavaTimeModule());
+        mapper.configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
+        return mapper;
+    }
 }
@@ -0,0 +1,43 @@
+package com.google.moviestvsentiments.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.auto.value.AutoValue;
+import java.time.Instant;
+
+/**
+ * A change to one of the current account's user sentiments, pushed by the server when a write
+ * from any of the account's devices commits.
+ */
+@AutoValue
+public abstract class SentimentEvent {
+
+    public abstract String assetId();
+
+    public abstract AssetType assetType();
+
+    public abstract SentimentType sentimentType();
+
+    public abstract Instant timestamp();
+
+    public abstract boolean deleted();
+
+    /**
+     * Creates a new SentimentEvent object with the given fields. Jackson needs this factory method
+     * to create SentimentEvent objects from the server's events.
+     * @param assetId The id of the asset whose sentiment changed.
+     * @param assetType The type of the asset whose sentiment changed.
+     * @param sentimentType The new type of the user sentiment.
+     * @param timestamp The timestamp of the user sentiment.
+     * @param deleted Whether the user sentiment was deleted.
+     * @return A new SentimentEvent object with the specified fields.
+     */
+    @JsonCreator
+    public static SentimentEvent create(@JsonProperty("assetId") String assetId,
+                                        @JsonProperty("assetType") AssetType assetType,
+                                        @JsonProperty("sentimentType") SentimentType sentimentType,
+                                        @JsonProperty("timestamp") Instant timestamp,
+                                        @JsonProperty("deleted") boolean deleted) {
+        return new AutoValue_SentimentEvent(assetId, assetType, sentimentType, timestamp, deleted);
+    }
+}
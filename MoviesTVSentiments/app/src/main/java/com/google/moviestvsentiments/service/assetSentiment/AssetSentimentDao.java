@@ -6,13 +6,16 @@ import androidx.room.Dao;
 import androidx.room.Insert;
 import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
+import androidx.room.Transaction;
 import com.google.moviestvsentiments.model.Asset;
 import com.google.moviestvsentiments.model.AssetSentiment;
 import com.google.moviestvsentiments.model.AssetType;
+import com.google.moviestvsentiments.model.SentimentEvent;
 import com.google.moviestvsentiments.model.SentimentType;
 import com.google.moviestvsentiments.model.UserSentiment;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 @Dao
@@ -152,6 +155,51 @@ public abstract class AssetSentimentDao {
     @Insert(onConflict = OnConflictStrategy.REPLACE)
     public abstract void updateSentiments(List<UserSentiment> sentiments);
 
+    /**
+     * Returns the user sentiment of the given account for the given asset, or null if there is
+     * none.
+     * @param accountName The account that the user sentiment is associated with.
+     * @param assetId The id of the asset that the user sentiment is associated with.
+     * @param assetType The type of the asset that the user sentiment is associated with.
+     * @return The matching UserSentiment or null.
+     */
+    @Query("SELECT * FROM user_sentiments_table WHERE account_name = :accountName " +
+            "AND asset_id = :assetId AND asset_type = :assetType")
+    public abstract UserSentiment getSentiment(String accountName, String assetId,
+                                               AssetType assetType);
+
+    /**
+     * Deletes the user sentiment of the given account for the given asset.
+     * @param accountName The account that the user sentiment is associated with.
+     * @param assetId The id of the asset that the user sentiment is associated with.
+     * @param assetType The type of the asset that the user sentiment is associated with.
+     */
+    @Query("DELETE FROM user_sentiments_table WHERE account_name = :accountName " +
+            "AND asset_id = :assetId AND asset_type = :assetType")
+    public abstract void deleteSentiment(String accountName, String assetId, AssetType assetType);
+
+    /**
+     * Applies a sentiment change pushed by the server to the given account's user sentiment. The
+     * change is ignored if the local user sentiment is at least as recent, which keeps a newer
+     * change made on this device that has not reached the server yet.
+     * @param accountName The account that the change belongs to.
+     * @param event The sentiment change pushed by the server.
+     */
+    @Transaction
+    public void applySentimentEvent(String accountName, SentimentEvent event) {
+        UserSentiment current = getSentiment(accountName, event.assetId(), event.assetType());
+        if (current != null && !current.timestamp.isBefore(event.timestamp())) {
+            return;
+        }
+        if (event.deleted()) {
+            deleteSentiment(accountName, event.assetId(), event.assetType());
+        } else {
+            updateSentiments(Collections.singletonList(UserSentiment.create(event.assetId(),
+                    accountName, event.assetType(), event.sentimentType(), event.timestamp(),
+                    false)));
+        }
+    }
+
     /**
      * Deletes all user sentiments corresponding to the given account name.
      * @param accountName The account to delete all sentiments for.
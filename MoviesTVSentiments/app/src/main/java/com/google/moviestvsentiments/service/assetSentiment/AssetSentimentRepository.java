@@ -158,6 +158,23 @@ public class AssetSentimentRepository {
         });
     }
 
+    /**
+     * Starts applying the sentiment changes that the server pushes for the given account to the
+     * local database, so that changes made on the account's other devices show up without
+     * fetching the assets again. A change is only applied if it is newer than the local user
+     * sentiment.
+     * @param accountName The account to receive sentiment changes for.
+     * @return The started SentimentEventStream, which should be stopped when it is not needed.
+     */
+    SentimentEventStream streamSentimentEvents(String accountName) {
+        SentimentEventStream stream = new SentimentEventStream(webService, accountName,
+                event -> executor.execute(() -> {
+                    assetSentimentDao.applySentimentEvent(accountName, event);
+                }));
+        stream.start();
+        return stream;
+    }
+
     /**
      * Sends the list of pending UserSentiments to the server. If the server successfully saves them
      * in its database, then the UserSentiments are updated locally to no longer be pending. This
@@ -82,6 +82,16 @@ public class AssetSentimentViewModel extends ViewModel {
         repository.updateSentiment(accountName, assetId, assetType, sentimentType);
     }
 
+    /**
+     * Starts applying the sentiment changes that the server pushes for the given account to the
+     * local database.
+     * @param accountName The account to receive sentiment changes for.
+     * @return The started SentimentEventStream, which should be stopped when it is not needed.
+     */
+    public SentimentEventStream streamSentimentEvents(String accountName) {
+        return repository.streamSentimentEvents(accountName);
+    }
+
     /**
      * Deletes all user sentiments corresponding to the given account name.
      * @param accountName The account to delete all sentiments for.
@@ -0,0 +1,108 @@
+package com.google.moviestvsentiments.service.assetSentiment;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.google.moviestvsentiments.model.SentimentEvent;
+import com.google.moviestvsentiments.service.web.ServerSentEventReader;
+import com.google.moviestvsentiments.service.web.WebService;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.function.Consumer;
+import okhttp3.ResponseBody;
+import retrofit2.Call;
+import retrofit2.Response;
+
+/**
+ * Reads the server-sent event stream of an account's sentiment changes on a background thread
+ * and passes each change to a consumer. Whenever the stream ends or fails, it is opened again
+ * after a delay that doubles up to MAX_RECONNECT_DELAY_MILLIS. Changes made while disconnected
+ * are not replayed, so they only show up once the assets are fetched again.
+ */
+public class SentimentEventStream {
+
+    static final String SENTIMENT_EVENT_NAME = "sentiment";
+    private static final long MIN_RECONNECT_DELAY_MILLIS = 1000;
+    private static final long MAX_RECONNECT_DELAY_MILLIS = 60000;
+    private static final ObjectMapper EVENT_MAPPER = new ObjectMapper()
+            .registerModule(new JavaTimeModule());
+
+    private final WebService webService;
+    private final String accountName;
+    private final Consumer<SentimentEvent> consumer;
+    private volatile boolean stopped;
+    private volatile Call<ResponseBody> call;
+    private Thread thread;
+
+    SentimentEventStream(WebService webService, String accountName,
+                         Consumer<SentimentEvent> consumer) {
+        this.webService = webService;
+        this.accountName = accountName;
+        this.consumer = consumer;
+    }
+
+    /**
+     * Starts reading the stream on a new background thread.
+     */
+    void start() {
+        thread = new Thread(this::run, "sentiment-events");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Closes the stream and stops the background thread. No more changes are passed to the
+     * consumer once the thread has stopped.
+     */
+    public void stop() {
+        stopped = true;
+        Call<ResponseBody> current = call;
+        if (current != null) {
+            current.cancel();
+        }
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    /**
+     * Reads sentiment events from the given reader until the stream ends, and passes each one to
+     * the consumer.
+     * @param reader The reader of the event stream.
+     */
+    void read(BufferedReader reader) throws IOException {
+        ServerSentEventReader.read(reader, (name, data) -> {
+            if (SENTIMENT_EVENT_NAME.equals(name)) {
+                consumer.accept(EVENT_MAPPER.readValue(data, SentimentEvent.class));
+            }
+        });
+    }
+
+    private void run() {
+        long delay = MIN_RECONNECT_DELAY_MILLIS;
+        while (!stopped) {
+            call = webService.streamSentimentEvents(accountName);
+            if (stopped) {
+                call.cancel();
+                return;
+            }
+            try {
+                Response<ResponseBody> response = call.execute();
+                try (ResponseBody body = response.isSuccessful() ? response.body()
+                        : response.errorBody()) {
+                    if (response.isSuccessful()) {
+                        delay = MIN_RECONNECT_DELAY_MILLIS;
+                        read(new BufferedReader(body.charStream()));
+                    }
+                }
+            } catch (IOException e) {
+                // The connection failed or was closed, so it is opened again after the delay.
+            }
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                return;
+            }
+            delay = Math.min(delay * 2, MAX_RECONNECT_DELAY_MILLIS);
+        }
+    }
+}
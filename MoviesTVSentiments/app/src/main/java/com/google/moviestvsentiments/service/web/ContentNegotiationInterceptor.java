@@ -0,0 +1,63 @@
+package com.google.moviestvsentiments.service.web;
+
+import java.io.IOException;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okio.BufferedSink;
+import okio.GzipSink;
+import okio.Okio;
+
+/**
+ * An OkHttp Interceptor that asks the server for Smile responses and gzip compresses request
+ * bodies. OkHttp already requests and decompresses gzip responses on its own.
+ */
+public class ContentNegotiationInterceptor implements Interceptor {
+
+    private static final String ACCEPT = "Accept";
+    private static final String CONTENT_ENCODING = "Content-Encoding";
+    private static final String GZIP = "gzip";
+    private static final String ACCEPTED_TYPES = SmileConverterFactory.SMILE_MEDIA_TYPE
+            + ", application/json;q=0.5";
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        Request.Builder builder = request.newBuilder();
+        if (request.header(ACCEPT) == null) {
+            builder.header(ACCEPT, ACCEPTED_TYPES);
+        }
+        if (request.body() != null && request.header(CONTENT_ENCODING) == null) {
+            builder.header(CONTENT_ENCODING, GZIP)
+                    .method(request.method(), gzip(request.body()));
+        }
+        return chain.proceed(builder.build());
+    }
+
+    /**
+     * Returns a RequestBody that writes the given body through gzip. The compressed length is not
+     * known in advance, so the body is sent with chunked encoding.
+     */
+    private static RequestBody gzip(RequestBody body) {
+        return new RequestBody() {
+            @Override
+            public MediaType contentType() {
+                return body.contentType();
+            }
+
+            @Override
+            public long contentLength() {
+                return -1;
+            }
+
+            @Override
+            public void writeTo(BufferedSink sink) throws IOException {
+                BufferedSink gzipSink = Okio.buffer(new GzipSink(sink));
+                body.writeTo(gzipSink);
+                gzipSink.close();
+            }
+        };
+    }
+}
@@ -0,0 +1,65 @@
+package com.google.moviestvsentiments.service.web;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+
+/**
+ * Reads a stream of server-sent events and passes the name and data of each event to a listener.
+ * Comment lines and fields other than event and data are ignored.
+ */
+public class ServerSentEventReader {
+
+    private static final String DEFAULT_EVENT_NAME = "message";
+
+    /**
+     * A callback for the events read from a stream.
+     */
+    public interface Listener {
+
+        /**
+         * Called for each complete event in the stream.
+         * @param name The name of the event, or message if the event has no name.
+         * @param data The data lines of the event, joined with newlines.
+         */
+        void onEvent(String name, String data) throws IOException;
+    }
+
+    private ServerSentEventReader() {}
+
+    /**
+     * Reads events from the given reader until the stream ends. An event that is not followed by
+     * a blank line before the stream ends is incomplete and is not passed to the listener.
+     * @param reader The reader of the event stream.
+     * @param listener The listener to pass each event to.
+     */
+    public static void read(BufferedReader reader, Listener listener) throws IOException {
+        String name = DEFAULT_EVENT_NAME;
+        StringBuilder data = null;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isEmpty()) {
+                if (data != null) {
+                    listener.onEvent(name, data.toString());
+                }
+                name = DEFAULT_EVENT_NAME;
+                data = null;
+                continue;
+            }
+            if (line.startsWith(":")) {
+                continue;
+            }
+            int colon = line.indexOf(':');
+            String field = colon < 0 ? line : line.substring(0, colon);
+            String value = colon < 0 ? "" : line.substring(colon + 1);
+            if (value.startsWith(" ")) {
+                value = value.substring(1);
+            }
+            if (field.equals("event")) {
+                name = value;
+            } else if (field.equals("data")) {
+                data = data == null ? new StringBuilder() : data.append('\n');
+                data.append(value);
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.google.moviestvsentiments.service.web;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import javax.annotation.Nullable;
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okhttp3.ResponseBody;
+import retrofit2.Converter;
+import retrofit2.Retrofit;
+
+/**
+ * A Retrofit Converter factory that sends request bodies as Jackson Smile and reads response
+ * bodies as either Smile or JSON, depending on the Content-Type chosen by the server. Smile
+ * bodies are smaller than JSON and faster to parse.
+ */
+public class SmileConverterFactory extends Converter.Factory {
+
+    public static final MediaType SMILE_MEDIA_TYPE = MediaType.get("application/x-jackson-smile");
+
+    private final ObjectMapper smileMapper;
+    private final ObjectMapper jsonMapper;
+
+    private SmileConverterFactory(ObjectMapper smileMapper, ObjectMapper jsonMapper) {
+        this.smileMapper = smileMapper;
+        this.jsonMapper = jsonMapper;
+    }
+
+    /**
+     * Creates a new SmileConverterFactory.
+     * @param smileMapper The ObjectMapper to use for Smile bodies. It must use a SmileFactory.
+     * @param jsonMapper The ObjectMapper to use for JSON response bodies.
+     * @return A new SmileConverterFactory.
+     */
+    public static SmileConverterFactory create(ObjectMapper smileMapper, ObjectMapper jsonMapper) {
+        return new SmileConverterFactory(smileMapper, jsonMapper);
+    }
+
+    @Nullable
+    @Override
+    public Converter<ResponseBody, ?> responseBodyConverter(Type type, Annotation[] annotations,
+                                                            Retrofit retrofit) {
+        JavaType javaType = jsonMapper.getTypeFactory().constructType(type);
+        ObjectReader smileReader = smileMapper.readerFor(javaType);
+        ObjectReader jsonReader = jsonMapper.readerFor(javaType);
+        return body -> {
+            try {
+                ObjectReader reader = isSmile(body.contentType()) ? smileReader : jsonReader;
+                return reader.readValue(body.byteStream());
+            } finally {
+                body.close();
+            }
+        };
+    }
+
+    @Nullable
+    @Override
+    public Converter<?, RequestBody> requestBodyConverter(Type type,
+                                                          Annotation[] parameterAnnotations,
+                                                          Annotation[] methodAnnotations,
+                                                          Retrofit retrofit) {
+        ObjectWriter writer = smileMapper.writerFor(smileMapper.getTypeFactory().constructType(type));
+        return value -> RequestBody.create(SMILE_MEDIA_TYPE, writer.writeValueAsBytes(value));
+    }
+
+    private static boolean isSmile(@Nullable MediaType contentType) {
+        return contentType != null && SMILE_MEDIA_TYPE.type().equals(contentType.type())
+                && SMILE_MEDIA_TYPE.subtype().equals(contentType.subtype());
+    }
+}
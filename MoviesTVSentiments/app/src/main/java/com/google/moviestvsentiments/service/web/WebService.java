@@ -8,11 +8,16 @@ import com.google.moviestvsentiments.model.SentimentType;
 import com.google.moviestvsentiments.model.UserSentiment;
 import java.time.Instant;
 import java.util.List;
+import okhttp3.ResponseBody;
+import retrofit2.Call;
 import retrofit2.http.Body;
 import retrofit2.http.GET;
+import retrofit2.http.Headers;
 import retrofit2.http.POST;
 import retrofit2.http.PUT;
+import retrofit2.http.Path;
 import retrofit2.http.Query;
+import retrofit2.http.Streaming;
 
 /**
  * A Retrofit service that provides access to the remote server.
@@ -83,4 +88,16 @@ public interface WebService {
      */
     @PUT("sentiments")
     ApiResponse<List<UserSentiment>> syncPendingSentiments(@Body List<UserSentiment> sentiments);
+
+    /**
+     * Opens the server-sent event stream of the given account's sentiment changes. The body is
+     * read as the events arrive, so it should be read off the main thread with
+     * ServerSentEventReader and closed when the stream is no longer needed.
+     * @param accountName The name of the account to receive sentiment changes for.
+     * @return A Call for the event stream.
+     */
+    @Streaming
+    @Headers("Accept: text/event-stream")
+    @GET("accounts/{name}/events")
+    Call<ResponseBody> streamSentimentEvents(@Path("name") String accountName);
 }
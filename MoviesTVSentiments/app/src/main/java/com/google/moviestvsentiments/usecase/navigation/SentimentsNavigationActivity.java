@@ -8,6 +8,8 @@ import com.google.android.material.bottomnavigation.BottomNavigationView;
 import com.google.android.material.navigation.NavigationView;
 import com.google.moviestvsentiments.R;
 import com.google.moviestvsentiments.service.account.AccountViewModel;
+import com.google.moviestvsentiments.service.assetSentiment.AssetSentimentViewModel;
+import com.google.moviestvsentiments.service.assetSentiment.SentimentEventStream;
 import com.google.moviestvsentiments.usecase.signin.SigninActivity;
 import androidx.annotation.NonNull;
 import androidx.appcompat.app.ActionBarDrawerToggle;
@@ -32,7 +34,11 @@ public class SentimentsNavigationActivity extends AppCompatActivity implements
     @Inject
     AccountViewModel viewModel;
 
+    @Inject
+    AssetSentimentViewModel assetSentimentViewModel;
+
     private String accountName;
+    private SentimentEventStream sentimentEventStream;
     private DrawerLayout drawerLayout;
     private ActionBarDrawerToggle toggle;
 
@@ -96,6 +102,19 @@ public class SentimentsNavigationActivity extends AppCompatActivity implements
         NavigationUI.setupWithNavController(navView, navController);
     }
 
+    @Override
+    protected void onStart() {
+        super.onStart();
+        sentimentEventStream = assetSentimentViewModel.streamSentimentEvents(accountName);
+    }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        sentimentEventStream.stop();
+        sentimentEventStream = null;
+    }
+
     @Override
     protected void onPostCreate(Bundle savedInstanceState) {
         super.onPostCreate(savedInstanceState);
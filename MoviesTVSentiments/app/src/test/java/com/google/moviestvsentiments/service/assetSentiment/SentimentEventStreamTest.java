@@ -0,0 +1,43 @@
+package com.google.moviestvsentiments.service.assetSentiment;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Mockito.mock;
+
+import com.google.moviestvsentiments.model.AssetType;
+import com.google.moviestvsentiments.model.SentimentEvent;
+import com.google.moviestvsentiments.model.SentimentType;
+import com.google.moviestvsentiments.service.web.WebService;
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+public class SentimentEventStreamTest {
+
+    private final List<SentimentEvent> events = new ArrayList<>();
+    private final SentimentEventStream stream = new SentimentEventStream(mock(WebService.class),
+            "accountName", events::add);
+
+    @Test
+    public void read_sentimentEvent_passesParsedEvent() throws Exception {
+        read("event:sentiment\ndata:{\"assetId\":\"id\",\"assetType\":\"MOVIE\","
+                + "\"sentimentType\":\"THUMBS_UP\",\"timestamp\":\"1970-01-01T00:00:05Z\","
+                + "\"deleted\":false}\n\n");
+
+        assertThat(events).containsExactly(SentimentEvent.create("id", AssetType.MOVIE,
+                SentimentType.THUMBS_UP, Instant.ofEpochSecond(5), false));
+    }
+
+    @Test
+    public void read_otherEvents_passesNothing() throws Exception {
+        read(":heartbeat\n\nevent:other\ndata:{}\n\n");
+
+        assertThat(events).isEmpty();
+    }
+
+    private void read(String body) throws Exception {
+        stream.read(new BufferedReader(new StringReader(body)));
+    }
+}
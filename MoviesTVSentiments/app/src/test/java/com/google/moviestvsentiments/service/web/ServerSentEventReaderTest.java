@@ -0,0 +1,54 @@
+package com.google.moviestvsentiments.service.web;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+public class ServerSentEventReaderTest {
+
+    @Test
+    public void read_namedEvent_passesNameAndData() throws Exception {
+        List<String> events = read("event:sentiment\ndata:{\"assetId\":\"id\"}\n\n");
+
+        assertThat(events).containsExactly("sentiment {\"assetId\":\"id\"}");
+    }
+
+    @Test
+    public void read_unnamedEvent_usesMessageName() throws Exception {
+        List<String> events = read("data: value\n\n");
+
+        assertThat(events).containsExactly("message value");
+    }
+
+    @Test
+    public void read_multipleDataLines_joinsWithNewlines() throws Exception {
+        List<String> events = read("data:first\ndata:second\n\n");
+
+        assertThat(events).containsExactly("message first\nsecond");
+    }
+
+    @Test
+    public void read_commentsOnly_passesNothing() throws Exception {
+        List<String> events = read(":heartbeat\n\n:heartbeat\n\n");
+
+        assertThat(events).isEmpty();
+    }
+
+    @Test
+    public void read_incompleteEvent_passesNothing() throws Exception {
+        List<String> events = read("data:first\n\ndata:second\n");
+
+        assertThat(events).containsExactly("message first");
+    }
+
+    private static List<String> read(String stream) throws Exception {
+        List<String> events = new ArrayList<>();
+        ServerSentEventReader.read(new BufferedReader(new StringReader(stream)),
+                (name, data) -> events.add(name + " " + data));
+        return events;
+    }
+}
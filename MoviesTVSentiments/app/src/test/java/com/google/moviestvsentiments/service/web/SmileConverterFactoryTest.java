@@ -0,0 +1,74 @@
+package com.google.moviestvsentiments.service.web;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.google.moviestvsentiments.model.Account;
+import java.lang.annotation.Annotation;
+import java.time.Instant;
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import org.junit.Test;
+import retrofit2.Converter;
+
+public class SmileConverterFactoryTest {
+
+    private static final Account ACCOUNT = Account.create("name", Instant.ofEpochSecond(1),
+            false, false);
+    private static final Annotation[] NO_ANNOTATIONS = new Annotation[0];
+
+    private final ObjectMapper smileMapper = createMapper(new ObjectMapper(new SmileFactory()));
+    private final ObjectMapper jsonMapper = createMapper(new ObjectMapper());
+    private final SmileConverterFactory factory = SmileConverterFactory.create(smileMapper,
+            jsonMapper);
+
+    @Test
+    public void requestBodyConverter_writesSmile() throws Exception {
+        Converter<Account, RequestBody> converter = (Converter<Account, RequestBody>)
+                factory.requestBodyConverter(Account.class, NO_ANNOTATIONS, NO_ANNOTATIONS, null);
+
+        RequestBody body = converter.convert(ACCOUNT);
+        Buffer buffer = new Buffer();
+        body.writeTo(buffer);
+
+        assertThat(body.contentType()).isEqualTo(SmileConverterFactory.SMILE_MEDIA_TYPE);
+        assertThat(smileMapper.readValue(buffer.readByteArray(), Account.class).name())
+                .isEqualTo(ACCOUNT.name());
+    }
+
+    @Test
+    public void responseBodyConverter_smileContentType_readsSmile() throws Exception {
+        Converter<ResponseBody, ?> converter = factory.responseBodyConverter(Account.class,
+                NO_ANNOTATIONS, null);
+        ResponseBody body = ResponseBody.create(SmileConverterFactory.SMILE_MEDIA_TYPE,
+                smileMapper.writeValueAsBytes(ACCOUNT));
+
+        Account account = (Account) converter.convert(body);
+
+        assertThat(account.name()).isEqualTo(ACCOUNT.name());
+        assertThat(account.timestamp()).isEqualTo(ACCOUNT.timestamp());
+    }
+
+    @Test
+    public void responseBodyConverter_jsonContentType_readsJson() throws Exception {
+        Converter<ResponseBody, ?> converter = factory.responseBodyConverter(Account.class,
+                NO_ANNOTATIONS, null);
+        ResponseBody body = ResponseBody.create(MediaType.get("application/json"),
+                jsonMapper.writeValueAsBytes(ACCOUNT));
+
+        Account account = (Account) converter.convert(body);
+
+        assertThat(account.name()).isEqualTo(ACCOUNT.name());
+    }
+
+    private static ObjectMapper createMapper(ObjectMapper mapper) {
+        mapper.registerModule(new JavaTimeModule());
+        mapper.configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
+        return mapper;
+    }
+}
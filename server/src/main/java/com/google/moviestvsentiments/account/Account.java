@@ -1,6 +1,8 @@
 package com.google.moviestvsentiments.account;
 
+import com.google.moviestvsentiments.catalog.CatalogChangeListener;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.Id;
 import java.time.Instant;
 import java.util.Objects;
@@ -9,6 +11,7 @@ import java.util.Objects;
  * A record in the accounts database table.
  */
 @Entity
+@EntityListeners(CatalogChangeListener.class)
 public class Account {
     
     @Id
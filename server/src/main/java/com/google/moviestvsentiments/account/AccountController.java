@@ -1,19 +1,30 @@
 package com.google.moviestvsentiments.account;
 
+import com.google.moviestvsentiments.assetSentiment.SentimentEventBroadcaster;
+import com.google.moviestvsentiments.catalog.CatalogVersion;
+import com.google.moviestvsentiments.recommendation.SimilarAccounts;
+import com.google.moviestvsentiments.web.JsonArrayStreamer;
 import java.time.Instant;
 import java.util.List;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.orm.jpa.JpaSystemException;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /**
  * A controller that handles requests related to accounts.
@@ -21,16 +32,104 @@ import org.springframework.web.bind.annotation.RestController;
 @RestController
 public class AccountController {
 
+    static final int MAX_SIMILAR_ACCOUNTS = 100;
+
     @Autowired
     private AccountRepository repository;
 
+    @Autowired
+    private CatalogVersion catalogVersion;
+
+    @Autowired
+    private JsonArrayStreamer jsonArrayStreamer;
+
+    @Autowired
+    private SimilarAccounts similarAccounts;
+
+    @Autowired
+    private SentimentEventBroadcaster sentimentEventBroadcaster;
+
     /**
-     * Returns a list of all accounts sorted in ascending order by account name.
+     * Returns a list of all accounts sorted in ascending order by account name. The response carries an ETag derived
+     * from the catalog version. If the If-None-Match header already contains that ETag, a 304 is returned without
+     * querying the database.
+     * @param ifNoneMatch The ETags of the responses cached by the client, or null.
+     * @return A ResponseEntity with the list of all accounts.
      */
     @GetMapping("/accounts")
-    public List<Account> getAccounts() {
+    public ResponseEntity<List<Account>> getAccounts(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH,
+            required = false) String ifNoneMatch) {
+        String eTag = catalogVersion.eTag("/accounts");
+        if (CatalogVersion.matches(ifNoneMatch, eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+
         Iterable<Account> accounts = repository.findAll(Sort.by("name"));
-        return StreamSupport.stream(accounts.spliterator(), false).collect(Collectors.toList());
+        return ResponseEntity.ok().eTag(eTag)
+                .body(StreamSupport.stream(accounts.spliterator(), false).collect(Collectors.toList()));
+    }
+
+    /**
+     * Returns the same list of accounts as getAccounts, but writes each account to the response as it is read from
+     * the database instead of building the whole list first. Selected with the stream=true request parameter. The
+     * list is written as JSON, Smile or CBOR, as the Accept header asks, and a request that accepts none of them gets a
+     * 406 response.
+     * @param ifNoneMatch The ETags of the responses cached by the client, or null.
+     * @param accept The media types accepted by the client, or null.
+     * @return A ResponseEntity that streams the list of all accounts.
+     */
+    @GetMapping(value = "/accounts", params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamAccounts(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH,
+            required = false) String ifNoneMatch, @RequestHeader(value = HttpHeaders.ACCEPT, required = false)
+            String accept) {
+        MediaType mediaType = jsonArrayStreamer.negotiate(accept);
+        if (mediaType == null) {
+            return ResponseEntity.status(HttpStatus.NOT_ACCEPTABLE).build();
+        }
+        String eTag = catalogVersion.eTag("/accounts", "stream", mediaType);
+        if (CatalogVersion.matches(ifNoneMatch, eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).varyBy(HttpHeaders.ACCEPT).build();
+        }
+
+        return ResponseEntity.ok().eTag(eTag).varyBy(HttpHeaders.ACCEPT).contentType(mediaType)
+                .body(jsonArrayStreamer.stream(mediaType, repository::streamAllByName));
+    }
+
+    /**
+     * Returns the accounts whose THUMBS_UP assets overlap most with those of the given account, in descending order of
+     * estimated Jaccard similarity. The accounts are found in the in-memory SimilarAccounts index without querying the
+     * database. An account without THUMBS_UP sentiments has no similar accounts. If the limit is invalid, an error
+     * message is returned.
+     * @param name The name of the account to find similar accounts for.
+     * @param limit The maximum number of SimilarAccounts to return.
+     * @return A ResponseEntity with either the list of SimilarAccounts or the error message.
+     */
+    @GetMapping("/accounts/{name}/similar")
+    public ResponseEntity getSimilarAccounts(@PathVariable("name") String name,
+                                             @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        if (limit < 1 || limit > MAX_SIMILAR_ACCOUNTS) {
+            return ResponseEntity.badRequest().body("limit must be between 1 and " + MAX_SIMILAR_ACCOUNTS);
+        }
+
+        return ResponseEntity.ok().body(similarAccounts.getSimilar(name, limit));
+    }
+
+    /**
+     * Opens a server-sent event stream of the given account's sentiment changes. Each event is named sentiment and
+     * carries a SentimentEvent as JSON. Events are sent once the write that made them commits, so every device of the
+     * account sees a change without fetching its assets again. A client that falls behind is disconnected and should
+     * fetch its assets before subscribing again. An account that already has the maximum number of streams open gets a
+     * 429.
+     * @param name The name of the account to stream changes for.
+     * @return The SseEmitter that the events are sent to.
+     */
+    @GetMapping(value = "/accounts/{name}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamSentimentEvents(@PathVariable("name") String name) {
+        SseEmitter emitter = sentimentEventBroadcaster.subscribe(name);
+        if (emitter == null) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).build();
+        }
+        return ResponseEntity.ok(emitter);
     }
 
     /**
@@ -55,19 +154,17 @@ public class AccountController {
     }
 
     /**
-     * Adds the given list of accounts into the database. If the accounts are added successfully, the list of
-     * successfully created accounts is returned. If the accounts cannot be added, an error message is returned.
+     * Adds the given list of accounts into the database with a single batch of upserts. An account that already exists
+     * keeps whichever timestamp is later. If the accounts are added successfully, the stored version of each account
+     * is returned. If the accounts cannot be added, an error message is returned.
      * @param accounts The list of accounts to add.
-     * @return A ResponseEntity with either the created accounts or the error message.
+     * @return A ResponseEntity with either the stored accounts or the error message.
      */
     @PostMapping("/accounts")
     public ResponseEntity addAccounts(@RequestBody List<Account> accounts) {
         try {
-            Iterable<Account> iterable = repository.saveAll(accounts);
-            List<Account> savedAccounts = StreamSupport.stream(iterable.spliterator(), false)
-                    .collect(Collectors.toList());
-            return ResponseEntity.ok().body(savedAccounts);
-        } catch (JpaSystemException e) {
+            return ResponseEntity.ok().body(repository.upsertAll(accounts));
+        } catch (JpaSystemException | DataIntegrityViolationException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage());
@@ -1,6 +1,19 @@
 package com.google.moviestvsentiments.account;
 
+import com.google.moviestvsentiments.web.JsonArrayStreamer;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.PagingAndSortingRepository;
+import javax.persistence.QueryHint;
+import java.util.stream.Stream;
 
-public interface AccountRepository extends PagingAndSortingRepository<Account, String> {
+public interface AccountRepository extends PagingAndSortingRepository<Account, String>, AccountUpsertRepository {
+
+    /**
+     * Returns a Stream of all accounts sorted in ascending order by name. Rows are fetched from the database as the
+     * Stream is consumed, so it must be read and closed inside a transaction.
+     */
+    @Query("SELECT account FROM Account account ORDER BY account.name")
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = JsonArrayStreamer.FETCH_SIZE))
+    Stream<Account> streamAllByName();
 }
@@ -0,0 +1,20 @@
+package com.google.moviestvsentiments.account;
+
+import java.util.List;
+
+/**
+ * Bulk writes of Accounts that bypass the select-before-insert of JPA merge. AccountRepository extends this interface.
+ */
+public interface AccountUpsertRepository {
+
+    /**
+     * Inserts or updates the given Accounts with a single batch of MERGE statements. For every name, whichever of the
+     * stored and the given Account has the later timestamp is kept, and ties go to the given one. If the list holds
+     * the same name more than once, only its latest Account is written. A CatalogChangeEvent is published for every
+     * Account that is written.
+     * @param accounts The Accounts to write.
+     * @return The Account that is stored for each distinct name after the write, in order of first appearance.
+     * @throws DataIntegrityViolationException If an Account has no name.
+     */
+    List<Account> upsertAll(List<Account> accounts);
+}
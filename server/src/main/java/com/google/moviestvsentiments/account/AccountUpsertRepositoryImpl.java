@@ -0,0 +1,102 @@
+package com.google.moviestvsentiments.account;
+
+import com.google.moviestvsentiments.catalog.CatalogChangeEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The JDBC implementation of AccountUpsertRepository, which Spring Data finds by its Impl suffix. The stored rows of
+ * the batch are read and locked with one query before the MERGE statements run, and the statements apply
+ * last-writer-wins themselves in case a concurrent write inserts one of the names in between.
+ */
+class AccountUpsertRepositoryImpl implements AccountUpsertRepository {
+
+    private static final String MERGE_ACCOUNT_SQL = "MERGE INTO account target USING (SELECT " +
+            "CAST(? AS VARCHAR) AS name, CAST(? AS TIMESTAMP) AS timestamp) source " +
+            "ON target.name = source.name " +
+            "WHEN MATCHED THEN UPDATE SET timestamp = CASE " +
+            "WHEN target.timestamp IS NULL OR source.timestamp >= target.timestamp THEN source.timestamp " +
+            "ELSE target.timestamp END " +
+            "WHEN NOT MATCHED THEN INSERT (name, timestamp) VALUES (source.name, source.timestamp)";
+    private static final String SELECT_STORED_SQL = "SELECT name, timestamp FROM account WHERE name IN (:names) " +
+            "FOR UPDATE";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Override
+    @Transactional
+    public List<Account> upsertAll(List<Account> accounts) {
+        Map<String, Account> latest = new LinkedHashMap<>();
+        for (Account account : accounts) {
+            if (account.getName() == null) {
+                throw new DataIntegrityViolationException("Accounts must have a name");
+            }
+            latest.merge(account.getName(), account, (first, second) ->
+                    replaces(second.getTimestamp(), first.getTimestamp()) ? second : first);
+        }
+        if (latest.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Map<String, Account> stored = new HashMap<>();
+        new NamedParameterJdbcTemplate(jdbcTemplate).query(SELECT_STORED_SQL,
+                Collections.singletonMap("names", latest.keySet()), (RowCallbackHandler) resultSet -> {
+                    Timestamp timestamp = resultSet.getTimestamp("timestamp");
+                    stored.put(resultSet.getString("name"), Account.create(resultSet.getString("name"),
+                            timestamp == null ? null : timestamp.toInstant()));
+                });
+
+        List<Account> results = new ArrayList<>();
+        List<Account> written = new ArrayList<>();
+        for (Account account : latest.values()) {
+            Account current = stored.get(account.getName());
+            if (current != null && !replaces(account.getTimestamp(), current.getTimestamp())) {
+                results.add(current);
+            } else {
+                results.add(account);
+                written.add(account);
+            }
+        }
+
+        // Rows are written in name order, so that concurrent batches lock shared rows in the same order.
+        written.sort(Comparator.comparing(Account::getName));
+        List<Object[]> rows = new ArrayList<>();
+        for (Account account : written) {
+            rows.add(new Object[] {account.getName(),
+                    account.getTimestamp() == null ? null : Timestamp.from(account.getTimestamp())});
+        }
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(MERGE_ACCOUNT_SQL, rows);
+        }
+        for (Account account : written) {
+            eventPublisher.publishEvent(CatalogChangeEvent.saved(account));
+        }
+        return results;
+    }
+
+    /**
+     * Returns true if a write with the incoming timestamp replaces a row with the current timestamp. This matches the
+     * condition of the MERGE statement.
+     */
+    private static boolean replaces(Instant incoming, Instant current) {
+        return current == null || (incoming != null && !incoming.isBefore(current));
+    }
+}
@@ -0,0 +1,120 @@
+package com.google.moviestvsentiments.assetSentiment;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.IntConsumer;
+
+/**
+ * The sentiments of one account, stored as a packed array of 2 bit codes indexed by asset ordinal. A code of 0 means
+ * the account has no UserSentiment for the asset, otherwise the code is the SentimentType ordinal plus one. Each
+ * account costs a quarter of a byte per asset in the catalog, and finding every asset with a given sentiment is a
+ * linear scan over 32 assets per word. Reads and writes are lock free.
+ */
+class AccountSentiments {
+
+    private static final int BITS_PER_CODE = 2;
+    private static final int CODES_PER_WORD = Long.SIZE / BITS_PER_CODE;
+    private static final long CODE_MASK = 0b11;
+    private static final long LOW_BITS = 0x5555555555555555L;
+    private static final SentimentType[] SENTIMENT_TYPES = SentimentType.values();
+
+    private final AtomicLongArray words;
+    private final int capacity;
+
+    AccountSentiments(int capacity) {
+        this.capacity = capacity;
+        words = new AtomicLongArray((capacity + CODES_PER_WORD - 1) / CODES_PER_WORD);
+    }
+
+    /**
+     * Returns the number of ordinals that this array can hold.
+     */
+    int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the sentiment for the given ordinal, or null if there is none.
+     */
+    SentimentType get(int ordinal) {
+        if (ordinal < 0 || ordinal >= capacity) {
+            return null;
+        }
+        int code = (int) (words.get(ordinal / CODES_PER_WORD) >>> shift(ordinal) & CODE_MASK);
+        return code == 0 ? null : SENTIMENT_TYPES[code - 1];
+    }
+
+    /**
+     * Sets the sentiment for the given ordinal. A null sentiment type removes it. Ordinals outside of the capacity are
+     * ignored.
+     */
+    void set(int ordinal, SentimentType sentimentType) {
+        if (ordinal < 0 || ordinal >= capacity) {
+            return;
+        }
+        long code = sentimentType == null ? 0 : sentimentType.ordinal() + 1;
+        int index = ordinal / CODES_PER_WORD;
+        int shift = shift(ordinal);
+        long current;
+        long updated;
+        do {
+            current = words.get(index);
+            updated = (current & ~(CODE_MASK << shift)) | (code << shift);
+        } while (!words.compareAndSet(index, current, updated));
+    }
+
+    /**
+     * Calls the consumer with every ordinal whose sentiment is the given type, in increasing order.
+     */
+    void forEach(SentimentType sentimentType, IntConsumer consumer) {
+        long pattern = (sentimentType.ordinal() + 1) * LOW_BITS;
+        for (int index = 0; index < words.length(); index++) {
+            // A code matches when both of its bits are equal to the pattern, which leaves both bits of x clear.
+            long x = words.get(index) ^ pattern;
+            long matches = ~(x | x >>> 1) & LOW_BITS;
+            while (matches != 0) {
+                int ordinal = index * CODES_PER_WORD + Long.numberOfTrailingZeros(matches) / BITS_PER_CODE;
+                if (ordinal < capacity) {
+                    consumer.accept(ordinal);
+                }
+                matches &= matches - 1;
+            }
+        }
+    }
+
+    /**
+     * Sets the bit of every ordinal whose sentiment is the given type in a bitset with 64 ordinals per word. If
+     * includeMissing is true, the bits of ordinals without a sentiment are set as well, including ordinals beyond the
+     * capacity that still fit in the bitset.
+     * @param sentimentType The sentiment type to match.
+     * @param includeMissing Whether ordinals without a sentiment also match.
+     * @param bits The bitset to set the matching bits in.
+     */
+    void collect(SentimentType sentimentType, boolean includeMissing, long[] bits) {
+        long pattern = (sentimentType.ordinal() + 1) * LOW_BITS;
+        for (int index = 0; index < bits.length * 2; index++) {
+            long word = index < words.length() ? words.get(index) : 0;
+            long x = word ^ pattern;
+            long matches = ~(x | x >>> 1) & LOW_BITS;
+            if (includeMissing) {
+                matches |= ~(word | word >>> 1) & LOW_BITS;
+            }
+            // Each word holds 32 codes, so its matches fill half of a bitset word.
+            bits[index / 2] |= compress(matches) << (index % 2 * CODES_PER_WORD);
+        }
+    }
+
+    /**
+     * Moves the even bits of the given value into its low 32 bits, keeping their order.
+     */
+    private static long compress(long x) {
+        x = (x | x >>> 1) & 0x3333333333333333L;
+        x = (x | x >>> 2) & 0x0F0F0F0F0F0F0F0FL;
+        x = (x | x >>> 4) & 0x00FF00FF00FF00FFL;
+        x = (x | x >>> 8) & 0x0000FFFF0000FFFFL;
+        return (x | x >>> 16) & 0x00000000FFFFFFFFL;
+    }
+
+    private static int shift(int ordinal) {
+        return (ordinal % CODES_PER_WORD) * BITS_PER_CODE;
+    }
+}
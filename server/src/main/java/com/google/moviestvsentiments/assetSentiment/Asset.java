@@ -1,17 +1,32 @@
 package com.google.moviestvsentiments.assetSentiment;
 
+import com.google.moviestvsentiments.catalog.CatalogChangeListener;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.Id;
 import javax.persistence.IdClass;
+import javax.persistence.Index;
 import javax.persistence.Lob;
+import javax.persistence.Table;
 import java.io.Serializable;
 import java.time.Instant;
 import java.util.Objects;
 
 /**
- * A record in the assets database table.
+ * A record in the assets database table. The indexes lead with the asset type because every query filters on it: one
+ * serves the per-type lists and their keyset pages in asset id order, one serves the delta sync, and one per numeric
+ * field serves the lists that are sorted and range-filtered by that field.
  */
 @Entity
+@EntityListeners(CatalogChangeListener.class)
+@Table(indexes = {
+        @Index(name = "idx_asset_type_id", columnList = "assetType, assetId"),
+        @Index(name = "idx_asset_type_timestamp", columnList = "assetType, timestamp"),
+        @Index(name = "idx_asset_type_imdb_score", columnList = "assetType, imdbScore, assetId"),
+        @Index(name = "idx_asset_type_rotten_tomatoes_score", columnList = "assetType, rottenTomatoesScore, assetId"),
+        @Index(name = "idx_asset_type_runtime_minutes", columnList = "assetType, runtimeMinutes, assetId"),
+        @Index(name = "idx_asset_type_start_year", columnList = "assetType, startYear, assetId")
+})
 @IdClass(Asset.AssetCompositeKey.class)
 public class Asset {
 
@@ -73,6 +88,13 @@ public class Asset {
     private String year;
     private Instant timestamp;
 
+    // Parsed from the display strings above by updateNumericFields. Null when the string has no value.
+    private Double imdbScore;
+    private Integer rottenTomatoesScore;
+    private Integer runtimeMinutes;
+    private Integer startYear;
+    private Integer endYear;
+
     /**
      * Returns the asset id.
      */
@@ -237,4 +259,77 @@ public class Asset {
     public void setTimestamp(Instant timestamp) {
         this.timestamp = timestamp;
     }
+
+    /**
+     * Returns the asset's imdb rating as a number from 0 to 10, or null if it has none.
+     */
+    public Double getImdbScore() {
+        return imdbScore;
+    }
+
+    /**
+     * Returns the asset's rotten tomatoes rating as a percentage, or null if it has none.
+     */
+    public Integer getRottenTomatoesScore() {
+        return rottenTomatoesScore;
+    }
+
+    /**
+     * Returns the asset's runtime in minutes, or null if it is unknown.
+     */
+    public Integer getRuntimeMinutes() {
+        return runtimeMinutes;
+    }
+
+    /**
+     * Returns the year the asset was released, or the first year that a show aired, or null if it is unknown.
+     */
+    public Integer getStartYear() {
+        return startYear;
+    }
+
+    /**
+     * Returns the last year that the asset aired, which is the release year for a movie, or null if it is unknown or
+     * the show is still airing.
+     */
+    public Integer getEndYear() {
+        return endYear;
+    }
+
+    /**
+     * Returns a copy of the asset with the given banner image URL. The copy is not managed by JPA, so it can be
+     * written without the asset it was copied from also being written when the persistence context is flushed.
+     * @param banner The banner image URL of the copy.
+     */
+    public Asset withBanner(String banner) {
+        Asset copy = new Asset();
+        copy.assetId = assetId;
+        copy.assetType = assetType;
+        copy.title = title;
+        copy.poster = poster;
+        copy.banner = banner;
+        copy.imdbRating = imdbRating;
+        copy.rottenTomatoesRating = rottenTomatoesRating;
+        copy.plot = plot;
+        copy.runtime = runtime;
+        copy.year = year;
+        copy.timestamp = timestamp;
+        copy.imdbScore = imdbScore;
+        copy.rottenTomatoesScore = rottenTomatoesScore;
+        copy.runtimeMinutes = runtimeMinutes;
+        copy.startYear = startYear;
+        copy.endYear = endYear;
+        return copy;
+    }
+
+    /**
+     * Sets the numeric fields of the asset by parsing its imdb rating, rotten tomatoes rating, runtime and year.
+     */
+    public void updateNumericFields() {
+        imdbScore = AssetFieldParser.parseImdbScore(imdbRating);
+        rottenTomatoesScore = AssetFieldParser.parseRottenTomatoesScore(rottenTomatoesRating);
+        runtimeMinutes = AssetFieldParser.parseRuntimeMinutes(runtime);
+        startYear = AssetFieldParser.parseStartYear(year);
+        endYear = AssetFieldParser.parseEndYear(year);
+    }
 }
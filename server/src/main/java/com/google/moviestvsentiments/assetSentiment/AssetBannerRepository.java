@@ -0,0 +1,22 @@
+package com.google.moviestvsentiments.assetSentiment;
+
+import java.util.List;
+
+/**
+ * Bulk updates of Asset banner image URLs that bypass the select-before-update of JPA merge. AssetSentimentRepository
+ * extends this interface.
+ */
+public interface AssetBannerRepository {
+
+    /**
+     * Sets the banner column of each given Asset with a single batch of UPDATE statements. The timestamp column, and
+     * the timestamp of each given Asset, are set to the current time, so that clients syncing with /assets/changes
+     * receive the new banners. The other columns are not written. A CatalogChangeEvent is published for every Asset
+     * that is updated. The Assets should not be managed by
+     * JPA, such as copies made with Asset.withBanner, since a managed Asset with a changed banner would also be written
+     * and published by JPA when the persistence context is flushed.
+     * @param assets The Assets to update, with their new banner image URLs.
+     * @return The Assets that were not updated, because they are not stored.
+     */
+    List<Asset> updateBanners(List<Asset> assets);
+}
@@ -0,0 +1,58 @@
+package com.google.moviestvsentiments.assetSentiment;
+
+import com.google.moviestvsentiments.catalog.CatalogChangeEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The JDBC implementation of AssetBannerRepository, which Spring Data finds by its Impl suffix.
+ */
+class AssetBannerRepositoryImpl implements AssetBannerRepository {
+
+    private static final String UPDATE_BANNER_SQL = "UPDATE asset SET banner = ?, timestamp = ? " +
+            "WHERE asset_type = ? AND asset_id = ?";
+    // Rows are updated in key order, so that concurrent batches lock shared rows in the same order.
+    private static final Comparator<Asset> KEY_ORDER = Comparator.comparing(Asset::getAssetType)
+            .thenComparing(Asset::getAssetId);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Override
+    @Transactional
+    public List<Asset> updateBanners(List<Asset> assets) {
+        List<Asset> skipped = new ArrayList<>();
+        if (assets.isEmpty()) {
+            return skipped;
+        }
+        List<Asset> sorted = new ArrayList<>(assets);
+        sorted.sort(KEY_ORDER);
+        Instant now = Instant.now();
+        List<Object[]> rows = new ArrayList<>();
+        for (Asset asset : sorted) {
+            asset.setTimestamp(now);
+            rows.add(new Object[] {asset.getBanner(), Timestamp.from(now), asset.getAssetType().ordinal(),
+                    asset.getAssetId()});
+        }
+
+        int[] counts = jdbcTemplate.batchUpdate(UPDATE_BANNER_SQL, rows);
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                eventPublisher.publishEvent(CatalogChangeEvent.saved(sorted.get(i)));
+            } else {
+                skipped.add(sorted.get(i));
+            }
+        }
+        return skipped;
+    }
+}
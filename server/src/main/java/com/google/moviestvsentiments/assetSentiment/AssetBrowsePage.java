@@ -0,0 +1,56 @@
+package com.google.moviestvsentiments.assetSentiment;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A page of browse results along with the total number of matching assets and the facet counts. The count of a
+ * bucket is the number of assets that would match if the filters of its own facet were replaced by that bucket, so
+ * clients can show how many results every other choice would give.
+ */
+public class AssetBrowsePage {
+
+    private final List<AssetSentimentSummary> assetSentiments;
+    private final int total;
+    private final Map<AssetFacet, Map<String, Integer>> facets;
+
+    private AssetBrowsePage(List<AssetSentimentSummary> assetSentiments, int total,
+                            Map<AssetFacet, Map<String, Integer>> facets) {
+        this.assetSentiments = assetSentiments;
+        this.total = total;
+        this.facets = facets;
+    }
+
+    /**
+     * Creates a new AssetBrowsePage.
+     * @param assetSentiments The AssetSentimentSummaries on the page.
+     * @param total The number of assets that match the filters.
+     * @param facets The count of every bucket, by facet and bucket key.
+     * @return A new AssetBrowsePage with the given contents.
+     */
+    public static AssetBrowsePage create(List<AssetSentimentSummary> assetSentiments, int total,
+                                         Map<AssetFacet, Map<String, Integer>> facets) {
+        return new AssetBrowsePage(assetSentiments, total, facets);
+    }
+
+    /**
+     * Returns the AssetSentimentSummaries on the page.
+     */
+    public List<AssetSentimentSummary> getAssetSentiments() {
+        return assetSentiments;
+    }
+
+    /**
+     * Returns the number of assets that match the filters, on this page and every other.
+     */
+    public int getTotal() {
+        return total;
+    }
+
+    /**
+     * Returns the count of every bucket, by facet and bucket key.
+     */
+    public Map<AssetFacet, Map<String, Integer>> getFacets() {
+        return facets;
+    }
+}
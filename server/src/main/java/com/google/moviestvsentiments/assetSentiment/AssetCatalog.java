@@ -0,0 +1,404 @@
+package com.google.moviestvsentiments.assetSentiment;
+
+import com.google.moviestvsentiments.catalog.CatalogChangeEvent;
+import com.google.moviestvsentiments.catalog.CatalogVersion;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * An in-memory copy of the assets table that serves AssetSentiment lists without querying the database. Assets are
+ * held in an immutable snapshot that is replaced as a whole by rebuild, and are addressed by the dense ordinals of a
+ * global AssetOrdinals dictionary. Each account's sentiments are loaded into a packed AccountSentiments array the
+ * first time the account is requested and are then kept up to date from committed writes, up to a maximum number of
+ * accounts after which the least recently used account is dropped. Each snapshot also holds FacetBitsets over the
+ * ordinals, which browse intersects with an account's sentiments. Every rebuild publishes an AssetCatalogRebuiltEvent
+ * with the Assets that changed. The CatalogVersion is incremented once a write or rebuild has been applied, so that
+ * an ETag derived from the new version never describes data the catalog does not serve yet.
+ */
+@Service
+public class AssetCatalog {
+
+    /**
+     * An immutable view of every Asset, indexed by ordinal and grouped by type.
+     */
+    private static class Snapshot {
+        private final AssetOrdinals ordinals;
+        private final Asset[] assetsByOrdinal;
+        // The ordinals of each asset type, sorted by asset id.
+        private final int[][] ordinalsByType;
+        private final int assetCount;
+        private final FacetBitsets facets;
+
+        private Snapshot(AssetOrdinals ordinals, Asset[] assetsByOrdinal, int[][] ordinalsByType, int assetCount,
+                         FacetBitsets facets) {
+            this.ordinals = ordinals;
+            this.assetsByOrdinal = assetsByOrdinal;
+            this.ordinalsByType = ordinalsByType;
+            this.assetCount = assetCount;
+            this.facets = facets;
+        }
+    }
+
+    /**
+     * The loads in progress for one account, and the number of writes to the account since they started.
+     */
+    private static class PendingLoad {
+        private int loaders;
+        private long writes;
+    }
+
+    private static final AssetFacet[] FACETS = AssetFacet.values();
+
+    private final AssetSentimentRepository assetSentimentRepository;
+    private final UserSentimentRepository userSentimentRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CatalogVersion catalogVersion;
+    // Guards sentimentsByAccount and pendingLoads. Only map operations run under it, never a database query.
+    private final Object accountsLock = new Object();
+    private final Map<String, AccountSentiments> sentimentsByAccount;
+    private final Map<String, PendingLoad> pendingLoads = new HashMap<>();
+    private final Counter overlayHits;
+    private final Counter overlayMisses;
+    private final Timer rebuildTimer;
+    private volatile Snapshot snapshot;
+
+    public AssetCatalog(AssetSentimentRepository assetSentimentRepository,
+                        UserSentimentRepository userSentimentRepository, ApplicationEventPublisher eventPublisher,
+                        CatalogVersion catalogVersion, MeterRegistry meterRegistry,
+                        @Value("${catalog.max-accounts:10000}") int maxAccounts) {
+        this.assetSentimentRepository = assetSentimentRepository;
+        this.userSentimentRepository = userSentimentRepository;
+        this.eventPublisher = eventPublisher;
+        this.catalogVersion = catalogVersion;
+        sentimentsByAccount = new LinkedHashMap<String, AccountSentiments>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, AccountSentiments> eldest) {
+                return size() > maxAccounts;
+            }
+        };
+        overlayHits = meterRegistry.counter("catalog.overlay.requests", "result", "hit");
+        overlayMisses = meterRegistry.counter("catalog.overlay.requests", "result", "miss");
+        rebuildTimer = meterRegistry.timer("catalog.rebuild");
+        Gauge.builder("catalog.overlay.hit.ratio", this, AssetCatalog::getOverlayHitRatio).register(meterRegistry);
+        Gauge.builder("catalog.assets", this, AssetCatalog::getAssetCount).register(meterRegistry);
+    }
+
+    /**
+     * Reloads every Asset from the database and atomically replaces the current snapshot. Readers that already hold
+     * the previous snapshot finish with it. Ordinals of existing assets are kept, so loaded account sentiments stay
+     * valid. Once the snapshot is replaced, the CatalogVersion is incremented and an AssetCatalogRebuiltEvent is
+     * published to the listeners synchronously.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        Snapshot previous = snapshot;
+        rebuildTimer.record(() -> {
+            List<Asset> assets = new ArrayList<>();
+            assetSentimentRepository.findAll().forEach(assets::add);
+            AssetOrdinals ordinals = (previous == null ? AssetOrdinals.empty() : previous.ordinals).withAssets(assets);
+
+            Asset[] assetsByOrdinal = new Asset[ordinals.size()];
+            List<List<Asset>> assetsByType = new ArrayList<>();
+            for (AssetType ignored : AssetType.values()) {
+                assetsByType.add(new ArrayList<>());
+            }
+            for (Asset asset : assets) {
+                assetsByOrdinal[ordinals.get(asset.getAssetId(), asset.getAssetType())] = asset;
+                assetsByType.get(asset.getAssetType().ordinal()).add(asset);
+            }
+
+            int[][] ordinalsByType = new int[AssetType.values().length][];
+            for (AssetType assetType : AssetType.values()) {
+                List<Asset> typeAssets = assetsByType.get(assetType.ordinal());
+                typeAssets.sort(Comparator.comparing(Asset::getAssetId));
+                ordinalsByType[assetType.ordinal()] = typeAssets.stream()
+                        .mapToInt(asset -> ordinals.get(asset.getAssetId(), assetType)).toArray();
+            }
+            snapshot = new Snapshot(ordinals, assetsByOrdinal, ordinalsByType, assets.size(),
+                    FacetBitsets.build(assetsByOrdinal));
+        });
+        catalogVersion.increment();
+        eventPublisher.publishEvent(changesSince(previous, snapshot));
+    }
+
+    /**
+     * Returns a list of AssetSentiments that match the given AssetType, account name and SentimentType. If the
+     * sentiment type is UNSPECIFIED, assets that the account has not reacted to are also returned, with a null
+     * UserSentiment. This matches the results of the AssetSentimentRepository queries, except that the returned
+     * UserSentiments do not carry a timestamp.
+     * @param assetType The type of Asset to match.
+     * @param accountName The name of the account to use when checking for user sentiments.
+     * @param sentimentType The type of user sentiment to match.
+     * @return A list of matching AssetSentiments.
+     */
+    public List<AssetSentiment> getAssets(AssetType assetType, String accountName, SentimentType sentimentType) {
+        Snapshot current = getSnapshot();
+        AccountSentiments sentiments = getSentiments(accountName, current);
+
+        List<AssetSentiment> assetSentiments = new ArrayList<>();
+        if (sentimentType == SentimentType.UNSPECIFIED) {
+            for (int ordinal : current.ordinalsByType[assetType.ordinal()]) {
+                SentimentType accountSentiment = sentiments.get(ordinal);
+                if (accountSentiment == null) {
+                    assetSentiments.add(new AssetSentiment(current.assetsByOrdinal[ordinal]));
+                } else if (accountSentiment == SentimentType.UNSPECIFIED) {
+                    assetSentiments.add(createAssetSentiment(current.assetsByOrdinal[ordinal], accountName,
+                            SentimentType.UNSPECIFIED));
+                }
+            }
+            return assetSentiments;
+        }
+
+        sentiments.forEach(sentimentType, ordinal -> {
+            Asset asset = ordinal < current.assetsByOrdinal.length ? current.assetsByOrdinal[ordinal] : null;
+            if (asset != null && asset.getAssetType() == assetType) {
+                assetSentiments.add(createAssetSentiment(asset, accountName, sentimentType));
+            }
+        });
+        assetSentiments.sort(Comparator.comparing(assetSentiment -> assetSentiment.getAsset().getAssetId()));
+        return assetSentiments;
+    }
+
+    /**
+     * Returns a page of the assets that match the given account name, SentimentType and facet filters, ordered by
+     * asset type and then by asset id, along with the facet counts of every bucket. An asset matches a facet's filter
+     * if it is in any of the selected buckets, and a facet without selected buckets does not filter. Sentiment types
+     * are matched the same way as in getAssets.
+     * @param accountName The name of the account to use when checking for user sentiments.
+     * @param sentimentType The type of user sentiment to match.
+     * @param filters The selected bucket keys of each facet. Every key must be one of the facet's keys.
+     * @param offset The number of matching assets to skip.
+     * @param limit The maximum number of assets on the page.
+     * @return The AssetBrowsePage for the given filters.
+     */
+    public AssetBrowsePage browse(String accountName, SentimentType sentimentType,
+                                  Map<AssetFacet, List<String>> filters, int offset, int limit) {
+        Snapshot current = getSnapshot();
+        AccountSentiments sentiments = getSentiments(accountName, current);
+        FacetBitsets bitsets = current.facets;
+
+        long[] candidates = new long[bitsets.wordCount()];
+        sentiments.collect(sentimentType, sentimentType == SentimentType.UNSPECIFIED, candidates);
+        FacetBitsets.intersect(candidates, bitsets.assets());
+
+        long[][] selections = new long[FACETS.length][];
+        for (Map.Entry<AssetFacet, List<String>> filter : filters.entrySet()) {
+            AssetFacet facet = filter.getKey();
+            if (!filter.getValue().isEmpty()) {
+                selections[facet.ordinal()] = bitsets.union(facet, filter.getValue().stream()
+                        .mapToInt(key -> bucketIndex(facet, key)).toArray());
+            }
+        }
+
+        Map<AssetFacet, Map<String, Integer>> facetCounts = new EnumMap<>(AssetFacet.class);
+        for (AssetFacet facet : FACETS) {
+            // Each facet is counted with the filters of the other facets only, so its other buckets are counted too.
+            long[] others = candidates.clone();
+            for (AssetFacet other : FACETS) {
+                if (other != facet && selections[other.ordinal()] != null) {
+                    FacetBitsets.intersect(others, selections[other.ordinal()]);
+                }
+            }
+            Map<String, Integer> counts = new LinkedHashMap<>();
+            for (int bucket = 0; bucket < facet.getKeys().size(); bucket++) {
+                counts.put(facet.getKeys().get(bucket),
+                        FacetBitsets.countIntersection(others, bitsets.bucket(facet, bucket)));
+            }
+            facetCounts.put(facet, counts);
+        }
+
+        long[] matches = candidates;
+        for (long[] selection : selections) {
+            if (selection != null) {
+                FacetBitsets.intersect(matches, selection);
+            }
+        }
+        int total = FacetBitsets.countIntersection(matches, matches);
+
+        List<AssetSentimentSummary> page = new ArrayList<>();
+        int skipped = 0;
+        for (int[] typeOrdinals : current.ordinalsByType) {
+            for (int ordinal : typeOrdinals) {
+                if (page.size() == limit) {
+                    break;
+                }
+                if ((matches[ordinal >>> 6] & 1L << ordinal) == 0) {
+                    continue;
+                }
+                if (skipped < offset) {
+                    skipped++;
+                    continue;
+                }
+                Asset asset = current.assetsByOrdinal[ordinal];
+                SentimentType accountSentiment = sentiments.get(ordinal);
+                page.add(new AssetSentimentSummary(AssetSummary.of(asset), accountSentiment == null ? null
+                        : UserSentiment.create(accountName, asset.getAssetId(), asset.getAssetType(),
+                        accountSentiment, null)));
+            }
+        }
+        return AssetBrowsePage.create(page, total, facetCounts);
+    }
+
+    /**
+     * Returns the Asset with the given id and type, or null if it is not in the catalog.
+     * @param assetId The id of the Asset.
+     * @param assetType The type of the Asset.
+     * @return The matching Asset or null.
+     */
+    public Asset getAsset(String assetId, AssetType assetType) {
+        Snapshot current = getSnapshot();
+        int ordinal = current.ordinals.get(assetId, assetType);
+        return ordinal < 0 ? null : current.assetsByOrdinal[ordinal];
+    }
+
+    /**
+     * Applies a committed UserSentiment write to the in-memory sentiments of its account, if they have been loaded.
+     * Accounts that have not been loaded yet will read the write from the database when they are first requested, and
+     * loads that are in progress are retried. The CatalogVersion is incremented once the write is applied.
+     * @param event The event describing the write.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChange(CatalogChangeEvent event) {
+        if (!(event.getEntity() instanceof UserSentiment)) {
+            return;
+        }
+
+        UserSentiment sentiment = (UserSentiment) event.getEntity();
+        int ordinal = getSnapshot().ordinals.get(sentiment.getAssetId(), sentiment.getAssetType());
+        SentimentType sentimentType = event.isDeleted() ? null : sentiment.getSentimentType();
+        synchronized (accountsLock) {
+            PendingLoad pending = pendingLoads.get(sentiment.getAccountName());
+            if (pending != null) {
+                pending.writes++;
+            }
+            AccountSentiments sentiments = sentimentsByAccount.get(sentiment.getAccountName());
+            if (sentiments != null) {
+                sentiments.set(ordinal, sentimentType);
+            }
+        }
+        catalogVersion.increment();
+    }
+
+    /**
+     * Returns the fraction of requests whose account sentiments were already in memory.
+     */
+    public double getOverlayHitRatio() {
+        double hits = overlayHits.count();
+        double total = hits + overlayMisses.count();
+        return total == 0 ? 0 : hits / total;
+    }
+
+    /**
+     * Returns the number of Assets in the current snapshot.
+     */
+    public int getAssetCount() {
+        Snapshot current = snapshot;
+        return current == null ? 0 : current.assetCount;
+    }
+
+    private Snapshot getSnapshot() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            rebuild();
+            current = snapshot;
+        }
+        return current;
+    }
+
+    private static int bucketIndex(AssetFacet facet, String key) {
+        int bucket = facet.indexOf(key);
+        if (bucket < 0) {
+            throw new IllegalArgumentException("Unknown " + facet + " bucket: " + key);
+        }
+        return bucket;
+    }
+
+    private static AssetCatalogRebuiltEvent changesSince(Snapshot previous, Snapshot current) {
+        List<Asset> updatedAssets = new ArrayList<>();
+        List<Asset> removedAssets = new ArrayList<>();
+        for (int ordinal = 0; ordinal < current.assetsByOrdinal.length; ordinal++) {
+            Asset asset = current.assetsByOrdinal[ordinal];
+            Asset previousAsset = previous == null || ordinal >= previous.assetsByOrdinal.length
+                    ? null : previous.assetsByOrdinal[ordinal];
+            if (asset != null && (previousAsset == null
+                    || !Objects.equals(asset.getTimestamp(), previousAsset.getTimestamp()))) {
+                updatedAssets.add(asset);
+            } else if (asset == null && previousAsset != null) {
+                removedAssets.add(previousAsset);
+            }
+        }
+        return new AssetCatalogRebuiltEvent(updatedAssets, removedAssets);
+    }
+
+    private AccountSentiments getSentiments(String accountName, Snapshot current) {
+        PendingLoad pending;
+        synchronized (accountsLock) {
+            AccountSentiments sentiments = sentimentsByAccount.get(accountName);
+            // Sentiments loaded before the catalog grew can not hold the new ordinals, so they are loaded again.
+            if (sentiments != null && sentiments.capacity() >= current.ordinals.size()) {
+                overlayHits.increment();
+                return sentiments;
+            }
+            pending = pendingLoads.computeIfAbsent(accountName, ignored -> new PendingLoad());
+            pending.loaders++;
+        }
+        overlayMisses.increment();
+
+        try {
+            while (true) {
+                long writes;
+                synchronized (accountsLock) {
+                    writes = pending.writes;
+                }
+                AccountSentiments loaded = loadSentiments(accountName, current);
+                synchronized (accountsLock) {
+                    AccountSentiments existing = sentimentsByAccount.get(accountName);
+                    if (existing != null && existing.capacity() >= current.ordinals.size()) {
+                        return existing;
+                    }
+                    // A write that committed during the query may be missing from it, so the load is retried.
+                    if (pending.writes == writes) {
+                        sentimentsByAccount.put(accountName, loaded);
+                        return loaded;
+                    }
+                }
+            }
+        } finally {
+            synchronized (accountsLock) {
+                if (--pending.loaders == 0) {
+                    pendingLoads.remove(accountName);
+                }
+            }
+        }
+    }
+
+    private AccountSentiments loadSentiments(String accountName, Snapshot current) {
+        AccountSentiments sentiments = new AccountSentiments(current.ordinals.size());
+        for (UserSentiment sentiment : userSentimentRepository.getSentimentsForAccount(accountName)) {
+            sentiments.set(current.ordinals.get(sentiment.getAssetId(), sentiment.getAssetType()),
+                    sentiment.getSentimentType());
+        }
+        return sentiments;
+    }
+
+    private static AssetSentiment createAssetSentiment(Asset asset, String accountName, SentimentType sentimentType) {
+        return new AssetSentiment(asset, UserSentiment.create(accountName, asset.getAssetId(), asset.getAssetType(),
+                sentimentType, null));
+    }
+}
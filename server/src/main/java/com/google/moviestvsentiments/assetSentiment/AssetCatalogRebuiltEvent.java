@@ -0,0 +1,34 @@
+package com.google.moviestvsentiments.assetSentiment;
+
+import java.util.List;
+
+/**
+ * Published by the AssetCatalog after it replaces its snapshot. The event lists the Assets that are new or whose
+ * timestamp changed since the previous snapshot, and the Assets that are no longer in the catalog, so that indexes
+ * derived from the catalog can be updated without reading every Asset again. The first snapshot lists every Asset
+ * as updated.
+ */
+public class AssetCatalogRebuiltEvent {
+
+    private final List<Asset> updatedAssets;
+    private final List<Asset> removedAssets;
+
+    public AssetCatalogRebuiltEvent(List<Asset> updatedAssets, List<Asset> removedAssets) {
+        this.updatedAssets = updatedAssets;
+        this.removedAssets = removedAssets;
+    }
+
+    /**
+     * Returns the Assets that were added to the catalog or whose timestamp changed.
+     */
+    public List<Asset> getUpdatedAssets() {
+        return updatedAssets;
+    }
+
+    /**
+     * Returns the Assets of the previous snapshot that are no longer in the catalog.
+     */
+    public List<Asset> getRemovedAssets() {
+        return removedAssets;
+    }
+}
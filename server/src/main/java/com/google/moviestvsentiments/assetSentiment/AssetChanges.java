@@ -0,0 +1,90 @@
+package com.google.moviestvsentiments.assetSentiment;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * The Assets, UserSentiments and Tombstones that changed after a client's watermark, along with the watermark that
+ * the client should send with its next request.
+ */
+public class AssetChanges {
+
+    private final List<Asset> assets;
+    private final List<UserSentiment> sentiments;
+    private final List<Tombstone> tombstones;
+    private final Instant watermark;
+
+    private AssetChanges(List<Asset> assets, List<UserSentiment> sentiments, List<Tombstone> tombstones,
+                         Instant watermark) {
+        this.assets = assets;
+        this.sentiments = sentiments;
+        this.tombstones = tombstones;
+        this.watermark = watermark;
+    }
+
+    /**
+     * Creates a new AssetChanges from the given changes. The new watermark is the latest server write time among the
+     * changes, or the previous watermark if nothing changed. UserSentiments contribute the time the server wrote them,
+     * not the timestamp their client assigned.
+     *
+     * <p>Write times are taken before their transactions commit, so a row can become visible after a later write time
+     * has already been returned. The watermark is therefore never moved past maxWatermark, which callers set to the
+     * query start minus the longest expected commit lag. Rows written between maxWatermark and the query are sent
+     * again with the next request, which clients apply idempotently, instead of being skipped.
+     * @param assets The Assets that changed.
+     * @param sentiments The UserSentiments that changed.
+     * @param tombstones The Tombstones of deleted Assets and UserSentiments.
+     * @param since The watermark that the changes were requested with.
+     * @param maxWatermark The latest watermark that can be returned, unless since is already later.
+     * @return A new AssetChanges with the given changes.
+     */
+    public static AssetChanges create(List<Asset> assets, List<UserSentiment> sentiments, List<Tombstone> tombstones,
+                                      Instant since, Instant maxWatermark) {
+        Instant watermark = since;
+        for (Asset asset : assets) {
+            watermark = latest(watermark, asset.getTimestamp());
+        }
+        for (UserSentiment sentiment : sentiments) {
+            watermark = latest(watermark, sentiment.getChangedAt());
+        }
+        for (Tombstone tombstone : tombstones) {
+            watermark = latest(watermark, tombstone.getTimestamp());
+        }
+        if (watermark.isAfter(maxWatermark)) {
+            watermark = latest(since, maxWatermark);
+        }
+        return new AssetChanges(assets, sentiments, tombstones, watermark);
+    }
+
+    private static Instant latest(Instant current, Instant candidate) {
+        return candidate != null && candidate.isAfter(current) ? candidate : current;
+    }
+
+    /**
+     * Returns the Assets that were added or updated.
+     */
+    public List<Asset> getAssets() {
+        return assets;
+    }
+
+    /**
+     * Returns the UserSentiments that were added or updated.
+     */
+    public List<UserSentiment> getSentiments() {
+        return sentiments;
+    }
+
+    /**
+     * Returns the Tombstones of deleted Assets and UserSentiments.
+     */
+    public List<Tombstone> getTombstones() {
+        return tombstones;
+    }
+
+    /**
+     * Returns the watermark to send with the next request for changes.
+     */
+    public Instant getWatermark() {
+        return watermark;
+    }
+}
@@ -0,0 +1,69 @@
+package com.google.moviestvsentiments.assetSentiment;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * An opaque position in a list of assets ordered by asset type and asset id. Clients receive cursors as encoded
+ * strings and pass them back unchanged to fetch the next page of results.
+ */
+public class AssetCursor {
+
+    private static final String SEPARATOR = ":";
+
+    private final AssetType assetType;
+    private final String assetId;
+
+    private AssetCursor(AssetType assetType, String assetId) {
+        this.assetType = assetType;
+        this.assetId = assetId;
+    }
+
+    /**
+     * Creates a new AssetCursor that points at the given asset.
+     * @param assetType The type of the last asset on the current page.
+     * @param assetId The id of the last asset on the current page.
+     * @return A new AssetCursor pointing at the given asset.
+     */
+    public static AssetCursor create(AssetType assetType, String assetId) {
+        return new AssetCursor(assetType, assetId);
+    }
+
+    /**
+     * Decodes a cursor that was previously returned by encode.
+     * @param encoded The encoded cursor.
+     * @return The decoded AssetCursor.
+     * @throws IllegalArgumentException If the encoded string is not a valid cursor.
+     */
+    public static AssetCursor decode(String encoded) {
+        String decoded = new String(Base64.getUrlDecoder().decode(encoded), StandardCharsets.UTF_8);
+        int separatorPosition = decoded.indexOf(SEPARATOR);
+        if (separatorPosition < 0) {
+            throw new IllegalArgumentException("Invalid cursor: " + encoded);
+        }
+        AssetType assetType = AssetType.valueOf(decoded.substring(0, separatorPosition));
+        return new AssetCursor(assetType, decoded.substring(separatorPosition + 1));
+    }
+
+    /**
+     * Returns the cursor as an opaque, URL safe string.
+     */
+    public String encode() {
+        byte[] bytes = (assetType.name() + SEPARATOR + assetId).getBytes(StandardCharsets.UTF_8);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    /**
+     * Returns the type of the asset that the cursor points at.
+     */
+    public AssetType getAssetType() {
+        return assetType;
+    }
+
+    /**
+     * Returns the id of the asset that the cursor points at.
+     */
+    public String getAssetId() {
+        return assetId;
+    }
+}
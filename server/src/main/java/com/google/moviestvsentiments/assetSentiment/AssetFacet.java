@@ -0,0 +1,73 @@
+package com.google.moviestvsentiments.assetSentiment;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+/**
+ * The fields that assets can be browsed by. Each facet splits the assets into a fixed list of buckets, identified by
+ * key, and every asset falls into at most one bucket of each facet. Assets without a value for a numeric field are in
+ * none of its buckets.
+ */
+public enum AssetFacet {
+    TYPE(keys(AssetType.values()), asset -> asset.getAssetType().ordinal()),
+    YEAR(Arrays.asList("before-1970", "1970s", "1980s", "1990s", "2000s", "2010s", "2020s"),
+            asset -> bucket(asset.getStartYear(), 1970, 1980, 1990, 2000, 2010, 2020)),
+    RATING(Arrays.asList("under-5", "5-6", "6-7", "7-8", "8-9", "9-10"),
+            asset -> bucket(asset.getImdbScore(), 5, 6, 7, 8, 9)),
+    RUNTIME(Arrays.asList("under-30", "30-60", "60-90", "90-120", "120-150", "over-150"),
+            asset -> bucket(asset.getRuntimeMinutes(), 30, 60, 90, 120, 150));
+
+    private final List<String> keys;
+    private final ToIntFunction<Asset> bucketFunction;
+
+    AssetFacet(List<String> keys, ToIntFunction<Asset> bucketFunction) {
+        this.keys = Collections.unmodifiableList(keys);
+        this.bucketFunction = bucketFunction;
+    }
+
+    /**
+     * Returns the keys of the facet's buckets, in bucket order.
+     */
+    public List<String> getKeys() {
+        return keys;
+    }
+
+    /**
+     * Returns the index of the bucket with the given key, or -1 if the facet has no such bucket.
+     */
+    public int indexOf(String key) {
+        return keys.indexOf(key);
+    }
+
+    /**
+     * Returns the index of the bucket that the given Asset falls into, or -1 if it has no value for the facet.
+     */
+    int bucketOf(Asset asset) {
+        return bucketFunction.applyAsInt(asset);
+    }
+
+    private static List<String> keys(AssetType[] assetTypes) {
+        String[] keys = new String[assetTypes.length];
+        for (AssetType assetType : assetTypes) {
+            keys[assetType.ordinal()] = assetType.name();
+        }
+        return Arrays.asList(keys);
+    }
+
+    /**
+     * Returns the number of bounds that are not greater than the given value, which is the index of its bucket when
+     * the first bucket holds every value below the first bound.
+     */
+    private static int bucket(Number value, int... bounds) {
+        if (value == null) {
+            return -1;
+        }
+        int bucket = 0;
+        while (bucket < bounds.length && value.doubleValue() >= bounds[bucket]) {
+            bucket++;
+        }
+        return bucket;
+    }
+}
@@ -0,0 +1,74 @@
+package com.google.moviestvsentiments.assetSentiment;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Parses the display strings that OMDB returns for an Asset into numbers that can be sorted and range-filtered.
+ * Values that are missing or not in the expected format, such as "N/A", are parsed as null.
+ */
+public final class AssetFieldParser {
+
+    // Matches "8.5" and "10".
+    private static final Pattern DECIMAL = Pattern.compile("^\\s*(\\d+(?:\\.\\d+)?)");
+    // Matches the leading number of "93%" and "142 min".
+    private static final Pattern INTEGER = Pattern.compile("^\\s*(\\d+)");
+    // Matches "2008", "2008-2013" and "2011-". OMDB separates the years with an en dash, and a hyphen is also accepted.
+    private static final Pattern YEARS = Pattern.compile("^\\s*(\\d{4})(?:\\s*([\\u2013-])\\s*(\\d{4})?)?");
+
+    private AssetFieldParser() {}
+
+    /**
+     * Parses an IMDB rating such as "8.5".
+     */
+    public static Double parseImdbScore(String imdbRating) {
+        Matcher matcher = match(DECIMAL, imdbRating);
+        return matcher == null ? null : Double.valueOf(matcher.group(1));
+    }
+
+    /**
+     * Parses a Rotten Tomatoes rating such as "93%" into a percentage.
+     */
+    public static Integer parseRottenTomatoesScore(String rottenTomatoesRating) {
+        Matcher matcher = match(INTEGER, rottenTomatoesRating);
+        return matcher == null ? null : Integer.valueOf(matcher.group(1));
+    }
+
+    /**
+     * Parses a runtime such as "142 min" into minutes.
+     */
+    public static Integer parseRuntimeMinutes(String runtime) {
+        Matcher matcher = match(INTEGER, runtime);
+        return matcher == null ? null : Integer.valueOf(matcher.group(1));
+    }
+
+    /**
+     * Parses the first year of a year or year range, such as 2008 for "2008" and "2008-2013".
+     */
+    public static Integer parseStartYear(String year) {
+        Matcher matcher = match(YEARS, year);
+        return matcher == null ? null : Integer.valueOf(matcher.group(1));
+    }
+
+    /**
+     * Parses the last year of a year or year range, such as 2008 for "2008" and 2013 for "2008-2013". An open
+     * range such as "2011-", for a show that is still running, has no end year and is parsed as null.
+     */
+    public static Integer parseEndYear(String year) {
+        Matcher matcher = match(YEARS, year);
+        if (matcher == null) {
+            return null;
+        } else if (matcher.group(3) != null) {
+            return Integer.valueOf(matcher.group(3));
+        }
+        return matcher.group(2) == null ? Integer.valueOf(matcher.group(1)) : null;
+    }
+
+    private static Matcher match(Pattern pattern, String value) {
+        if (value == null) {
+            return null;
+        }
+        Matcher matcher = pattern.matcher(value);
+        return matcher.find() ? matcher : null;
+    }
+}
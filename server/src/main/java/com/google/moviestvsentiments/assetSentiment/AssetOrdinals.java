@@ -0,0 +1,107 @@
+package com.google.moviestvsentiments.assetSentiment;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A dictionary that gives every (assetId, assetType) pair a dense int ordinal. Ordinals are assigned in order of
+ * first appearance and never change, so arrays indexed by ordinal stay valid as the catalog grows. IMDB ids of the
+ * form tt1234567 are encoded into a single long and looked up without allocating. Instances are immutable; withAssets
+ * returns a new dictionary that extends this one.
+ */
+class AssetOrdinals {
+
+    private static final String IMDB_PREFIX = "tt";
+    private static final int MAX_IMDB_DIGITS = 15;
+
+    private final LongIntHashMap imdbOrdinals;
+    private final Map<Asset.AssetCompositeKey, Integer> otherOrdinals;
+    private final int size;
+
+    private AssetOrdinals(LongIntHashMap imdbOrdinals, Map<Asset.AssetCompositeKey, Integer> otherOrdinals, int size) {
+        this.imdbOrdinals = imdbOrdinals;
+        this.otherOrdinals = otherOrdinals;
+        this.size = size;
+    }
+
+    /**
+     * Returns an empty dictionary.
+     */
+    static AssetOrdinals empty() {
+        return new AssetOrdinals(new LongIntHashMap(0), new HashMap<>(), 0);
+    }
+
+    /**
+     * Returns a dictionary with every ordinal of this one plus new ordinals for the given assets that do not have one.
+     * @param assets The assets to assign ordinals to.
+     * @return A new AssetOrdinals containing the given assets.
+     */
+    AssetOrdinals withAssets(Iterable<Asset> assets) {
+        int expectedSize = size;
+        for (Asset ignored : assets) {
+            expectedSize++;
+        }
+        LongIntHashMap newImdbOrdinals = imdbOrdinals.copy(expectedSize);
+        Map<Asset.AssetCompositeKey, Integer> newOtherOrdinals = new HashMap<>(otherOrdinals);
+        int newSize = size;
+        for (Asset asset : assets) {
+            long encoded = encode(asset.getAssetId(), asset.getAssetType());
+            if (encoded >= 0) {
+                if (newImdbOrdinals.get(encoded) < 0) {
+                    newImdbOrdinals.put(encoded, newSize++);
+                }
+            } else {
+                Asset.AssetCompositeKey key = new Asset.AssetCompositeKey(asset.getAssetId(), asset.getAssetType());
+                if (!newOtherOrdinals.containsKey(key)) {
+                    newOtherOrdinals.put(key, newSize++);
+                }
+            }
+        }
+        return new AssetOrdinals(newImdbOrdinals, newOtherOrdinals, newSize);
+    }
+
+    /**
+     * Returns the ordinal of the given asset, or -1 if it is not in the dictionary.
+     * @param assetId The id of the asset.
+     * @param assetType The type of the asset.
+     * @return The asset's ordinal or -1.
+     */
+    int get(String assetId, AssetType assetType) {
+        long encoded = encode(assetId, assetType);
+        if (encoded >= 0) {
+            return imdbOrdinals.get(encoded);
+        }
+        Integer ordinal = otherOrdinals.get(new Asset.AssetCompositeKey(assetId, assetType));
+        return ordinal == null ? -1 : ordinal;
+    }
+
+    /**
+     * Returns the number of ordinals in the dictionary. Every ordinal is less than the size.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Encodes an IMDB id and asset type into a non-negative long, or returns -1 if the id is not an IMDB id. The
+     * digit count is kept so that ids that only differ in leading zeros stay distinct.
+     * @param assetId The id of the asset.
+     * @param assetType The type of the asset.
+     * @return The encoded key or -1.
+     */
+    static long encode(String assetId, AssetType assetType) {
+        int digits = assetId.length() - IMDB_PREFIX.length();
+        if (!assetId.startsWith(IMDB_PREFIX) || digits < 1 || digits > MAX_IMDB_DIGITS) {
+            return -1;
+        }
+        long number = 0;
+        for (int i = IMDB_PREFIX.length(); i < assetId.length(); i++) {
+            char c = assetId.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            number = number * 10 + (c - '0');
+        }
+        return ((number << 4 | digits) << 2) | assetType.ordinal();
+    }
+}
@@ -0,0 +1,38 @@
+package com.google.moviestvsentiments.assetSentiment;
+
+/**
+ * An Asset summary together with the number of THUMBS_UP and THUMBS_DOWN sentiments that it has received.
+ */
+public class AssetPopularity {
+
+    private final AssetSummary asset;
+    private final long thumbsUp;
+    private final long thumbsDown;
+
+    public AssetPopularity(AssetSummary asset, long thumbsUp, long thumbsDown) {
+        this.asset = asset;
+        this.thumbsUp = thumbsUp;
+        this.thumbsDown = thumbsDown;
+    }
+
+    /**
+     * Returns the summary of the asset.
+     */
+    public AssetSummary getAsset() {
+        return asset;
+    }
+
+    /**
+     * Returns the number of THUMBS_UP sentiments for the asset.
+     */
+    public long getThumbsUp() {
+        return thumbsUp;
+    }
+
+    /**
+     * Returns the number of THUMBS_DOWN sentiments for the asset.
+     */
+    public long getThumbsDown() {
+        return thumbsDown;
+    }
+}
@@ -1,18 +1,36 @@
 package com.google.moviestvsentiments.assetSentiment;
 
+import com.google.moviestvsentiments.catalog.CatalogVersion;
+import com.google.moviestvsentiments.web.JsonArrayStreamer;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.orm.jpa.JpaSystemException;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 
 /**
  * A controller that handles requests related to Assets and UserSentiments.
@@ -20,38 +38,359 @@ import java.util.stream.StreamSupport;
 @RestController
 public class AssetSentimentController {
 
+    static final int MAX_PAGE_SIZE = 500;
+
     @Autowired
     private AssetSentimentRepository assetSentimentRepository;
 
     @Autowired
     private UserSentimentRepository userSentimentRepository;
 
+    @Autowired
+    private TombstoneRepository tombstoneRepository;
+
+    @Autowired
+    private AssetCatalog assetCatalog;
+
+    @Autowired
+    private CatalogVersion catalogVersion;
+
+    @Autowired
+    private JsonArrayStreamer jsonArrayStreamer;
+
+    @Autowired
+    private SentimentCounters sentimentCounters;
+
+    @Autowired
+    private TrendingScores trendingScores;
+
+    @Autowired
+    private DeferredSentimentWriter deferredSentimentWriter;
+
+    @Autowired
+    private SentimentJournal sentimentJournal;
+
+    @Value("${sentiments.changes.commit-lag-ms:5000}")
+    private long commitLagMillis;
+
+    @Value("${sentiments.tombstones.retention:P30D}")
+    private Duration tombstoneRetention;
+
     /**
-     * Returns a list of AssetSentiments that match the given AssetType, account name and SentimentType.
+     * Returns a list of AssetSentiments that match the given AssetType, account name and SentimentType. The list is
+     * served from the in-memory AssetCatalog. The response carries an ETag derived from the catalog version. If the
+     * If-None-Match header already contains that ETag, a 304 is returned without reading the catalog.
      * @param assetType The type of Asset to match.
      * @param accountName The name of the account to use when checking for user sentiments.
      * @param sentimentType The type of user sentiment to match.
-     * @return A list of matching AssetSentiments.
+     * @param ifNoneMatch The ETags of the responses cached by the client, or null.
+     * @return A ResponseEntity with the list of matching AssetSentiments.
      */
     @GetMapping("/assets")
-    public List<AssetSentiment> getAssets(@RequestParam("assetType") AssetType assetType,
+    public ResponseEntity<List<AssetSentiment>> getAssets(@RequestParam("assetType") AssetType assetType,
                                           @RequestParam("accountName") String accountName,
-                                          @RequestParam("sentimentType") SentimentType sentimentType) {
-        List<AssetSentiment> withReaction = assetSentimentRepository.getAssetsWithSentiment(assetType, accountName,
-                sentimentType);
-        if (sentimentType != SentimentType.UNSPECIFIED) {
-            return withReaction;
+                                          @RequestParam("sentimentType") SentimentType sentimentType,
+                                          @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+                                                  String ifNoneMatch) {
+        String eTag = catalogVersion.eTag("/assets", assetType, accountName, sentimentType);
+        if (CatalogVersion.matches(ifNoneMatch, eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
         }
 
-        List<AssetSentiment> withoutReaction = assetSentimentRepository.getAssetsWithoutSentiment(assetType, accountName);
-        withReaction.addAll(withoutReaction);
-        return withReaction;
+        List<AssetSentiment> assets = assetCatalog.getAssets(assetType, accountName, sentimentType);
+        return ResponseEntity.ok().eTag(eTag).body(assets);
+    }
+
+    /**
+     * Returns the same AssetSentiments as getAssets, but reads them from the database and writes each one to the
+     * response as it is read, instead of building the whole list in memory. The results are ordered by asset id.
+     * Selected with the stream=true request parameter. The list is written as JSON, Smile or CBOR, as the Accept header
+     * asks, and a request that accepts none of them gets a 406 response.
+     * @param assetType The type of Asset to match.
+     * @param accountName The name of the account to use when checking for user sentiments.
+     * @param sentimentType The type of user sentiment to match.
+     * @param ifNoneMatch The ETags of the responses cached by the client, or null.
+     * @param accept The media types accepted by the client, or null.
+     * @return A ResponseEntity that streams the matching AssetSentiments.
+     */
+    @GetMapping(value = "/assets", params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamAssets(
+            @RequestParam("assetType") AssetType assetType, @RequestParam("accountName") String accountName,
+            @RequestParam("sentimentType") SentimentType sentimentType,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        MediaType mediaType = jsonArrayStreamer.negotiate(accept);
+        if (mediaType == null) {
+            return ResponseEntity.status(HttpStatus.NOT_ACCEPTABLE).build();
+        }
+        String eTag = catalogVersion.eTag("/assets", assetType, accountName, sentimentType, "stream", mediaType);
+        if (CatalogVersion.matches(ifNoneMatch, eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).varyBy(HttpHeaders.ACCEPT).build();
+        }
+
+        StreamingResponseBody body;
+        if (sentimentType == SentimentType.UNSPECIFIED) {
+            body = jsonArrayStreamer.stream(mediaType, () ->
+                    assetSentimentRepository.streamAssetsWithUnspecifiedSentiment(assetType, accountName));
+        } else {
+            body = jsonArrayStreamer.stream(mediaType, () ->
+                    assetSentimentRepository.streamAssetsWithSentiment(assetType, accountName, sentimentType));
+        }
+        return ResponseEntity.ok().eTag(eTag).varyBy(HttpHeaders.ACCEPT).contentType(mediaType).body(body);
+    }
+
+    /**
+     * Returns AssetSentimentSummaries that match the given AssetType, account name and SentimentType, sorted by a
+     * numeric field and optionally limited to a range of its values. The list is read from the database through the
+     * field's index, so only the requested rows are read. Assets without a value for the field are left out. Selected
+     * with the sort request parameter. If the limit or range is invalid, an error message is returned.
+     * @param assetType The type of Asset to match.
+     * @param accountName The name of the account to use when checking for user sentiments.
+     * @param sentimentType The type of user sentiment to match.
+     * @param sort The field to sort and filter by.
+     * @param direction The direction to sort in, ASC or DESC.
+     * @param min The smallest value of the field to include, or null for no lower bound.
+     * @param max The largest value of the field to include, or null for no upper bound.
+     * @param limit The maximum number of AssetSentimentSummaries to return.
+     * @return A ResponseEntity with either the sorted list of AssetSentimentSummaries or the error message.
+     */
+    @GetMapping(value = "/assets", params = "sort")
+    public ResponseEntity getSortedAssets(@RequestParam("assetType") AssetType assetType,
+                                          @RequestParam("accountName") String accountName,
+                                          @RequestParam("sentimentType") SentimentType sentimentType,
+                                          @RequestParam("sort") AssetSortField sort,
+                                          @RequestParam(value = "direction", defaultValue = "DESC")
+                                                  Sort.Direction direction,
+                                          @RequestParam(value = "min", required = false) Double min,
+                                          @RequestParam(value = "max", required = false) Double max,
+                                          @RequestParam(value = "limit", defaultValue = "50") int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().body("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        if (min != null && max != null && min > max) {
+            return ResponseEntity.badRequest().body("min must not be greater than max");
+        }
+
+        return ResponseEntity.ok().body(assetSentimentRepository.getSortedAssets(assetType, accountName,
+                sentimentType, sort, direction, min, max, limit));
+    }
+
+    /**
+     * Rejects requests that ask for both a sorted and a streamed list. The sorted list is read through an index and
+     * limited, so it is never streamed. Mapping both parameters here keeps the request from matching getSortedAssets
+     * and streamAssets equally well.
+     * @return A ResponseEntity with the error message.
+     */
+    @GetMapping(value = "/assets", params = {"sort", "stream=true"})
+    public ResponseEntity rejectSortedStream() {
+        return ResponseEntity.badRequest().body("sort can not be combined with stream=true");
+    }
+
+    /**
+     * Returns the Assets of the given type, and the given account's UserSentiments for them, that changed after the
+     * given watermark, along with Tombstones for the ones that were deleted. Clients keep the returned watermark and
+     * send it with their next request, so that a refresh only transfers what changed. UserSentiments are compared by
+     * the time the server wrote them, not the timestamps that clients assigned when reacting, so that a client with a
+     * skewed clock can not write behind another client's watermark. The returned watermark trails the request by
+     * sentiments.changes.commit-lag-ms, so that a write stamped before a slow commit is not skipped. Tombstones are
+     * pruned after sentiments.tombstones.retention, so a watermark older than that, other than the epoch, gets a 410
+     * and the client has to sync again from the epoch.
+     * @param assetType The type of Asset to return changes for.
+     * @param accountName The name of the account to return UserSentiment changes for.
+     * @param since The watermark returned by the previous request, or the epoch for a full sync.
+     * @return A ResponseEntity with the AssetChanges after the given watermark, or the error message.
+     */
+    @GetMapping("/assets/changes")
+    public ResponseEntity getChanges(@RequestParam("assetType") AssetType assetType,
+                                     @RequestParam("accountName") String accountName,
+                                     @RequestParam("since") Instant since) {
+        Instant queryStart = Instant.now();
+        if (since.isAfter(Instant.EPOCH) && since.isBefore(queryStart.minus(tombstoneRetention))) {
+            return ResponseEntity.status(HttpStatus.GONE)
+                    .body("The watermark is older than the tombstone retention, sync again from the epoch");
+        }
+        List<Asset> assets = assetSentimentRepository.getAssetsChangedSince(assetType, since);
+        List<UserSentiment> sentiments = userSentimentRepository.getSentimentsChangedSince(accountName, assetType,
+                since);
+        List<Tombstone> tombstones = tombstoneRepository.getTombstonesSince(assetType, accountName, since);
+        return ResponseEntity.ok(AssetChanges.create(assets, sentiments, tombstones, since,
+                queryStart.minusMillis(commitLagMillis)));
+    }
+
+    /**
+     * Returns a page of AssetSentimentSummaries that match the given AssetType, account name and SentimentType, ordered
+     * by asset id. The summaries leave out the banner and plot of each asset, which can be fetched with getAsset. The
+     * first page is requested without a cursor and each following page is requested with the nextCursor
+     * of the page before it. If the limit or cursor is invalid, an error message is returned.
+     * @param assetType The type of Asset to match.
+     * @param accountName The name of the account to use when checking for user sentiments.
+     * @param sentimentType The type of user sentiment to match.
+     * @param limit The maximum number of AssetSentimentSummaries to return.
+     * @param cursor The cursor returned with the previous page, or null for the first page.
+     * @return A ResponseEntity with either the AssetSentimentPage or the error message.
+     */
+    @GetMapping("/assets/page")
+    public ResponseEntity getAssetPage(@RequestParam("assetType") AssetType assetType,
+                                       @RequestParam("accountName") String accountName,
+                                       @RequestParam("sentimentType") SentimentType sentimentType,
+                                       @RequestParam(value = "limit", defaultValue = "50") int limit,
+                                       @RequestParam(value = "cursor", required = false) String cursor) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().body("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+
+        String afterAssetId = "";
+        if (cursor != null) {
+            try {
+                AssetCursor assetCursor = AssetCursor.decode(cursor);
+                if (assetCursor.getAssetType() != assetType) {
+                    return ResponseEntity.badRequest().body("cursor does not match assetType " + assetType);
+                }
+                afterAssetId = assetCursor.getAssetId();
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body("Invalid cursor: " + cursor);
+            }
+        }
+
+        Pageable pageable = PageRequest.of(0, limit);
+        Slice<AssetSentimentSummary> slice;
+        if (sentimentType == SentimentType.UNSPECIFIED) {
+            slice = assetSentimentRepository.getAssetsWithUnspecifiedSentimentAfter(assetType, accountName,
+                    afterAssetId, pageable);
+        } else {
+            slice = assetSentimentRepository.getAssetsWithSentimentAfter(assetType, accountName, sentimentType,
+                    afterAssetId, pageable);
+        }
+
+        List<AssetSentimentSummary> assetSentiments = slice.getContent();
+        String nextCursor = null;
+        if (slice.hasNext() && !assetSentiments.isEmpty()) {
+            AssetSummary last = assetSentiments.get(assetSentiments.size() - 1).getAsset();
+            nextCursor = AssetCursor.create(last.getAssetType(), last.getAssetId()).encode();
+        }
+        return ResponseEntity.ok().body(AssetSentimentPage.create(assetSentiments, nextCursor));
+    }
+
+    /**
+     * Returns a page of the assets that match the given account name, SentimentType and facet filters, along with the
+     * total number of matches and the count of every facet bucket. Each facet parameter can be repeated to select
+     * several of its buckets. The filters and counts are computed from the AssetCatalog's in-memory facet bitsets. If
+     * a bucket key, the offset or the limit is invalid, an error message is returned.
+     * @param accountName The name of the account to use when checking for user sentiments.
+     * @param sentimentType The type of user sentiment to match.
+     * @param assetTypes The AssetTypes to include, or null for every type.
+     * @param years The YEAR buckets to include, or null for every year.
+     * @param ratings The RATING buckets to include, or null for every rating.
+     * @param runtimes The RUNTIME buckets to include, or null for every runtime.
+     * @param offset The number of matching assets to skip.
+     * @param limit The maximum number of AssetSentimentSummaries to return.
+     * @return A ResponseEntity with either the AssetBrowsePage or the error message.
+     */
+    @GetMapping("/assets/browse")
+    public ResponseEntity browseAssets(@RequestParam("accountName") String accountName,
+                                       @RequestParam("sentimentType") SentimentType sentimentType,
+                                       @RequestParam(value = "assetType", required = false) List<String> assetTypes,
+                                       @RequestParam(value = "year", required = false) List<String> years,
+                                       @RequestParam(value = "rating", required = false) List<String> ratings,
+                                       @RequestParam(value = "runtime", required = false) List<String> runtimes,
+                                       @RequestParam(value = "offset", defaultValue = "0") int offset,
+                                       @RequestParam(value = "limit", defaultValue = "50") int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().body("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        if (offset < 0) {
+            return ResponseEntity.badRequest().body("offset must not be negative");
+        }
+
+        Map<AssetFacet, List<String>> filters = new EnumMap<>(AssetFacet.class);
+        filters.put(AssetFacet.TYPE, assetTypes);
+        filters.put(AssetFacet.YEAR, years);
+        filters.put(AssetFacet.RATING, ratings);
+        filters.put(AssetFacet.RUNTIME, runtimes);
+        filters.values().removeIf(Objects::isNull);
+        for (Map.Entry<AssetFacet, List<String>> filter : filters.entrySet()) {
+            for (String key : filter.getValue()) {
+                if (filter.getKey().indexOf(key) < 0) {
+                    return ResponseEntity.badRequest().body("Unknown " + filter.getKey() + " bucket: " + key +
+                            ", expected one of " + filter.getKey().getKeys());
+                }
+            }
+        }
+
+        return ResponseEntity.ok().body(assetCatalog.browse(accountName, sentimentType, filters, offset, limit));
+    }
+
+    /**
+     * Returns the most popular assets of the given type, ranked by their number of THUMBS_UP sentiments minus their
+     * number of THUMBS_DOWN sentiments. The ranking is served from the in-memory SentimentCounters and does not query
+     * the user sentiments table. If the limit is invalid, an error message is returned.
+     * @param assetType The type of Asset to rank.
+     * @param limit The maximum number of AssetPopularities to return.
+     * @return A ResponseEntity with either the list of AssetPopularities or the error message.
+     */
+    @GetMapping("/assets/popular")
+    public ResponseEntity getPopularAssets(@RequestParam("assetType") AssetType assetType,
+                                           @RequestParam(value = "limit", defaultValue = "20") int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().body("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+
+        List<AssetPopularity> popular = new ArrayList<>();
+        for (SentimentCount count : sentimentCounters.getPopular(assetType, limit)) {
+            Asset asset = assetCatalog.getAsset(count.getAssetId(), count.getAssetType());
+            if (asset != null) {
+                popular.add(new AssetPopularity(AssetSummary.of(asset), count.getThumbsUp(), count.getThumbsDown()));
+            }
+        }
+        return ResponseEntity.ok().body(popular);
+    }
+
+    /**
+     * Returns the trending assets of the given type. Each THUMBS_UP counts for and each THUMBS_DOWN counts against an
+     * asset, decayed exponentially by the age of its timestamp. The ranking is maintained in memory as sentiments
+     * are written. If the limit is invalid, an error message is returned.
+     * @param assetType The type of Asset to rank.
+     * @param limit The maximum number of TrendingAssets to return.
+     * @return A ResponseEntity with either the list of TrendingAssets or the error message.
+     */
+    @GetMapping("/assets/trending")
+    public ResponseEntity getTrendingAssets(@RequestParam("assetType") AssetType assetType,
+                                            @RequestParam(value = "limit", defaultValue = "20") int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().body("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+
+        List<TrendingAsset> trending = new ArrayList<>();
+        for (AssetTrend trend : trendingScores.getTrending(assetType, limit)) {
+            Asset asset = assetCatalog.getAsset(trend.getAssetId(), trend.getAssetType());
+            if (asset != null) {
+                trending.add(new TrendingAsset(AssetSummary.of(asset), trend.getScore()));
+            }
+        }
+        return ResponseEntity.ok().body(trending);
+    }
+
+    /**
+     * Returns the full Asset with the given type and id, including its banner and plot. If no such Asset exists, a not
+     * found response is returned.
+     * @param assetType The type of the Asset.
+     * @param assetId The id of the Asset.
+     * @return A ResponseEntity with the matching Asset.
+     */
+    @GetMapping("/asset/{assetType}/{assetId}")
+    public ResponseEntity<Asset> getAsset(@PathVariable("assetType") AssetType assetType,
+                                          @PathVariable("assetId") String assetId) {
+        Optional<Asset> asset = assetSentimentRepository.findById(new Asset.AssetCompositeKey(assetId, assetType));
+        return asset.map(value -> ResponseEntity.ok().body(value)).orElse(ResponseEntity.notFound().build());
     }
 
     /**
-     * Inserts or replaces the UserSentiment with the given fields into the user sentiments table. If the UserSentiment
-     * is saved successfully, the saved version is returned. If the user sentiment cannot be saved, an error message is
-     * returned.
+     * Inserts or replaces the UserSentiment with the given fields into the user sentiments table, and returns the
+     * stored version. As for a batch update, the stored row is locked while it is read and a stored sentiment with a
+     * later timestamp is kept, so concurrent writes to the same sentiment adjust the counts once each. If the user
+     * sentiment cannot be saved, an error message is returned. In write-behind mode, the UserSentiment is queued in the
+     * DeferredSentimentWriter instead, and in journal mode it is appended to the SentimentJournal. Both return an
+     * accepted response before it is saved.
      * @param accountName The name of the account associated with the UserSentiment.
      * @param assetId The id of the asset associated with the UserSentiment.
      * @param assetType The type of the asset associated with the UserSentiment.
@@ -65,9 +404,13 @@ public class AssetSentimentController {
                                           @RequestParam Instant timestamp) {
         try {
             UserSentiment userSentiment = UserSentiment.create(accountName, assetId, assetType, sentimentType, timestamp);
-            userSentiment = userSentimentRepository.save(userSentiment);
+            if (deferredSentimentWriter.enqueue(userSentiment)
+                    || sentimentJournal.append(Collections.singletonList(userSentiment))) {
+                return ResponseEntity.accepted().body(userSentiment);
+            }
+            userSentiment = userSentimentRepository.upsertAll(Collections.singletonList(userSentiment)).get(0);
             return ResponseEntity.ok().body(userSentiment);
-        } catch (JpaSystemException e) {
+        } catch (JpaSystemException | DataIntegrityViolationException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage());
@@ -75,20 +418,23 @@ public class AssetSentimentController {
     }
 
     /**
-     * Updates the given list of UserSentiments in the database and returns the list of successfully updated
-     * UserSentiments. If a UserSentiment does not already exist in the database, then it will be added. If the
-     * UserSentiments can not be saved, then an error message is returned.
+     * Updates the given list of UserSentiments in the database with a single batch of upserts, and returns the stored
+     * version of each UserSentiment. If a UserSentiment does not already exist in the database, then it will be added.
+     * If it does, the one with the later timestamp is kept, so a stale update from an offline client does not replace
+     * a newer one. If the UserSentiments can not be saved, then an error message is returned. In journal mode, the
+     * UserSentiments are appended to the SentimentJournal instead, and an accepted response with the given
+     * UserSentiments is returned before they are saved.
      * @param sentiments The list of UserSentiments to update.
-     * @return A ResponseEntity with either the updated UserSentiments or the error message.
+     * @return A ResponseEntity with either the stored UserSentiments or the error message.
      */
     @PutMapping("/sentiments")
     public ResponseEntity updateSentiments(@RequestBody List<UserSentiment> sentiments) {
         try {
-            Iterable<UserSentiment> iterable = userSentimentRepository.saveAll(sentiments);
-            List<UserSentiment> savedSentiments = StreamSupport.stream(iterable.spliterator(), false)
-                    .collect(Collectors.toList());
-            return ResponseEntity.ok().body(savedSentiments);
-        } catch (JpaSystemException e) {
+            if (sentimentJournal.append(sentiments)) {
+                return ResponseEntity.accepted().body(sentiments);
+            }
+            return ResponseEntity.ok().body(userSentimentRepository.upsertAll(sentiments));
+        } catch (JpaSystemException | DataIntegrityViolationException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage());
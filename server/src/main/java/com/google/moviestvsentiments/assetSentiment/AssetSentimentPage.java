@@ -0,0 +1,41 @@
+package com.google.moviestvsentiments.assetSentiment;
+
+import java.util.List;
+
+/**
+ * A page of AssetSentimentSummaries along with the cursor for the following page.
+ */
+public class AssetSentimentPage {
+
+    private final List<AssetSentimentSummary> assetSentiments;
+    private final String nextCursor;
+
+    private AssetSentimentPage(List<AssetSentimentSummary> assetSentiments, String nextCursor) {
+        this.assetSentiments = assetSentiments;
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Creates a new AssetSentimentPage.
+     * @param assetSentiments The AssetSentimentSummaries on the page.
+     * @param nextCursor The encoded cursor for the next page, or null if this is the last page.
+     * @return A new AssetSentimentPage with the given contents.
+     */
+    public static AssetSentimentPage create(List<AssetSentimentSummary> assetSentiments, String nextCursor) {
+        return new AssetSentimentPage(assetSentiments, nextCursor);
+    }
+
+    /**
+     * Returns the AssetSentimentSummaries on the page.
+     */
+    public List<AssetSentimentSummary> getAssetSentiments() {
+        return assetSentiments;
+    }
+
+    /**
+     * Returns the encoded cursor for the next page, or null if there are no more pages.
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
@@ -1,14 +1,22 @@
 package com.google.moviestvsentiments.assetSentiment;
 
+import com.google.moviestvsentiments.web.JsonArrayStreamer;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.data.repository.query.Param;
+import javax.persistence.QueryHint;
+import java.time.Instant;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * A Repository that provides functions for accessing AssetSentiment objects.
  */
-public interface AssetSentimentRepository extends PagingAndSortingRepository<Asset, Asset.AssetCompositeKey> {
+public interface AssetSentimentRepository extends PagingAndSortingRepository<Asset, Asset.AssetCompositeKey>,
+        SortedAssetRepository, AssetBannerRepository {
 
     /**
      * Returns a list of Assets that have a null banner image URL.
@@ -34,18 +42,137 @@ public interface AssetSentimentRepository extends PagingAndSortingRepository<Ass
                                                 @Param("sentimentType") SentimentType sentimentType);
 
     /**
-     * Returns a list of assets that have not been reacted to by the given account name and therefore have no matching
-     * user sentiment record. The returned AssetSentiment objects have a null UserSentiment field.
+     * Returns a list of AssetSentiments for every asset of the given type that the given account has not reacted to.
+     * This includes assets with an UNSPECIFIED user sentiment and assets with no matching user sentiment record, which
+     * have a null UserSentiment field. The sentiments are matched with a single left outer join so the assets table is
+     * only scanned once.
      * @param assetType The type of asset to include in the results.
      * @param accountName The account name to use when checking for sentiments.
      * @return A list of AssetSentiments that have not been reacted to by the given account.
      */
-    @Query("SELECT new com.google.moviestvsentiments.assetSentiment.AssetSentiment(asset) " +
+    @Query("SELECT new com.google.moviestvsentiments.assetSentiment.AssetSentiment(asset, sentiment) " +
+            "FROM Asset asset " +
+            "LEFT JOIN UserSentiment sentiment " +
+            "ON asset.assetId = sentiment.assetId AND asset.assetType = sentiment.assetType " +
+            "AND sentiment.accountName = :accountName " +
+            "WHERE asset.assetType = :assetType " +
+            "AND (sentiment.sentimentType IS NULL " +
+            "OR sentiment.sentimentType = com.google.moviestvsentiments.assetSentiment.SentimentType.UNSPECIFIED)")
+    List<AssetSentiment> getAssetsWithUnspecifiedSentiment(@Param("assetType") AssetType assetType,
+                                                           @Param("accountName") String accountName);
+
+    /**
+     * Returns a Stream of AssetSentiments with reactions that match the given account name and sentiment type, ordered
+     * by asset id. Rows are fetched from the database as the Stream is consumed, so it must be read and closed inside
+     * a transaction.
+     * @param assetType The type of asset to include in the results.
+     * @param accountName The account name to use when checking assets for sentiments.
+     * @param sentimentType The sentiment type to check for.
+     * @return A Stream of AssetSentiments with reactions matching the given asset type, account name and sentiment
+     * type.
+     */
+    @Query("SELECT new com.google.moviestvsentiments.assetSentiment.AssetSentiment(asset, sentiment) " +
             "FROM Asset asset " +
-            "WHERE asset.assetType = :assetType AND NOT EXISTS " +
-            "(SELECT sentiment FROM UserSentiment sentiment " +
-                "WHERE asset.assetId = sentiment.assetId AND sentiment.accountName = :accountName " +
-                "AND asset.assetType = sentiment.assetType)")
-    List<AssetSentiment> getAssetsWithoutSentiment(@Param("assetType") AssetType assetType,
-                                                   @Param("accountName") String accountName);
+            "INNER JOIN UserSentiment sentiment " +
+            "ON asset.assetId = sentiment.assetId AND asset.assetType = sentiment.assetType " +
+            "WHERE asset.assetType = :assetType AND sentiment.accountName = :accountName " +
+            "AND sentiment.sentimentType = :sentimentType " +
+            "ORDER BY asset.assetId")
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = JsonArrayStreamer.FETCH_SIZE))
+    Stream<AssetSentiment> streamAssetsWithSentiment(@Param("assetType") AssetType assetType,
+                                                     @Param("accountName") String accountName,
+                                                     @Param("sentimentType") SentimentType sentimentType);
+
+    /**
+     * Returns a Stream of AssetSentiments for every asset of the given type that the given account has not reacted
+     * to, ordered by asset id. Rows are fetched from the database as the Stream is consumed, so it must be read and
+     * closed inside a transaction.
+     * @param assetType The type of asset to include in the results.
+     * @param accountName The account name to use when checking for sentiments.
+     * @return A Stream of AssetSentiments that have not been reacted to by the given account.
+     */
+    @Query("SELECT new com.google.moviestvsentiments.assetSentiment.AssetSentiment(asset, sentiment) " +
+            "FROM Asset asset " +
+            "LEFT JOIN UserSentiment sentiment " +
+            "ON asset.assetId = sentiment.assetId AND asset.assetType = sentiment.assetType " +
+            "AND sentiment.accountName = :accountName " +
+            "WHERE asset.assetType = :assetType " +
+            "AND (sentiment.sentimentType IS NULL " +
+            "OR sentiment.sentimentType = com.google.moviestvsentiments.assetSentiment.SentimentType.UNSPECIFIED) " +
+            "ORDER BY asset.assetId")
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = JsonArrayStreamer.FETCH_SIZE))
+    Stream<AssetSentiment> streamAssetsWithUnspecifiedSentiment(@Param("assetType") AssetType assetType,
+                                                                @Param("accountName") String accountName);
+
+    /**
+     * Returns a slice of AssetSentimentSummaries with reactions that match the given account name and sentiment type,
+     * ordered by asset id and starting after the given asset id. The query seeks directly to the first asset after the
+     * cursor, so every page costs the same regardless of its depth.
+     * @param assetType The type of asset to include in the results.
+     * @param accountName The account name to use when checking assets for sentiments.
+     * @param sentimentType The sentiment type to check for.
+     * @param afterAssetId Only assets with an id greater than this are returned.
+     * @param pageable The size of the slice. Its offset must be zero.
+     * @return A slice of AssetSentimentSummaries with reactions matching the given asset type, account name and
+     * sentiment type.
+     */
+    @Query("SELECT new com.google.moviestvsentiments.assetSentiment.AssetSentimentSummary(asset.assetId, " +
+            "asset.assetType, asset.title, asset.poster, asset.imdbRating, asset.rottenTomatoesRating, " +
+            "asset.runtime, asset.year, asset.timestamp, sentiment) " +
+            "FROM Asset asset " +
+            "INNER JOIN UserSentiment sentiment " +
+            "ON asset.assetId = sentiment.assetId AND asset.assetType = sentiment.assetType " +
+            "WHERE asset.assetType = :assetType AND sentiment.accountName = :accountName " +
+            "AND sentiment.sentimentType = :sentimentType AND asset.assetId > :afterAssetId " +
+            "ORDER BY asset.assetId")
+    Slice<AssetSentimentSummary> getAssetsWithSentimentAfter(@Param("assetType") AssetType assetType,
+                                                      @Param("accountName") String accountName,
+                                                      @Param("sentimentType") SentimentType sentimentType,
+                                                      @Param("afterAssetId") String afterAssetId,
+                                                      Pageable pageable);
+
+    /**
+     * Returns a slice of AssetSentimentSummaries for assets that the given account has not reacted to, ordered by
+     * asset id and starting after the given asset id.
+     * @param assetType The type of asset to include in the results.
+     * @param accountName The account name to use when checking for sentiments.
+     * @param afterAssetId Only assets with an id greater than this are returned.
+     * @param pageable The size of the slice. Its offset must be zero.
+     * @return A slice of AssetSentimentSummaries that have not been reacted to by the given account.
+     */
+    @Query("SELECT new com.google.moviestvsentiments.assetSentiment.AssetSentimentSummary(asset.assetId, " +
+            "asset.assetType, asset.title, asset.poster, asset.imdbRating, asset.rottenTomatoesRating, " +
+            "asset.runtime, asset.year, asset.timestamp, sentiment) " +
+            "FROM Asset asset " +
+            "LEFT JOIN UserSentiment sentiment " +
+            "ON asset.assetId = sentiment.assetId AND asset.assetType = sentiment.assetType " +
+            "AND sentiment.accountName = :accountName " +
+            "WHERE asset.assetType = :assetType AND asset.assetId > :afterAssetId " +
+            "AND (sentiment.sentimentType IS NULL " +
+            "OR sentiment.sentimentType = com.google.moviestvsentiments.assetSentiment.SentimentType.UNSPECIFIED) " +
+            "ORDER BY asset.assetId")
+    Slice<AssetSentimentSummary> getAssetsWithUnspecifiedSentimentAfter(@Param("assetType") AssetType assetType,
+                                                                 @Param("accountName") String accountName,
+                                                                 @Param("afterAssetId") String afterAssetId,
+                                                                 Pageable pageable);
+
+    /**
+     * Returns the Assets of the given type whose timestamp is after the given time.
+     * @param assetType The type of asset to include in the results.
+     * @param since Only assets updated after this time are returned.
+     * @return A list of Assets updated after the given time.
+     */
+    @Query("SELECT asset FROM Asset asset WHERE asset.assetType = :assetType AND asset.timestamp > :since")
+    List<Asset> getAssetsChangedSince(@Param("assetType") AssetType assetType, @Param("since") Instant since);
+
+    /**
+     * Returns the Assets that have a display string for a numeric field but no parsed value for it. This includes
+     * Assets saved before the numeric fields were added, and Assets whose strings can not be parsed, such as "N/A".
+     */
+    @Query("SELECT asset FROM Asset asset WHERE " +
+            "(asset.imdbRating IS NOT NULL AND asset.imdbScore IS NULL) " +
+            "OR (asset.rottenTomatoesRating IS NOT NULL AND asset.rottenTomatoesScore IS NULL) " +
+            "OR (asset.runtime IS NOT NULL AND asset.runtimeMinutes IS NULL) " +
+            "OR (asset.year IS NOT NULL AND asset.startYear IS NULL)")
+    List<Asset> getAssetsWithoutNumericFields();
 }
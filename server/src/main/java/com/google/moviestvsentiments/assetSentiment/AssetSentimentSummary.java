@@ -0,0 +1,39 @@
+package com.google.moviestvsentiments.assetSentiment;
+
+import java.time.Instant;
+
+/**
+ * A container that combines an AssetSummary with a UserSentiment. It is the list counterpart of AssetSentiment.
+ */
+public class AssetSentimentSummary {
+
+    private final AssetSummary asset;
+    private final UserSentiment userSentiment;
+
+    // This constructor is required to support the Spring JPA queries in the AssetSentimentRepository.
+    public AssetSentimentSummary(String assetId, AssetType assetType, String title, String poster, String imdbRating,
+                                 String rottenTomatoesRating, String runtime, String year, Instant timestamp,
+                                 UserSentiment userSentiment) {
+        this(new AssetSummary(assetId, assetType, title, poster, imdbRating, rottenTomatoesRating, runtime, year,
+                timestamp), userSentiment);
+    }
+
+    public AssetSentimentSummary(AssetSummary asset, UserSentiment userSentiment) {
+        this.asset = asset;
+        this.userSentiment = userSentiment;
+    }
+
+    /**
+     * Returns the AssetSummary associated with this AssetSentimentSummary.
+     */
+    public AssetSummary getAsset() {
+        return asset;
+    }
+
+    /**
+     * Returns the UserSentiment associated with this AssetSentimentSummary.
+     */
+    public UserSentiment getUserSentiment() {
+        return userSentiment;
+    }
+}
@@ -0,0 +1,43 @@
+package com.google.moviestvsentiments.assetSentiment;
+
+/**
+ * The numeric Asset fields that asset lists can be sorted and range-filtered by. Each field has an index that leads
+ * with the asset type.
+ */
+public enum AssetSortField {
+    IMDB_SCORE("imdbScore", false),
+    ROTTEN_TOMATOES_SCORE("rottenTomatoesScore", true),
+    RUNTIME("runtimeMinutes", true),
+    YEAR("startYear", true);
+
+    private final String property;
+    private final boolean integral;
+
+    AssetSortField(String property, boolean integral) {
+        this.property = property;
+        this.integral = integral;
+    }
+
+    /**
+     * Returns the name of the Asset property that the field sorts by.
+     */
+    public String getProperty() {
+        return property;
+    }
+
+    /**
+     * Converts a lower bound to the type of the field. An integral field is bounded by the smallest integer that is
+     * not below the given value.
+     */
+    public Number lowerBound(double value) {
+        return integral ? (Number) (int) Math.ceil(value) : (Number) value;
+    }
+
+    /**
+     * Converts an upper bound to the type of the field. An integral field is bounded by the largest integer that is
+     * not above the given value.
+     */
+    public Number upperBound(double value) {
+        return integral ? (Number) (int) Math.floor(value) : (Number) value;
+    }
+}
@@ -0,0 +1,108 @@
+package com.google.moviestvsentiments.assetSentiment;
+
+import java.time.Instant;
+
+/**
+ * The fields of an Asset that are shown in asset lists. The large banner and plot columns are left out so that list
+ * queries do not have to read them.
+ */
+public class AssetSummary {
+
+    private final String assetId;
+    private final AssetType assetType;
+    private final String title;
+    private final String poster;
+    private final String imdbRating;
+    private final String rottenTomatoesRating;
+    private final String runtime;
+    private final String year;
+    private final Instant timestamp;
+
+    // This constructor is required to support the Spring JPA queries in the AssetSentimentRepository.
+    public AssetSummary(String assetId, AssetType assetType, String title, String poster, String imdbRating,
+                        String rottenTomatoesRating, String runtime, String year, Instant timestamp) {
+        this.assetId = assetId;
+        this.assetType = assetType;
+        this.title = title;
+        this.poster = poster;
+        this.imdbRating = imdbRating;
+        this.rottenTomatoesRating = rottenTomatoesRating;
+        this.runtime = runtime;
+        this.year = year;
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * Creates a new AssetSummary from the list fields of the given Asset.
+     * @param asset The Asset to summarize.
+     * @return A new AssetSummary of the given Asset.
+     */
+    public static AssetSummary of(Asset asset) {
+        return new AssetSummary(asset.getAssetId(), asset.getAssetType(), asset.getTitle(), asset.getPoster(),
+                asset.getImdbRating(), asset.getRottenTomatoesRating(), asset.getRuntime(), asset.getYear(),
+                asset.getTimestamp());
+    }
+
+    /**
+     * Returns the asset id.
+     */
+    public String getAssetId() {
+        return assetId;
+    }
+
+    /**
+     * Returns the asset's type.
+     */
+    public AssetType getAssetType() {
+        return assetType;
+    }
+
+    /**
+     * Returns the asset's title.
+     */
+    public String getTitle() {
+        return title;
+    }
+
+    /**
+     * Returns the asset's poster image URL.
+     */
+    public String getPoster() {
+        return poster;
+    }
+
+    /**
+     * Returns the asset's rating on imdb.
+     */
+    public String getImdbRating() {
+        return imdbRating;
+    }
+
+    /**
+     * Returns the asset's rating on rotten tomatoes.
+     */
+    public String getRottenTomatoesRating() {
+        return rottenTomatoesRating;
+    }
+
+    /**
+     * Returns the runtime of the asset.
+     */
+    public String getRuntime() {
+        return runtime;
+    }
+
+    /**
+     * Returns the year that the asset was released.
+     */
+    public String getYear() {
+        return year;
+    }
+
+    /**
+     * Returns the timestamp of when the asset was last updated.
+     */
+    public Instant getTimestamp() {
+        return timestamp;
+    }
+}
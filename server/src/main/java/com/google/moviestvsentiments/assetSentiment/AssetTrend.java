@@ -0,0 +1,39 @@
+package com.google.moviestvsentiments.assetSentiment;
+
+/**
+ * The trending score of an asset, which is its number of recent THUMBS_UP sentiments minus its number of recent
+ * THUMBS_DOWN sentiments, each decayed by its age.
+ */
+public class AssetTrend {
+
+    private final String assetId;
+    private final AssetType assetType;
+    private final double score;
+
+    public AssetTrend(String assetId, AssetType assetType, double score) {
+        this.assetId = assetId;
+        this.assetType = assetType;
+        this.score = score;
+    }
+
+    /**
+     * Returns the asset id.
+     */
+    public String getAssetId() {
+        return assetId;
+    }
+
+    /**
+     * Returns the asset's type.
+     */
+    public AssetType getAssetType() {
+        return assetType;
+    }
+
+    /**
+     * Returns the decayed score of the asset at the time it was ranked.
+     */
+    public double getScore() {
+        return score;
+    }
+}
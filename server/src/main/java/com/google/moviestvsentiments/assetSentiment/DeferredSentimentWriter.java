@@ -0,0 +1,163 @@
+package com.google.moviestvsentiments.assetSentiment;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A write-behind buffer for single UserSentiment writes, used when sentiments.write-mode is write-behind. Writes are
+ * queued in memory and acknowledged before they reach the database. Repeated writes to the same account, asset and
+ * asset type are coalesced, keeping the one with the latest timestamp, so a user toggling a sentiment costs one row.
+ * A scheduled flush writes the queue with UserSentimentRepository.upsertAll, which runs one transaction of batched
+ * MERGE statements per batch and publishes a CatalogChangeEvent for every written sentiment, so that in-memory indexes
+ * are updated as they are for direct writes. As with upsertAll, a queued write does not replace a stored sentiment
+ * with a later timestamp.
+ *
+ * <p>Durability: an acknowledged write is only in memory until the next flush, which runs every
+ * sentiments.write-behind.flush-interval-ms. A graceful shutdown flushes the queue, but a crash or kill loses every
+ * write acknowledged since the last flush. Until a write is flushed, reads do not see it. A batch that fails is put
+ * back in the queue, behind any newer write to the same key, and retried by the next flush. When the queue holds
+ * sentiments.write-behind.max-pending keys, new keys are not queued and are written directly instead.
+ */
+@Component
+public class DeferredSentimentWriter {
+
+    static final String WRITE_BEHIND_MODE = "write-behind";
+    static final String DIRECT_MODE = "direct";
+    static final int BATCH_SIZE = 500;
+
+    private final Logger logger = LoggerFactory.getLogger(DeferredSentimentWriter.class);
+    private final boolean enabled;
+    private final int maxPending;
+    private final UserSentimentRepository userSentimentRepository;
+    private final Map<UserSentiment.UserSentimentCompositeKey, UserSentiment> pending = new ConcurrentHashMap<>();
+    private final Counter coalesced;
+    private final Counter written;
+    private final Counter failed;
+    private final Timer flushTimer;
+
+    public DeferredSentimentWriter(@Value("${sentiments.write-mode:direct}") String writeMode,
+                                   @Value("${sentiments.write-behind.max-pending:100000}") int maxPending,
+                                   UserSentimentRepository userSentimentRepository, MeterRegistry meterRegistry) {
+        if (!WRITE_BEHIND_MODE.equals(writeMode) && !DIRECT_MODE.equals(writeMode)
+                && !SentimentJournal.JOURNAL_MODE.equals(writeMode)) {
+            throw new IllegalArgumentException("sentiments.write-mode must be " + DIRECT_MODE + ", " +
+                    WRITE_BEHIND_MODE + " or " + SentimentJournal.JOURNAL_MODE + ", not " + writeMode);
+        }
+        enabled = WRITE_BEHIND_MODE.equals(writeMode);
+        this.maxPending = maxPending;
+        this.userSentimentRepository = userSentimentRepository;
+        coalesced = meterRegistry.counter("sentiments.write_behind.writes", "result", "coalesced");
+        written = meterRegistry.counter("sentiments.write_behind.writes", "result", "written");
+        failed = meterRegistry.counter("sentiments.write_behind.flushes", "result", "failed");
+        flushTimer = meterRegistry.timer("sentiments.write_behind.flush");
+        Gauge.builder("sentiments.write_behind.pending", pending, Map::size).register(meterRegistry);
+    }
+
+    /**
+     * Returns true if single sentiment writes are deferred.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queues the given UserSentiment to be written by the next flush. If a write to the same key is already queued,
+     * the one with the later timestamp is kept. If write-behind is disabled or the queue is full, the sentiment is not
+     * queued and the caller must write it directly.
+     * @param sentiment The UserSentiment to write.
+     * @return True if the sentiment was queued.
+     */
+    public boolean enqueue(UserSentiment sentiment) {
+        if (!enabled) {
+            return false;
+        }
+        UserSentiment.UserSentimentCompositeKey key = keyOf(sentiment);
+        if (pending.size() >= maxPending && !pending.containsKey(key)) {
+            return false;
+        }
+        pending.merge(key, sentiment, (queued, incoming) -> {
+            coalesced.increment();
+            return later(queued, incoming);
+        });
+        return true;
+    }
+
+    /**
+     * Returns the number of keys waiting to be written.
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Writes every queued sentiment to the database, in batches of at most BATCH_SIZE. If a batch fails, it is queued
+     * again and the flush stops until the next run.
+     */
+    @Scheduled(fixedDelayString = "${sentiments.write-behind.flush-interval-ms:100}")
+    public synchronized void flush() {
+        while (!pending.isEmpty()) {
+            List<UserSentiment> batch = takeBatch();
+            try {
+                flushTimer.record(() -> userSentimentRepository.upsertAll(batch));
+            } catch (RuntimeException e) {
+                failed.increment();
+                for (UserSentiment sentiment : batch) {
+                    pending.merge(keyOf(sentiment), sentiment, (queued, retried) -> later(retried, queued));
+                }
+                logger.warn("Failed to write {} queued sentiments, will retry", batch.size(), e);
+                return;
+            }
+            written.increment(batch.size());
+        }
+    }
+
+    /**
+     * Writes the remaining queued sentiments before the application shuts down.
+     */
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private List<UserSentiment> takeBatch() {
+        List<UserSentiment> batch = new ArrayList<>();
+        Iterator<UserSentiment.UserSentimentCompositeKey> keys = pending.keySet().iterator();
+        while (keys.hasNext() && batch.size() < BATCH_SIZE) {
+            // Removing by key takes the latest value, even if it was replaced while iterating.
+            UserSentiment sentiment = pending.remove(keys.next());
+            if (sentiment != null) {
+                batch.add(sentiment);
+            }
+        }
+        return batch;
+    }
+
+    private static UserSentiment.UserSentimentCompositeKey keyOf(UserSentiment sentiment) {
+        return new UserSentiment.UserSentimentCompositeKey(sentiment.getAssetId(), sentiment.getAccountName(),
+                sentiment.getAssetType());
+    }
+
+    /**
+     * Returns the second sentiment unless the first one has a later timestamp.
+     */
+    private static UserSentiment later(UserSentiment first, UserSentiment second) {
+        if (first.getTimestamp() != null && second.getTimestamp() != null
+                && first.getTimestamp().isAfter(second.getTimestamp())) {
+            return first;
+        }
+        return second;
+    }
+}
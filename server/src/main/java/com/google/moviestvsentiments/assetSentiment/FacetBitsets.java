@@ -0,0 +1,113 @@
+package com.google.moviestvsentiments.assetSentiment;
+
+/**
+ * Precomputed bitsets over asset ordinals, one for every bucket of every AssetFacet, plus one holding every asset in
+ * the catalog. Bit i of a bitset is bit i % 64 of word i / 64. Counting the assets that match a combination of
+ * buckets is a word-wise AND and a popcount, so facet counts can be recomputed for every request instead of being
+ * grouped by the database. Instances are immutable.
+ */
+class FacetBitsets {
+
+    private static final AssetFacet[] FACETS = AssetFacet.values();
+
+    private final long[] assets;
+    // Indexed by facet ordinal, then by bucket.
+    private final long[][][] buckets;
+
+    private FacetBitsets(long[] assets, long[][][] buckets) {
+        this.assets = assets;
+        this.buckets = buckets;
+    }
+
+    /**
+     * Builds the bitsets for the given assets. Null slots are left out of every bitset.
+     * @param assetsByOrdinal The assets of the catalog, indexed by ordinal.
+     * @return The FacetBitsets of the given assets.
+     */
+    static FacetBitsets build(Asset[] assetsByOrdinal) {
+        int wordCount = wordCount(assetsByOrdinal.length);
+        long[] assets = new long[wordCount];
+        long[][][] buckets = new long[FACETS.length][][];
+        for (AssetFacet facet : FACETS) {
+            buckets[facet.ordinal()] = new long[facet.getKeys().size()][wordCount];
+        }
+
+        for (int ordinal = 0; ordinal < assetsByOrdinal.length; ordinal++) {
+            Asset asset = assetsByOrdinal[ordinal];
+            if (asset == null) {
+                continue;
+            }
+            long bit = 1L << ordinal;
+            assets[ordinal >>> 6] |= bit;
+            for (AssetFacet facet : FACETS) {
+                int bucket = facet.bucketOf(asset);
+                if (bucket >= 0) {
+                    buckets[facet.ordinal()][bucket][ordinal >>> 6] |= bit;
+                }
+            }
+        }
+        return new FacetBitsets(assets, buckets);
+    }
+
+    /**
+     * Returns the number of words in a bitset that can hold the given number of ordinals.
+     */
+    static int wordCount(int ordinals) {
+        return (ordinals + Long.SIZE - 1) / Long.SIZE;
+    }
+
+    /**
+     * Returns the number of words in each bitset.
+     */
+    int wordCount() {
+        return assets.length;
+    }
+
+    /**
+     * Returns the bitset of every asset in the catalog. The array must not be modified.
+     */
+    long[] assets() {
+        return assets;
+    }
+
+    /**
+     * Returns the bitset of the given bucket. The array must not be modified.
+     */
+    long[] bucket(AssetFacet facet, int bucket) {
+        return buckets[facet.ordinal()][bucket];
+    }
+
+    /**
+     * Returns a new bitset holding the assets of any of the given buckets.
+     */
+    long[] union(AssetFacet facet, int[] selectedBuckets) {
+        long[] union = new long[assets.length];
+        for (int bucket : selectedBuckets) {
+            long[] bits = bucket(facet, bucket);
+            for (int i = 0; i < union.length; i++) {
+                union[i] |= bits[i];
+            }
+        }
+        return union;
+    }
+
+    /**
+     * Returns the number of bits set in both of the given bitsets.
+     */
+    static int countIntersection(long[] a, long[] b) {
+        int count = 0;
+        for (int i = 0; i < a.length; i++) {
+            count += Long.bitCount(a[i] & b[i]);
+        }
+        return count;
+    }
+
+    /**
+     * Clears every bit of target that is not set in mask.
+     */
+    static void intersect(long[] target, long[] mask) {
+        for (int i = 0; i < target.length; i++) {
+            target[i] &= mask[i];
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.google.moviestvsentiments.assetSentiment;
+
+import java.util.Arrays;
+
+/**
+ * An open addressing hash map from non-negative long keys to int values that stores its entries in primitive arrays,
+ * so that lookups do not box their keys. Instances are only mutated before they are published to other threads.
+ */
+class LongIntHashMap {
+
+    private static final long EMPTY = -1;
+    private static final int NOT_FOUND = -1;
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+
+    LongIntHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+        keys = new long[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+    }
+
+    /**
+     * Returns a copy of this map that can hold at least the given number of entries without resizing.
+     */
+    LongIntHashMap copy(int expectedSize) {
+        LongIntHashMap copy = new LongIntHashMap(Math.max(expectedSize, size));
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                copy.put(keys[i], values[i]);
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Returns the value of the given key, or -1 if the key is not in the map.
+     */
+    int get(long key) {
+        int mask = keys.length - 1;
+        for (int slot = mix(key) & mask; keys[slot] != EMPTY; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * Associates the given value with the given non-negative key.
+     */
+    void put(long key, int value) {
+        if ((size + 1) * 2 > keys.length) {
+            resize();
+        }
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        if (keys[slot] == EMPTY) {
+            size++;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+    }
+
+    /**
+     * Returns the number of entries in the map.
+     */
+    int size() {
+        return size;
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new int[oldValues.length * 2];
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    // The finalizer of MurmurHash3, which spreads sequential ids across the whole table.
+    private static int mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+}
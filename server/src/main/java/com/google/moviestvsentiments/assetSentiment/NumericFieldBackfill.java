@@ -0,0 +1,60 @@
+package com.google.moviestvsentiments.assetSentiment;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Parses the numeric fields of Assets that were saved before those fields existed. Runs at startup before the
+ * AssetCatalog loads, so the catalog sees the parsed values.
+ */
+@Component
+public class NumericFieldBackfill {
+
+    private final Logger logger = LoggerFactory.getLogger(NumericFieldBackfill.class);
+    private final AssetSentimentRepository assetSentimentRepository;
+
+    public NumericFieldBackfill(AssetSentimentRepository assetSentimentRepository) {
+        this.assetSentimentRepository = assetSentimentRepository;
+    }
+
+    /**
+     * Parses and saves the numeric fields of every Asset that is missing one. Assets whose display strings can not be
+     * parsed are not saved, since parsing them again gives the same result.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void backfill() {
+        List<Asset> changed = assetSentimentRepository.getAssetsWithoutNumericFields().stream()
+                .filter(NumericFieldBackfill::update)
+                .collect(Collectors.toList());
+        if (!changed.isEmpty()) {
+            assetSentimentRepository.saveAll(changed);
+            logger.info("Parsed the numeric fields of " + changed.size() + " assets");
+        }
+    }
+
+    /**
+     * Parses the numeric fields of the given Asset and returns whether any of them changed.
+     */
+    private static boolean update(Asset asset) {
+        Double imdbScore = asset.getImdbScore();
+        Integer rottenTomatoesScore = asset.getRottenTomatoesScore();
+        Integer runtimeMinutes = asset.getRuntimeMinutes();
+        Integer startYear = asset.getStartYear();
+        Integer endYear = asset.getEndYear();
+        asset.updateNumericFields();
+        return !Objects.equals(imdbScore, asset.getImdbScore())
+                || !Objects.equals(rottenTomatoesScore, asset.getRottenTomatoesScore())
+                || !Objects.equals(runtimeMinutes, asset.getRuntimeMinutes())
+                || !Objects.equals(startYear, asset.getStartYear())
+                || !Objects.equals(endYear, asset.getEndYear());
+    }
+}
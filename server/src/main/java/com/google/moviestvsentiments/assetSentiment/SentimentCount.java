@@ -0,0 +1,58 @@
+package com.google.moviestvsentiments.assetSentiment;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+
+/**
+ * A record in the sentiment counts database table, which holds the number of THUMBS_UP and THUMBS_DOWN sentiments of
+ * each asset. The table is written by SentimentCounters and is not read by the server itself.
+ */
+@Entity
+@IdClass(Asset.AssetCompositeKey.class)
+public class SentimentCount {
+
+    @Id private String assetId;
+    @Id private AssetType assetType;
+    private long thumbsUp;
+    private long thumbsDown;
+
+    // A default constructor is required by JPA.
+    protected SentimentCount() {}
+
+    // This constructor is required to support the Spring JPA queries in the UserSentimentRepository.
+    public SentimentCount(String assetId, AssetType assetType, Long thumbsUp, Long thumbsDown) {
+        this.assetId = assetId;
+        this.assetType = assetType;
+        this.thumbsUp = thumbsUp == null ? 0 : thumbsUp;
+        this.thumbsDown = thumbsDown == null ? 0 : thumbsDown;
+    }
+
+    /**
+     * Returns the asset id.
+     */
+    public String getAssetId() {
+        return assetId;
+    }
+
+    /**
+     * Returns the asset's type.
+     */
+    public AssetType getAssetType() {
+        return assetType;
+    }
+
+    /**
+     * Returns the number of THUMBS_UP sentiments for the asset.
+     */
+    public long getThumbsUp() {
+        return thumbsUp;
+    }
+
+    /**
+     * Returns the number of THUMBS_DOWN sentiments for the asset.
+     */
+    public long getThumbsDown() {
+        return thumbsDown;
+    }
+}
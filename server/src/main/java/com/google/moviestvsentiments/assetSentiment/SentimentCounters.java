@@ -0,0 +1,245 @@
+package com.google.moviestvsentiments.assetSentiment;
+
+import com.google.moviestvsentiments.catalog.AfterCommit;
+import com.google.moviestvsentiments.catalog.CatalogChangeEvent;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Counts the THUMBS_UP and THUMBS_DOWN sentiments of every asset in memory. The counts are computed from the user
+ * sentiments table at startup and then adjusted by every committed UserSentiment write, so that reading them never
+ * scans the table. Changed counts are periodically written to the sentiment counts table.
+ */
+@Component
+public class SentimentCounters {
+
+    /**
+     * The counts of a single asset. LongAdders keep concurrent writes to a popular asset from contending.
+     */
+    private static class Counts {
+        private final LongAdder thumbsUp = new LongAdder();
+        private final LongAdder thumbsDown = new LongAdder();
+    }
+
+    /**
+     * A committed change to the sentiment type of one user's sentiment of an asset.
+     */
+    private static class Change {
+        private final Asset.AssetCompositeKey key;
+        private final SentimentType before;
+        private final SentimentType after;
+
+        private Change(Asset.AssetCompositeKey key, SentimentType before, SentimentType after) {
+            this.key = key;
+            this.before = before;
+            this.after = after;
+        }
+    }
+
+    private static final String MERGE_COUNT_SQL = "MERGE INTO sentiment_count " +
+            "(asset_id, asset_type, thumbs_up, thumbs_down) KEY (asset_id, asset_type) VALUES (?, ?, ?, ?)";
+
+    private final UserSentimentRepository userSentimentRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final Set<Asset.AssetCompositeKey> changedKeys = ConcurrentHashMap.newKeySet();
+    // Changes hold the read lock while they are applied, and backfill holds the write lock while it starts buffering
+    // changes and while it replaces the counts, so that each change either reaches the counts that replace the
+    // current ones or is buffered for them.
+    private final ReadWriteLock countsLock = new ReentrantReadWriteLock();
+    // The changes committed while backfill loads new counts, or null if no backfill is loading.
+    private Queue<Change> pendingChanges;
+    private volatile Map<Asset.AssetCompositeKey, Counts> counts = new ConcurrentHashMap<>();
+
+    public SentimentCounters(UserSentimentRepository userSentimentRepository, JdbcTemplate jdbcTemplate) {
+        this.userSentimentRepository = userSentimentRepository;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Replaces the in-memory counts with counts computed from the user sentiments table, and rewrites the sentiment
+     * counts table to match. This is the only time the user sentiments table is scanned. The counts are loaded into a
+     * new map, and changes that are committed while they load are buffered and replayed onto it before it replaces
+     * the current counts, so none of them are lost.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void backfill() {
+        countsLock.writeLock().lock();
+        try {
+            pendingChanges = new ConcurrentLinkedQueue<>();
+        } finally {
+            countsLock.writeLock().unlock();
+        }
+        Map<Asset.AssetCompositeKey, Counts> loaded = new ConcurrentHashMap<>();
+        try {
+            for (SentimentCount count : userSentimentRepository.countSentiments()) {
+                Counts assetCounts = getCounts(loaded,
+                        new Asset.AssetCompositeKey(count.getAssetId(), count.getAssetType()));
+                assetCounts.thumbsUp.add(count.getThumbsUp());
+                assetCounts.thumbsDown.add(count.getThumbsDown());
+            }
+        } catch (RuntimeException e) {
+            countsLock.writeLock().lock();
+            try {
+                pendingChanges = null;
+            } finally {
+                countsLock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        countsLock.writeLock().lock();
+        try {
+            for (Change change : pendingChanges) {
+                adjust(getCounts(loaded, change.key), change.before, change.after);
+            }
+            pendingChanges = null;
+            counts = loaded;
+        } finally {
+            countsLock.writeLock().unlock();
+        }
+        jdbcTemplate.update("DELETE FROM sentiment_count");
+        changedKeys.addAll(loaded.keySet());
+        flush();
+    }
+
+    /**
+     * Adjusts the counts of the asset whose UserSentiment was written. The difference between the stored and the new
+     * sentiment type is computed when the write is flushed, and is applied once its transaction commits. A user who
+     * changes THUMBS_UP to THUMBS_DOWN moves one count from one to the other.
+     * @param event The event describing the write.
+     */
+    @EventListener
+    public void onCatalogChange(CatalogChangeEvent event) {
+        if (!(event.getEntity() instanceof UserSentiment)) {
+            return;
+        }
+
+        UserSentiment sentiment = (UserSentiment) event.getEntity();
+        SentimentType before = sentiment.getStoredSentimentType();
+        SentimentType after = event.isDeleted() ? null : sentiment.getSentimentType();
+        if (before == after) {
+            return;
+        }
+
+        Asset.AssetCompositeKey key = new Asset.AssetCompositeKey(sentiment.getAssetId(), sentiment.getAssetType());
+        AfterCommit.run(() -> apply(new Change(key, before, after)));
+    }
+
+    /**
+     * Writes the counts that changed since the last flush to the sentiment counts table.
+     */
+    @Scheduled(fixedDelayString = "${sentiments.counters.flush-interval-ms:5000}")
+    public void flush() {
+        List<Object[]> rows = new ArrayList<>();
+        Iterator<Asset.AssetCompositeKey> iterator = changedKeys.iterator();
+        while (iterator.hasNext()) {
+            Asset.AssetCompositeKey key = iterator.next();
+            // The key is removed before its counts are read, so a concurrent change marks it again.
+            iterator.remove();
+            Counts assetCounts = counts.get(key);
+            if (assetCounts == null) {
+                continue;
+            }
+            rows.add(new Object[] {key.getAssetId(), key.getAssetType().ordinal(), assetCounts.thumbsUp.sum(),
+                    assetCounts.thumbsDown.sum()});
+        }
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(MERGE_COUNT_SQL, rows);
+        }
+    }
+
+    /**
+     * Returns the counts of the given asset.
+     * @param assetId The id of the asset.
+     * @param assetType The type of the asset.
+     * @return The SentimentCount of the asset, which is zero if it has no sentiments.
+     */
+    public SentimentCount getCount(String assetId, AssetType assetType) {
+        Counts assetCounts = counts.get(new Asset.AssetCompositeKey(assetId, assetType));
+        return assetCounts == null ? new SentimentCount(assetId, assetType, 0L, 0L) :
+                new SentimentCount(assetId, assetType, assetCounts.thumbsUp.sum(), assetCounts.thumbsDown.sum());
+    }
+
+    /**
+     * Returns the SentimentCounts of the most popular assets of the given type. Assets are ranked by their number of
+     * THUMBS_UP sentiments minus their number of THUMBS_DOWN sentiments, and then by their number of THUMBS_UP
+     * sentiments. Assets without any THUMBS_UP sentiments are not returned.
+     * @param assetType The type of the assets to rank.
+     * @param limit The maximum number of SentimentCounts to return.
+     * @return The SentimentCounts of the most popular assets, most popular first.
+     */
+    public List<SentimentCount> getPopular(AssetType assetType, int limit) {
+        Comparator<SentimentCount> popularity = Comparator
+                .comparingLong((SentimentCount count) -> count.getThumbsUp() - count.getThumbsDown())
+                .thenComparingLong(SentimentCount::getThumbsUp)
+                .thenComparing(SentimentCount::getAssetId, Comparator.reverseOrder());
+        // A min-heap of the best counts seen so far, so that each asset costs at most log(limit).
+        PriorityQueue<SentimentCount> best = new PriorityQueue<>(limit, popularity);
+        for (Map.Entry<Asset.AssetCompositeKey, Counts> entry : counts.entrySet()) {
+            if (entry.getKey().getAssetType() != assetType) {
+                continue;
+            }
+            SentimentCount count = new SentimentCount(entry.getKey().getAssetId(), assetType,
+                    entry.getValue().thumbsUp.sum(), entry.getValue().thumbsDown.sum());
+            if (count.getThumbsUp() == 0) {
+                continue;
+            }
+            if (best.size() < limit) {
+                best.add(count);
+            } else if (popularity.compare(count, best.peek()) > 0) {
+                best.poll();
+                best.add(count);
+            }
+        }
+
+        List<SentimentCount> popular = new ArrayList<>(best);
+        popular.sort(popularity.reversed());
+        return popular;
+    }
+
+    private void apply(Change change) {
+        countsLock.readLock().lock();
+        try {
+            if (pendingChanges != null) {
+                pendingChanges.add(change);
+            }
+            adjust(getCounts(counts, change.key), change.before, change.after);
+        } finally {
+            countsLock.readLock().unlock();
+        }
+        changedKeys.add(change.key);
+    }
+
+    private static void adjust(Counts assetCounts, SentimentType before, SentimentType after) {
+        add(assetCounts, before, -1);
+        add(assetCounts, after, 1);
+    }
+
+    private static void add(Counts assetCounts, SentimentType sentimentType, int delta) {
+        if (sentimentType == SentimentType.THUMBS_UP) {
+            assetCounts.thumbsUp.add(delta);
+        } else if (sentimentType == SentimentType.THUMBS_DOWN) {
+            assetCounts.thumbsDown.add(delta);
+        }
+    }
+
+    private static Counts getCounts(Map<Asset.AssetCompositeKey, Counts> counts, Asset.AssetCompositeKey key) {
+        return counts.computeIfAbsent(key, ignored -> new Counts());
+    }
+}
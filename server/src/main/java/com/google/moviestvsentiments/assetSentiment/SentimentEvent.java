@@ -0,0 +1,71 @@
+package com.google.moviestvsentiments.assetSentiment;
+
+import java.time.Instant;
+
+/**
+ * A change to one of an account's UserSentiments, as pushed to the account's devices by the SentimentEventBroadcaster.
+ * The account name is left out, since every event in a stream belongs to the same account.
+ */
+public class SentimentEvent {
+
+    private final String assetId;
+    private final AssetType assetType;
+    private final SentimentType sentimentType;
+    private final Instant timestamp;
+    private final boolean deleted;
+
+    private SentimentEvent(String assetId, AssetType assetType, SentimentType sentimentType, Instant timestamp,
+                           boolean deleted) {
+        this.assetId = assetId;
+        this.assetType = assetType;
+        this.sentimentType = sentimentType;
+        this.timestamp = timestamp;
+        this.deleted = deleted;
+    }
+
+    /**
+     * Creates a new SentimentEvent for the given UserSentiment.
+     * @param sentiment The UserSentiment that was written.
+     * @param deleted Whether the UserSentiment was deleted.
+     * @return A new SentimentEvent for the UserSentiment.
+     */
+    public static SentimentEvent of(UserSentiment sentiment, boolean deleted) {
+        return new SentimentEvent(sentiment.getAssetId(), sentiment.getAssetType(), sentiment.getSentimentType(),
+                sentiment.getTimestamp(), deleted);
+    }
+
+    /**
+     * Returns the asset id.
+     */
+    public String getAssetId() {
+        return assetId;
+    }
+
+    /**
+     * Returns the asset's type.
+     */
+    public AssetType getAssetType() {
+        return assetType;
+    }
+
+    /**
+     * Returns the new sentiment type.
+     */
+    public SentimentType getSentimentType() {
+        return sentimentType;
+    }
+
+    /**
+     * Returns the timestamp of the UserSentiment.
+     */
+    public Instant getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Returns true if the UserSentiment was deleted.
+     */
+    public boolean isDeleted() {
+        return deleted;
+    }
+}
@@ -0,0 +1,295 @@
+package com.google.moviestvsentiments.assetSentiment;
+
+import com.google.moviestvsentiments.catalog.CatalogChangeEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Pushes committed UserSentiment changes to every device subscribed to the account, as server-sent events. Each
+ * subscriber has a bounded ring buffer of events that a small pool of sender threads drains into its SseEmitter, so a
+ * write never waits on a client's connection. A subscriber whose buffer fills up is too slow to keep up and is
+ * dropped by completing its stream. A dropped or reconnecting client should fetch its assets again, since it may have
+ * missed events. A heartbeat comment is sent every sentiments.events.heartbeat-interval-ms, so that idle streams are
+ * not closed by client read timeouts and disconnected clients are noticed.
+ *
+ * <p>Sends block while the client's socket buffer is full, and the emitter holds its lock while sending, so completing
+ * an emitter can block for as long as a send. Emitters are therefore only completed by the sender threads: a
+ * subscriber that is dropped from another thread is only marked closed and removed there, and its stream is completed
+ * once its current send returns. A subscriber whose send has not finished after sentiments.events.send-timeout-ms is
+ * dropped when the heartbeats are queued, so it gets no more events and its stream ends as soon as the server's
+ * write timeout fails the stuck send. An account can
+ * have at most sentiments.events.max-subscribers-per-account subscribers, so one account cannot open enough streams to
+ * exhaust the server's connections.
+ */
+@Component
+public class SentimentEventBroadcaster {
+
+    static final String EVENT_NAME = "sentiment";
+    // Queued in place of an event to send a heartbeat comment.
+    private static final Object HEARTBEAT = new Object();
+
+    private final Map<String, Set<Subscriber>> subscribersByAccount = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final int bufferSize;
+    private final long timeoutMillis;
+    private final int maxSubscribersPerAccount;
+    private final long sendTimeoutNanos;
+    private final Executor executor;
+    private final LongSupplier clock;
+    private final Counter sent;
+    private final Counter dropped;
+
+    public SentimentEventBroadcaster(@Value("${sentiments.events.buffer-size:256}") int bufferSize,
+                                     @Value("${sentiments.events.timeout-ms:1800000}") long timeoutMillis,
+                                     @Value("${sentiments.events.max-subscribers-per-account:16}")
+                                             int maxSubscribersPerAccount,
+                                     @Value("${sentiments.events.send-timeout-ms:10000}") long sendTimeoutMillis,
+                                     @Value("${sentiments.events.sender-threads:4}") int senderThreads,
+                                     MeterRegistry meterRegistry) {
+        this(bufferSize, timeoutMillis, maxSubscribersPerAccount, sendTimeoutMillis,
+                Executors.newFixedThreadPool(senderThreads, runnable -> {
+                    Thread thread = new Thread(runnable, "sentiment-events");
+                    thread.setDaemon(true);
+                    return thread;
+                }), System::nanoTime, meterRegistry);
+    }
+
+    SentimentEventBroadcaster(int bufferSize, long timeoutMillis, int maxSubscribersPerAccount,
+                              long sendTimeoutMillis, Executor executor, LongSupplier clock,
+                              MeterRegistry meterRegistry) {
+        this.bufferSize = bufferSize;
+        this.timeoutMillis = timeoutMillis;
+        this.maxSubscribersPerAccount = maxSubscribersPerAccount;
+        this.sendTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeoutMillis);
+        this.executor = executor;
+        this.clock = clock;
+        sent = meterRegistry.counter("sentiments.events.sent");
+        dropped = meterRegistry.counter("sentiments.events.dropped_subscribers");
+        Gauge.builder("sentiments.events.subscribers", subscriberCount, AtomicInteger::get).register(meterRegistry);
+    }
+
+    /**
+     * Returns a new SseEmitter that receives the sentiment changes of the given account until it times out, the client
+     * disconnects or the subscriber is dropped for falling behind.
+     * @param accountName The name of the account to receive changes for.
+     * @return The SseEmitter for the new subscriber, or null if the account already has the maximum number of
+     *     subscribers.
+     */
+    public SseEmitter subscribe(String accountName) {
+        SseEmitter emitter = createEmitter(timeoutMillis);
+        Subscriber subscriber = new Subscriber(accountName, emitter);
+        boolean[] added = new boolean[1];
+        subscribersByAccount.compute(accountName, (name, subscribers) -> {
+            Set<Subscriber> updated = subscribers == null ? new CopyOnWriteArraySet<>() : subscribers;
+            if (updated.size() < maxSubscribersPerAccount) {
+                added[0] = updated.add(subscriber);
+            }
+            return updated.isEmpty() ? null : updated;
+        });
+        if (!added[0]) {
+            return null;
+        }
+        subscriberCount.incrementAndGet();
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(error -> remove(subscriber));
+        return emitter;
+    }
+
+    /**
+     * Returns a new SseEmitter with the given timeout. Tests override this to send to a client that stops reading.
+     */
+    SseEmitter createEmitter(long timeoutMillis) {
+        return new SseEmitter(timeoutMillis);
+    }
+
+    /**
+     * Returns the number of subscribers to the given account's changes.
+     */
+    public int getSubscriberCount(String accountName) {
+        Set<Subscriber> subscribers = subscribersByAccount.get(accountName);
+        return subscribers == null ? 0 : subscribers.size();
+    }
+
+    /**
+     * Queues a committed UserSentiment change for every subscriber to its account.
+     * @param event The event describing the change.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChange(CatalogChangeEvent event) {
+        if (!(event.getEntity() instanceof UserSentiment)) {
+            return;
+        }
+        UserSentiment sentiment = (UserSentiment) event.getEntity();
+        Set<Subscriber> subscribers = subscribersByAccount.get(sentiment.getAccountName());
+        if (subscribers == null) {
+            return;
+        }
+        SentimentEvent sentimentEvent = SentimentEvent.of(sentiment, event.isDeleted());
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(sentimentEvent);
+        }
+    }
+
+    /**
+     * Queues a heartbeat for every subscriber. A subscriber whose buffer is full already has events to send, so it is
+     * skipped instead of being dropped. A subscriber whose current send has taken longer than the send timeout is
+     * dropped with an error.
+     */
+    @Scheduled(fixedDelayString = "${sentiments.events.heartbeat-interval-ms:5000}")
+    public void sendHeartbeats() {
+        long now = clock.getAsLong();
+        for (Set<Subscriber> subscribers : subscribersByAccount.values()) {
+            for (Subscriber subscriber : subscribers) {
+                if (subscriber.closed) {
+                    continue;
+                }
+                if (subscriber.sending && now - subscriber.sendStartedNanos > sendTimeoutNanos) {
+                    dropped.increment();
+                    subscriber.close(new TimeoutException("Sending to the subscriber timed out"));
+                } else if (subscriber.buffer.offer(HEARTBEAT)) {
+                    subscriber.scheduleDrain();
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (Set<Subscriber> subscribers : subscribersByAccount.values()) {
+            for (Subscriber subscriber : subscribers) {
+                subscriber.emitter.complete();
+            }
+        }
+        if (executor instanceof ExecutorService) {
+            ((ExecutorService) executor).shutdownNow();
+        }
+    }
+
+    private void remove(Subscriber subscriber) {
+        boolean[] removed = new boolean[1];
+        subscribersByAccount.computeIfPresent(subscriber.accountName, (name, subscribers) -> {
+            removed[0] = subscribers.remove(subscriber);
+            return subscribers.isEmpty() ? null : subscribers;
+        });
+        if (removed[0]) {
+            subscriberCount.decrementAndGet();
+        }
+    }
+
+    /**
+     * A connected device, with the events that have not been sent to it yet. At most one sender thread drains the
+     * buffer of a subscriber at a time, so its events are sent in order. The thread that drains a closed subscriber
+     * completes its emitter and keeps the draining flag set, so the emitter is completed once and never sent to again.
+     */
+    private class Subscriber {
+
+        private final String accountName;
+        private final SseEmitter emitter;
+        private final ArrayBlockingQueue<Object> buffer = new ArrayBlockingQueue<>(bufferSize);
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile Throwable closeError;
+        private volatile boolean closed;
+        private volatile boolean sending;
+        private volatile long sendStartedNanos;
+
+        private Subscriber(String accountName, SseEmitter emitter) {
+            this.accountName = accountName;
+            this.emitter = emitter;
+        }
+
+        private void offer(SentimentEvent event) {
+            if (!buffer.offer(event)) {
+                dropped.increment();
+                close(null);
+                return;
+            }
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) {
+                executor.execute(this::drain);
+            }
+        }
+
+        /**
+         * Removes the subscriber and marks it closed, so that its stream is completed by a sender thread, with the
+         * given error if it is not null. Does not block, so it can be called from any thread.
+         */
+        private void close(Throwable error) {
+            if (closed) {
+                return;
+            }
+            closeError = error;
+            closed = true;
+            remove(this);
+            scheduleDrain();
+        }
+
+        private void complete() {
+            buffer.clear();
+            Throwable error = closeError;
+            if (error == null) {
+                emitter.complete();
+            } else {
+                emitter.completeWithError(error);
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                Object event;
+                while (!closed && (event = buffer.poll()) != null) {
+                    sendStartedNanos = clock.getAsLong();
+                    sending = true;
+                    try {
+                        if (event == HEARTBEAT) {
+                            emitter.send(SseEmitter.event().comment("heartbeat"));
+                            continue;
+                        }
+                        emitter.send(SseEmitter.event().name(EVENT_NAME).data(event, MediaType.APPLICATION_JSON));
+                        sent.increment();
+                    } catch (IOException | IllegalStateException e) {
+                        // The client disconnected or the stream was already completed.
+                        close(e);
+                    } finally {
+                        sending = false;
+                    }
+                }
+                if (closed) {
+                    complete();
+                    return;
+                }
+                draining.set(false);
+                // An event offered, or a close made, after the checks above but before draining was cleared would
+                // otherwise be stranded.
+                if ((!closed && buffer.isEmpty()) || !draining.compareAndSet(false, true)) {
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,448 @@
+package com.google.moviestvsentiments.assetSentiment;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import javax.annotation.PreDestroy;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only journal of UserSentiment writes, used when sentiments.write-mode is journal. Writes are appended to a
+ * memory-mapped file as compact binary records and acknowledged before they reach the database. A scheduled compactor
+ * folds the journal into the user sentiment table with UserSentimentRepository.upsertAll, in batches of up to
+ * COMPACT_BATCH_SIZE keys, so a burst of writes costs a few large transactions instead of one per row. Records with
+ * the same key are coalesced, keeping the latest timestamp, and upsertAll publishes a CatalogChangeEvent for every
+ * written sentiment, so in-memory indexes are updated as they are for direct writes.
+ *
+ * <p>The file is a ring. It starts with a header holding a magic number and the generation and position up to which
+ * the journal has been compacted. Each record holds its length, the generation it was written in, a CRC32 of its
+ * payload and the payload itself. When a write does not fit before the end of the file, a wrap record is written in
+ * its place, the generation is incremented and appends continue at the beginning of the file, in the space that has
+ * already been compacted. At startup, the records after the compacted position are replayed into the database,
+ * following wrap records and stopping at the first record that is torn, corrupt or from another generation, so
+ * records left behind by an earlier pass over the file are never replayed. Compacting a record twice is harmless,
+ * since upsertAll keeps the sentiment with the later timestamp.
+ *
+ * <p>Durability: an appended record is in the kernel page cache as soon as it is acknowledged, so it survives a crash
+ * or kill of the server. The mapped file is forced to disk every sentiments.journal.sync-interval-ms, and a power
+ * loss or operating system crash loses the records appended since the last sync. Syncs run on the journal's own
+ * thread rather than on the shared scheduler thread, so a long compaction or another scheduled task can not delay
+ * them and widen that window. Until a record is compacted, reads do not see it. When the journal has no room for a
+ * write, because compaction has fallen a whole file behind, the write is not appended and the caller must write it
+ * directly. These writes are counted by the sentiments.journal.fallbacks metric, and a warning is logged when they
+ * start.
+ */
+@Component
+public class SentimentJournal {
+
+    static final String JOURNAL_MODE = "journal";
+    static final int COMPACT_BATCH_SIZE = 5_000;
+
+    private static final int MAGIC = 0x534A524E;
+    // The header holds the magic number and the generation and position up to which the journal is compacted.
+    private static final int HEADER_BYTES = 16;
+    private static final int GENERATION_OFFSET = 4;
+    private static final int COMPACTED_OFFSET = 8;
+    // Each record starts with its payload length, its generation and the CRC32 of its payload.
+    private static final int RECORD_HEADER_BYTES = 12;
+    // The length of a wrap record, which sends readers back to the beginning of the file in the next generation.
+    private static final int WRAP = -1;
+    private static final AssetType[] ASSET_TYPES = AssetType.values();
+    private static final SentimentType[] SENTIMENT_TYPES = SentimentType.values();
+
+    private final Logger logger = LoggerFactory.getLogger(SentimentJournal.class);
+    private final boolean enabled;
+    private final UserSentimentRepository userSentimentRepository;
+    private final Object compactionLock = new Object();
+    private final Counter appended;
+    private final Counter compacted;
+    private final Counter failed;
+    private final Counter fallbacks;
+    private final Timer compactionTimer;
+    private final ScheduledExecutorService syncExecutor;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    // The write and compacted positions are only changed together with their generations, while holding this lock.
+    private volatile int writeGeneration;
+    private volatile int writePosition;
+    private volatile int compactedGeneration;
+    private volatile int compactedPosition;
+    private boolean dirty;
+    private boolean full;
+
+    public SentimentJournal(@Value("${sentiments.write-mode:direct}") String writeMode,
+                            @Value("${sentiments.journal.path:${user.home}/moviestvsentiments-journal}") String path,
+                            @Value("${sentiments.journal.size-bytes:67108864}") int sizeBytes,
+                            @Value("${sentiments.journal.sync-interval-ms:50}") long syncIntervalMs,
+                            UserSentimentRepository userSentimentRepository, MeterRegistry meterRegistry) {
+        enabled = JOURNAL_MODE.equals(writeMode);
+        this.userSentimentRepository = userSentimentRepository;
+        appended = meterRegistry.counter("sentiments.journal.records", "result", "appended");
+        compacted = meterRegistry.counter("sentiments.journal.records", "result", "compacted");
+        failed = meterRegistry.counter("sentiments.journal.compactions", "result", "failed");
+        fallbacks = meterRegistry.counter("sentiments.journal.fallbacks");
+        compactionTimer = meterRegistry.timer("sentiments.journal.compaction");
+        if (!enabled) {
+            syncExecutor = null;
+            return;
+        }
+        open(Paths.get(path), sizeBytes);
+        Gauge.builder("sentiments.journal.pending_bytes", this, SentimentJournal::getPendingBytes)
+                .register(meterRegistry);
+        syncExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sentiment-journal-sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // An exception would cancel the repeated task, so a failed sync is logged and retried by the next one.
+        syncExecutor.scheduleWithFixedDelay(() -> {
+            try {
+                sync();
+            } catch (RuntimeException e) {
+                logger.warn("Failed to sync the sentiment journal", e);
+            }
+        }, syncIntervalMs, syncIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Returns true if sentiment writes are appended to the journal.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Appends the given UserSentiments to the journal, to be written by the next compaction. If the journal is
+     * disabled, has no room for every sentiment, or a sentiment is missing a key, timestamp or sentiment type, nothing
+     * is appended and the caller must write the sentiments directly.
+     * @param sentiments The UserSentiments to write.
+     * @return True if the sentiments were appended.
+     */
+    public boolean append(List<UserSentiment> sentiments) {
+        if (!enabled) {
+            return false;
+        }
+        List<byte[]> payloads = new ArrayList<>(sentiments.size());
+        int size = 0;
+        for (UserSentiment sentiment : sentiments) {
+            byte[] payload = encode(sentiment);
+            if (payload == null) {
+                return false;
+            }
+            payloads.add(payload);
+            size += RECORD_HEADER_BYTES + payload.length;
+        }
+
+        synchronized (this) {
+            int generation = writeGeneration;
+            int position = writePosition;
+            boolean wrap = size > buffer.capacity() - position;
+            // Before wrapping, the records before the compacted position are free. After wrapping, the records from
+            // the write position up to the compacted position are.
+            int free = wrap ? compactedPosition - HEADER_BYTES : compactedPosition - position;
+            if ((generation != compactedGeneration && (wrap || size > free)) || (wrap && size > free)) {
+                if (!full) {
+                    full = true;
+                    logger.warn("The sentiment journal is full, writing sentiments directly until it is compacted");
+                }
+                fallbacks.increment(payloads.size());
+                return false;
+            }
+            if (wrap) {
+                if (position <= buffer.capacity() - RECORD_HEADER_BYTES) {
+                    buffer.putInt(position, WRAP);
+                    buffer.putInt(position + 4, generation);
+                }
+                generation++;
+                position = HEADER_BYTES;
+            }
+            ByteBuffer target = buffer.duplicate();
+            target.position(position);
+            for (byte[] payload : payloads) {
+                target.putInt(payload.length).putInt(generation).putInt(checksum(payload)).put(payload);
+            }
+            writeGeneration = generation;
+            writePosition = target.position();
+            dirty = true;
+            if (full) {
+                full = false;
+                logger.info("The sentiment journal has room again, appending sentiments to it");
+            }
+        }
+        appended.increment(payloads.size());
+        return true;
+    }
+
+    /**
+     * Returns the number of journal bytes that have not been compacted yet.
+     */
+    public synchronized int getPendingBytes() {
+        if (writeGeneration == compactedGeneration) {
+            return writePosition - compactedPosition;
+        }
+        return buffer.capacity() - compactedPosition + writePosition - HEADER_BYTES;
+    }
+
+    /**
+     * Forces the records appended since the last sync to disk. This runs on the journal's sync thread every
+     * sentiments.journal.sync-interval-ms.
+     */
+    public void sync() {
+        if (!enabled) {
+            return;
+        }
+        synchronized (this) {
+            if (!dirty) {
+                return;
+            }
+            dirty = false;
+        }
+        try {
+            buffer.force();
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                dirty = true;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Writes every record in the journal to the database, in batches of at most COMPACT_BATCH_SIZE keys, and moves the
+     * compacted position past each batch once it is committed, which frees its space for appends. If a batch fails,
+     * the compaction stops and the batch is retried by the next run.
+     */
+    @Scheduled(fixedDelayString = "${sentiments.journal.compact-interval-ms:1000}")
+    public void compact() {
+        if (!enabled) {
+            return;
+        }
+        synchronized (compactionLock) {
+            int endGeneration;
+            int end;
+            synchronized (this) {
+                endGeneration = writeGeneration;
+                end = writePosition;
+            }
+            int generation = compactedGeneration;
+            int position = compactedPosition;
+            while (generation != endGeneration || position != end) {
+                Map<UserSentiment.UserSentimentCompositeKey, UserSentiment> batch = new LinkedHashMap<>();
+                int records = 0;
+                while ((generation != endGeneration || position != end) && batch.size() < COMPACT_BATCH_SIZE) {
+                    if (isWrap(position, generation)) {
+                        generation++;
+                        position = HEADER_BYTES;
+                        continue;
+                    }
+                    UserSentiment sentiment = read(position, generation);
+                    if (sentiment == null) {
+                        endGeneration = generation;
+                        end = position;
+                        break;
+                    }
+                    batch.merge(keyOf(sentiment), sentiment, SentimentJournal::later);
+                    position += RECORD_HEADER_BYTES + buffer.getInt(position);
+                    records++;
+                }
+                List<UserSentiment> sentiments = new ArrayList<>(batch.values());
+                if (!sentiments.isEmpty()) {
+                    try {
+                        compactionTimer.record(() -> userSentimentRepository.upsertAll(sentiments));
+                    } catch (RuntimeException e) {
+                        failed.increment();
+                        logger.warn("Failed to compact {} journal records, will retry", records, e);
+                        return;
+                    }
+                }
+                compacted.increment(records);
+                synchronized (this) {
+                    compactedGeneration = generation;
+                    compactedPosition = position;
+                    buffer.putInt(GENERATION_OFFSET, generation);
+                    buffer.putInt(COMPACTED_OFFSET, position);
+                    dirty = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the records left in the journal from before the last shutdown to the database, so reads see them.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void replay() {
+        if (enabled && getPendingBytes() > 0) {
+            logger.info("Replaying " + getPendingBytes() + " bytes of journaled sentiments");
+            compact();
+        }
+    }
+
+    /**
+     * Stops the sync thread, compacts the journal and closes the file before the application shuts down.
+     */
+    @PreDestroy
+    public void shutdown() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        syncExecutor.shutdownNow();
+        compact();
+        buffer.force();
+        channel.close();
+    }
+
+    /**
+     * Maps the journal file, creating it if needed, and finds the end of the records that have not been compacted.
+     */
+    private void open(Path path, int sizeBytes) {
+        try {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(sizeBytes, channel.size()));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open the sentiment journal " + path, e);
+        }
+        if (buffer.getInt(0) != MAGIC) {
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(GENERATION_OFFSET, 0);
+            buffer.putInt(COMPACTED_OFFSET, HEADER_BYTES);
+            buffer.force();
+        }
+        int generation = buffer.getInt(GENERATION_OFFSET);
+        int position = buffer.getInt(COMPACTED_OFFSET);
+        compactedGeneration = generation;
+        compactedPosition = position;
+        while (true) {
+            if (isWrap(position, generation)) {
+                generation++;
+                position = HEADER_BYTES;
+            } else if (read(position, generation) != null) {
+                position += RECORD_HEADER_BYTES + buffer.getInt(position);
+            } else {
+                break;
+            }
+        }
+        writeGeneration = generation;
+        writePosition = position;
+    }
+
+    /**
+     * Returns true if readers of the given generation continue at the beginning of the file from the given position,
+     * because it holds a wrap record or there is no room for a record after it.
+     */
+    private boolean isWrap(int position, int generation) {
+        // Wrap records are never written at the beginning of the file, since a write that does not fit there does not
+        // fit anywhere.
+        if (position == HEADER_BYTES) {
+            return false;
+        }
+        return position > buffer.capacity() - RECORD_HEADER_BYTES
+                || (buffer.getInt(position) == WRAP && buffer.getInt(position + 4) == generation);
+    }
+
+    /**
+     * Returns the UserSentiment in the record at the given position, or null if there is no valid record of the given
+     * generation there.
+     */
+    private UserSentiment read(int position, int generation) {
+        if (position > buffer.capacity() - RECORD_HEADER_BYTES) {
+            return null;
+        }
+        int length = buffer.getInt(position);
+        if (length <= 0 || length > buffer.capacity() - position - RECORD_HEADER_BYTES
+                || buffer.getInt(position + 4) != generation) {
+            return null;
+        }
+        byte[] payload = new byte[length];
+        ByteBuffer source = buffer.duplicate();
+        source.position(position + RECORD_HEADER_BYTES);
+        source.get(payload);
+        if (checksum(payload) != buffer.getInt(position + 8)) {
+            return null;
+        }
+        return decode(payload);
+    }
+
+    /**
+     * Returns the binary payload of the given UserSentiment, or null if it can not be encoded.
+     */
+    private static byte[] encode(UserSentiment sentiment) {
+        if (sentiment.getAccountName() == null || sentiment.getAssetId() == null || sentiment.getAssetType() == null
+                || sentiment.getSentimentType() == null || sentiment.getTimestamp() == null) {
+            return null;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream output = new DataOutputStream(bytes)) {
+            output.writeUTF(sentiment.getAccountName());
+            output.writeUTF(sentiment.getAssetId());
+            output.writeByte(sentiment.getAssetType().ordinal());
+            output.writeByte(sentiment.getSentimentType().ordinal());
+            output.writeLong(sentiment.getTimestamp().getEpochSecond());
+            output.writeInt(sentiment.getTimestamp().getNano());
+        } catch (IOException e) {
+            // Strings longer than 65535 bytes can not be written with writeUTF.
+            return null;
+        }
+        return bytes.toByteArray();
+    }
+
+    private static UserSentiment decode(byte[] payload) {
+        try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(payload))) {
+            String accountName = input.readUTF();
+            String assetId = input.readUTF();
+            AssetType assetType = ASSET_TYPES[input.readUnsignedByte()];
+            SentimentType sentimentType = SENTIMENT_TYPES[input.readUnsignedByte()];
+            Instant timestamp = Instant.ofEpochSecond(input.readLong(), input.readInt());
+            return UserSentiment.create(accountName, assetId, assetType, sentimentType, timestamp);
+        } catch (IOException | ArrayIndexOutOfBoundsException e) {
+            return null;
+        }
+    }
+
+    private static int checksum(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload, 0, payload.length);
+        return (int) crc.getValue();
+    }
+
+    private static UserSentiment.UserSentimentCompositeKey keyOf(UserSentiment sentiment) {
+        return new UserSentiment.UserSentimentCompositeKey(sentiment.getAssetId(), sentiment.getAccountName(),
+                sentiment.getAssetType());
+    }
+
+    /**
+     * Returns the second sentiment unless the first one has a later timestamp.
+     */
+    private static UserSentiment later(UserSentiment first, UserSentiment second) {
+        return first.getTimestamp().isAfter(second.getTimestamp()) ? first : second;
+    }
+}
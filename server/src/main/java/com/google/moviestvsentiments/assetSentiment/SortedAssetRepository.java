@@ -0,0 +1,29 @@
+package com.google.moviestvsentiments.assetSentiment;
+
+import org.springframework.data.domain.Sort;
+import java.util.List;
+
+/**
+ * Queries for asset lists sorted and range-filtered by a numeric field. The field is chosen per request, so these are
+ * implemented with generated JPQL instead of @Query methods. AssetSentimentRepository extends this interface.
+ */
+public interface SortedAssetRepository {
+
+    /**
+     * Returns AssetSentimentSummaries that match the given AssetType, account name and SentimentType, sorted by the
+     * given field and then by asset id. Assets without a value for the field are left out. If the sentiment type is
+     * UNSPECIFIED, assets that the account has not reacted to are included, with a null UserSentiment.
+     * @param assetType The type of asset to include in the results.
+     * @param accountName The account name to use when checking for sentiments.
+     * @param sentimentType The sentiment type to check for.
+     * @param sortField The field to sort and filter by.
+     * @param direction The direction to sort in.
+     * @param min The smallest value of the field to include, or null for no lower bound.
+     * @param max The largest value of the field to include, or null for no upper bound.
+     * @param limit The maximum number of AssetSentimentSummaries to return.
+     * @return A sorted list of at most limit AssetSentimentSummaries.
+     */
+    List<AssetSentimentSummary> getSortedAssets(AssetType assetType, String accountName, SentimentType sentimentType,
+                                                AssetSortField sortField, Sort.Direction direction, Double min,
+                                                Double max, int limit);
+}
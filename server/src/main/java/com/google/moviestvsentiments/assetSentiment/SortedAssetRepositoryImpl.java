@@ -0,0 +1,65 @@
+package com.google.moviestvsentiments.assetSentiment;
+
+import org.springframework.data.domain.Sort;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import java.util.List;
+
+/**
+ * The JPQL implementation of SortedAssetRepository, which Spring Data finds by its Impl suffix. The queries select the
+ * same columns and join the same sentiments as the keyset page queries in AssetSentimentRepository, but filter and
+ * order by the chosen field so that its (assetType, field, assetId) index serves both.
+ */
+class SortedAssetRepositoryImpl implements SortedAssetRepository {
+
+    private static final String SELECT = "SELECT new com.google.moviestvsentiments.assetSentiment" +
+            ".AssetSentimentSummary(asset.assetId, asset.assetType, asset.title, asset.poster, asset.imdbRating, " +
+            "asset.rottenTomatoesRating, asset.runtime, asset.year, asset.timestamp, sentiment) FROM Asset asset ";
+    private static final String WITH_SENTIMENT_JOIN = "INNER JOIN UserSentiment sentiment " +
+            "ON asset.assetId = sentiment.assetId AND asset.assetType = sentiment.assetType " +
+            "WHERE asset.assetType = :assetType AND sentiment.accountName = :accountName " +
+            "AND sentiment.sentimentType = :sentimentType ";
+    private static final String UNSPECIFIED_SENTIMENT_JOIN = "LEFT JOIN UserSentiment sentiment " +
+            "ON asset.assetId = sentiment.assetId AND asset.assetType = sentiment.assetType " +
+            "AND sentiment.accountName = :accountName " +
+            "WHERE asset.assetType = :assetType AND (sentiment.sentimentType IS NULL " +
+            "OR sentiment.sentimentType = com.google.moviestvsentiments.assetSentiment.SentimentType.UNSPECIFIED) ";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<AssetSentimentSummary> getSortedAssets(AssetType assetType, String accountName,
+                                                       SentimentType sentimentType, AssetSortField sortField,
+                                                       Sort.Direction direction, Double min, Double max, int limit) {
+        // The property comes from the AssetSortField enum, never from the request, so it is safe to concatenate.
+        String property = "asset." + sortField.getProperty();
+        StringBuilder jpql = new StringBuilder(SELECT);
+        jpql.append(sentimentType == SentimentType.UNSPECIFIED ? UNSPECIFIED_SENTIMENT_JOIN : WITH_SENTIMENT_JOIN);
+        jpql.append("AND ").append(property).append(" IS NOT NULL ");
+        if (min != null) {
+            jpql.append("AND ").append(property).append(" >= :min ");
+        }
+        if (max != null) {
+            jpql.append("AND ").append(property).append(" <= :max ");
+        }
+        String order = direction.isAscending() ? " ASC" : " DESC";
+        jpql.append("ORDER BY ").append(property).append(order).append(", asset.assetId").append(order);
+
+        TypedQuery<AssetSentimentSummary> query = entityManager.createQuery(jpql.toString(),
+                AssetSentimentSummary.class);
+        query.setParameter("assetType", assetType);
+        query.setParameter("accountName", accountName);
+        if (sentimentType != SentimentType.UNSPECIFIED) {
+            query.setParameter("sentimentType", sentimentType);
+        }
+        if (min != null) {
+            query.setParameter("min", sortField.lowerBound(min));
+        }
+        if (max != null) {
+            query.setParameter("max", sortField.upperBound(max));
+        }
+        return query.setMaxResults(limit).getResultList();
+    }
+}
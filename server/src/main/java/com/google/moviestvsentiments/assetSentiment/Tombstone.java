@@ -0,0 +1,59 @@
+package com.google.moviestvsentiments.assetSentiment;
+
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import java.time.Instant;
+
+/**
+ * A record in the tombstones database table. A tombstone is written whenever an Asset or UserSentiment is deleted, so
+ * that clients syncing with /assets/changes can remove it from their local copy. Tombstones are kept for
+ * sentiments.tombstones.retention, and the index serves both the changes query and the sweep that prunes them.
+ */
+@Entity
+@Table(indexes = @Index(name = "idx_tombstone_asset_type_timestamp", columnList = "assetType, timestamp"))
+public class Tombstone {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private String assetId;
+    private AssetType assetType;
+    private String accountName;
+    private Instant timestamp;
+
+    // The default constructor is required by the Spring JPA.
+    protected Tombstone() {}
+
+    /**
+     * Returns the id of the deleted asset, or of the asset that the deleted sentiment was associated with.
+     */
+    public String getAssetId() {
+        return assetId;
+    }
+
+    /**
+     * Returns the type of the deleted asset, or of the asset that the deleted sentiment was associated with.
+     */
+    public AssetType getAssetType() {
+        return assetType;
+    }
+
+    /**
+     * Returns the account name of the deleted UserSentiment, or null if an Asset was deleted.
+     */
+    public String getAccountName() {
+        return accountName;
+    }
+
+    /**
+     * Returns the time at which the record was deleted.
+     */
+    public Instant getTimestamp() {
+        return timestamp;
+    }
+}
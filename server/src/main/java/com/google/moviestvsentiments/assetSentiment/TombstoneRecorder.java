@@ -0,0 +1,65 @@
+package com.google.moviestvsentiments.assetSentiment;
+
+import com.google.moviestvsentiments.catalog.CatalogChangeEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Writes a Tombstone for every deleted Asset and UserSentiment, and deletes the Tombstones that are older than
+ * sentiments.tombstones.retention. A client whose watermark is older than that has to sync again from the epoch.
+ */
+@Component
+public class TombstoneRecorder {
+
+    // The insert goes through JDBC because the deletion is reported while Hibernate is flushing, when the entity
+    // manager can not accept new entities. JDBC shares the deleting transaction's connection, so the tombstone is
+    // committed or rolled back together with the deletion.
+    private static final String INSERT_TOMBSTONE = "INSERT INTO tombstone (asset_id, asset_type, account_name, " +
+            "timestamp) VALUES (?, ?, ?, ?)";
+    private static final String DELETE_TOMBSTONES_BEFORE = "DELETE FROM tombstone WHERE timestamp < ?";
+
+    private final Clock clock = Clock.systemUTC();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${sentiments.tombstones.retention:P30D}")
+    private Duration retention;
+
+    /**
+     * Records a Tombstone if the given event is the deletion of an Asset or a UserSentiment.
+     * @param event The event describing the write.
+     */
+    @EventListener
+    public void onCatalogChange(CatalogChangeEvent event) {
+        if (!event.isDeleted()) {
+            return;
+        }
+
+        Timestamp now = Timestamp.from(Instant.now(clock));
+        if (event.getEntity() instanceof Asset) {
+            Asset asset = (Asset) event.getEntity();
+            jdbcTemplate.update(INSERT_TOMBSTONE, asset.getAssetId(), asset.getAssetType().ordinal(), null, now);
+        } else if (event.getEntity() instanceof UserSentiment) {
+            UserSentiment sentiment = (UserSentiment) event.getEntity();
+            jdbcTemplate.update(INSERT_TOMBSTONE, sentiment.getAssetId(), sentiment.getAssetType().ordinal(),
+                    sentiment.getAccountName(), now);
+        }
+    }
+
+    /**
+     * Deletes the Tombstones that are older than the retention period.
+     */
+    @Scheduled(fixedDelayString = "${sentiments.tombstones.prune-interval-ms:3600000}")
+    public void pruneTombstones() {
+        jdbcTemplate.update(DELETE_TOMBSTONES_BEFORE, Timestamp.from(Instant.now(clock).minus(retention)));
+    }
+}
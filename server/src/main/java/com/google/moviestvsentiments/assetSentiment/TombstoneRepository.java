@@ -0,0 +1,28 @@
+package com.google.moviestvsentiments.assetSentiment;
+
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * A Repository that provides functions for accessing Tombstone database records.
+ */
+public interface TombstoneRepository extends CrudRepository<Tombstone, Long> {
+
+    /**
+     * Returns the tombstones of the given asset type written after the given time. These include deleted Assets and
+     * the deleted UserSentiments of the given account.
+     * @param assetType The type of asset to include in the results.
+     * @param accountName The account whose deleted UserSentiments are included.
+     * @param since Only tombstones written after this time are returned.
+     * @return A list of matching tombstones.
+     */
+    @Query("SELECT tombstone FROM Tombstone tombstone " +
+            "WHERE tombstone.assetType = :assetType AND tombstone.timestamp > :since " +
+            "AND (tombstone.accountName IS NULL OR tombstone.accountName = :accountName)")
+    List<Tombstone> getTombstonesSince(@Param("assetType") AssetType assetType,
+                                       @Param("accountName") String accountName,
+                                       @Param("since") Instant since);
+}
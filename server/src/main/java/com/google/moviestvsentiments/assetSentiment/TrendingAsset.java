@@ -0,0 +1,29 @@
+package com.google.moviestvsentiments.assetSentiment;
+
+/**
+ * An Asset summary together with its trending score.
+ */
+public class TrendingAsset {
+
+    private final AssetSummary asset;
+    private final double score;
+
+    public TrendingAsset(AssetSummary asset, double score) {
+        this.asset = asset;
+        this.score = score;
+    }
+
+    /**
+     * Returns the summary of the asset.
+     */
+    public AssetSummary getAsset() {
+        return asset;
+    }
+
+    /**
+     * Returns the decayed trending score of the asset at the time it was ranked.
+     */
+    public double getScore() {
+        return score;
+    }
+}
@@ -0,0 +1,253 @@
+package com.google.moviestvsentiments.assetSentiment;
+
+import com.google.moviestvsentiments.catalog.AfterCommit;
+import com.google.moviestvsentiments.catalog.CatalogChangeEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Ranks the assets of each type by a trending score, in which every THUMBS_UP adds one and every THUMBS_DOWN subtracts
+ * one, decayed exponentially by the age of the UserSentiment's timestamp. Timestamps are set by clients, so ones
+ * after the time the server wrote the sentiment count as that time. Both times are stored with the sentiment, so the
+ * contribution that a later write removes is exactly the one that was added.
+ *
+ * Scores are not decayed as time passes. Instead, each contribution is scaled up by exp(rate * (timestamp - base)) for
+ * a fixed base time, which orders assets exactly as the decayed scores would, so a write only updates the score of its
+ * own asset. When the scale factor for new writes gets large, the base is moved forward and every score is rescaled.
+ */
+@Component
+public class TrendingScores {
+
+    /**
+     * The scaled score of a single asset. Scores are immutable, and are replaced in the ranking when they change.
+     */
+    private static class Score {
+        private final String assetId;
+        private final double value;
+
+        private Score(String assetId, double value) {
+            this.assetId = assetId;
+            this.value = value;
+        }
+    }
+
+    // The largest exponent used before the base is moved forward, well below where exp overflows a double.
+    private static final double MAX_EXPONENT = 100;
+    // Contributions older than this many half-lives are smaller than one millionth and are left out.
+    private static final int RETAINED_HALF_LIVES = 20;
+    private static final double NEGLIGIBLE_SCORE = 1e-6;
+    private static final Comparator<Score> RANKING = Comparator.comparingDouble((Score score) -> -score.value)
+            .thenComparing(score -> score.assetId);
+
+    private final UserSentimentRepository userSentimentRepository;
+    private final Clock clock;
+    private final Duration halfLife;
+    private final double decayPerSecond;
+    private final Map<AssetType, Map<String, Score>> scoresByType = new EnumMap<>(AssetType.class);
+    private final Map<AssetType, ConcurrentSkipListSet<Score>> rankingByType = new EnumMap<>(AssetType.class);
+    // Writers share the read lock, and moving the base takes the write lock.
+    private final ReadWriteLock baseLock = new ReentrantReadWriteLock();
+    private volatile long baseSecond;
+
+    @Autowired
+    public TrendingScores(UserSentimentRepository userSentimentRepository,
+                          @Value("${sentiments.trending.half-life:P1D}") Duration halfLife) {
+        this(userSentimentRepository, halfLife, Clock.systemUTC());
+    }
+
+    TrendingScores(UserSentimentRepository userSentimentRepository, Duration halfLife, Clock clock) {
+        this.userSentimentRepository = userSentimentRepository;
+        this.clock = clock;
+        this.halfLife = halfLife;
+        this.decayPerSecond = Math.log(2) / halfLife.getSeconds();
+        this.baseSecond = clock.instant().getEpochSecond();
+        for (AssetType assetType : AssetType.values()) {
+            scoresByType.put(assetType, new ConcurrentHashMap<>());
+            rankingByType.put(assetType, new ConcurrentSkipListSet<>(RANKING));
+        }
+    }
+
+    /**
+     * Recomputes every score from the UserSentiments that are recent enough to still count.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        baseLock.writeLock().lock();
+        try {
+            for (AssetType assetType : AssetType.values()) {
+                scoresByType.get(assetType).clear();
+                rankingByType.get(assetType).clear();
+            }
+            baseSecond = clock.instant().getEpochSecond();
+            Instant since = clock.instant().minus(halfLife.multipliedBy(RETAINED_HALF_LIVES));
+            for (UserSentiment sentiment : userSentimentRepository.getReactionsSince(since)) {
+                add(sentiment.getAssetType(), sentiment.getAssetId(), contribution(sentiment.getSentimentType(),
+                        countedTime(sentiment.getTimestamp(), sentiment.getChangedAt())));
+            }
+        } finally {
+            baseLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces the contribution of the written UserSentiment's previous value with that of its new value, once the
+     * write commits.
+     * @param event The event describing the write.
+     */
+    @EventListener
+    public void onCatalogChange(CatalogChangeEvent event) {
+        if (!(event.getEntity() instanceof UserSentiment)) {
+            return;
+        }
+
+        UserSentiment sentiment = (UserSentiment) event.getEntity();
+        SentimentType beforeType = sentiment.getStoredSentimentType();
+        Instant beforeTime = countedTime(sentiment.getStoredTimestamp(), sentiment.getStoredChangedAt());
+        SentimentType afterType = event.isDeleted() ? null : sentiment.getSentimentType();
+        Instant afterTime = countedTime(sentiment.getTimestamp(), sentiment.getChangedAt());
+        if (weight(beforeType) == 0 && weight(afterType) == 0) {
+            return;
+        }
+
+        AfterCommit.run(() -> update(sentiment.getAssetType(), sentiment.getAssetId(), beforeType, beforeTime,
+                afterType, afterTime));
+    }
+
+    /**
+     * Returns the trending assets of the given type with the highest scores. Only assets with a positive score are
+     * returned, each at most once.
+     * @param assetType The type of the assets to rank.
+     * @param limit The maximum number of assets to return.
+     * @return The AssetTrends of the top assets, highest score first.
+     */
+    public List<AssetTrend> getTrending(AssetType assetType, int limit) {
+        List<AssetTrend> trending = new ArrayList<>();
+        // A concurrent update replaces an asset's Score with a new one, so the iteration can see both of them.
+        Set<String> seen = new HashSet<>();
+        baseLock.readLock().lock();
+        try {
+            double decay = Math.exp(-decayPerSecond * (clock.instant().getEpochSecond() - baseSecond));
+            for (Score score : rankingByType.get(assetType)) {
+                if (trending.size() == limit || score.value <= 0) {
+                    break;
+                }
+                if (seen.add(score.assetId)) {
+                    trending.add(new AssetTrend(score.assetId, assetType, score.value * decay));
+                }
+            }
+        } finally {
+            baseLock.readLock().unlock();
+        }
+        return trending;
+    }
+
+    private void update(AssetType assetType, String assetId, SentimentType beforeType, Instant beforeTime,
+                        SentimentType afterType, Instant afterTime) {
+        moveBaseIfNeeded();
+        baseLock.readLock().lock();
+        try {
+            double delta = contribution(afterType, afterTime) - contribution(beforeType, beforeTime);
+            if (delta != 0) {
+                add(assetType, assetId, delta);
+            }
+        } finally {
+            baseLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the time at which a sentiment with the given client timestamp and server write time counts. This only
+     * depends on values stored with the sentiment, so it is the same when the contribution is added and removed.
+     */
+    private static Instant countedTime(Instant timestamp, Instant changedAt) {
+        if (timestamp == null || changedAt == null) {
+            return timestamp;
+        }
+        return timestamp.isAfter(changedAt) ? changedAt : timestamp;
+    }
+
+    /**
+     * Returns the scaled contribution of a sentiment of the given type, counted at the given time, relative to the
+     * current base.
+     */
+    private double contribution(SentimentType sentimentType, Instant time) {
+        int weight = weight(sentimentType);
+        if (weight == 0 || time == null) {
+            return 0;
+        }
+        return weight * Math.exp(decayPerSecond * (time.getEpochSecond() - baseSecond));
+    }
+
+    private void add(AssetType assetType, String assetId, double delta) {
+        ConcurrentSkipListSet<Score> ranking = rankingByType.get(assetType);
+        // compute locks the asset's entry, so its removal from and insertion into the ranking are not interleaved.
+        scoresByType.get(assetType).compute(assetId, (id, score) -> {
+            double value = delta;
+            if (score != null) {
+                ranking.remove(score);
+                value += score.value;
+            }
+            if (Math.abs(value) < NEGLIGIBLE_SCORE) {
+                return null;
+            }
+            Score updated = new Score(id, value);
+            ranking.add(updated);
+            return updated;
+        });
+    }
+
+    /**
+     * Moves the base forward to now and rescales every score if new contributions would exceed MAX_EXPONENT. Scores
+     * that decayed to almost nothing are dropped.
+     */
+    private void moveBaseIfNeeded() {
+        if (decayPerSecond * (clock.instant().getEpochSecond() - baseSecond) <= MAX_EXPONENT) {
+            return;
+        }
+        baseLock.writeLock().lock();
+        try {
+            long now = clock.instant().getEpochSecond();
+            if (decayPerSecond * (now - baseSecond) <= MAX_EXPONENT) {
+                return;
+            }
+            double scale = Math.exp(-decayPerSecond * (now - baseSecond));
+            baseSecond = now;
+            for (AssetType assetType : AssetType.values()) {
+                Map<String, Score> scores = scoresByType.get(assetType);
+                ConcurrentSkipListSet<Score> ranking = rankingByType.get(assetType);
+                ranking.clear();
+                scores.replaceAll((id, score) -> new Score(id, score.value * scale));
+                scores.values().removeIf(score -> Math.abs(score.value) < NEGLIGIBLE_SCORE);
+                ranking.addAll(scores.values());
+            }
+        } finally {
+            baseLock.writeLock().unlock();
+        }
+    }
+
+    private static int weight(SentimentType sentimentType) {
+        if (sentimentType == SentimentType.THUMBS_UP) {
+            return 1;
+        } else if (sentimentType == SentimentType.THUMBS_DOWN) {
+            return -1;
+        }
+        return 0;
+    }
+}
@@ -1,16 +1,37 @@
 package com.google.moviestvsentiments.assetSentiment;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.google.moviestvsentiments.catalog.CatalogChangeListener;
+import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.Id;
 import javax.persistence.IdClass;
+import javax.persistence.Index;
+import javax.persistence.PostLoad;
+import javax.persistence.PostPersist;
+import javax.persistence.PostUpdate;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
+import javax.persistence.Table;
+import javax.persistence.Transient;
 import java.io.Serializable;
 import java.time.Instant;
 import java.util.Objects;
 
 /**
- * A record in the user sentiments database table.
+ * A record in the user sentiments database table. Every query reads the sentiments of a single account and asset
+ * type, so each index starts with those columns: one filters by sentiment type, one probes a single asset from the
+ * asset joins, and one serves the delta sync.
  */
 @Entity
+@EntityListeners(CatalogChangeListener.class)
+@Table(indexes = {
+        @Index(name = "idx_user_sentiment_account_type_sentiment",
+                columnList = "accountName, assetType, sentimentType"),
+        @Index(name = "idx_user_sentiment_account_type_asset", columnList = "accountName, assetType, assetId"),
+        @Index(name = "idx_user_sentiment_account_type_changed_at", columnList = "accountName, assetType, changedAt")
+})
 @IdClass(UserSentiment.UserSentimentCompositeKey.class)
 public class UserSentiment {
 
@@ -70,6 +91,15 @@ public class UserSentiment {
     @Id private AssetType assetType;
     private SentimentType sentimentType;
     private Instant timestamp;
+    // The server time of the last write, which the delta sync compares instead of the client-assigned timestamp.
+    // Rows that existed before the column was added get the time it was added.
+    @Column(columnDefinition = "TIMESTAMP DEFAULT CURRENT_TIMESTAMP")
+    private Instant changedAt;
+
+    // The sentiment type, timestamp and write time as they were last read from or written to the database.
+    @Transient private SentimentType storedSentimentType;
+    @Transient private Instant storedTimestamp;
+    @Transient private Instant storedChangedAt;
 
     /**
      * Creates a new UserSentiment with the provided fields.
@@ -166,6 +196,77 @@ public class UserSentiment {
         this.timestamp = timestamp;
     }
 
+    /**
+     * Returns the server time at which the sentiment was last written, or null if it has not been written yet.
+     */
+    @JsonIgnore
+    public Instant getChangedAt() {
+        return changedAt;
+    }
+
+    /**
+     * Sets the server time at which the sentiment was last written. Writers that bypass JPA call this with the time
+     * that they store.
+     * @param changedAt The time of the write.
+     */
+    void setChangedAt(Instant changedAt) {
+        this.changedAt = changedAt;
+    }
+
+    @PrePersist
+    @PreUpdate
+    void onWrite() {
+        changedAt = Instant.now();
+    }
+
+    /**
+     * Returns the sentiment type that is stored in the database for this sentiment, or null if it has not been stored
+     * yet. Inside a CatalogChangeEvent listener, this is the sentiment type from before the write.
+     */
+    SentimentType getStoredSentimentType() {
+        return storedSentimentType;
+    }
+
+    /**
+     * Returns the timestamp that is stored in the database for this sentiment, or null if it has not been stored yet.
+     * Inside a CatalogChangeEvent listener, this is the timestamp from before the write.
+     */
+    Instant getStoredTimestamp() {
+        return storedTimestamp;
+    }
+
+    /**
+     * Returns the server write time that is stored in the database for this sentiment, or null if it has not been
+     * stored yet. Inside a CatalogChangeEvent listener, this is the write time from before the write.
+     */
+    Instant getStoredChangedAt() {
+        return storedChangedAt;
+    }
+
+    /**
+     * Sets the sentiment type, timestamp and write time that are stored in the database for this sentiment. Writers
+     * that bypass JPA call this before publishing a CatalogChangeEvent, so that listeners see the values from before
+     * the write.
+     * @param storedSentimentType The stored sentiment type, or null if the sentiment is not stored.
+     * @param storedTimestamp The stored timestamp, or null if the sentiment is not stored.
+     * @param storedChangedAt The stored write time, or null if the sentiment is not stored.
+     */
+    void setStored(SentimentType storedSentimentType, Instant storedTimestamp, Instant storedChangedAt) {
+        this.storedSentimentType = storedSentimentType;
+        this.storedTimestamp = storedTimestamp;
+        this.storedChangedAt = storedChangedAt;
+    }
+
+    // Entity listeners run before this callback, so they still see the type from before the write.
+    @PostLoad
+    @PostPersist
+    @PostUpdate
+    void onStored() {
+        storedSentimentType = sentimentType;
+        storedTimestamp = timestamp;
+        storedChangedAt = changedAt;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
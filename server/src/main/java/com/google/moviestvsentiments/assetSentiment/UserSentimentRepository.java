@@ -1,9 +1,69 @@
 package com.google.moviestvsentiments.assetSentiment;
 
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import java.time.Instant;
+import java.util.List;
 
 /**
  * A Repository that provides functions for accessing and modifying UserSentiment database records.
  */
-public interface UserSentimentRepository extends CrudRepository<UserSentiment, UserSentiment.UserSentimentCompositeKey> {
+public interface UserSentimentRepository extends CrudRepository<UserSentiment, UserSentiment.UserSentimentCompositeKey>,
+        UserSentimentUpsertRepository {
+
+    /**
+     * Returns the UserSentiments of the given account and asset type that the server wrote after the given time. The
+     * write time is assigned by the server, so a client with a skewed clock can not write behind a watermark.
+     * @param accountName The account to return UserSentiments for.
+     * @param assetType The type of asset to include in the results.
+     * @param since Only sentiments written after this time are returned.
+     * @return A list of UserSentiments written after the given time.
+     */
+    @Query("SELECT sentiment FROM UserSentiment sentiment " +
+            "WHERE sentiment.accountName = :accountName AND sentiment.assetType = :assetType " +
+            "AND sentiment.changedAt > :since")
+    List<UserSentiment> getSentimentsChangedSince(@Param("accountName") String accountName,
+                                                  @Param("assetType") AssetType assetType,
+                                                  @Param("since") Instant since);
+
+    /**
+     * Returns all UserSentiments of the given account.
+     * @param accountName The account to return UserSentiments for.
+     * @return A list of the account's UserSentiments.
+     */
+    @Query("SELECT sentiment FROM UserSentiment sentiment WHERE sentiment.accountName = :accountName")
+    List<UserSentiment> getSentimentsForAccount(@Param("accountName") String accountName);
+
+    /**
+     * Returns the number of THUMBS_UP and THUMBS_DOWN sentiments of every asset that has a UserSentiment. This scans
+     * the whole table and is only used to initialize SentimentCounters.
+     */
+    @Query("SELECT new com.google.moviestvsentiments.assetSentiment.SentimentCount(sentiment.assetId, " +
+            "sentiment.assetType, " +
+            "SUM(CASE WHEN sentiment.sentimentType = " +
+            "com.google.moviestvsentiments.assetSentiment.SentimentType.THUMBS_UP THEN 1L ELSE 0L END), " +
+            "SUM(CASE WHEN sentiment.sentimentType = " +
+            "com.google.moviestvsentiments.assetSentiment.SentimentType.THUMBS_DOWN THEN 1L ELSE 0L END)) " +
+            "FROM UserSentiment sentiment GROUP BY sentiment.assetId, sentiment.assetType")
+    List<SentimentCount> countSentiments();
+
+    /**
+     * Returns the THUMBS_UP and THUMBS_DOWN UserSentiments whose timestamp is after the given time.
+     * @param since Only sentiments updated after this time are returned.
+     * @return A list of THUMBS_UP and THUMBS_DOWN UserSentiments updated after the given time.
+     */
+    @Query("SELECT sentiment FROM UserSentiment sentiment WHERE sentiment.timestamp > :since " +
+            "AND sentiment.sentimentType IN (com.google.moviestvsentiments.assetSentiment.SentimentType.THUMBS_UP, " +
+            "com.google.moviestvsentiments.assetSentiment.SentimentType.THUMBS_DOWN)")
+    List<UserSentiment> getReactionsSince(@Param("since") Instant since);
+
+    /**
+     * Returns every THUMBS_UP and THUMBS_DOWN UserSentiment. This scans the whole table and is only used to initialize
+     * the ItemRecommender.
+     */
+    @Query("SELECT sentiment FROM UserSentiment sentiment " +
+            "WHERE sentiment.sentimentType IN (com.google.moviestvsentiments.assetSentiment.SentimentType.THUMBS_UP, " +
+            "com.google.moviestvsentiments.assetSentiment.SentimentType.THUMBS_DOWN)")
+    List<UserSentiment> getReactions();
 }
@@ -0,0 +1,21 @@
+package com.google.moviestvsentiments.assetSentiment;
+
+import java.util.List;
+
+/**
+ * Bulk writes of UserSentiments that bypass the select-before-insert of JPA merge. UserSentimentRepository extends
+ * this interface.
+ */
+public interface UserSentimentUpsertRepository {
+
+    /**
+     * Inserts or updates the given UserSentiments with a single batch of MERGE statements. For every key, whichever of
+     * the stored and the given UserSentiment has the later timestamp is kept, and ties go to the given one. If the
+     * list holds the same key more than once, only its latest UserSentiment is written. A CatalogChangeEvent is
+     * published for every UserSentiment that is written.
+     * @param sentiments The UserSentiments to write.
+     * @return The UserSentiment that is stored for each distinct key after the write, in order of first appearance.
+     * @throws DataIntegrityViolationException If a UserSentiment has no account name, asset id or asset type.
+     */
+    List<UserSentiment> upsertAll(List<UserSentiment> sentiments);
+}
@@ -0,0 +1,153 @@
+package com.google.moviestvsentiments.assetSentiment;
+
+import com.google.moviestvsentiments.catalog.CatalogChangeEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The JDBC implementation of UserSentimentUpsertRepository, which Spring Data finds by its Impl suffix. The stored
+ * rows of the batch are read and locked first, one indexed query per account and asset type, so that the published
+ * CatalogChangeEvents carry the values from before the write. The MERGE statement applies last-writer-wins itself, so
+ * a row inserted by a concurrent write after the read is still only replaced by a later timestamp.
+ */
+class UserSentimentUpsertRepositoryImpl implements UserSentimentUpsertRepository {
+
+    private static final String SOURCE_IS_LATER = "(target.timestamp IS NULL OR source.timestamp >= target.timestamp)";
+    private static final String MERGE_SENTIMENT_SQL = "MERGE INTO user_sentiment target USING (SELECT " +
+            "CAST(? AS VARCHAR) AS asset_id, CAST(? AS VARCHAR) AS account_name, CAST(? AS INT) AS asset_type, " +
+            "CAST(? AS INT) AS sentiment_type, CAST(? AS TIMESTAMP) AS timestamp, " +
+            "CAST(? AS TIMESTAMP) AS changed_at) source " +
+            "ON target.asset_id = source.asset_id AND target.account_name = source.account_name " +
+            "AND target.asset_type = source.asset_type " +
+            "WHEN MATCHED THEN UPDATE SET " +
+            "sentiment_type = CASE WHEN " + SOURCE_IS_LATER + " THEN source.sentiment_type " +
+            "ELSE target.sentiment_type END, " +
+            "timestamp = CASE WHEN " + SOURCE_IS_LATER + " THEN source.timestamp ELSE target.timestamp END, " +
+            "changed_at = CASE WHEN " + SOURCE_IS_LATER + " THEN source.changed_at ELSE target.changed_at END " +
+            "WHEN NOT MATCHED THEN INSERT " +
+            "(asset_id, account_name, asset_type, sentiment_type, timestamp, changed_at) " +
+            "VALUES (source.asset_id, source.account_name, source.asset_type, source.sentiment_type, " +
+            "source.timestamp, source.changed_at)";
+    private static final String SELECT_STORED_SQL = "SELECT asset_id, sentiment_type, timestamp, changed_at " +
+            "FROM user_sentiment WHERE account_name = :accountName AND asset_type = :assetType " +
+            "AND asset_id IN (:assetIds) FOR UPDATE";
+    // Rows are written in key order, so that concurrent batches lock shared rows in the same order.
+    private static final Comparator<UserSentiment> KEY_ORDER = Comparator.comparing(UserSentiment::getAccountName)
+            .thenComparing(UserSentiment::getAssetType).thenComparing(UserSentiment::getAssetId);
+    private static final SentimentType[] SENTIMENT_TYPES = SentimentType.values();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Override
+    @Transactional
+    public List<UserSentiment> upsertAll(List<UserSentiment> sentiments) {
+        Map<UserSentiment.UserSentimentCompositeKey, UserSentiment> latest = new LinkedHashMap<>();
+        for (UserSentiment sentiment : sentiments) {
+            if (sentiment.getAccountName() == null || sentiment.getAssetId() == null
+                    || sentiment.getAssetType() == null) {
+                throw new DataIntegrityViolationException(
+                        "UserSentiments must have an account name, asset id and asset type");
+            }
+            latest.merge(keyOf(sentiment), sentiment, (first, second) ->
+                    replaces(second.getTimestamp(), first.getTimestamp()) ? second : first);
+        }
+
+        Map<UserSentiment.UserSentimentCompositeKey, UserSentiment> stored = loadStored(latest.values());
+        List<UserSentiment> results = new ArrayList<>();
+        List<UserSentiment> written = new ArrayList<>();
+        for (UserSentiment sentiment : latest.values()) {
+            UserSentiment current = stored.get(keyOf(sentiment));
+            if (current != null && !replaces(sentiment.getTimestamp(), current.getTimestamp())) {
+                results.add(current);
+                continue;
+            }
+            sentiment.setStored(current == null ? null : current.getSentimentType(),
+                    current == null ? null : current.getTimestamp(), current == null ? null : current.getChangedAt());
+            results.add(sentiment);
+            written.add(sentiment);
+        }
+
+        written.sort(KEY_ORDER);
+        Instant changedAt = Instant.now();
+        List<Object[]> rows = new ArrayList<>();
+        for (UserSentiment sentiment : written) {
+            sentiment.setChangedAt(changedAt);
+            rows.add(new Object[] {sentiment.getAssetId(), sentiment.getAccountName(),
+                    sentiment.getAssetType().ordinal(),
+                    sentiment.getSentimentType() == null ? null : sentiment.getSentimentType().ordinal(),
+                    sentiment.getTimestamp() == null ? null : Timestamp.from(sentiment.getTimestamp()),
+                    Timestamp.from(changedAt)});
+        }
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(MERGE_SENTIMENT_SQL, rows);
+        }
+        for (UserSentiment sentiment : written) {
+            eventPublisher.publishEvent(CatalogChangeEvent.saved(sentiment));
+        }
+        return results;
+    }
+
+    /**
+     * Returns true if a write with the incoming timestamp replaces a row with the current timestamp. This matches the
+     * condition of the MERGE statement.
+     */
+    private static boolean replaces(Instant incoming, Instant current) {
+        return current == null || (incoming != null && !incoming.isBefore(current));
+    }
+
+    private Map<UserSentiment.UserSentimentCompositeKey, UserSentiment> loadStored(
+            Iterable<UserSentiment> sentiments) {
+        Map<String, Map<AssetType, List<String>>> assetIds = new HashMap<>();
+        for (UserSentiment sentiment : sentiments) {
+            assetIds.computeIfAbsent(sentiment.getAccountName(), ignored -> new HashMap<>())
+                    .computeIfAbsent(sentiment.getAssetType(), ignored -> new ArrayList<>())
+                    .add(sentiment.getAssetId());
+        }
+
+        NamedParameterJdbcTemplate namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        Map<UserSentiment.UserSentimentCompositeKey, UserSentiment> stored = new HashMap<>();
+        for (Map.Entry<String, Map<AssetType, List<String>>> account : assetIds.entrySet()) {
+            for (Map.Entry<AssetType, List<String>> group : account.getValue().entrySet()) {
+                MapSqlParameterSource parameters = new MapSqlParameterSource()
+                        .addValue("accountName", account.getKey())
+                        .addValue("assetType", group.getKey().ordinal())
+                        .addValue("assetIds", group.getValue());
+                namedParameterJdbcTemplate.query(SELECT_STORED_SQL, parameters, (RowCallbackHandler) resultSet -> {
+                    int code = resultSet.getInt("sentiment_type");
+                    SentimentType sentimentType = resultSet.wasNull() ? null : SENTIMENT_TYPES[code];
+                    Timestamp timestamp = resultSet.getTimestamp("timestamp");
+                    UserSentiment current = UserSentiment.create(account.getKey(), resultSet.getString("asset_id"),
+                            group.getKey(), sentimentType, timestamp == null ? null : timestamp.toInstant());
+                    Timestamp changedAt = resultSet.getTimestamp("changed_at");
+                    current.setChangedAt(changedAt == null ? null : changedAt.toInstant());
+                    current.onStored();
+                    stored.put(keyOf(current), current);
+                });
+            }
+        }
+        return stored;
+    }
+
+    private static UserSentiment.UserSentimentCompositeKey keyOf(UserSentiment sentiment) {
+        return new UserSentiment.UserSentimentCompositeKey(sentiment.getAssetId(), sentiment.getAccountName(),
+                sentiment.getAssetType());
+    }
+}
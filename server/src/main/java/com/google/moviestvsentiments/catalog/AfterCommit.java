@@ -0,0 +1,31 @@
+package com.google.moviestvsentiments.catalog;
+
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Defers work until the current transaction commits. CatalogChangeEvent listeners use it when they must read the
+ * entity while its transaction is being flushed, but should only act on the change once it is committed.
+ */
+public final class AfterCommit {
+
+    private AfterCommit() {}
+
+    /**
+     * Runs the given task after the current transaction commits, or immediately if there is no transaction. The task
+     * is discarded if the transaction rolls back.
+     * @param task The task to run.
+     */
+    public static void run(Runnable task) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            task.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                task.run();
+            }
+        });
+    }
+}
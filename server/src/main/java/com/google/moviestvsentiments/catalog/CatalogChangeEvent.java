@@ -0,0 +1,48 @@
+package com.google.moviestvsentiments.catalog;
+
+/**
+ * An application event that is published whenever an Asset, UserSentiment or Account is written to the database.
+ * Listeners that need to observe committed data should use TransactionalEventListener.
+ */
+public class CatalogChangeEvent {
+
+    private final Object entity;
+    private final boolean deleted;
+
+    private CatalogChangeEvent(Object entity, boolean deleted) {
+        this.entity = entity;
+        this.deleted = deleted;
+    }
+
+    /**
+     * Creates a new CatalogChangeEvent for an entity that was inserted or updated.
+     * @param entity The saved entity.
+     * @return A new CatalogChangeEvent for the saved entity.
+     */
+    public static CatalogChangeEvent saved(Object entity) {
+        return new CatalogChangeEvent(entity, false);
+    }
+
+    /**
+     * Creates a new CatalogChangeEvent for an entity that was deleted.
+     * @param entity The deleted entity.
+     * @return A new CatalogChangeEvent for the deleted entity.
+     */
+    public static CatalogChangeEvent deleted(Object entity) {
+        return new CatalogChangeEvent(entity, true);
+    }
+
+    /**
+     * Returns the entity that was written.
+     */
+    public Object getEntity() {
+        return entity;
+    }
+
+    /**
+     * Returns true if the entity was deleted and false if it was inserted or updated.
+     */
+    public boolean isDeleted() {
+        return deleted;
+    }
+}
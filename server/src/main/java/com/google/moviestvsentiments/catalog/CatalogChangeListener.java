@@ -0,0 +1,28 @@
+package com.google.moviestvsentiments.catalog;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+/**
+ * A JPA entity listener that publishes a CatalogChangeEvent for every write to an entity that it is attached to.
+ * Hibernate creates this listener through Spring, so its dependencies are autowired.
+ */
+public class CatalogChangeListener {
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @PostPersist
+    @PostUpdate
+    void onSave(Object entity) {
+        eventPublisher.publishEvent(CatalogChangeEvent.saved(entity));
+    }
+
+    @PostRemove
+    void onRemove(Object entity) {
+        eventPublisher.publishEvent(CatalogChangeEvent.deleted(entity));
+    }
+}
@@ -0,0 +1,87 @@
+package com.google.moviestvsentiments.catalog;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.DigestUtils;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A counter that is incremented after every committed write to the catalog. Controllers use it to derive ETags for
+ * their responses, so that unchanged responses can be answered with a 304 without running any queries.
+ */
+@Component
+public class CatalogVersion {
+
+    // Distinguishes the versions of this process from those handed out before a restart.
+    private final String epoch = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+    private final AtomicLong version = new AtomicLong();
+
+    /**
+     * Returns the current version of the catalog.
+     */
+    public long get() {
+        return version.get();
+    }
+
+    /**
+     * Increments the catalog version. This runs after the write's transaction commits, so that a reader that sees the
+     * new version is guaranteed to also see the new data in the database. In-memory views of the catalog call
+     * increment again once they have applied the write themselves.
+     * @param event The event describing the write.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChange(CatalogChangeEvent event) {
+        increment();
+    }
+
+    /**
+     * Increments the catalog version. In-memory views of the catalog call this after applying a write or rebuilding,
+     * since the order of the after-commit listeners is not defined and the version must not move ahead of them.
+     */
+    public void increment() {
+        version.incrementAndGet();
+    }
+
+    /**
+     * Returns a weak ETag for the query identified by the given parts at the current catalog version. The ETag must
+     * be computed before the query runs, so that a write that commits during the query invalidates it. It is weak
+     * because the compressed and uncompressed responses differ byte for byte, and Tomcat does not compress responses
+     * that carry a strong ETag.
+     * @param queryParts The values that identify the query, such as its request parameters.
+     * @return A quoted weak ETag.
+     */
+    public String eTag(Object... queryParts) {
+        long currentVersion = version.get();
+        StringBuilder query = new StringBuilder();
+        for (Object part : queryParts) {
+            query.append(part).append('\0');
+        }
+        String digest = DigestUtils.md5DigestAsHex(query.toString().getBytes(StandardCharsets.UTF_8));
+        return "W/\"" + epoch + "." + currentVersion + "-" + digest + "\"";
+    }
+
+    /**
+     * Returns true if the given If-None-Match header value contains the given ETag. ETags are compared weakly, as
+     * If-None-Match requires, so a W/ prefix on either side is ignored.
+     * @param ifNoneMatch The value of the If-None-Match request header, or null if it was not sent.
+     * @param eTag The current ETag of the requested resource.
+     * @return True if the client already has the current version of the resource.
+     */
+    public static boolean matches(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String trimmed = candidate.trim();
+            if (trimmed.equals("*") || opaqueTag(trimmed).equals(opaqueTag(eTag))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String opaqueTag(String eTag) {
+        return eTag.startsWith("W/") ? eTag.substring(2) : eTag;
+    }
+}
@@ -0,0 +1,382 @@
+package com.google.moviestvsentiments.recommendation;
+
+import com.google.moviestvsentiments.assetSentiment.AssetType;
+import com.google.moviestvsentiments.assetSentiment.UserSentiment;
+import com.google.moviestvsentiments.assetSentiment.UserSentimentRepository;
+import com.google.moviestvsentiments.catalog.CatalogChangeEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Recommends assets with item-item collaborative filtering over the THUMBS_UP and THUMBS_DOWN sentiments of every
+ * account. Two assets are similar when the same accounts rated them the same way, measured by the cosine similarity of
+ * their +1/-1 rating columns. The most similar assets of each asset are precomputed in parallel, and are recomputed
+ * for the assets whose ratings changed on every refresh. Rebuilds and refreshes run on a background thread, so they do
+ * not hold up the shared scheduler thread.
+ */
+@Component
+public class ItemRecommender {
+
+    // Leaf tasks compute this many items each, which amortizes their scratch arrays.
+    private static final int ITEMS_PER_TASK = 64;
+    // A refresh that would recompute more than this fraction of the items recomputes all of them instead.
+    private static final double FULL_REBUILD_FRACTION = 0.1;
+
+    private final UserSentimentRepository userSentimentRepository;
+    private final int neighbourCount;
+    private final Set<Integer> changedItems = ConcurrentHashMap.newKeySet();
+    private final Executor executor;
+    private final AtomicBoolean refreshPending = new AtomicBoolean();
+    // Guards the writes to matrix and pendingChanges, so that each change either reaches the matrix that replaces the
+    // current one or is buffered for it.
+    private final Object changesLock = new Object();
+    // The changes made while a rebuild loads a new matrix, or null if no rebuild is loading.
+    private List<CatalogChangeEvent> pendingChanges;
+    private volatile RatingMatrix matrix = new RatingMatrix();
+    private volatile Neighbours[] neighbours = new Neighbours[0];
+
+    @Autowired
+    public ItemRecommender(UserSentimentRepository userSentimentRepository,
+                           @Value("${recommendations.neighbours:50}") int neighbourCount) {
+        this(userSentimentRepository, neighbourCount, Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "item-recommender");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    ItemRecommender(UserSentimentRepository userSentimentRepository, int neighbourCount, Executor executor) {
+        this.userSentimentRepository = userSentimentRepository;
+        this.neighbourCount = neighbourCount;
+        this.executor = executor;
+    }
+
+    /**
+     * Schedules the initial rebuild on the background thread.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        executor.execute(this::rebuild);
+    }
+
+    /**
+     * Loads every THUMBS_UP and THUMBS_DOWN sentiment and recomputes the neighbours of every asset. Changes that are
+     * committed while the sentiments load are buffered and replayed onto the new matrix before it replaces the current
+     * one, so none of them are lost.
+     */
+    public synchronized void rebuild() {
+        synchronized (changesLock) {
+            pendingChanges = new ArrayList<>();
+        }
+        RatingMatrix loaded = new RatingMatrix();
+        try {
+            for (UserSentiment sentiment : userSentimentRepository.getReactions()) {
+                loaded.set(sentiment.getAccountName(), sentiment.getAssetType(), sentiment.getAssetId(),
+                        sentiment.getSentimentType());
+            }
+        } catch (RuntimeException e) {
+            synchronized (changesLock) {
+                pendingChanges = null;
+            }
+            throw e;
+        }
+
+        synchronized (changesLock) {
+            for (CatalogChangeEvent event : pendingChanges) {
+                apply(loaded, event);
+            }
+            pendingChanges = null;
+            matrix = loaded;
+            changedItems.clear();
+        }
+        RatingMatrix.Snapshot snapshot = loaded.snapshot();
+        neighbours = computeNeighbours(snapshot, allItems(snapshot.itemCount()));
+    }
+
+    /**
+     * Applies a committed UserSentiment write to the rating matrix. The neighbours of the asset are recomputed on the
+     * next refresh. If a rebuild is loading a new matrix, the write is also buffered for it.
+     * @param event The event describing the write.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChange(CatalogChangeEvent event) {
+        if (!(event.getEntity() instanceof UserSentiment)) {
+            return;
+        }
+
+        synchronized (changesLock) {
+            if (pendingChanges != null) {
+                pendingChanges.add(event);
+            }
+            changedItems.add(apply(matrix, event));
+        }
+    }
+
+    /**
+     * Schedules a refresh on the background thread, unless one is already scheduled and has not started yet.
+     */
+    @Scheduled(fixedDelayString = "${recommendations.refresh-interval-ms:10000}")
+    public void scheduleRefresh() {
+        if (refreshPending.compareAndSet(false, true)) {
+            executor.execute(() -> {
+                refreshPending.set(false);
+                refresh();
+            });
+        }
+    }
+
+    /**
+     * Recomputes the neighbours of the assets whose ratings changed since the last refresh. Each recomputed similarity
+     * is also applied to the neighbours of the other asset, since the similarity is symmetric. An asset that stops
+     * sharing raters with a changed asset keeps it as a neighbour until the next full rebuild.
+     */
+    public synchronized void refresh() {
+        int[] changed = takeChangedItems();
+        if (changed.length == 0) {
+            return;
+        }
+
+        RatingMatrix.Snapshot snapshot = matrix.snapshot();
+        if (changed.length > snapshot.itemCount() * FULL_REBUILD_FRACTION) {
+            neighbours = computeNeighbours(snapshot, allItems(snapshot.itemCount()));
+            return;
+        }
+
+        Neighbours[] updated = Arrays.copyOf(neighbours, snapshot.itemCount());
+        for (int item = neighbours.length; item < updated.length; item++) {
+            updated[item] = Neighbours.EMPTY;
+        }
+        SimilarityTask task = new SimilarityTask(snapshot, changed, 0, changed.length, neighbourCount, true);
+        ForkJoinPool.commonPool().invoke(task);
+        for (int i = 0; i < changed.length; i++) {
+            int item = changed[i];
+            updated[item] = task.results[i];
+            float[] similarities = task.allSimilarities[i];
+            int[] others = task.allItems[i];
+            for (int k = 0; k < others.length; k++) {
+                updated[others[k]] = updated[others[k]].with(item, similarities[k], neighbourCount);
+            }
+            // Drop the item from the neighbours it is no longer similar to.
+            Neighbours previous = item < neighbours.length ? neighbours[item] : Neighbours.EMPTY;
+            for (int other : previous.items) {
+                if (Arrays.binarySearch(others, other) < 0) {
+                    updated[other] = updated[other].with(item, 0, neighbourCount);
+                }
+            }
+        }
+        neighbours = updated;
+    }
+
+    /**
+     * Returns a recommendation score for every asset of the given type that is similar to an asset the given account
+     * has rated, and that the account has not rated itself. A score is the sum of the account's ratings of the
+     * similar assets, weighted by their similarity.
+     * @param accountName The account to recommend assets for.
+     * @param assetType The type of the assets to recommend.
+     * @return A map from asset id to score, containing only positive scores.
+     */
+    public Map<String, Double> score(String accountName, AssetType assetType) {
+        RatingMatrix current = matrix;
+        Neighbours[] currentNeighbours = neighbours;
+        RatingRow ratings = current.getAccountRow(accountName);
+
+        Map<Integer, Double> itemScores = new HashMap<>();
+        for (int i = 0; i < ratings.size(); i++) {
+            int item = ratings.columns[i];
+            if (item >= currentNeighbours.length || current.getAssetType(item) != assetType) {
+                continue;
+            }
+            Neighbours similar = currentNeighbours[item];
+            for (int k = 0; k < similar.items.length; k++) {
+                if (ratings.get(similar.items[k]) == 0) {
+                    itemScores.merge(similar.items[k], (double) ratings.ratings[i] * similar.similarities[k],
+                            Double::sum);
+                }
+            }
+        }
+
+        Map<String, Double> scores = new HashMap<>();
+        for (Map.Entry<Integer, Double> entry : itemScores.entrySet()) {
+            if (entry.getValue() > 0) {
+                scores.put(current.getAssetId(entry.getKey()), entry.getValue());
+            }
+        }
+        return scores;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor instanceof ExecutorService) {
+            ((ExecutorService) executor).shutdownNow();
+        }
+    }
+
+    /**
+     * Applies the UserSentiment write of the given event to the given matrix, and returns the item it changed.
+     */
+    private static int apply(RatingMatrix target, CatalogChangeEvent event) {
+        UserSentiment sentiment = (UserSentiment) event.getEntity();
+        return target.set(sentiment.getAccountName(), sentiment.getAssetType(), sentiment.getAssetId(),
+                event.isDeleted() ? null : sentiment.getSentimentType());
+    }
+
+    private Neighbours[] computeNeighbours(RatingMatrix.Snapshot snapshot, int[] items) {
+        SimilarityTask task = new SimilarityTask(snapshot, items, 0, items.length, neighbourCount, false);
+        ForkJoinPool.commonPool().invoke(task);
+        return task.results;
+    }
+
+    private int[] takeChangedItems() {
+        List<Integer> changed = new ArrayList<>();
+        for (Integer item : changedItems) {
+            // An item that changes again after it is taken is added back and refreshed next time.
+            if (changedItems.remove(item)) {
+                changed.add(item);
+            }
+        }
+        return changed.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static int[] allItems(int itemCount) {
+        int[] items = new int[itemCount];
+        for (int item = 0; item < itemCount; item++) {
+            items[item] = item;
+        }
+        return items;
+    }
+
+    /**
+     * Computes the neighbours of a range of items, splitting the range in half until it is small enough. The results
+     * of all tasks are written to shared arrays indexed by position in the item list.
+     */
+    private static class SimilarityTask extends RecursiveAction {
+
+        private final RatingMatrix.Snapshot snapshot;
+        private final int[] items;
+        private final int from;
+        private final int to;
+        private final int neighbourCount;
+        private final boolean keepAll;
+        private final Neighbours[] results;
+        // When keepAll is set, every positive similarity of each item, sorted by the other item.
+        private final int[][] allItems;
+        private final float[][] allSimilarities;
+
+        SimilarityTask(RatingMatrix.Snapshot snapshot, int[] items, int from, int to, int neighbourCount,
+                       boolean keepAll) {
+            this(snapshot, items, from, to, neighbourCount, keepAll, new Neighbours[items.length],
+                    keepAll ? new int[items.length][] : null, keepAll ? new float[items.length][] : null);
+        }
+
+        private SimilarityTask(RatingMatrix.Snapshot snapshot, int[] items, int from, int to, int neighbourCount,
+                               boolean keepAll, Neighbours[] results, int[][] allItems, float[][] allSimilarities) {
+            this.snapshot = snapshot;
+            this.items = items;
+            this.from = from;
+            this.to = to;
+            this.neighbourCount = neighbourCount;
+            this.keepAll = keepAll;
+            this.results = results;
+            this.allItems = allItems;
+            this.allSimilarities = allSimilarities;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > ITEMS_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new SimilarityTask(snapshot, items, from, middle, neighbourCount, keepAll, results,
+                                allItems, allSimilarities),
+                        new SimilarityTask(snapshot, items, middle, to, neighbourCount, keepAll, results,
+                                allItems, allSimilarities));
+                return;
+            }
+
+            // Scratch arrays shared by the items of this task. An entry of dotProducts is only valid if the same
+            // entry of touchedBy holds the current position plus one, so the arrays never need to be cleared.
+            int[] dotProducts = new int[snapshot.itemCount()];
+            int[] touchedBy = new int[snapshot.itemCount()];
+            int[] touched = new int[snapshot.itemCount()];
+            for (int position = from; position < to; position++) {
+                computeItem(position, dotProducts, touchedBy, touched);
+            }
+        }
+
+        private void computeItem(int position, int[] dotProducts, int[] touchedBy, int[] touched) {
+            int item = items[position];
+            RatingRow raters = snapshot.itemRows[item];
+            AssetType assetType = snapshot.itemTypes[item];
+            int touchedCount = 0;
+            for (int i = 0; i < raters.size(); i++) {
+                RatingRow rated = snapshot.accountRows[raters.columns[i]];
+                for (int k = 0; k < rated.size(); k++) {
+                    int other = rated.columns[k];
+                    if (other == item || snapshot.itemTypes[other] != assetType) {
+                        continue;
+                    }
+                    if (touchedBy[other] != position + 1) {
+                        touchedBy[other] = position + 1;
+                        dotProducts[other] = 0;
+                        touched[touchedCount++] = other;
+                    }
+                    dotProducts[other] += raters.ratings[i] * rated.ratings[k];
+                }
+            }
+
+            TopItems top = new TopItems(neighbourCount);
+            int[] positiveItems = keepAll ? new int[touchedCount] : null;
+            float[] positiveSimilarities = keepAll ? new float[touchedCount] : null;
+            int positiveCount = 0;
+            for (int i = 0; i < touchedCount; i++) {
+                int other = touched[i];
+                if (dotProducts[other] <= 0) {
+                    continue;
+                }
+                float similarity = (float) (dotProducts[other]
+                        / Math.sqrt((double) raters.size() * snapshot.itemRows[other].size()));
+                top.offer(other, similarity);
+                if (keepAll) {
+                    positiveItems[positiveCount] = other;
+                    positiveSimilarities[positiveCount++] = similarity;
+                }
+            }
+            results[position] = top.toNeighbours();
+            if (keepAll) {
+                sortByItem(positiveItems, positiveSimilarities, positiveCount);
+                allItems[position] = Arrays.copyOf(positiveItems, positiveCount);
+                allSimilarities[position] = Arrays.copyOf(positiveSimilarities, positiveCount);
+            }
+        }
+
+        private static void sortByItem(int[] items, float[] similarities, int count) {
+            long[] packed = new long[count];
+            for (int i = 0; i < count; i++) {
+                packed[i] = ((long) items[i] << 32) | (Float.floatToRawIntBits(similarities[i]) & 0xFFFFFFFFL);
+            }
+            Arrays.sort(packed);
+            for (int i = 0; i < count; i++) {
+                items[i] = (int) (packed[i] >>> 32);
+                similarities[i] = Float.intBitsToFloat((int) packed[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.google.moviestvsentiments.recommendation;
+
+import com.google.moviestvsentiments.assetSentiment.AssetType;
+import java.util.Arrays;
+
+/**
+ * MinHash signatures of sets of assets. Position i of a signature is the smallest value of the i-th hash function over
+ * the set, so the fraction of positions at which two signatures agree estimates the Jaccard similarity of their sets.
+ * Signatures are split into bands for locality-sensitive hashing: two sets with Jaccard similarity s share at least
+ * one band with probability 1 - (1 - s^ROWS_PER_BAND)^BANDS.
+ */
+final class MinHash {
+
+    static final int SIGNATURE_LENGTH = 64;
+    static final int BANDS = 16;
+    static final int ROWS_PER_BAND = SIGNATURE_LENGTH / BANDS;
+
+    private static final long[] SEEDS = new long[SIGNATURE_LENGTH];
+
+    static {
+        long seed = 0x2545F4914F6CDD1DL;
+        for (int i = 0; i < SIGNATURE_LENGTH; i++) {
+            seed = mix(seed + i);
+            SEEDS[i] = seed;
+        }
+    }
+
+    private MinHash() {}
+
+    /**
+     * Returns the 64-bit key of an asset, which is the input of every hash function.
+     */
+    static long assetKey(String assetId, AssetType assetType) {
+        // FNV-1a over the characters of the id, followed by the type.
+        long hash = 0xCBF29CE484222325L;
+        for (int i = 0; i < assetId.length(); i++) {
+            hash = (hash ^ assetId.charAt(i)) * 0x100000001B3L;
+        }
+        return (hash ^ assetType.ordinal()) * 0x100000001B3L;
+    }
+
+    /**
+     * Returns the signature of the set with the given asset keys. The signature of the empty set holds
+     * Integer.MAX_VALUE at every position.
+     */
+    static int[] signature(long[] assetKeys) {
+        int[] signature = new int[SIGNATURE_LENGTH];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        for (long assetKey : assetKeys) {
+            for (int i = 0; i < SIGNATURE_LENGTH; i++) {
+                signature[i] = Math.min(signature[i], hash(i, assetKey));
+            }
+        }
+        return signature;
+    }
+
+    /**
+     * Returns the signature of the set with the given signature after the given asset key is added to it, or the same
+     * array if no position changes.
+     */
+    static int[] withAsset(int[] signature, long assetKey) {
+        int[] updated = signature;
+        for (int i = 0; i < SIGNATURE_LENGTH; i++) {
+            int value = hash(i, assetKey);
+            if (value < updated[i]) {
+                if (updated == signature) {
+                    updated = signature.clone();
+                }
+                updated[i] = value;
+            }
+        }
+        return updated;
+    }
+
+    /**
+     * Returns whether the given asset key is the minimum at some position of the signature, in which case removing it
+     * from the set changes the signature.
+     */
+    static boolean isMinimum(int[] signature, long assetKey) {
+        for (int i = 0; i < SIGNATURE_LENGTH; i++) {
+            if (signature[i] == hash(i, assetKey)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the key of the given band of the signature. Signatures that agree at every row of the band have the same
+     * band key.
+     */
+    static long bandKey(int[] signature, int band) {
+        long hash = band;
+        for (int row = band * ROWS_PER_BAND; row < (band + 1) * ROWS_PER_BAND; row++) {
+            hash = mix(hash * 31 + signature[row]);
+        }
+        return hash;
+    }
+
+    /**
+     * Returns the fraction of positions at which the two signatures agree.
+     */
+    static double similarity(int[] first, int[] second) {
+        int matches = 0;
+        for (int i = 0; i < SIGNATURE_LENGTH; i++) {
+            if (first[i] == second[i]) {
+                matches++;
+            }
+        }
+        return (double) matches / SIGNATURE_LENGTH;
+    }
+
+    private static int hash(int function, long assetKey) {
+        return (int) (mix(assetKey ^ SEEDS[function]) >>> 32);
+    }
+
+    // The finalizer of SplitMix64, which spreads every input bit over the whole output.
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+}
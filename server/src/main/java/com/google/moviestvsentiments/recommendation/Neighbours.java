@@ -0,0 +1,38 @@
+package com.google.moviestvsentiments.recommendation;
+
+import java.util.Arrays;
+
+/**
+ * The most similar items of a single item, in descending order of cosine similarity. Instances are immutable.
+ */
+final class Neighbours {
+
+    static final Neighbours EMPTY = new Neighbours(new int[0], new float[0]);
+
+    final int[] items;
+    final float[] similarities;
+
+    Neighbours(int[] items, float[] similarities) {
+        this.items = items;
+        this.similarities = similarities;
+    }
+
+    /**
+     * Returns the neighbours with the given item's similarity replaced, keeping at most the given number of the most
+     * similar items. A similarity of zero or less removes the item.
+     */
+    Neighbours with(int item, float similarity, int limit) {
+        TopItems top = new TopItems(limit);
+        for (int i = 0; i < items.length; i++) {
+            if (items[i] != item) {
+                top.offer(items[i], similarities[i]);
+            }
+        }
+        if (similarity > 0) {
+            top.offer(item, similarity);
+        }
+        Neighbours updated = top.toNeighbours();
+        return Arrays.equals(updated.items, items) && Arrays.equals(updated.similarities, similarities)
+                ? this : updated;
+    }
+}
@@ -0,0 +1,131 @@
+package com.google.moviestvsentiments.recommendation;
+
+import com.google.moviestvsentiments.assetSentiment.AssetType;
+import com.google.moviestvsentiments.assetSentiment.SentimentType;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The THUMBS_UP and THUMBS_DOWN sentiments of every account, stored as sparse rows both by item and by account. Items
+ * and accounts are given dense indexes in order of first appearance. Rows are immutable and replaced on write, so a
+ * snapshot only copies the row references.
+ */
+final class RatingMatrix {
+
+    /**
+     * A consistent copy of the matrix that is safe to read without holding its lock.
+     */
+    static final class Snapshot {
+        final RatingRow[] itemRows;
+        final RatingRow[] accountRows;
+        final AssetType[] itemTypes;
+
+        private Snapshot(RatingRow[] itemRows, RatingRow[] accountRows, AssetType[] itemTypes) {
+            this.itemRows = itemRows;
+            this.accountRows = accountRows;
+            this.itemTypes = itemTypes;
+        }
+
+        int itemCount() {
+            return itemRows.length;
+        }
+    }
+
+    private final Map<AssetType, Map<String, Integer>> itemIndexes = new EnumMap<>(AssetType.class);
+    private final Map<String, Integer> accountIndexes = new HashMap<>();
+    private String[] itemIds = new String[16];
+    private AssetType[] itemTypes = new AssetType[16];
+    private RatingRow[] itemRows = new RatingRow[16];
+    private RatingRow[] accountRows = new RatingRow[16];
+    private int itemCount;
+    private int accountCount;
+
+    RatingMatrix() {
+        for (AssetType assetType : AssetType.values()) {
+            itemIndexes.put(assetType, new HashMap<>());
+        }
+    }
+
+    /**
+     * Sets the rating of the given account for the given asset, and returns the index of the asset's item.
+     */
+    synchronized int set(String accountName, AssetType assetType, String assetId, SentimentType sentimentType) {
+        int item = itemIndex(assetType, assetId);
+        int account = accountIndex(accountName);
+        byte rating = rating(sentimentType);
+        itemRows[item] = itemRows[item].with(account, rating);
+        accountRows[account] = accountRows[account].with(item, rating);
+        return item;
+    }
+
+    /**
+     * Returns a snapshot of the whole matrix.
+     */
+    synchronized Snapshot snapshot() {
+        return new Snapshot(Arrays.copyOf(itemRows, itemCount), Arrays.copyOf(accountRows, accountCount),
+                Arrays.copyOf(itemTypes, itemCount));
+    }
+
+    /**
+     * Returns the ratings of the given account, indexed by item.
+     */
+    synchronized RatingRow getAccountRow(String accountName) {
+        Integer account = accountIndexes.get(accountName);
+        return account == null ? RatingRow.EMPTY : accountRows[account];
+    }
+
+    /**
+     * Returns the asset id of the given item.
+     */
+    synchronized String getAssetId(int item) {
+        return itemIds[item];
+    }
+
+    /**
+     * Returns the asset type of the given item.
+     */
+    synchronized AssetType getAssetType(int item) {
+        return itemTypes[item];
+    }
+
+    private int itemIndex(AssetType assetType, String assetId) {
+        Integer item = itemIndexes.get(assetType).get(assetId);
+        if (item != null) {
+            return item;
+        }
+        if (itemCount == itemRows.length) {
+            itemIds = Arrays.copyOf(itemIds, itemCount * 2);
+            itemTypes = Arrays.copyOf(itemTypes, itemCount * 2);
+            itemRows = Arrays.copyOf(itemRows, itemCount * 2);
+        }
+        itemIds[itemCount] = assetId;
+        itemTypes[itemCount] = assetType;
+        itemRows[itemCount] = RatingRow.EMPTY;
+        itemIndexes.get(assetType).put(assetId, itemCount);
+        return itemCount++;
+    }
+
+    private int accountIndex(String accountName) {
+        Integer account = accountIndexes.get(accountName);
+        if (account != null) {
+            return account;
+        }
+        if (accountCount == accountRows.length) {
+            accountRows = Arrays.copyOf(accountRows, accountCount * 2);
+        }
+        accountRows[accountCount] = RatingRow.EMPTY;
+        accountIndexes.put(accountName, accountCount);
+        return accountCount++;
+    }
+
+    private static byte rating(SentimentType sentimentType) {
+        if (sentimentType == SentimentType.THUMBS_UP) {
+            return 1;
+        } else if (sentimentType == SentimentType.THUMBS_DOWN) {
+            return -1;
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,72 @@
+package com.google.moviestvsentiments.recommendation;
+
+import java.util.Arrays;
+
+/**
+ * An immutable sparse row of the rating matrix. Each entry is a column index and a rating of +1 for THUMBS_UP or -1 for
+ * THUMBS_DOWN, kept sorted by column.
+ */
+final class RatingRow {
+
+    static final RatingRow EMPTY = new RatingRow(new int[0], new byte[0]);
+
+    final int[] columns;
+    final byte[] ratings;
+
+    private RatingRow(int[] columns, byte[] ratings) {
+        this.columns = columns;
+        this.ratings = ratings;
+    }
+
+    /**
+     * Returns the number of ratings in the row.
+     */
+    int size() {
+        return columns.length;
+    }
+
+    /**
+     * Returns the rating in the given column, or 0 if there is none.
+     */
+    byte get(int column) {
+        int index = Arrays.binarySearch(columns, column);
+        return index < 0 ? 0 : ratings[index];
+    }
+
+    /**
+     * Returns a row with the given rating in the given column. A rating of 0 removes the column.
+     */
+    RatingRow with(int column, byte rating) {
+        int index = Arrays.binarySearch(columns, column);
+        if (index >= 0) {
+            if (ratings[index] == rating) {
+                return this;
+            }
+            if (rating != 0) {
+                byte[] newRatings = ratings.clone();
+                newRatings[index] = rating;
+                return new RatingRow(columns, newRatings);
+            }
+            int[] newColumns = new int[columns.length - 1];
+            byte[] newRatings = new byte[ratings.length - 1];
+            System.arraycopy(columns, 0, newColumns, 0, index);
+            System.arraycopy(columns, index + 1, newColumns, index, columns.length - index - 1);
+            System.arraycopy(ratings, 0, newRatings, 0, index);
+            System.arraycopy(ratings, index + 1, newRatings, index, ratings.length - index - 1);
+            return new RatingRow(newColumns, newRatings);
+        }
+        if (rating == 0) {
+            return this;
+        }
+        int insertion = -index - 1;
+        int[] newColumns = new int[columns.length + 1];
+        byte[] newRatings = new byte[ratings.length + 1];
+        System.arraycopy(columns, 0, newColumns, 0, insertion);
+        System.arraycopy(ratings, 0, newRatings, 0, insertion);
+        newColumns[insertion] = column;
+        newRatings[insertion] = rating;
+        System.arraycopy(columns, insertion, newColumns, insertion + 1, columns.length - insertion);
+        System.arraycopy(ratings, insertion, newRatings, insertion + 1, ratings.length - insertion);
+        return new RatingRow(newColumns, newRatings);
+    }
+}
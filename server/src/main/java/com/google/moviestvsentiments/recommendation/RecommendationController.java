@@ -0,0 +1,54 @@
+package com.google.moviestvsentiments.recommendation;
+
+import com.google.moviestvsentiments.assetSentiment.AssetCatalog;
+import com.google.moviestvsentiments.assetSentiment.AssetSentiment;
+import com.google.moviestvsentiments.assetSentiment.AssetType;
+import com.google.moviestvsentiments.assetSentiment.SentimentType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A controller that handles requests for personalized asset recommendations.
+ */
+@RestController
+public class RecommendationController {
+
+    static final int MAX_LIMIT = 500;
+
+    @Autowired
+    private AssetCatalog assetCatalog;
+
+    @Autowired
+    private ItemRecommender itemRecommender;
+
+    /**
+     * Returns the assets of the given type that the given account has not reacted to, ordered by how much the account
+     * is expected to like them. Assets without a recommendation score keep their order by asset id after the scored
+     * assets. If the limit is invalid, an error message is returned.
+     * @param accountName The name of the account to recommend assets for.
+     * @param assetType The type of Asset to recommend.
+     * @param limit The maximum number of AssetSentiments to return.
+     * @return A ResponseEntity with either the list of AssetSentiments or the error message.
+     */
+    @GetMapping("/recommendations")
+    public ResponseEntity getRecommendations(@RequestParam("accountName") String accountName,
+                                             @RequestParam("assetType") AssetType assetType,
+                                             @RequestParam(value = "limit", defaultValue = "50") int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            return ResponseEntity.badRequest().body("limit must be between 1 and " + MAX_LIMIT);
+        }
+
+        Map<String, Double> scores = itemRecommender.score(accountName, assetType);
+        List<AssetSentiment> assets = assetCatalog.getAssets(assetType, accountName, SentimentType.UNSPECIFIED);
+        // List.sort is stable, so assets with equal scores stay in asset id order.
+        assets.sort(Comparator.comparingDouble(assetSentiment ->
+                -scores.getOrDefault(assetSentiment.getAsset().getAssetId(), 0.0)));
+        return ResponseEntity.ok().body(assets.subList(0, Math.min(limit, assets.size())));
+    }
+}
@@ -0,0 +1,29 @@
+package com.google.moviestvsentiments.recommendation;
+
+/**
+ * An account together with the estimated Jaccard similarity of its THUMBS_UP assets to those of another account.
+ */
+public class SimilarAccount {
+
+    private final String accountName;
+    private final double similarity;
+
+    public SimilarAccount(String accountName, double similarity) {
+        this.accountName = accountName;
+        this.similarity = similarity;
+    }
+
+    /**
+     * Returns the name of the similar account.
+     */
+    public String getAccountName() {
+        return accountName;
+    }
+
+    /**
+     * Returns the estimated Jaccard similarity, between 0 and 1.
+     */
+    public double getSimilarity() {
+        return similarity;
+    }
+}
@@ -0,0 +1,261 @@
+package com.google.moviestvsentiments.recommendation;
+
+import com.google.moviestvsentiments.assetSentiment.SentimentType;
+import com.google.moviestvsentiments.assetSentiment.UserSentiment;
+import com.google.moviestvsentiments.assetSentiment.UserSentimentRepository;
+import com.google.moviestvsentiments.catalog.CatalogChangeEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Finds the accounts whose THUMBS_UP assets overlap most with those of a given account. Each account has a MinHash
+ * signature of its liked assets, and accounts are grouped into buckets by each band of their signature. Only accounts
+ * that share a bucket with the given account are compared, so a lookup does not depend on the number of accounts. At
+ * most recommendations.similar.max-candidates-per-bucket accounts are taken from each bucket, so that a bucket shared
+ * by many accounts, such as the one of accounts that like only the most popular assets, does not make every lookup
+ * that lands in it score all of them.
+ * Signatures and buckets are updated from committed UserSentiment writes. A rebuild fills a new index and swaps it in
+ * as a whole, so lookups never see a partly built one.
+ */
+@Component
+public class SimilarAccounts {
+
+    /**
+     * The liked assets of an account and the signature and band keys derived from them. Instances are immutable.
+     */
+    private static class AccountSignature {
+        // Sorted, so membership is a binary search.
+        private final long[] assetKeys;
+        private final int[] signature;
+        private final long[] bandKeys;
+
+        private AccountSignature(long[] assetKeys, int[] signature) {
+            this.assetKeys = assetKeys;
+            this.signature = signature;
+            this.bandKeys = new long[MinHash.BANDS];
+            for (int band = 0; band < MinHash.BANDS; band++) {
+                bandKeys[band] = MinHash.bandKey(signature, band);
+            }
+        }
+    }
+
+    /**
+     * The signatures of every account and the buckets of every band key.
+     */
+    private static class Index {
+        private final Map<String, AccountSignature> signaturesByAccount = new ConcurrentHashMap<>();
+        private final Map<Long, Set<String>> accountsByBand = new ConcurrentHashMap<>();
+    }
+
+    private static final Comparator<SimilarAccount> RANKING =
+            Comparator.comparingDouble((SimilarAccount account) -> -account.getSimilarity())
+                    .thenComparing(SimilarAccount::getAccountName);
+
+    private final UserSentimentRepository userSentimentRepository;
+    private final int maxCandidatesPerBucket;
+    // Guards the writes to index and pendingChanges, so that each change either reaches the index that replaces the
+    // current one or is buffered for it.
+    private final Object changesLock = new Object();
+    // The changes made while a rebuild loads a new index, or null if no rebuild is loading.
+    private List<CatalogChangeEvent> pendingChanges;
+    private volatile Index index = new Index();
+
+    public SimilarAccounts(UserSentimentRepository userSentimentRepository,
+                           @Value("${recommendations.similar.max-candidates-per-bucket:1000}")
+                                   int maxCandidatesPerBucket) {
+        this.userSentimentRepository = userSentimentRepository;
+        this.maxCandidatesPerBucket = maxCandidatesPerBucket;
+    }
+
+    /**
+     * Computes the signature of every account from its THUMBS_UP UserSentiments into a new index, and then replaces
+     * the current index with it. Changes that are committed while the sentiments load are buffered and replayed onto
+     * the new index before the swap.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        synchronized (changesLock) {
+            pendingChanges = new ArrayList<>();
+        }
+        Index rebuilt = new Index();
+        try {
+            Map<String, List<Long>> keysByAccount = new HashMap<>();
+            for (UserSentiment sentiment : userSentimentRepository.getReactions()) {
+                if (sentiment.getSentimentType() == SentimentType.THUMBS_UP) {
+                    keysByAccount.computeIfAbsent(sentiment.getAccountName(), name -> new ArrayList<>())
+                            .add(MinHash.assetKey(sentiment.getAssetId(), sentiment.getAssetType()));
+                }
+            }
+            for (Map.Entry<String, List<Long>> entry : keysByAccount.entrySet()) {
+                long[] assetKeys = entry.getValue().stream().mapToLong(Long::longValue).sorted().distinct()
+                        .toArray();
+                AccountSignature signature = new AccountSignature(assetKeys, MinHash.signature(assetKeys));
+                rebuilt.signaturesByAccount.put(entry.getKey(), signature);
+                addToBands(rebuilt, entry.getKey(), signature);
+            }
+        } catch (RuntimeException e) {
+            synchronized (changesLock) {
+                pendingChanges = null;
+            }
+            throw e;
+        }
+
+        synchronized (changesLock) {
+            for (CatalogChangeEvent event : pendingChanges) {
+                apply(rebuilt, event);
+            }
+            pendingChanges = null;
+            index = rebuilt;
+        }
+    }
+
+    /**
+     * Adds the asset of a committed UserSentiment write to its account's liked assets if the sentiment is THUMBS_UP,
+     * and removes it otherwise. If a rebuild is loading a new index, the write is also buffered for it.
+     * @param event The event describing the write.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChange(CatalogChangeEvent event) {
+        if (!(event.getEntity() instanceof UserSentiment)) {
+            return;
+        }
+
+        synchronized (changesLock) {
+            if (pendingChanges != null) {
+                pendingChanges.add(event);
+            }
+            apply(index, event);
+        }
+    }
+
+    /**
+     * Returns the accounts most similar to the given account, in descending order of estimated Jaccard similarity.
+     * Accounts that share no signature band with the given account are not considered, so accounts with a similarity
+     * well below 0.5 are rarely returned. Of a bucket with more than maxCandidatesPerBucket other accounts, only the
+     * first ones in the bucket's iteration order are considered, which is arbitrary but not related to similarity.
+     * @param accountName The account to find similar accounts for.
+     * @param limit The maximum number of SimilarAccounts to return.
+     * @return A list of at most limit SimilarAccounts, excluding the given account.
+     */
+    public List<SimilarAccount> getSimilar(String accountName, int limit) {
+        Index current = index;
+        AccountSignature target = current.signaturesByAccount.get(accountName);
+        if (target == null) {
+            return Collections.emptyList();
+        }
+
+        Set<String> candidates = new HashSet<>();
+        for (long bandKey : target.bandKeys) {
+            int taken = 0;
+            for (String candidate : current.accountsByBand.getOrDefault(bandKey, Collections.emptySet())) {
+                if (taken == maxCandidatesPerBucket) {
+                    break;
+                }
+                if (!candidate.equals(accountName)) {
+                    candidates.add(candidate);
+                    taken++;
+                }
+            }
+        }
+
+        List<SimilarAccount> similar = new ArrayList<>();
+        for (String candidate : candidates) {
+            AccountSignature signature = current.signaturesByAccount.get(candidate);
+            if (signature != null) {
+                similar.add(new SimilarAccount(candidate, MinHash.similarity(target.signature, signature.signature)));
+            }
+        }
+        similar.sort(RANKING);
+        return similar.subList(0, Math.min(limit, similar.size()));
+    }
+
+    /**
+     * Applies the UserSentiment write of the given event to the signature and buckets of its account in the given
+     * index.
+     */
+    private static void apply(Index target, CatalogChangeEvent event) {
+        UserSentiment sentiment = (UserSentiment) event.getEntity();
+        boolean liked = !event.isDeleted() && sentiment.getSentimentType() == SentimentType.THUMBS_UP;
+        long assetKey = MinHash.assetKey(sentiment.getAssetId(), sentiment.getAssetType());
+        // compute serializes the writes of each account, so its buckets always match its stored signature.
+        target.signaturesByAccount.compute(sentiment.getAccountName(), (accountName, previous) -> {
+            AccountSignature updated = update(previous, assetKey, liked);
+            if (updated != previous) {
+                if (previous != null) {
+                    removeFromBands(target, accountName, previous);
+                }
+                if (updated != null) {
+                    addToBands(target, accountName, updated);
+                }
+            }
+            return updated;
+        });
+    }
+
+    /**
+     * Returns the signature of the account after the given asset is liked or unliked, the same instance if nothing
+     * changes, or null if the account no longer likes any asset.
+     */
+    private static AccountSignature update(AccountSignature previous, long assetKey, boolean liked) {
+        long[] assetKeys = previous == null ? new long[0] : previous.assetKeys;
+        int index = Arrays.binarySearch(assetKeys, assetKey);
+        if (liked == index >= 0) {
+            return previous;
+        }
+
+        if (liked) {
+            int insertion = -index - 1;
+            long[] updatedKeys = new long[assetKeys.length + 1];
+            System.arraycopy(assetKeys, 0, updatedKeys, 0, insertion);
+            updatedKeys[insertion] = assetKey;
+            System.arraycopy(assetKeys, insertion, updatedKeys, insertion + 1, assetKeys.length - insertion);
+            int[] signature = previous == null ? MinHash.signature(updatedKeys)
+                    : MinHash.withAsset(previous.signature, assetKey);
+            return new AccountSignature(updatedKeys, signature);
+        }
+
+        if (assetKeys.length == 1) {
+            return null;
+        }
+        long[] updatedKeys = new long[assetKeys.length - 1];
+        System.arraycopy(assetKeys, 0, updatedKeys, 0, index);
+        System.arraycopy(assetKeys, index + 1, updatedKeys, index, assetKeys.length - index - 1);
+        // The signature only has to be recomputed if the removed asset held one of its minimums.
+        int[] signature = MinHash.isMinimum(previous.signature, assetKey) ? MinHash.signature(updatedKeys)
+                : previous.signature;
+        return new AccountSignature(updatedKeys, signature);
+    }
+
+    private static void addToBands(Index target, String accountName, AccountSignature signature) {
+        for (long bandKey : signature.bandKeys) {
+            // Adding inside compute keeps a concurrent removeFromBands from dropping the bucket in between.
+            target.accountsByBand.compute(bandKey, (key, accounts) -> {
+                Set<String> bucket = accounts == null ? ConcurrentHashMap.newKeySet() : accounts;
+                bucket.add(accountName);
+                return bucket;
+            });
+        }
+    }
+
+    private static void removeFromBands(Index target, String accountName, AccountSignature signature) {
+        for (long bandKey : signature.bandKeys) {
+            target.accountsByBand.computeIfPresent(bandKey, (key, accounts) -> {
+                accounts.remove(accountName);
+                return accounts.isEmpty() ? null : accounts;
+            });
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.google.moviestvsentiments.recommendation;
+
+/**
+ * Selects the items with the highest scores from a sequence, using a binary min-heap over primitive arrays.
+ */
+final class TopItems {
+
+    private final int[] items;
+    private final float[] scores;
+    private int size;
+
+    TopItems(int limit) {
+        items = new int[limit];
+        scores = new float[limit];
+    }
+
+    /**
+     * Adds the item if it is among the highest scores seen so far.
+     */
+    void offer(int item, float score) {
+        if (size < items.length) {
+            items[size] = item;
+            scores[size] = score;
+            siftUp(size++);
+        } else if (size > 0 && score > scores[0]) {
+            items[0] = item;
+            scores[0] = score;
+            siftDown(0);
+        }
+    }
+
+    /**
+     * Returns the selected items as Neighbours, highest score first.
+     */
+    Neighbours toNeighbours() {
+        int[] sortedItems = new int[size];
+        float[] sortedScores = new float[size];
+        // Popping the min-heap yields the scores in ascending order, so the arrays are filled from the end.
+        for (int i = size - 1; i >= 0; i--) {
+            sortedItems[i] = items[0];
+            sortedScores[i] = scores[0];
+            size--;
+            items[0] = items[size];
+            scores[0] = scores[size];
+            siftDown(0);
+        }
+        return sortedItems.length == 0 ? Neighbours.EMPTY : new Neighbours(sortedItems, sortedScores);
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (scores[parent] <= scores[index]) {
+                return;
+            }
+            swap(index, parent);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index) {
+        while (true) {
+            int smallest = index;
+            int left = 2 * index + 1;
+            int right = left + 1;
+            if (left < size && scores[left] < scores[smallest]) {
+                smallest = left;
+            }
+            if (right < size && scores[right] < scores[smallest]) {
+                smallest = right;
+            }
+            if (smallest == index) {
+                return;
+            }
+            swap(index, smallest);
+            index = smallest;
+        }
+    }
+
+    private void swap(int first, int second) {
+        int item = items[first];
+        items[first] = items[second];
+        items[second] = item;
+        float score = scores[first];
+        scores[first] = scores[second];
+        scores[second] = score;
+    }
+}
@@ -0,0 +1,210 @@
+package com.google.moviestvsentiments.search;
+
+import com.google.moviestvsentiments.assetSentiment.Asset;
+import com.google.moviestvsentiments.assetSentiment.AssetCatalogRebuiltEvent;
+import com.google.moviestvsentiments.assetSentiment.AssetSummary;
+import com.google.moviestvsentiments.assetSentiment.AssetType;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * An inverted index over the title and plot of every Asset in the AssetCatalog, ranked with BM25. Title terms count
+ * TITLE_WEIGHT times as much as plot terms. The index is updated from each AssetCatalogRebuiltEvent: an updated Asset
+ * is indexed as a new document and its previous document is marked as removed, so posting lists are only appended to.
+ * Once removed documents outnumber live ones, the posting lists are rebuilt without them.
+ */
+@Component
+public class AssetSearchIndex {
+
+    static final int TITLE_WEIGHT = 3;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final Comparator<SearchResult> RANKING =
+            Comparator.comparingDouble((SearchResult result) -> -result.getScore())
+                    .thenComparing(result -> result.getAsset().getAssetId());
+
+    private final Map<AssetType, Map<String, Integer>> documentsByAsset = new EnumMap<>(AssetType.class);
+    private Map<String, PostingList> postings = new HashMap<>();
+    // Indexed by document. The summary of a removed document is null.
+    private AssetSummary[] summaries = new AssetSummary[16];
+    private int[] lengths = new int[16];
+    private String[][] documentTerms = new String[16][];
+    private int[][] documentFrequencies = new int[16][];
+    private int documentCount;
+    private int liveCount;
+    private long liveLength;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public AssetSearchIndex() {
+        for (AssetType assetType : AssetType.values()) {
+            documentsByAsset.put(assetType, new HashMap<>());
+        }
+    }
+
+    /**
+     * Indexes the updated Assets of a catalog rebuild and removes the removed ones.
+     * @param event The event listing the changed Assets.
+     */
+    @EventListener
+    public void onCatalogRebuilt(AssetCatalogRebuiltEvent event) {
+        lock.writeLock().lock();
+        try {
+            for (Asset asset : event.getRemovedAssets()) {
+                remove(asset.getAssetId(), asset.getAssetType());
+            }
+            for (Asset asset : event.getUpdatedAssets()) {
+                remove(asset.getAssetId(), asset.getAssetType());
+                add(asset);
+            }
+            if (documentCount - liveCount > liveCount) {
+                compact();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the Assets that contain any term of the query in their title or plot, in descending order of BM25 score.
+     * @param query The text to search for.
+     * @param assetType The type of Asset to return, or null to return Assets of every type.
+     * @param limit The maximum number of SearchResults to return.
+     * @return A list of at most limit SearchResults.
+     */
+    public List<SearchResult> search(String query, AssetType assetType, int limit) {
+        Set<String> queryTerms = new LinkedHashSet<>(Tokenizer.tokenize(query));
+        lock.readLock().lock();
+        try {
+            if (liveCount == 0) {
+                return new ArrayList<>();
+            }
+            double averageLength = (double) liveLength / liveCount;
+            double[] scores = new double[documentCount];
+            int[] matched = new int[documentCount];
+            int matchedCount = 0;
+            for (String term : queryTerms) {
+                PostingList postingList = postings.get(term);
+                if (postingList == null || postingList.liveCount() == 0) {
+                    continue;
+                }
+                double idf = Math.log(1 + (liveCount - postingList.liveCount() + 0.5)
+                        / (postingList.liveCount() + 0.5));
+                for (int i = 0; i < postingList.size(); i++) {
+                    int document = postingList.document(i);
+                    AssetSummary summary = summaries[document];
+                    if (summary == null || (assetType != null && summary.getAssetType() != assetType)) {
+                        continue;
+                    }
+                    if (scores[document] == 0) {
+                        matched[matchedCount++] = document;
+                    }
+                    int frequency = postingList.frequency(i);
+                    double norm = K1 * (1 - B + B * lengths[document] / averageLength);
+                    scores[document] += idf * frequency * (K1 + 1) / (frequency + norm);
+                }
+            }
+
+            List<SearchResult> results = new ArrayList<>(matchedCount);
+            for (int i = 0; i < matchedCount; i++) {
+                results.add(new SearchResult(summaries[matched[i]], scores[matched[i]]));
+            }
+            results.sort(RANKING);
+            return results.subList(0, Math.min(limit, results.size()));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void add(Asset asset) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        int length = 0;
+        for (String term : Tokenizer.tokenize(asset.getTitle())) {
+            frequencies.merge(term, TITLE_WEIGHT, Integer::sum);
+            length += TITLE_WEIGHT;
+        }
+        for (String term : Tokenizer.tokenize(asset.getPlot())) {
+            frequencies.merge(term, 1, Integer::sum);
+            length++;
+        }
+
+        String[] terms = frequencies.keySet().toArray(new String[0]);
+        int[] termFrequencies = new int[terms.length];
+        for (int i = 0; i < terms.length; i++) {
+            termFrequencies[i] = frequencies.get(terms[i]);
+        }
+        int document = append(AssetSummary.of(asset), length, terms, termFrequencies);
+        documentsByAsset.get(asset.getAssetType()).put(asset.getAssetId(), document);
+    }
+
+    private int append(AssetSummary summary, int length, String[] terms, int[] termFrequencies) {
+        if (documentCount == summaries.length) {
+            summaries = Arrays.copyOf(summaries, documentCount * 2);
+            lengths = Arrays.copyOf(lengths, documentCount * 2);
+            documentTerms = Arrays.copyOf(documentTerms, documentCount * 2);
+            documentFrequencies = Arrays.copyOf(documentFrequencies, documentCount * 2);
+        }
+        int document = documentCount++;
+        summaries[document] = summary;
+        lengths[document] = length;
+        documentTerms[document] = terms;
+        documentFrequencies[document] = termFrequencies;
+        for (int i = 0; i < terms.length; i++) {
+            postings.computeIfAbsent(terms[i], term -> new PostingList()).add(document, termFrequencies[i]);
+        }
+        liveCount++;
+        liveLength += length;
+        return document;
+    }
+
+    private void remove(String assetId, AssetType assetType) {
+        Integer document = documentsByAsset.get(assetType).remove(assetId);
+        if (document == null) {
+            return;
+        }
+        for (String term : documentTerms[document]) {
+            postings.get(term).removeLive();
+        }
+        summaries[document] = null;
+        liveCount--;
+        liveLength -= lengths[document];
+    }
+
+    /**
+     * Renumbers the live documents densely and rebuilds the posting lists from their stored term frequencies.
+     */
+    private void compact() {
+        AssetSummary[] oldSummaries = summaries;
+        int[] oldLengths = lengths;
+        String[][] oldTerms = documentTerms;
+        int[][] oldFrequencies = documentFrequencies;
+        int oldCount = documentCount;
+
+        int capacity = Math.max(16, liveCount);
+        summaries = new AssetSummary[capacity];
+        lengths = new int[capacity];
+        documentTerms = new String[capacity][];
+        documentFrequencies = new int[capacity][];
+        postings = new HashMap<>();
+        documentCount = 0;
+        liveCount = 0;
+        liveLength = 0;
+        for (int document = 0; document < oldCount; document++) {
+            AssetSummary summary = oldSummaries[document];
+            if (summary != null) {
+                int compacted = append(summary, oldLengths[document], oldTerms[document], oldFrequencies[document]);
+                documentsByAsset.get(summary.getAssetType()).put(summary.getAssetId(), compacted);
+            }
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.google.moviestvsentiments.search;
+
+import java.util.Arrays;
+
+/**
+ * The documents that contain a term, in ascending document order, with the weighted frequency of the term in each.
+ * Documents are only ever appended, because an updated Asset is indexed as a new document.
+ */
+final class PostingList {
+
+    private int[] documents = new int[4];
+    private int[] frequencies = new int[4];
+    private int size;
+    // The number of documents in the list that have not been removed from the index.
+    private int liveCount;
+
+    /**
+     * Appends a document, which must be greater than every document already in the list.
+     */
+    void add(int document, int frequency) {
+        if (size == documents.length) {
+            documents = Arrays.copyOf(documents, size * 2);
+            frequencies = Arrays.copyOf(frequencies, size * 2);
+        }
+        documents[size] = document;
+        frequencies[size] = frequency;
+        size++;
+        liveCount++;
+    }
+
+    /**
+     * Records that one of the documents in the list was removed from the index.
+     */
+    void removeLive() {
+        liveCount--;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int liveCount() {
+        return liveCount;
+    }
+
+    int document(int index) {
+        return documents[index];
+    }
+
+    int frequency(int index) {
+        return frequencies[index];
+    }
+}
@@ -0,0 +1,162 @@
+package com.google.moviestvsentiments.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * An immutable trie over string keys, stored in flat arrays. The children of a node are stored contiguously and sorted
+ * by character, so a child is found by binary search. Every node also stores the entries with the highest weights
+ * among all keys below it, so looking up the best entries for a prefix only walks the prefix.
+ */
+final class PrefixTrie {
+
+    /**
+     * Collects keys and builds a PrefixTrie from them.
+     */
+    static final class Builder {
+
+        private static final class Node {
+            private final TreeMap<Character, Node> children = new TreeMap<>();
+            private final List<Integer> entries = new ArrayList<>();
+            private int[] top;
+        }
+
+        private final Node root = new Node();
+        private final int topCount;
+        // Orders entries by descending weight, then by ascending entry.
+        private final Comparator<Integer> ranking;
+
+        /**
+         * Creates a builder whose nodes keep the topCount entries with the highest of the given weights, which are
+         * indexed by entry.
+         */
+        Builder(int topCount, float[] weights) {
+            this.topCount = topCount;
+            this.ranking = Comparator.comparingDouble((Integer entry) -> -weights[entry])
+                    .thenComparingInt(entry -> entry);
+        }
+
+        /**
+         * Adds the given entry under the given key. An entry may be added under several keys.
+         */
+        Builder add(String key, int entry) {
+            Node node = root;
+            for (int i = 0; i < key.length(); i++) {
+                node = node.children.computeIfAbsent(key.charAt(i), c -> new Node());
+            }
+            node.entries.add(entry);
+            return this;
+        }
+
+        PrefixTrie build() {
+            computeTop(root);
+
+            // Numbers the nodes breadth first, so the children of each node get consecutive indexes.
+            List<Node> nodes = new ArrayList<>();
+            nodes.add(root);
+            int nodeCount = 1;
+            int[] firstChild = new int[countNodes(root)];
+            char[] labels = new char[firstChild.length];
+            int[] childCounts = new int[firstChild.length];
+            int[] topStarts = new int[firstChild.length + 1];
+            int topSize = 0;
+            for (int index = 0; index < nodes.size(); index++) {
+                Node node = nodes.get(index);
+                firstChild[index] = nodeCount;
+                childCounts[index] = node.children.size();
+                for (Map.Entry<Character, Node> child : node.children.entrySet()) {
+                    labels[nodeCount++] = child.getKey();
+                    nodes.add(child.getValue());
+                }
+                topSize += node.top.length;
+            }
+
+            int[] tops = new int[topSize];
+            int position = 0;
+            for (int index = 0; index < nodes.size(); index++) {
+                topStarts[index] = position;
+                int[] top = nodes.get(index).top;
+                System.arraycopy(top, 0, tops, position, top.length);
+                position += top.length;
+            }
+            topStarts[nodes.size()] = position;
+            return new PrefixTrie(labels, firstChild, childCounts, topStarts, tops);
+        }
+
+        private int countNodes(Node node) {
+            int count = 1;
+            for (Node child : node.children.values()) {
+                count += countNodes(child);
+            }
+            return count;
+        }
+
+        /**
+         * Computes the top entries of every node below the given one, by merging the top entries of its children with
+         * its own entries.
+         */
+        private void computeTop(Node node) {
+            List<Integer> candidates = new ArrayList<>(node.entries);
+            for (Node child : node.children.values()) {
+                computeTop(child);
+                for (int entry : child.top) {
+                    candidates.add(entry);
+                }
+            }
+            node.top = candidates.stream().distinct().sorted(ranking).limit(topCount)
+                    .mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    private final char[] labels;
+    private final int[] firstChild;
+    private final int[] childCounts;
+    private final int[] topStarts;
+    private final int[] tops;
+
+    private PrefixTrie(char[] labels, int[] firstChild, int[] childCounts, int[] topStarts, int[] tops) {
+        this.labels = labels;
+        this.firstChild = firstChild;
+        this.childCounts = childCounts;
+        this.topStarts = topStarts;
+        this.tops = tops;
+    }
+
+    /**
+     * Returns the entries with the highest weights among the keys that start with the given prefix, highest first.
+     */
+    int[] top(String prefix) {
+        int node = 0;
+        for (int i = 0; i < prefix.length() && node >= 0; i++) {
+            node = child(node, prefix.charAt(i));
+        }
+        return node < 0 ? new int[0] : Arrays.copyOfRange(tops, topStarts[node], topStarts[node + 1]);
+    }
+
+    /**
+     * Returns the number of nodes in the trie.
+     */
+    int size() {
+        return labels.length;
+    }
+
+    private int child(int node, char label) {
+        int low = firstChild[node];
+        int high = low + childCounts[node] - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (labels[middle] < label) {
+                low = middle + 1;
+            } else if (labels[middle] > label) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,64 @@
+package com.google.moviestvsentiments.search;
+
+import com.google.moviestvsentiments.assetSentiment.AssetType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * A controller that handles requests to search the Assets and suggest their titles.
+ */
+@RestController
+public class SearchController {
+
+    static final int MAX_LIMIT = 100;
+
+    @Autowired
+    private AssetSearchIndex assetSearchIndex;
+
+    @Autowired
+    private TitleSuggester titleSuggester;
+
+    /**
+     * Returns the Assets whose title or plot match the given query, most relevant first. The results are served from
+     * the in-memory AssetSearchIndex without querying the database. If the query has no searchable terms or the limit
+     * is invalid, an error message is returned.
+     * @param query The text to search for.
+     * @param assetType The type of Asset to return, or null to return Assets of every type.
+     * @param limit The maximum number of SearchResults to return.
+     * @return A ResponseEntity with either the list of SearchResults or the error message.
+     */
+    @GetMapping("/assets/search")
+    public ResponseEntity search(@RequestParam("q") String query,
+                                 @RequestParam(value = "assetType", required = false) AssetType assetType,
+                                 @RequestParam(value = "limit", defaultValue = "20") int limit) {
+        if (Tokenizer.tokenize(query).isEmpty()) {
+            return ResponseEntity.badRequest().body("q must contain a letter or digit");
+        }
+        if (limit < 1 || limit > MAX_LIMIT) {
+            return ResponseEntity.badRequest().body("limit must be between 1 and " + MAX_LIMIT);
+        }
+
+        return ResponseEntity.ok().body(assetSearchIndex.search(query, assetType, limit));
+    }
+
+    /**
+     * Returns the Assets whose title has a word sequence that starts with the given prefix, highest IMDb rating
+     * first. The suggestions are served from the in-memory TitleSuggester without querying the database. If the limit
+     * is invalid, an error message is returned.
+     * @param prefix The typed prefix.
+     * @param limit The maximum number of AssetSummaries to return.
+     * @return A ResponseEntity with either the list of AssetSummaries or the error message.
+     */
+    @GetMapping("/assets/suggest")
+    public ResponseEntity suggest(@RequestParam("prefix") String prefix,
+                                  @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        if (limit < 1 || limit > TitleSuggester.MAX_SUGGESTIONS) {
+            return ResponseEntity.badRequest().body("limit must be between 1 and " + TitleSuggester.MAX_SUGGESTIONS);
+        }
+
+        return ResponseEntity.ok().body(titleSuggester.suggest(prefix, limit));
+    }
+}
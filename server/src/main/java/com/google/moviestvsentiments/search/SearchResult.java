@@ -0,0 +1,31 @@
+package com.google.moviestvsentiments.search;
+
+import com.google.moviestvsentiments.assetSentiment.AssetSummary;
+
+/**
+ * An Asset summary together with its relevance to a search query.
+ */
+public class SearchResult {
+
+    private final AssetSummary asset;
+    private final double score;
+
+    public SearchResult(AssetSummary asset, double score) {
+        this.asset = asset;
+        this.score = score;
+    }
+
+    /**
+     * Returns the summary of the matching asset.
+     */
+    public AssetSummary getAsset() {
+        return asset;
+    }
+
+    /**
+     * Returns the BM25 score of the asset for the query. Scores are only comparable within one query.
+     */
+    public double getScore() {
+        return score;
+    }
+}
@@ -0,0 +1,144 @@
+package com.google.moviestvsentiments.search;
+
+import com.google.moviestvsentiments.assetSentiment.Asset;
+import com.google.moviestvsentiments.assetSentiment.AssetCatalogRebuiltEvent;
+import com.google.moviestvsentiments.assetSentiment.AssetSummary;
+import com.google.moviestvsentiments.assetSentiment.AssetType;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Suggests Asset titles for a typed prefix. Every title is added to a PrefixTrie under each of its word positions, so
+ * "dark kn" suggests "The Dark Knight", and each trie node keeps the MAX_SUGGESTIONS titles with the highest IMDb
+ * rating. The trie is rebuilt on a background thread after the AssetCatalog changes. Lookups use the previous trie
+ * until the new one is ready.
+ */
+@Component
+public class TitleSuggester {
+
+    static final int MAX_SUGGESTIONS = 10;
+
+    /**
+     * A trie together with the summaries that its entries index.
+     */
+    private static class Index {
+        private static final Index EMPTY = new Index(new PrefixTrie.Builder(MAX_SUGGESTIONS, new float[0]).build(),
+                new AssetSummary[0]);
+
+        private final PrefixTrie trie;
+        private final AssetSummary[] summaries;
+
+        private Index(PrefixTrie trie, AssetSummary[] summaries) {
+            this.trie = trie;
+            this.summaries = summaries;
+        }
+    }
+
+    private final Map<AssetType, Map<String, AssetSummary>> summariesByType = new EnumMap<>(AssetType.class);
+    private final Executor executor;
+    private final AtomicBoolean rebuildPending = new AtomicBoolean();
+    private volatile Index index = Index.EMPTY;
+
+    public TitleSuggester() {
+        this(Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "title-suggester");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    TitleSuggester(Executor executor) {
+        this.executor = executor;
+        for (AssetType assetType : AssetType.values()) {
+            summariesByType.put(assetType, new ConcurrentHashMap<>());
+        }
+    }
+
+    /**
+     * Applies the changed Assets of a catalog rebuild and schedules a rebuild of the trie, unless one is already
+     * scheduled and has not started yet.
+     * @param event The event listing the changed Assets.
+     */
+    @EventListener
+    public void onCatalogRebuilt(AssetCatalogRebuiltEvent event) {
+        for (Asset asset : event.getRemovedAssets()) {
+            summariesByType.get(asset.getAssetType()).remove(asset.getAssetId());
+        }
+        for (Asset asset : event.getUpdatedAssets()) {
+            summariesByType.get(asset.getAssetType()).put(asset.getAssetId(), AssetSummary.of(asset));
+        }
+        if (rebuildPending.compareAndSet(false, true)) {
+            executor.execute(this::rebuild);
+        }
+    }
+
+    /**
+     * Returns the titles that have a word sequence starting with the given prefix, highest IMDb rating first. Case,
+     * accents and punctuation are ignored.
+     * @param prefix The typed prefix.
+     * @param limit The maximum number of AssetSummaries to return, at most MAX_SUGGESTIONS.
+     * @return A list of at most limit AssetSummaries.
+     */
+    public List<AssetSummary> suggest(String prefix, int limit) {
+        Index current = index;
+        List<AssetSummary> suggestions = new ArrayList<>();
+        String key = String.join(" ", Tokenizer.tokenize(prefix));
+        if (key.isEmpty()) {
+            return suggestions;
+        }
+        for (int entry : current.trie.top(key)) {
+            if (suggestions.size() == limit) {
+                break;
+            }
+            suggestions.add(current.summaries[entry]);
+        }
+        return suggestions;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor instanceof ExecutorService) {
+            ((ExecutorService) executor).shutdownNow();
+        }
+    }
+
+    private void rebuild() {
+        // Cleared before reading the summaries, so a change made during the rebuild schedules another one.
+        rebuildPending.set(false);
+        List<AssetSummary> summaries = new ArrayList<>();
+        for (Map<String, AssetSummary> typeSummaries : summariesByType.values()) {
+            summaries.addAll(typeSummaries.values());
+        }
+
+        float[] weights = new float[summaries.size()];
+        for (int entry = 0; entry < weights.length; entry++) {
+            weights[entry] = parseRating(summaries.get(entry).getImdbRating());
+        }
+        PrefixTrie.Builder builder = new PrefixTrie.Builder(MAX_SUGGESTIONS, weights);
+        for (int entry = 0; entry < weights.length; entry++) {
+            List<String> words = Tokenizer.tokenize(summaries.get(entry).getTitle());
+            for (int start = 0; start < words.size(); start++) {
+                builder.add(String.join(" ", words.subList(start, words.size())), entry);
+            }
+        }
+        index = new Index(builder.build(), summaries.toArray(new AssetSummary[0]));
+    }
+
+    private static float parseRating(String rating) {
+        try {
+            return rating == null ? 0 : Float.parseFloat(rating);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
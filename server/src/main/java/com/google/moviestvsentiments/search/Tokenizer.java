@@ -0,0 +1,50 @@
+package com.google.moviestvsentiments.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Splits text into search terms. A term is a maximal run of letters and digits, lower-cased and with accents removed,
+ * so accented and unaccented spellings match. Apostrophes inside a word are dropped, so "Schindler's" becomes
+ * "schindlers".
+ */
+final class Tokenizer {
+
+    private Tokenizer() {}
+
+    /**
+     * Returns the terms of the given text in order, including repeated terms. Returns an empty list for null text.
+     */
+    static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null) {
+            return terms;
+        }
+
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFD).toLowerCase(Locale.ROOT);
+        StringBuilder term = new StringBuilder();
+        for (int i = 0; i < normalized.length(); i++) {
+            char c = normalized.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                term.append(c);
+            } else if (Character.getType(c) == Character.NON_SPACING_MARK || isInnerApostrophe(normalized, i, term)) {
+                continue;
+            } else if (term.length() > 0) {
+                terms.add(term.toString());
+                term.setLength(0);
+            }
+        }
+        if (term.length() > 0) {
+            terms.add(term.toString());
+        }
+        return terms;
+    }
+
+    private static boolean isInnerApostrophe(String text, int index, StringBuilder term) {
+        char c = text.charAt(index);
+        return (c == '\'' || c == '\u2019') && term.length() > 0 && index + 1 < text.length()
+                && Character.isLetter(text.charAt(index + 1));
+    }
+}
@@ -0,0 +1,23 @@
+package com.google.moviestvsentiments.web;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Puts the AdmissionControlInterceptor in front of the asset, sentiment and account endpoints. Scraping and the
+ * actuator endpoints are not limited.
+ */
+@Configuration
+public class AdmissionControlConfig implements WebMvcConfigurer {
+
+    @Autowired
+    private AdmissionControlInterceptor admissionControlInterceptor;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(admissionControlInterceptor).addPathPatterns("/asset/**", "/assets/**",
+                "/sentiment", "/sentiments", "/account", "/accounts/**");
+    }
+}
@@ -0,0 +1,141 @@
+package com.google.moviestvsentiments.web;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Sheds load from the asset, sentiment and account endpoints with token buckets, so that one client stuck in a retry
+ * loop can not use up the request threads and the database. Every request takes a token from a bucket for its caller
+ * and then from a bucket shared by all callers. Reads (GET and HEAD) and writes have separate buckets, so list loads
+ * keep working during a storm of writes. A request that finds a bucket empty gets a 429 with a Retry-After header of
+ * the seconds until a token is available.
+ *
+ * <p>The caller is the client address. Account names are not used, since requests are not authenticated and any
+ * client could name another account to use up its budget, or rotate names to get a fresh budget for every request.
+ * Behind a proxy or a NAT every client has the same remote address and so shares one budget. When the server is only
+ * reachable through a trusted proxy, admission.caller.header names the header that the proxy puts the client address
+ * in, such as X-Forwarded-For, and the last address in it is used. The header must not be set otherwise, since clients
+ * could then pick their own key.
+ *
+ * <p>The asynchronous dispatch that finishes a streamed or server-sent response is not charged again, since the
+ * request was admitted when it started and its response is already committed.
+ */
+@Component
+public class AdmissionControlInterceptor implements HandlerInterceptor {
+
+    private final TokenBuckets callerReads;
+    private final TokenBuckets callerWrites;
+    private final TokenBuckets globalReads;
+    private final TokenBuckets globalWrites;
+    private final String callerHeader;
+    private final LongSupplier clock;
+    private final Counter callerReadsRejected;
+    private final Counter callerWritesRejected;
+    private final Counter globalReadsRejected;
+    private final Counter globalWritesRejected;
+
+    public AdmissionControlInterceptor(@Value("${admission.caller.read-rate:50}") double callerReadRate,
+                                       @Value("${admission.caller.read-burst:200}") int callerReadBurst,
+                                       @Value("${admission.caller.write-rate:20}") double callerWriteRate,
+                                       @Value("${admission.caller.write-burst:50}") int callerWriteBurst,
+                                       @Value("${admission.global.read-rate:2000}") double globalReadRate,
+                                       @Value("${admission.global.read-burst:4000}") int globalReadBurst,
+                                       @Value("${admission.global.write-rate:500}") double globalWriteRate,
+                                       @Value("${admission.global.write-burst:1000}") int globalWriteBurst,
+                                       @Value("${admission.max-callers:100000}") int maxCallers,
+                                       @Value("${admission.caller.header:}") String callerHeader,
+                                       MeterRegistry meterRegistry) {
+        this(new TokenBuckets(callerReadRate, callerReadBurst, maxCallers),
+                new TokenBuckets(callerWriteRate, callerWriteBurst, maxCallers),
+                new TokenBuckets(globalReadRate, globalReadBurst, 1),
+                new TokenBuckets(globalWriteRate, globalWriteBurst, 1), callerHeader, System::nanoTime,
+                meterRegistry);
+    }
+
+    AdmissionControlInterceptor(TokenBuckets callerReads, TokenBuckets callerWrites, TokenBuckets globalReads,
+                                TokenBuckets globalWrites, String callerHeader, LongSupplier clock,
+                                MeterRegistry meterRegistry) {
+        this.callerReads = callerReads;
+        this.callerWrites = callerWrites;
+        this.globalReads = globalReads;
+        this.globalWrites = globalWrites;
+        this.callerHeader = callerHeader;
+        this.clock = clock;
+        callerReadsRejected = meterRegistry.counter("admission.rejected", "budget", "caller", "access", "read");
+        callerWritesRejected = meterRegistry.counter("admission.rejected", "budget", "caller", "access", "write");
+        globalReadsRejected = meterRegistry.counter("admission.rejected", "budget", "global", "access", "read");
+        globalWritesRejected = meterRegistry.counter("admission.rejected", "budget", "global", "access", "write");
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws IOException {
+        if (request.getDispatcherType() == DispatcherType.ASYNC) {
+            return true;
+        }
+        boolean read = HttpMethod.GET.matches(request.getMethod()) || HttpMethod.HEAD.matches(request.getMethod());
+        long now = clock.getAsLong();
+        // The caller's bucket is checked first, so a caller over its budget does not use up the shared one.
+        long wait = (read ? callerReads : callerWrites).tryAcquire(callerOf(request), now);
+        if (wait > 0) {
+            (read ? callerReadsRejected : callerWritesRejected).increment();
+            reject(response, wait);
+            return false;
+        }
+        wait = (read ? globalReads : globalWrites).tryAcquire("", now);
+        if (wait > 0) {
+            (read ? globalReadsRejected : globalWritesRejected).increment();
+            reject(response, wait);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Removes the buckets of callers that have not made a request for long enough to refill them.
+     */
+    @Scheduled(fixedDelayString = "${admission.eviction-interval-ms:60000}")
+    public void evictIdleCallers() {
+        long now = clock.getAsLong();
+        callerReads.evictIdle(now);
+        callerWrites.evictIdle(now);
+    }
+
+    private String callerOf(HttpServletRequest request) {
+        if (!callerHeader.isEmpty()) {
+            String forwarded = request.getHeader(callerHeader);
+            if (forwarded != null) {
+                // The trusted proxy appends the address that it received the request from, so earlier entries may
+                // have been sent by the client.
+                String address = forwarded.substring(forwarded.lastIndexOf(',') + 1).trim();
+                if (!address.isEmpty()) {
+                    return address;
+                }
+            }
+        }
+        return request.getRemoteAddr();
+    }
+
+    private static void reject(HttpServletResponse response, long waitNanos) throws IOException {
+        long nanosPerSecond = TimeUnit.SECONDS.toNanos(1);
+        long seconds = Math.max(1, (waitNanos + nanosPerSecond - 1) / nanosPerSecond);
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(seconds));
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        response.getWriter().write("Too many requests, retry after " + seconds + " seconds");
+    }
+}
@@ -0,0 +1,38 @@
+package com.google.moviestvsentiments.web;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Registers Jackson Smile and CBOR message converters next to the JSON one, so that clients can request binary
+ * bodies with an Accept header of application/x-jackson-smile or application/cbor and send them with the matching
+ * Content-Type. JSON stays the default when a client does not ask for either.
+ */
+@Configuration
+public class BinaryFormatConfig {
+
+    /**
+     * Returns a Smile converter that uses the same Jackson settings as the JSON converter. It replaces the one that
+     * Spring MVC would otherwise create with its own defaults.
+     * @param builder The ObjectMapper builder configured by Spring Boot.
+     */
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+
+    /**
+     * Returns a CBOR converter that uses the same Jackson settings as the JSON converter. It replaces the one that
+     * Spring MVC would otherwise create with its own defaults.
+     * @param builder The ObjectMapper builder configured by Spring Boot.
+     */
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+}
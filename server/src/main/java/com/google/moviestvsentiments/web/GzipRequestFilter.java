@@ -0,0 +1,175 @@
+package com.google.moviestvsentiments.web;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipException;
+
+/**
+ * Decompresses request bodies sent with a Content-Encoding of gzip, so that clients can compress the lists they POST
+ * and PUT. The body is inflated into memory before the request is handled, and a body that inflates to more than the
+ * configured maximum is rejected with a 413. Responses are compressed by the server itself, as configured by the
+ * server.compression properties.
+ */
+@Component
+public class GzipRequestFilter extends OncePerRequestFilter {
+
+    private static final String GZIP = "gzip";
+    private static final int BUFFER_SIZE = 8192;
+
+    private final int maxInflatedBytes;
+
+    public GzipRequestFilter(@Value("${requests.gzip.max-inflated-bytes:16777216}") int maxInflatedBytes) {
+        this.maxInflatedBytes = maxInflatedBytes;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String contentEncoding = request.getHeader(HttpHeaders.CONTENT_ENCODING);
+        return contentEncoding == null || !GZIP.equalsIgnoreCase(contentEncoding.trim());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        byte[] body;
+        try {
+            body = inflate(request.getInputStream());
+        } catch (ZipException e) {
+            response.sendError(HttpStatus.BAD_REQUEST.value(), "The request body is not valid gzip");
+            return;
+        }
+        if (body == null) {
+            response.sendError(HttpStatus.PAYLOAD_TOO_LARGE.value(),
+                    "The request body inflates to more than " + maxInflatedBytes + " bytes");
+            return;
+        }
+        chain.doFilter(new GzipRequest(request, body), response);
+    }
+
+    /**
+     * Returns the inflated content of the given gzip stream, or null if it is larger than the maximum. Reading stops
+     * as soon as the maximum is exceeded, so a small body that inflates to a huge one is not held in memory.
+     */
+    private byte[] inflate(InputStream compressed) throws IOException {
+        ByteArrayOutputStream inflated = new ByteArrayOutputStream();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (GZIPInputStream gzipStream = new GZIPInputStream(compressed, BUFFER_SIZE)) {
+            int read;
+            while ((read = gzipStream.read(buffer)) != -1) {
+                if (inflated.size() + read > maxInflatedBytes) {
+                    return null;
+                }
+                inflated.write(buffer, 0, read);
+            }
+        }
+        return inflated.toByteArray();
+    }
+
+    /**
+     * A request whose body is the inflated body of the wrapped request. The Content-Encoding and Content-Length
+     * headers are hidden, since they describe the compressed body.
+     */
+    private static class GzipRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+        private final ServletInputStream inputStream;
+
+        private GzipRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+            ByteArrayInputStream bodyStream = new ByteArrayInputStream(body);
+            inputStream = new ServletInputStream() {
+                @Override
+                public int read() {
+                    return bodyStream.read();
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) {
+                    return bodyStream.read(buffer, offset, length);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return bodyStream.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    // The whole body is already in memory, so the listener is told right away that it can be read.
+                    try {
+                        if (!isFinished()) {
+                            readListener.onDataAvailable();
+                        }
+                        readListener.onAllDataRead();
+                    } catch (IOException e) {
+                        readListener.onError(e);
+                    }
+                }
+            };
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            return inputStream;
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            Charset charset = encoding == null ? StandardCharsets.UTF_8 : Charset.forName(encoding);
+            return new BufferedReader(new InputStreamReader(inputStream, charset));
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return isCompressionHeader(name) ? null : super.getHeader(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            return isCompressionHeader(name) ? Collections.emptyEnumeration() : super.getHeaders(name);
+        }
+
+        @Override
+        public int getContentLength() {
+            return body.length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return body.length;
+        }
+
+        private static boolean isCompressionHeader(String name) {
+            return HttpHeaders.CONTENT_ENCODING.equalsIgnoreCase(name)
+                    || HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name);
+        }
+    }
+}
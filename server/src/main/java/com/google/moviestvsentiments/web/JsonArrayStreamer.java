@@ -0,0 +1,127 @@
+package com.google.moviestvsentiments.web;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import javax.persistence.EntityManager;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Writes the rows of a JPA query to a response as a JSON array while they are read from the database. Rows are
+ * serialized one at a time and the persistence context is cleared every CLEAR_INTERVAL rows, so the memory used by a
+ * request does not grow with the size of its result. The array is written as JSON, Smile or CBOR, with the same
+ * ObjectMappers as the message converters, since a streamed response bypasses content negotiation.
+ */
+@Component
+public class JsonArrayStreamer {
+
+    /**
+     * The number of rows to write between flushes of the response and clears of the persistence context. Repository
+     * methods that are streamed should use it as their fetch size.
+     */
+    public static final String FETCH_SIZE = "500";
+    static final int CLEAR_INTERVAL = Integer.parseInt(FETCH_SIZE);
+    static final MediaType SMILE = MediaType.valueOf("application/x-jackson-smile");
+
+    // The writers of each supported media type, in the order they are preferred when a client accepts several.
+    private final Map<MediaType, ObjectWriter> rowWriters = new LinkedHashMap<>();
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+
+    public JsonArrayStreamer(ObjectMapper objectMapper, MappingJackson2SmileHttpMessageConverter smileConverter,
+                             MappingJackson2CborHttpMessageConverter cborConverter,
+                             PlatformTransactionManager transactionManager, EntityManager entityManager) {
+        addRowWriter(MediaType.APPLICATION_JSON, objectMapper);
+        addRowWriter(SMILE, smileConverter.getObjectMapper());
+        addRowWriter(MediaType.APPLICATION_CBOR, cborConverter.getObjectMapper());
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Returns the media type to stream a response in for the given Accept header. This is the first of JSON, Smile and
+     * CBOR that the client accepts, in the client's order of preference, or JSON if there is no Accept header.
+     * @param accept The Accept header of the request, or null.
+     * @return The media type to pass to stream, or null if the client accepts none of them.
+     */
+    public MediaType negotiate(String accept) {
+        if (accept == null || accept.trim().isEmpty()) {
+            return MediaType.APPLICATION_JSON;
+        }
+        List<MediaType> accepted;
+        try {
+            accepted = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            return null;
+        }
+        MediaType.sortBySpecificityAndQuality(accepted);
+        for (MediaType acceptedType : accepted) {
+            if (acceptedType.getQualityValue() == 0) {
+                continue;
+            }
+            for (MediaType mediaType : rowWriters.keySet()) {
+                if (acceptedType.isCompatibleWith(mediaType)) {
+                    return mediaType;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns a StreamingResponseBody that writes every row of the given query as an array in the given media type.
+     * The query is opened inside a read-only transaction when the response is written, and is closed once the last row
+     * is written.
+     * @param mediaType The media type to write, as returned by negotiate.
+     * @param query A supplier that opens the JPA Stream of rows to write.
+     * @param <T> The type of the rows.
+     * @return A StreamingResponseBody that writes the rows.
+     */
+    public <T> StreamingResponseBody stream(MediaType mediaType, Supplier<Stream<T>> query) {
+        ObjectWriter rowWriter = rowWriters.get(mediaType);
+        if (rowWriter == null) {
+            throw new IllegalArgumentException("Can not stream " + mediaType);
+        }
+        return outputStream -> transactionTemplate.execute(status -> {
+            try (Stream<T> rows = query.get();
+                 JsonGenerator generator = rowWriter.getFactory().createGenerator(outputStream)) {
+                generator.writeStartArray();
+                int written = 0;
+                Iterator<T> iterator = rows.iterator();
+                while (iterator.hasNext()) {
+                    rowWriter.writeValue(generator, iterator.next());
+                    if (++written % CLEAR_INTERVAL == 0) {
+                        generator.flush();
+                        entityManager.clear();
+                    }
+                }
+                generator.writeEndArray();
+                return null;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private void addRowWriter(MediaType mediaType, ObjectMapper objectMapper) {
+        // Rows are flushed in batches of CLEAR_INTERVAL rather than after each one.
+        rowWriters.put(mediaType, objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE));
+    }
+}
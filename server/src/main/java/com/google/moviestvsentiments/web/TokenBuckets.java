@@ -0,0 +1,89 @@
+package com.google.moviestvsentiments.web;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A set of token buckets with the same rate and burst, keyed by string. Each bucket is stored as a single theoretical
+ * arrival time, as in the generic cell rate algorithm: a request is admitted if the bucket's arrival time, pushed
+ * forward by one emission interval, is no more than one burst ahead of now. Admitting a request is a compare and set
+ * on that time, so no locks are held. A bucket whose arrival time has passed is full, which is the same as having no
+ * bucket, so idle buckets can be evicted without changing any decision. At most maxKeys buckets are kept. A request
+ * for a new key that finds the set full evicts the idle buckets, at most once per emission interval so that a flood
+ * of new keys does not turn every request into a scan, and is rejected if the set is still full.
+ */
+class TokenBuckets {
+
+    private final long emissionIntervalNanos;
+    private final long burstNanos;
+    private final int maxKeys;
+    private final ConcurrentMap<String, AtomicLong> arrivalTimes = new ConcurrentHashMap<>();
+    private final AtomicLong lastEvictionNanos = new AtomicLong();
+
+    /**
+     * Creates a set of token buckets.
+     * @param ratePerSecond The number of tokens added to each bucket per second.
+     * @param burst The number of tokens that each bucket holds when full.
+     * @param maxKeys The maximum number of buckets to keep.
+     */
+    TokenBuckets(double ratePerSecond, int burst, int maxKeys) {
+        if (ratePerSecond <= 0 || burst < 1 || maxKeys < 1) {
+            throw new IllegalArgumentException("Token buckets need a positive rate, burst and key limit");
+        }
+        emissionIntervalNanos = (long) (1_000_000_000L / ratePerSecond);
+        burstNanos = emissionIntervalNanos * burst;
+        this.maxKeys = maxKeys;
+    }
+
+    /**
+     * Takes a token from the bucket for the given key.
+     * @param key The key of the bucket.
+     * @param nowNanos The current time, from System.nanoTime.
+     * @return Zero if a token was taken, otherwise the number of nanoseconds until one is available, or until the
+     *     next eviction if there is no room for a new bucket.
+     */
+    long tryAcquire(String key, long nowNanos) {
+        AtomicLong arrivalTime = arrivalTimes.get(key);
+        if (arrivalTime == null) {
+            if (arrivalTimes.size() >= maxKeys) {
+                long lastEviction = lastEvictionNanos.get();
+                if (nowNanos - lastEviction >= emissionIntervalNanos
+                        && lastEvictionNanos.compareAndSet(lastEviction, nowNanos)) {
+                    evictIdle(nowNanos);
+                }
+                if (arrivalTimes.size() >= maxKeys) {
+                    return emissionIntervalNanos;
+                }
+            }
+            arrivalTime = arrivalTimes.computeIfAbsent(key, ignored -> new AtomicLong(nowNanos));
+        }
+        while (true) {
+            long current = arrivalTime.get();
+            long next = (current - nowNanos > 0 ? current : nowNanos) + emissionIntervalNanos;
+            long wait = next - nowNanos - burstNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (arrivalTime.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Removes the buckets that are full at the given time. A request racing with the eviction of its bucket may take
+     * its token from the removed bucket, which admits at most one extra request.
+     * @param nowNanos The current time, from System.nanoTime.
+     */
+    void evictIdle(long nowNanos) {
+        arrivalTimes.values().removeIf(arrivalTime -> arrivalTime.get() - nowNanos <= 0);
+    }
+
+    /**
+     * Returns the number of buckets being kept.
+     */
+    int size() {
+        return arrivalTimes.size();
+    }
+}
@@ -1,6 +1,7 @@
 package com.google.moviestvsentiments.webscrape;
 
 import com.google.moviestvsentiments.assetSentiment.Asset;
+import com.google.moviestvsentiments.assetSentiment.AssetCatalog;
 import com.google.moviestvsentiments.assetSentiment.AssetSentimentRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -24,9 +25,13 @@ public class AssetScrapeController {
     @Autowired
     private AssetScraper assetScraper;
 
+    @Autowired
+    private AssetCatalog assetCatalog;
+
     /**
      * Scrapes Assets listed at the given url and saves them in the Assets database table. The url should point to an
-     * IMDB page listing Assets. If an error occurs, the error message is returned.
+     * IMDB page listing Assets. The AssetCatalog is rebuilt once the Assets are saved. If an error occurs, the error
+     * message is returned.
      * @param url The IMDB page listing the Assets and their ids.
      * @param apiKey The OMDB api key to use when fetching Asset details.
      * @return A ResponseEntity containing the error message, if an error occurs.
@@ -38,6 +43,7 @@ public class AssetScrapeController {
             List<String> assetIds = assetScraper.scrapeIds(url);
             List<Asset> assets = assetScraper.scrapeAssets(assetIds, apiKey);
             assetSentimentRepository.saveAll(assets);
+            assetCatalog.rebuild();
             return ResponseEntity.ok().build();
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage());
@@ -45,26 +51,36 @@ public class AssetScrapeController {
     }
 
     /**
-     * Scrapes banner images for Assets that don't currently have a banner and then updates the Asset in the database.
-     * If some Assets are not successfully updated, their ids are returned.
+     * Scrapes banner images for Assets that don't currently have a banner, in parallel, and then updates the banners
+     * of the Assets in the database with one batch. The banners are set on copies of the loaded Assets, so that only
+     * the batch writes them. If some Assets are not successfully updated, including Assets deleted during the scrape,
+     * their ids are returned. The AssetCatalog is rebuilt afterwards.
      * @param apiKey The Google Cloud api key to use when searching for banner images.
      * @return A list of ids of Assets that did not save successfully.
      */
     @PutMapping("/banners")
     public ResponseEntity scrapeBanners(@RequestParam("apiKey") String apiKey) {
         List<String> failedIds = new ArrayList<>();
+        List<Asset> found = new ArrayList<>();
 
         List<Asset> assets = assetSentimentRepository.getAssetsWithoutBanner();
-        for (Asset asset : assets) {
-            try {
-                String bannerUrl = assetScraper.scrapeBannerUrl(apiKey, asset);
-                asset.setBanner(bannerUrl);
-                assetSentimentRepository.save(asset);
-            } catch (Exception e) {
-                failedIds.add(asset.getAssetId());
+        try {
+            List<String> bannerUrls = assetScraper.scrapeBannerUrls(apiKey, assets);
+            for (int i = 0; i < assets.size(); i++) {
+                Asset asset = assets.get(i);
+                if (bannerUrls.get(i) == null) {
+                    failedIds.add(asset.getAssetId());
+                    continue;
+                }
+                found.add(asset.withBanner(bannerUrls.get(i)));
             }
+            assetSentimentRepository.updateBanners(found).forEach(asset -> failedIds.add(asset.getAssetId()));
+        } catch (Exception e) {
+            failedIds.clear();
+            assets.forEach(asset -> failedIds.add(asset.getAssetId()));
         }
 
+        assetCatalog.rebuild();
         return ResponseEntity.ok().body(failedIds);
     }
 }
@@ -8,18 +8,29 @@ import com.google.api.client.http.javanet.NetHttpTransport;
 import com.google.api.client.json.JsonFactory;
 import com.google.api.client.json.JsonObjectParser;
 import com.google.api.client.json.jackson2.JacksonFactory;
+import com.google.api.client.util.ExponentialBackOff;
 import com.google.api.client.util.Key;
 import com.google.moviestvsentiments.assetSentiment.Asset;
 import com.google.moviestvsentiments.assetSentiment.AssetType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import javax.annotation.PreDestroy;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.time.Clock;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Provides functions to support scraping Assets from OMDB.
@@ -63,25 +74,67 @@ public class AssetScraper {
     private static final String OMDB_MOVIE_TYPE = "movie";
     private static final String OMDB_SHOW_TYPE = "series";
     private static final String OMDB_ROTTEN_TOMATOES_SOURCE = "Rotten Tomatoes";
-    private static final String BANNER_SEARCH_FORMAT = "https://www.googleapis.com/customsearch/v1?num=1&" +
-            "imgSize=large&searchType=image&cx=014855773548463262652:6dh_g-lgcra&key=%s&q=%s+banner+image";
+    private static final String BANNER_SEARCH_ENGINE_ID = "014855773548463262652:6dh_g-lgcra";
+    private static final double BANNER_BACKOFF_JITTER = 0.5;
+    private static final double BANNER_BACKOFF_MULTIPLIER = 2;
+    private static final int HTTP_TOO_MANY_REQUESTS = 429;
 
     private final Clock clock;
     private final HttpRequestFactory requestFactory;
+    private final String omdbUrl;
+    private final String bannerSearchUrl;
+    private final int parallelism;
+    private final int timeoutMillis;
+    private final long deadlineNanos;
+    private final int bannerAttempts;
+    private final int bannerBackoffMillis;
+    private final Executor executor;
     private final Logger logger;
 
-    // Public default constructor is required for Spring to autowire AssetScraper in AssetScrapeController.
-    public AssetScraper() {
+    public AssetScraper(@Value("${webscrape.omdb-url:http://www.omdbapi.com/}") String omdbUrl,
+                        @Value("${webscrape.banner-search-url:https://www.googleapis.com/customsearch/v1}")
+                                String bannerSearchUrl,
+                        @Value("${webscrape.parallelism:8}") int parallelism,
+                        @Value("${webscrape.timeout-ms:10000}") int timeoutMillis,
+                        @Value("${webscrape.deadline-ms:60000}") int deadlineMillis,
+                        @Value("${webscrape.banner.attempts:4}") int bannerAttempts,
+                        @Value("${webscrape.banner.backoff-ms:500}") int bannerBackoffMillis) {
+        this(defaultRequestFactory(), omdbUrl, bannerSearchUrl, parallelism, timeoutMillis, deadlineMillis,
+                bannerAttempts, bannerBackoffMillis, Executors.newFixedThreadPool(parallelism, runnable -> {
+                    Thread thread = new Thread(runnable, "asset-scraper");
+                    thread.setDaemon(true);
+                    return thread;
+                }));
+    }
+
+    AssetScraper(HttpRequestFactory requestFactory, String omdbUrl, String bannerSearchUrl, int parallelism,
+                 int timeoutMillis, int deadlineMillis, int bannerAttempts, int bannerBackoffMillis,
+                 Executor executor) {
         clock = Clock.systemUTC();
-        requestFactory = defaultRequestFactory();
+        this.requestFactory = requestFactory;
+        this.omdbUrl = omdbUrl;
+        this.bannerSearchUrl = bannerSearchUrl;
+        this.parallelism = parallelism;
+        this.timeoutMillis = timeoutMillis;
+        this.deadlineNanos = TimeUnit.MILLISECONDS.toNanos(deadlineMillis);
+        this.bannerAttempts = bannerAttempts;
+        this.bannerBackoffMillis = bannerBackoffMillis;
+        this.executor = executor;
         logger = LoggerFactory.getLogger(AssetScraper.class);
     }
 
+    @PreDestroy
+    public void shutdown() {
+        if (executor instanceof ExecutorService) {
+            ((ExecutorService) executor).shutdownNow();
+        }
+    }
+
     /**
      * Returns the default HttpRequestFactory that uses NetHttpTransport to send HTTP requests and Jackson to parse
      * JSON responses.
      */
-    private static HttpRequestFactory defaultRequestFactory() {
+    static HttpRequestFactory defaultRequestFactory() {
         HttpTransport httpTransport = new NetHttpTransport();
         JsonFactory jsonFactory = new JacksonFactory();
         return httpTransport.createRequestFactory(new HttpRequestInitializer() {
@@ -117,25 +170,97 @@ public class AssetScraper {
 
     /**
      * Returns a list of Assets scraped from OMDB. The given OMDB api key and the list of Asset ids is used to query
-     * OMDB for the Assets.
+     * OMDB for the Assets. Up to webscrape.parallelism queries are sent at a time, and each one times out after
+     * webscrape.timeout-ms without a connection or a response. Since a server that keeps sending slowly never trips
+     * those timeouts, the whole scrape also has a deadline, as described in deadlineFor, after which the unfinished
+     * queries are cancelled. The Assets are returned in the order of their ids. An id whose query fails or misses the
+     * deadline is logged and skipped, so one bad id does not abort the whole scrape.
      * @param assetIds The list of Asset ids to query OMDB for.
      * @param omdbApiKey The api key to use when querying OMDB.
      * @return A list of Assets scraped from OMDB.
-     * @throws IOException If the OMDB query fails.
+     * @throws IOException If the OMDB query fails for every id, or the scrape is interrupted.
      */
     public List<Asset> scrapeAssets(List<String> assetIds, String omdbApiKey) throws IOException {
-        List<Asset> assets = new ArrayList<>();
+        long deadline = deadlineFor(assetIds.size());
+        List<FutureTask<Optional<Asset>>> tasks = new ArrayList<>();
         for (String assetId : assetIds) {
-            String url = "http://www.omdbapi.com/?plot=full&apikey=" + omdbApiKey + "&i=" + assetId;
-            HttpRequest request = requestFactory.buildGetRequest(new GenericUrl(url));
-            OmdbResponse response = request.execute().parseAs(OmdbResponse.class);
-            createAsset(response).ifPresent(asset -> assets.add(asset));
+            FutureTask<Optional<Asset>> task = new FutureTask<>(() -> scrapeAsset(assetId, omdbApiKey));
+            tasks.add(task);
+            executor.execute(task);
+        }
+
+        List<Asset> assets = new ArrayList<>();
+        Throwable lastFailure = null;
+        for (int i = 0; i < tasks.size(); i++) {
+            try {
+                tasks.get(i).get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS).ifPresent(assets::add);
+            } catch (ExecutionException e) {
+                lastFailure = e.getCause();
+                logger.warn("Failed to scrape OMDB asset " + assetIds.get(i) + ": " + describe(lastFailure));
+            } catch (TimeoutException e) {
+                tasks.get(i).cancel(true);
+                lastFailure = e;
+                logger.warn("Timed out scraping OMDB asset " + assetIds.get(i));
+            } catch (InterruptedException e) {
+                tasks.forEach(task -> task.cancel(true));
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while scraping OMDB assets");
+            }
+        }
+        if (assets.isEmpty() && lastFailure != null) {
+            throw new IOException("Failed to scrape every OMDB asset: " + describe(lastFailure));
         }
         return assets;
     }
 
     /**
-     * Creates a new Asset from the given OmdbResponse. The Asset's timestamp is set to the current time.
+     * Returns the System.nanoTime by which a scrape of the given number of queries must finish. The queries run in
+     * waves of webscrape.parallelism, and each wave is given webscrape.deadline-ms, so a large batch gets a
+     * proportionally longer deadline and the queries at its end are not starved by the slow ones before them.
+     * @param queries The number of queries in the scrape.
+     * @return The deadline of the scrape.
+     */
+    private long deadlineFor(int queries) {
+        long waves = Math.max(1, (queries + parallelism - 1) / parallelism);
+        return System.nanoTime() + waves * deadlineNanos;
+    }
+
+    /**
+     * Describes a failed query without the request URL, since the URL holds the api key. The message of an
+     * HttpResponseException includes the URL, so only its status code is used, and the failure itself is not logged
+     * or chained for the same reason.
+     * @param failure The exception that the query failed with.
+     * @return A description of the failure that is safe to log and return.
+     */
+    private static String describe(Throwable failure) {
+        if (failure instanceof HttpResponseException) {
+            return "status " + ((HttpResponseException) failure).getStatusCode();
+        }
+        return failure.toString();
+    }
+
+    /**
+     * Queries OMDB for the Asset with the given id.
+     * @param assetId The id of the Asset to query OMDB for.
+     * @param omdbApiKey The api key to use when querying OMDB.
+     * @return The Asset, or an empty Optional if OMDB returned an unknown asset type.
+     * @throws IOException If the OMDB query fails.
+     */
+    private Optional<Asset> scrapeAsset(String assetId, String omdbApiKey) throws IOException {
+        GenericUrl url = new GenericUrl(omdbUrl);
+        url.set("plot", "full");
+        url.set("apikey", omdbApiKey);
+        url.set("i", assetId);
+        HttpRequest request = requestFactory.buildGetRequest(url);
+        request.setConnectTimeout(timeoutMillis);
+        request.setReadTimeout(timeoutMillis);
+        OmdbResponse response = request.execute().parseAs(OmdbResponse.class);
+        return createAsset(response);
+    }
+
+    /**
+     * Creates a new Asset from the given OmdbResponse. The Asset's timestamp is set to the current time, and its
+     * numeric fields are parsed from the OMDB display strings.
      * @param omdbResponse The OmdbResponse to use when creating the Asset.
      * @return A new Asset created using the OmdbResponse.
      */
@@ -161,27 +286,89 @@ public class AssetScraper {
 
         omdbResponse.ratings.stream().filter(rating -> OMDB_ROTTEN_TOMATOES_SOURCE.equals(rating.source))
                 .findAny().ifPresent(rating -> asset.setRottenTomatoesRating(rating.value));
+        asset.updateNumericFields();
 
         return Optional.of(asset);
     }
 
+    /**
+     * Returns the banner image URLs for the given Assets, in the same order. Up to webscrape.parallelism searches are
+     * sent at a time, each as described in scrapeBannerUrl. Like scrapeAssets, the searches have an overall deadline,
+     * retries included, as described in deadlineFor. The URL of an Asset whose search fails or misses the deadline is
+     * logged and returned as null, so one failure does not abort the others.
+     * @param apiKey The Google Cloud API key to use when invoking the Custom Search API.
+     * @param assets The Assets to find banner images for.
+     * @return The banner image URL of each Asset, or null if it could not be found.
+     * @throws IOException If the scrape is interrupted.
+     */
+    public List<String> scrapeBannerUrls(String apiKey, List<Asset> assets) throws IOException {
+        long deadline = deadlineFor(assets.size());
+        List<FutureTask<String>> tasks = new ArrayList<>();
+        for (Asset asset : assets) {
+            FutureTask<String> task = new FutureTask<>(() -> scrapeBannerUrl(apiKey, asset));
+            tasks.add(task);
+            executor.execute(task);
+        }
+
+        List<String> bannerUrls = new ArrayList<>();
+        for (int i = 0; i < tasks.size(); i++) {
+            try {
+                bannerUrls.add(tasks.get(i).get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS));
+            } catch (ExecutionException e) {
+                logger.warn("Failed to scrape the banner of asset " + assets.get(i).getAssetId() + ": "
+                        + describe(e.getCause()));
+                bannerUrls.add(null);
+            } catch (TimeoutException e) {
+                tasks.get(i).cancel(true);
+                logger.warn("Timed out scraping the banner of asset " + assets.get(i).getAssetId());
+                bannerUrls.add(null);
+            } catch (InterruptedException e) {
+                tasks.forEach(task -> task.cancel(true));
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while scraping banners");
+            }
+        }
+        return bannerUrls;
+    }
+
     /**
      * Returns the banner image URL for the given Asset. Uses the Google Custom Search JSON API to search for the Asset
-     * title, along with the phrase "banner image" and returns the URL of the first image result.
+     * title, along with the phrase "banner image" and returns the URL of the first image result. A search that fails
+     * with an I/O error, a 429 or a server error is retried up to webscrape.banner.attempts times in total. The delay
+     * before each retry starts at webscrape.banner.backoff-ms, doubles every retry and is randomized by half either
+     * way, so that searches that failed together do not retry together.
      * @param apiKey The Google Cloud API key to use when invoking the Custom Search API.
      * @param asset The Asset to find banner images for.
      * @return The banner image URL for the given Asset.
      * @throws IOException If calling the Custom Search API fails.
      */
     public String scrapeBannerUrl(String apiKey, Asset asset) throws IOException {
-        WebClient client = new WebClient();
-        client.getOptions().setCssEnabled(false);
-        client.getOptions().setJavaScriptEnabled(false);
+        GenericUrl url = new GenericUrl(bannerSearchUrl);
+        url.set("num", 1);
+        url.set("imgSize", "large");
+        url.set("searchType", "image");
+        url.set("cx", BANNER_SEARCH_ENGINE_ID);
+        url.set("key", apiKey);
+        url.set("q", asset.getTitle() + " banner image");
+        HttpRequest request = requestFactory.buildGetRequest(url);
+        request.setConnectTimeout(timeoutMillis);
+        request.setReadTimeout(timeoutMillis);
 
-        String searchUrl = String.format(BANNER_SEARCH_FORMAT, apiKey, asset.getTitle());
-        HttpRequest request = requestFactory.buildGetRequest(new GenericUrl(searchUrl));
+        ExponentialBackOff backOff = new ExponentialBackOff.Builder()
+                .setInitialIntervalMillis(bannerBackoffMillis)
+                .setMultiplier(BANNER_BACKOFF_MULTIPLIER)
+                .setRandomizationFactor(BANNER_BACKOFF_JITTER)
+                .build();
+        request.setNumberOfRetries(bannerAttempts - 1);
+        request.setIOExceptionHandler(new HttpBackOffIOExceptionHandler(backOff));
+        request.setUnsuccessfulResponseHandler(new HttpBackOffUnsuccessfulResponseHandler(backOff)
+                .setBackOffRequired(response -> response.getStatusCode() == HTTP_TOO_MANY_REQUESTS
+                        || response.getStatusCode() / 100 == 5));
         ImageSearchResponse responseList = request.execute().parseAs(ImageSearchResponse.class);
 
+        if (responseList.items == null || responseList.items.isEmpty()) {
+            throw new IOException("No banner image found for " + asset.getTitle());
+        }
         return responseList.items.get(0).link;
     }
 }
@@ -0,0 +1,33 @@
+package com.google.moviestvsentiments;
+
+/**
+ * Provides helper functions for the opt-in benchmarks, which run with ./gradlew test -Dbenchmark=true
+ * --tests '*Benchmark'.
+ */
+public class BenchmarkUtil {
+
+    /**
+     * A piece of work to time.
+     */
+    public interface Task {
+        void run() throws Exception;
+    }
+
+    /**
+     * Returns the mean time in nanoseconds taken by the given task, after running it a number of times untimed.
+     * @param warmupIterations The number of untimed runs, which let the JIT compile the code under test.
+     * @param measuredIterations The number of timed runs.
+     * @param task The work to time.
+     * @return The mean time of the timed runs in nanoseconds.
+     */
+    public static long meanNanos(int warmupIterations, int measuredIterations, Task task) throws Exception {
+        for (int i = 0; i < warmupIterations; i++) {
+            task.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < measuredIterations; i++) {
+            task.run();
+        }
+        return (System.nanoTime() - start) / measuredIterations;
+    }
+}
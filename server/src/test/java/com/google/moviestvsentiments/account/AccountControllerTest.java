@@ -1,25 +1,42 @@
 package com.google.moviestvsentiments.account;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import com.google.moviestvsentiments.assetSentiment.AssetType;
+import com.google.moviestvsentiments.assetSentiment.SentimentEventBroadcaster;
+import com.google.moviestvsentiments.assetSentiment.SentimentType;
+import com.google.moviestvsentiments.assetSentiment.UserSentiment;
+import com.google.moviestvsentiments.catalog.CatalogChangeEvent;
+import com.google.moviestvsentiments.catalog.CatalogVersion;
+import com.google.moviestvsentiments.recommendation.SimilarAccount;
+import com.google.moviestvsentiments.recommendation.SimilarAccounts;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.orm.jpa.JpaSystemException;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import java.time.Instant;
 import java.util.Arrays;
+import java.util.stream.Stream;
 
 @SpringBootTest
 @AutoConfigureMockMvc
@@ -38,6 +55,15 @@ public class AccountControllerTest {
     @MockBean
     private AccountRepository mockRepository;
 
+    @MockBean
+    private SimilarAccounts similarAccounts;
+
+    @Autowired
+    private CatalogVersion catalogVersion;
+
+    @Autowired
+    private SentimentEventBroadcaster sentimentEventBroadcaster;
+
     @Test
     public void accountController_getAccounts_returnsAccounts() throws Exception {
         when(mockRepository.findAll(any(Sort.class))).thenReturn(Arrays.asList(ACCOUNT_1, ACCOUNT_2));
@@ -51,6 +77,58 @@ public class AccountControllerTest {
                 .andExpect(jsonPath("$[1].timestamp", equalTo(ACCOUNT_2.getTimestamp().toString())));
     }
 
+    @Test
+    public void accountController_getAccounts_returnsETag() throws Exception {
+        mockMvc.perform(get("/accounts"))
+                .andExpect(header().exists(HttpHeaders.ETAG));
+    }
+
+    @Test
+    public void accountController_getAccountsMatchingETag_returnsNotModifiedWithoutQuery() throws Exception {
+        String eTag = mockMvc.perform(get("/accounts")).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/accounts").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+
+        verify(mockRepository, times(1)).findAll(any(Sort.class));
+    }
+
+    @Test
+    public void accountController_getAccountsAfterCatalogChange_returnsAccounts() throws Exception {
+        String eTag = mockMvc.perform(get("/accounts")).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        catalogVersion.onCatalogChange(CatalogChangeEvent.saved(ACCOUNT_1));
+
+        mockMvc.perform(get("/accounts").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void accountController_streamAccounts_returnsAccounts() throws Exception {
+        when(mockRepository.streamAllByName()).thenReturn(Stream.of(ACCOUNT_1, ACCOUNT_2));
+
+        MvcResult result = mockMvc.perform(get("/accounts?stream=true"))
+                .andExpect(request().asyncStarted())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].name", equalTo(ACCOUNT_1.getName())))
+                .andExpect(jsonPath("$[1].name", equalTo(ACCOUNT_2.getName())));
+    }
+
+    @Test
+    public void accountController_streamAccountsMatchingETag_returnsNotModifiedWithoutQuery() throws Exception {
+        String eTag = mockMvc.perform(get("/accounts?stream=true")).andReturn().getResponse()
+                .getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/accounts?stream=true").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+
+        verify(mockRepository, times(1)).streamAllByName();
+    }
+
     @Test
     public void accountController_addAccount_invokesRepository() throws Exception {
         mockMvc.perform(post(ADD_ACCOUNT_URL));
@@ -102,7 +180,7 @@ public class AccountControllerTest {
     public void accountController_addAccounts_invokesRepository() throws Exception {
         mockMvc.perform(post("/accounts").contentType(MediaType.APPLICATION_JSON).content(ACCOUNT_LIST_JSON));
 
-        verify(mockRepository).saveAll(Arrays.asList(ACCOUNT_1, ACCOUNT_2));
+        verify(mockRepository).upsertAll(Arrays.asList(ACCOUNT_1, ACCOUNT_2));
     }
 
     @Test
@@ -113,7 +191,7 @@ public class AccountControllerTest {
 
     @Test
     public void accountController_addAccountsSuccessful_returnsAccounts() throws Exception {
-        when(mockRepository.saveAll(any(Iterable.class))).thenReturn(Arrays.asList(ACCOUNT_1, ACCOUNT_2));
+        when(mockRepository.upsertAll(anyList())).thenReturn(Arrays.asList(ACCOUNT_1, ACCOUNT_2));
 
         mockMvc.perform(post("/accounts").contentType(MediaType.APPLICATION_JSON).content(ACCOUNT_LIST_JSON))
                 .andExpect(jsonPath("$[0].name", equalTo(ACCOUNT_1.getName())))
@@ -124,7 +202,7 @@ public class AccountControllerTest {
 
     @Test
     public void accountController_addAccountsJpaException_returnsBadRequest() throws Exception {
-        when(mockRepository.saveAll(any(Iterable.class))).thenThrow(JpaSystemException.class);
+        when(mockRepository.upsertAll(anyList())).thenThrow(JpaSystemException.class);
 
         mockMvc.perform(post("/accounts").contentType(MediaType.APPLICATION_JSON).content(ACCOUNT_LIST_JSON))
                 .andExpect(status().isBadRequest());
@@ -132,7 +210,7 @@ public class AccountControllerTest {
 
     @Test
     public void accountController_addAccountsOtherException_returnsServerError() throws Exception {
-        when(mockRepository.saveAll(any(Iterable.class))).thenThrow(RuntimeException.class);
+        when(mockRepository.upsertAll(anyList())).thenThrow(RuntimeException.class);
 
         mockMvc.perform(post("/accounts").contentType(MediaType.APPLICATION_JSON).content(ACCOUNT_LIST_JSON))
                 .andExpect(status().is5xxServerError());
@@ -141,9 +219,57 @@ public class AccountControllerTest {
     @Test
     public void accountController_addAccountsFailure_returnsError() throws Exception {
         final String errorMessage = "Invalid account name";
-        when(mockRepository.saveAll(any(Iterable.class))).thenThrow(new JpaSystemException(new RuntimeException(errorMessage)));
+        when(mockRepository.upsertAll(anyList())).thenThrow(new JpaSystemException(new RuntimeException(errorMessage)));
 
         mockMvc.perform(post("/accounts").contentType(MediaType.APPLICATION_JSON).content(ACCOUNT_LIST_JSON))
                 .andExpect(jsonPath("$", containsString(errorMessage)));
     }
+
+    @Test
+    public void accountController_getSimilarAccounts_returnsSimilarAccounts() throws Exception {
+        when(similarAccounts.getSimilar(ACCOUNT_1.getName(), 10)).thenReturn(Arrays.asList(
+                new SimilarAccount(ACCOUNT_2.getName(), 0.75)));
+
+        mockMvc.perform(get("/accounts/" + ACCOUNT_1.getName() + "/similar"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].accountName", equalTo(ACCOUNT_2.getName())))
+                .andExpect(jsonPath("$[0].similarity", equalTo(0.75)));
+    }
+
+    @Test
+    public void accountController_streamSentimentEvents_pushesCommittedSentiments() throws Exception {
+        MvcResult result = mockMvc.perform(get("/accounts/eventsAccount/events")
+                .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertThat(sentimentEventBroadcaster.getSubscriberCount("eventsAccount")).isEqualTo(1);
+
+        sentimentEventBroadcaster.onCatalogChange(CatalogChangeEvent.saved(UserSentiment.create("eventsAccount",
+                "movie1", AssetType.MOVIE, SentimentType.THUMBS_UP, Instant.ofEpochSecond(1))));
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!result.getResponse().getContentAsString().contains("movie1")
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(result.getResponse().getContentAsString()).contains("event:sentiment")
+                .contains("\"assetId\":\"movie1\"").contains("\"sentimentType\":\"THUMBS_UP\"");
+    }
+
+    @Test
+    public void accountController_streamSentimentEventsTooManyStreams_returnsTooManyRequests() throws Exception {
+        while (sentimentEventBroadcaster.subscribe("busyAccount") != null) {
+            // Opens streams until the account reaches its limit.
+        }
+
+        mockMvc.perform(get("/accounts/busyAccount/events").accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(status().isTooManyRequests());
+    }
+
+    @Test
+    public void accountController_getSimilarAccountsInvalidLimit_returnsBadRequest() throws Exception {
+        mockMvc.perform(get("/accounts/" + ACCOUNT_1.getName() + "/similar?limit=0"))
+                .andExpect(status().isBadRequest());
+    }
 }
@@ -0,0 +1,63 @@
+package com.google.moviestvsentiments.account;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+
+@DataJpaTest
+public class AccountUpsertRepositoryTest {
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void insertStoredAccount() {
+        jdbcTemplate.update("INSERT INTO account (name, timestamp) VALUES (?, ?)", "stored",
+                Timestamp.from(Instant.ofEpochSecond(10)));
+    }
+
+    @Test
+    public void upsertAll_newAndLaterAccounts_writesBoth() {
+        List<Account> stored = accountRepository.upsertAll(Arrays.asList(
+                Account.create("stored", Instant.ofEpochSecond(20)), Account.create("new", Instant.ofEpochSecond(5))));
+
+        assertThat(stored).containsExactly(Account.create("stored", Instant.ofEpochSecond(20)),
+                Account.create("new", Instant.ofEpochSecond(5)));
+        assertThat(storedTimestamp("stored")).isEqualTo(Instant.ofEpochSecond(20));
+        assertThat(storedTimestamp("new")).isEqualTo(Instant.ofEpochSecond(5));
+    }
+
+    @Test
+    public void upsertAll_olderAccount_keepsStoredAccount() {
+        List<Account> stored = accountRepository.upsertAll(Arrays.asList(
+                Account.create("stored", Instant.ofEpochSecond(5))));
+
+        assertThat(stored).containsExactly(Account.create("stored", Instant.ofEpochSecond(10)));
+        assertThat(storedTimestamp("stored")).isEqualTo(Instant.ofEpochSecond(10));
+    }
+
+    @Test
+    public void upsertAll_duplicateNames_writesLatest() {
+        List<Account> stored = accountRepository.upsertAll(Arrays.asList(
+                Account.create("new", Instant.ofEpochSecond(30)), Account.create("new", Instant.ofEpochSecond(20))));
+
+        assertThat(stored).containsExactly(Account.create("new", Instant.ofEpochSecond(30)));
+        assertThat(storedTimestamp("new")).isEqualTo(Instant.ofEpochSecond(30));
+    }
+
+    private Instant storedTimestamp(String name) {
+        return jdbcTemplate.queryForObject("SELECT timestamp FROM account WHERE name = ?", Timestamp.class, name)
+                .toInstant();
+    }
+}
@@ -0,0 +1,100 @@
+package com.google.moviestvsentiments.assetSentiment;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class AccountSentimentsTest {
+
+    @Test
+    public void get_unsetOrdinal_returnsNull() {
+        AccountSentiments sentiments = new AccountSentiments(10);
+
+        assertThat(sentiments.get(3)).isNull();
+    }
+
+    @Test
+    public void set_thenGet_returnsSentiment() {
+        AccountSentiments sentiments = new AccountSentiments(100);
+
+        sentiments.set(33, SentimentType.THUMBS_DOWN);
+
+        assertThat(sentiments.get(33)).isEqualTo(SentimentType.THUMBS_DOWN);
+        assertThat(sentiments.get(32)).isNull();
+        assertThat(sentiments.get(34)).isNull();
+    }
+
+    @Test
+    public void set_null_removesSentiment() {
+        AccountSentiments sentiments = new AccountSentiments(10);
+        sentiments.set(5, SentimentType.THUMBS_UP);
+
+        sentiments.set(5, null);
+
+        assertThat(sentiments.get(5)).isNull();
+    }
+
+    @Test
+    public void set_outOfRange_isIgnored() {
+        AccountSentiments sentiments = new AccountSentiments(10);
+
+        sentiments.set(10, SentimentType.THUMBS_UP);
+        sentiments.set(-1, SentimentType.THUMBS_UP);
+
+        assertThat(sentiments.get(10)).isNull();
+    }
+
+    @Test
+    public void forEach_returnsMatchingOrdinalsInOrder() {
+        AccountSentiments sentiments = new AccountSentiments(200);
+        sentiments.set(0, SentimentType.THUMBS_UP);
+        sentiments.set(31, SentimentType.THUMBS_UP);
+        sentiments.set(32, SentimentType.THUMBS_DOWN);
+        sentiments.set(150, SentimentType.THUMBS_UP);
+        sentiments.set(199, SentimentType.UNSPECIFIED);
+
+        List<Integer> ordinals = new ArrayList<>();
+        sentiments.forEach(SentimentType.THUMBS_UP, ordinals::add);
+
+        assertThat(ordinals).containsExactly(0, 31, 150);
+    }
+
+    @Test
+    public void forEach_unspecified_skipsUnsetOrdinals() {
+        AccountSentiments sentiments = new AccountSentiments(40);
+        sentiments.set(7, SentimentType.UNSPECIFIED);
+
+        List<Integer> ordinals = new ArrayList<>();
+        sentiments.forEach(SentimentType.UNSPECIFIED, ordinals::add);
+
+        assertThat(ordinals).isEqualTo(Arrays.asList(7));
+    }
+
+    @Test
+    public void collect_setsBitsOfMatchingOrdinals() {
+        AccountSentiments sentiments = new AccountSentiments(100);
+        sentiments.set(1, SentimentType.THUMBS_UP);
+        sentiments.set(40, SentimentType.THUMBS_DOWN);
+        sentiments.set(70, SentimentType.THUMBS_UP);
+        long[] bits = new long[2];
+
+        sentiments.collect(SentimentType.THUMBS_UP, false, bits);
+
+        assertThat(bits).containsExactly(1L << 1, 1L << (70 - 64));
+    }
+
+    @Test
+    public void collect_includeMissing_setsBitsOfUnsetOrdinals() {
+        AccountSentiments sentiments = new AccountSentiments(3);
+        sentiments.set(0, SentimentType.UNSPECIFIED);
+        sentiments.set(1, SentimentType.THUMBS_UP);
+        long[] bits = new long[1];
+
+        sentiments.collect(SentimentType.UNSPECIFIED, true, bits);
+
+        assertThat(bits[0] & 0b111).isEqualTo(0b101);
+    }
+}
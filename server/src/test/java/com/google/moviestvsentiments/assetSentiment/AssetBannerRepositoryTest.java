@@ -0,0 +1,79 @@
+package com.google.moviestvsentiments.assetSentiment;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import com.google.moviestvsentiments.AssetUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+@DataJpaTest
+public class AssetBannerRepositoryTest {
+
+    @Autowired
+    private AssetSentimentRepository assetSentimentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void insertStoredAssets() {
+        for (String assetId : Arrays.asList("movie1", "movie2")) {
+            jdbcTemplate.update("INSERT INTO asset (asset_id, asset_type, title, timestamp) VALUES (?, ?, ?, ?)",
+                    assetId, AssetType.MOVIE.ordinal(), "Title " + assetId, Timestamp.from(Instant.EPOCH));
+        }
+    }
+
+    @Test
+    public void updateBanners_storedAssets_setsOnlyBanners() {
+        List<Asset> skipped = assetSentimentRepository.updateBanners(Arrays.asList(
+                createAsset("movie2", "banner2"), createAsset("movie1", "banner1")));
+
+        assertThat(skipped).isEmpty();
+        assertThat(storedColumn("movie1", "banner")).isEqualTo("banner1");
+        assertThat(storedColumn("movie2", "banner")).isEqualTo("banner2");
+        assertThat(storedColumn("movie1", "title")).isEqualTo("Title movie1");
+    }
+
+    @Test
+    public void updateBanners_storedAsset_appearsInChangesFeed() {
+        assetSentimentRepository.updateBanners(Arrays.asList(createAsset("movie1", "banner1")));
+
+        assertThat(assetSentimentRepository.getAssetsChangedSince(AssetType.MOVIE, Instant.EPOCH))
+                .extracting(Asset::getAssetId, Asset::getBanner).containsExactly(tuple("movie1", "banner1"));
+    }
+
+    @Test
+    public void updateBanners_missingAsset_skipsAndReturnsIt() {
+        List<Asset> skipped = assetSentimentRepository.updateBanners(Arrays.asList(
+                createAsset("movie1", "banner1"), createAsset("missing", "banner")));
+
+        assertThat(skipped).extracting(Asset::getAssetId).containsExactly("missing");
+        assertThat(assetSentimentRepository.getAssetsWithoutBanner()).extracting(Asset::getAssetId)
+                .containsExactly("movie2");
+    }
+
+    @Test
+    public void updateBanners_noAssets_updatesNothing() {
+        assertThat(assetSentimentRepository.updateBanners(Collections.emptyList())).isEmpty();
+    }
+
+    private static Asset createAsset(String assetId, String banner) {
+        Asset asset = AssetUtil.createAsset(assetId, AssetType.MOVIE, null);
+        asset.setBanner(banner);
+        return asset;
+    }
+
+    private String storedColumn(String assetId, String column) {
+        return jdbcTemplate.queryForObject("SELECT " + column + " FROM asset WHERE asset_id = ?", String.class,
+                assetId);
+    }
+}
@@ -0,0 +1,249 @@
+package com.google.moviestvsentiments.assetSentiment;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.moviestvsentiments.AssetUtil;
+import com.google.moviestvsentiments.catalog.CatalogChangeEvent;
+import com.google.moviestvsentiments.catalog.CatalogVersion;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+public class AssetCatalogTest {
+
+    private static final String ACCOUNT_NAME = "testAccount";
+    private static final int MAX_ACCOUNTS = 2;
+    private static final Asset MOVIE_1 = AssetUtil.createAsset("movie1", AssetType.MOVIE, "Movie 1");
+    private static final Asset MOVIE_2 = AssetUtil.createAsset("movie2", AssetType.MOVIE, "Movie 2");
+    private static final Asset SHOW_1 = AssetUtil.createAsset("show1", AssetType.SHOW, "Show 1");
+
+    private AssetSentimentRepository assetSentimentRepository;
+    private UserSentimentRepository userSentimentRepository;
+    private ApplicationEventPublisher eventPublisher;
+    private CatalogVersion catalogVersion;
+    private AssetCatalog catalog;
+
+    @BeforeEach
+    public void setUp() {
+        assetSentimentRepository = mock(AssetSentimentRepository.class);
+        userSentimentRepository = mock(UserSentimentRepository.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        catalogVersion = new CatalogVersion();
+        when(assetSentimentRepository.findAll()).thenReturn(Arrays.asList(MOVIE_2, MOVIE_1, SHOW_1));
+        catalog = new AssetCatalog(assetSentimentRepository, userSentimentRepository, eventPublisher,
+                catalogVersion, new SimpleMeterRegistry(), MAX_ACCOUNTS);
+        catalog.rebuild();
+    }
+
+    @Test
+    public void getAssets_unspecified_returnsUnreactedAssetsOfType() {
+        when(userSentimentRepository.getSentimentsForAccount(ACCOUNT_NAME)).thenReturn(Arrays.asList(
+                sentiment(MOVIE_1, SentimentType.THUMBS_UP)));
+
+        List<AssetSentiment> assets = catalog.getAssets(AssetType.MOVIE, ACCOUNT_NAME, SentimentType.UNSPECIFIED);
+
+        assertThat(assetIds(assets)).containsExactly("movie2");
+        assertThat(assets.get(0).getUserSentiment()).isNull();
+    }
+
+    @Test
+    public void getAssets_thumbsUp_returnsLikedAssetsOfType() {
+        when(userSentimentRepository.getSentimentsForAccount(ACCOUNT_NAME)).thenReturn(Arrays.asList(
+                sentiment(MOVIE_1, SentimentType.THUMBS_UP), sentiment(MOVIE_2, SentimentType.THUMBS_DOWN),
+                sentiment(SHOW_1, SentimentType.THUMBS_UP)));
+
+        List<AssetSentiment> assets = catalog.getAssets(AssetType.MOVIE, ACCOUNT_NAME, SentimentType.THUMBS_UP);
+
+        assertThat(assetIds(assets)).containsExactly("movie1");
+    }
+
+    @Test
+    public void getAssets_sameAccountTwice_loadsSentimentsOnce() {
+        catalog.getAssets(AssetType.MOVIE, ACCOUNT_NAME, SentimentType.THUMBS_UP);
+        catalog.getAssets(AssetType.SHOW, ACCOUNT_NAME, SentimentType.UNSPECIFIED);
+
+        verify(userSentimentRepository, times(1)).getSentimentsForAccount(ACCOUNT_NAME);
+        assertThat(catalog.getOverlayHitRatio()).isEqualTo(0.5);
+    }
+
+    @Test
+    public void getAssets_moreAccountsThanMax_reloadsLeastRecentlyUsed() {
+        catalog.getAssets(AssetType.MOVIE, "account1", SentimentType.THUMBS_UP);
+        catalog.getAssets(AssetType.MOVIE, "account2", SentimentType.THUMBS_UP);
+        catalog.getAssets(AssetType.MOVIE, "account1", SentimentType.THUMBS_UP);
+        catalog.getAssets(AssetType.MOVIE, "account3", SentimentType.THUMBS_UP);
+
+        catalog.getAssets(AssetType.MOVIE, "account1", SentimentType.THUMBS_UP);
+        catalog.getAssets(AssetType.MOVIE, "account2", SentimentType.THUMBS_UP);
+
+        verify(userSentimentRepository, times(1)).getSentimentsForAccount("account1");
+        verify(userSentimentRepository, times(2)).getSentimentsForAccount("account2");
+    }
+
+    @Test
+    public void getAssets_writeDuringLoad_reloadsSentiments() {
+        when(userSentimentRepository.getSentimentsForAccount(ACCOUNT_NAME)).thenAnswer(invocation -> {
+            catalog.onCatalogChange(CatalogChangeEvent.saved(sentiment(MOVIE_2, SentimentType.THUMBS_UP)));
+            return Arrays.asList(sentiment(MOVIE_1, SentimentType.THUMBS_UP));
+        }).thenReturn(Arrays.asList(sentiment(MOVIE_1, SentimentType.THUMBS_UP),
+                sentiment(MOVIE_2, SentimentType.THUMBS_UP)));
+
+        List<AssetSentiment> assets = catalog.getAssets(AssetType.MOVIE, ACCOUNT_NAME, SentimentType.THUMBS_UP);
+
+        assertThat(assetIds(assets)).containsExactly("movie1", "movie2");
+        verify(userSentimentRepository, times(2)).getSentimentsForAccount(ACCOUNT_NAME);
+    }
+
+    @Test
+    public void onCatalogChange_savedSentiment_incrementsVersion() {
+        long version = catalogVersion.get();
+
+        catalog.onCatalogChange(CatalogChangeEvent.saved(sentiment(MOVIE_2, SentimentType.THUMBS_UP)));
+
+        assertThat(catalogVersion.get()).isGreaterThan(version);
+    }
+
+    @Test
+    public void onCatalogChange_savedSentiment_updatesLoadedAccount() {
+        catalog.getAssets(AssetType.MOVIE, ACCOUNT_NAME, SentimentType.THUMBS_UP);
+
+        catalog.onCatalogChange(CatalogChangeEvent.saved(sentiment(MOVIE_2, SentimentType.THUMBS_UP)));
+
+        assertThat(assetIds(catalog.getAssets(AssetType.MOVIE, ACCOUNT_NAME, SentimentType.THUMBS_UP)))
+                .containsExactly("movie2");
+        assertThat(assetIds(catalog.getAssets(AssetType.MOVIE, ACCOUNT_NAME, SentimentType.UNSPECIFIED)))
+                .containsExactly("movie1");
+    }
+
+    @Test
+    public void onCatalogChange_deletedSentiment_updatesLoadedAccount() {
+        UserSentiment liked = sentiment(MOVIE_1, SentimentType.THUMBS_UP);
+        when(userSentimentRepository.getSentimentsForAccount(ACCOUNT_NAME)).thenReturn(Arrays.asList(liked));
+        catalog.getAssets(AssetType.MOVIE, ACCOUNT_NAME, SentimentType.THUMBS_UP);
+
+        catalog.onCatalogChange(CatalogChangeEvent.deleted(liked));
+
+        assertThat(catalog.getAssets(AssetType.MOVIE, ACCOUNT_NAME, SentimentType.THUMBS_UP)).isEmpty();
+    }
+
+    @Test
+    public void rebuild_replacesSnapshot() {
+        Asset movie3 = AssetUtil.createAsset("movie3", AssetType.MOVIE, "Movie 3");
+        when(assetSentimentRepository.findAll()).thenReturn(Arrays.asList(MOVIE_1, movie3));
+
+        catalog.rebuild();
+
+        assertThat(assetIds(catalog.getAssets(AssetType.MOVIE, ACCOUNT_NAME, SentimentType.UNSPECIFIED)))
+                .containsExactly("movie1", "movie3");
+        assertThat(catalog.getAssetCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void rebuild_incrementsVersion() {
+        long version = catalogVersion.get();
+
+        catalog.rebuild();
+
+        assertThat(catalogVersion.get()).isGreaterThan(version);
+    }
+
+    @Test
+    public void rebuild_newAssets_reloadsLoadedAccount() {
+        Asset movie3 = AssetUtil.createAsset("movie3", AssetType.MOVIE, "Movie 3");
+        catalog.getAssets(AssetType.MOVIE, ACCOUNT_NAME, SentimentType.UNSPECIFIED);
+        when(assetSentimentRepository.findAll()).thenReturn(Arrays.asList(MOVIE_1, MOVIE_2, SHOW_1, movie3));
+        when(userSentimentRepository.getSentimentsForAccount(ACCOUNT_NAME)).thenReturn(Arrays.asList(
+                sentiment(movie3, SentimentType.THUMBS_UP)));
+
+        catalog.rebuild();
+
+        assertThat(assetIds(catalog.getAssets(AssetType.MOVIE, ACCOUNT_NAME, SentimentType.THUMBS_UP)))
+                .containsExactly("movie3");
+        verify(userSentimentRepository, times(2)).getSentimentsForAccount(ACCOUNT_NAME);
+    }
+
+    @Test
+    public void rebuild_publishesChangedAssets() {
+        Asset updatedMovie = AssetUtil.createAsset("movie1", AssetType.MOVIE, "Movie 1 Updated");
+        updatedMovie.setTimestamp(Instant.EPOCH);
+        Asset movie3 = AssetUtil.createAsset("movie3", AssetType.MOVIE, "Movie 3");
+        when(assetSentimentRepository.findAll()).thenReturn(Arrays.asList(updatedMovie, MOVIE_2, movie3));
+        reset(eventPublisher);
+
+        catalog.rebuild();
+
+        ArgumentCaptor<AssetCatalogRebuiltEvent> event = ArgumentCaptor.forClass(AssetCatalogRebuiltEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertThat(event.getValue().getUpdatedAssets()).containsExactlyInAnyOrder(updatedMovie, movie3);
+        assertThat(event.getValue().getRemovedAssets()).containsExactly(SHOW_1);
+    }
+
+    @Test
+    public void browse_filters_returnsMatchesAndFacetCounts() {
+        when(assetSentimentRepository.findAll()).thenReturn(Arrays.asList(
+                numericAsset("movie1", AssetType.MOVIE, "8.5", "2008"),
+                numericAsset("movie2", AssetType.MOVIE, "7.2", "1999"),
+                numericAsset("movie3", AssetType.MOVIE, "5.5", "2014"),
+                numericAsset("show1", AssetType.SHOW, "8.1", "2011")));
+        catalog.rebuild();
+        Map<AssetFacet, List<String>> filters = new EnumMap<>(AssetFacet.class);
+        filters.put(AssetFacet.TYPE, Arrays.asList("MOVIE"));
+        filters.put(AssetFacet.RATING, Arrays.asList("7-8", "8-9"));
+
+        AssetBrowsePage page = catalog.browse(ACCOUNT_NAME, SentimentType.UNSPECIFIED, filters, 0, 10);
+
+        assertThat(page.getAssetSentiments()).extracting(assetSentiment -> assetSentiment.getAsset().getAssetId())
+                .containsExactly("movie1", "movie2");
+        assertThat(page.getTotal()).isEqualTo(2);
+        assertThat(page.getFacets().get(AssetFacet.TYPE)).containsEntry("MOVIE", 2).containsEntry("SHOW", 1);
+        assertThat(page.getFacets().get(AssetFacet.RATING)).containsEntry("5-6", 1).containsEntry("8-9", 1);
+        assertThat(page.getFacets().get(AssetFacet.YEAR)).containsEntry("1990s", 1).containsEntry("2010s", 0);
+    }
+
+    @Test
+    public void browse_sentimentAndOffset_pagesReactedAssets() {
+        when(userSentimentRepository.getSentimentsForAccount(ACCOUNT_NAME)).thenReturn(Arrays.asList(
+                sentiment(MOVIE_1, SentimentType.THUMBS_UP), sentiment(MOVIE_2, SentimentType.THUMBS_UP),
+                sentiment(SHOW_1, SentimentType.THUMBS_DOWN)));
+
+        AssetBrowsePage page = catalog.browse(ACCOUNT_NAME, SentimentType.THUMBS_UP,
+                new EnumMap<>(AssetFacet.class), 1, 10);
+
+        assertThat(page.getTotal()).isEqualTo(2);
+        assertThat(page.getAssetSentiments()).hasSize(1);
+        assertThat(page.getAssetSentiments().get(0).getAsset().getAssetId()).isEqualTo("movie2");
+        assertThat(page.getAssetSentiments().get(0).getUserSentiment().getSentimentType())
+                .isEqualTo(SentimentType.THUMBS_UP);
+    }
+
+    private static UserSentiment sentiment(Asset asset, SentimentType sentimentType) {
+        return UserSentiment.create(ACCOUNT_NAME, asset.getAssetId(), asset.getAssetType(), sentimentType,
+                Instant.EPOCH);
+    }
+
+    private static List<String> assetIds(List<AssetSentiment> assetSentiments) {
+        return assetSentiments.stream().map(assetSentiment -> assetSentiment.getAsset().getAssetId())
+                .collect(Collectors.toList());
+    }
+
+    private static Asset numericAsset(String assetId, AssetType assetType, String imdbRating, String year) {
+        Asset asset = AssetUtil.createAsset(assetId, assetType, assetId);
+        asset.setImdbRating(imdbRating);
+        asset.setYear(year);
+        asset.updateNumericFields();
+        return asset;
+    }
+}
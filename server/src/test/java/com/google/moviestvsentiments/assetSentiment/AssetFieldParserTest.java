@@ -0,0 +1,52 @@
+package com.google.moviestvsentiments.assetSentiment;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+public class AssetFieldParserTest {
+
+    @Test
+    public void parseImdbScore_parsesDecimal() {
+        assertThat(AssetFieldParser.parseImdbScore("8.5")).isEqualTo(8.5);
+        assertThat(AssetFieldParser.parseImdbScore("10")).isEqualTo(10.0);
+    }
+
+    @Test
+    public void parseRottenTomatoesScore_parsesPercentage() {
+        assertThat(AssetFieldParser.parseRottenTomatoesScore("93%")).isEqualTo(93);
+    }
+
+    @Test
+    public void parseRuntimeMinutes_parsesMinutes() {
+        assertThat(AssetFieldParser.parseRuntimeMinutes("142 min")).isEqualTo(142);
+    }
+
+    @Test
+    public void parseYears_singleYear_startsAndEndsThatYear() {
+        assertThat(AssetFieldParser.parseStartYear("2008")).isEqualTo(2008);
+        assertThat(AssetFieldParser.parseEndYear("2008")).isEqualTo(2008);
+    }
+
+    @Test
+    public void parseYears_range_parsesBothYears() {
+        assertThat(AssetFieldParser.parseStartYear("2008\u20132013")).isEqualTo(2008);
+        assertThat(AssetFieldParser.parseEndYear("2008\u20132013")).isEqualTo(2013);
+        assertThat(AssetFieldParser.parseEndYear("2008-2013")).isEqualTo(2013);
+    }
+
+    @Test
+    public void parseYears_openRange_hasNoEndYear() {
+        assertThat(AssetFieldParser.parseStartYear("2011\u2013")).isEqualTo(2011);
+        assertThat(AssetFieldParser.parseEndYear("2011\u2013")).isNull();
+    }
+
+    @Test
+    public void parse_missingValues_returnsNull() {
+        assertThat(AssetFieldParser.parseImdbScore("N/A")).isNull();
+        assertThat(AssetFieldParser.parseRottenTomatoesScore(null)).isNull();
+        assertThat(AssetFieldParser.parseRuntimeMinutes("N/A")).isNull();
+        assertThat(AssetFieldParser.parseStartYear("N/A")).isNull();
+        assertThat(AssetFieldParser.parseEndYear(null)).isNull();
+    }
+}
@@ -0,0 +1,49 @@
+package com.google.moviestvsentiments.assetSentiment;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.google.moviestvsentiments.AssetUtil;
+import org.junit.jupiter.api.Test;
+import java.util.Arrays;
+
+public class AssetOrdinalsTest {
+
+    @Test
+    public void withAssets_assignsDenseOrdinals() {
+        AssetOrdinals ordinals = AssetOrdinals.empty().withAssets(Arrays.asList(
+                AssetUtil.createAsset("tt0111161", AssetType.MOVIE, "Movie"),
+                AssetUtil.createAsset("tt0111161", AssetType.SHOW, "Show"),
+                AssetUtil.createAsset("custom", AssetType.MOVIE, "Custom")));
+
+        assertThat(ordinals.size()).isEqualTo(3);
+        assertThat(ordinals.get("tt0111161", AssetType.MOVIE)).isEqualTo(0);
+        assertThat(ordinals.get("tt0111161", AssetType.SHOW)).isEqualTo(1);
+        assertThat(ordinals.get("custom", AssetType.MOVIE)).isEqualTo(2);
+    }
+
+    @Test
+    public void withAssets_keepsExistingOrdinals() {
+        AssetOrdinals first = AssetOrdinals.empty().withAssets(Arrays.asList(
+                AssetUtil.createAsset("tt1", AssetType.MOVIE, "Movie 1")));
+
+        AssetOrdinals second = first.withAssets(Arrays.asList(
+                AssetUtil.createAsset("tt2", AssetType.MOVIE, "Movie 2"),
+                AssetUtil.createAsset("tt1", AssetType.MOVIE, "Movie 1")));
+
+        assertThat(second.get("tt1", AssetType.MOVIE)).isEqualTo(0);
+        assertThat(second.get("tt2", AssetType.MOVIE)).isEqualTo(1);
+        assertThat(first.get("tt2", AssetType.MOVIE)).isEqualTo(-1);
+    }
+
+    @Test
+    public void encode_leadingZeros_areDistinct() {
+        assertThat(AssetOrdinals.encode("tt01", AssetType.MOVIE))
+                .isNotEqualTo(AssetOrdinals.encode("tt1", AssetType.MOVIE));
+    }
+
+    @Test
+    public void encode_nonImdbId_returnsNegative() {
+        assertThat(AssetOrdinals.encode("movie1", AssetType.MOVIE)).isEqualTo(-1);
+        assertThat(AssetOrdinals.encode("tt12a", AssetType.MOVIE)).isEqualTo(-1);
+    }
+}
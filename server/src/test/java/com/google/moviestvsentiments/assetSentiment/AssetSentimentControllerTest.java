@@ -1,24 +1,45 @@
 package com.google.moviestvsentiments.assetSentiment;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import com.google.moviestvsentiments.AssetUtil;
+import com.google.moviestvsentiments.catalog.CatalogChangeEvent;
+import com.google.moviestvsentiments.catalog.CatalogVersion;
+import com.google.moviestvsentiments.recommendation.ItemRecommender;
+import com.jayway.jsonpath.JsonPath;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.orm.jpa.JpaSystemException;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import java.time.Duration;
 import java.time.Instant;
-import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @SpringBootTest
 @AutoConfigureMockMvc
@@ -46,49 +67,45 @@ public class AssetSentimentControllerTest {
     @MockBean
     private UserSentimentRepository userSentimentRepository;
 
-    @Test
-    public void getAssets_withReaction_invokesRepositoryOnce() throws Exception {
-        mockMvc.perform(get("/assets?assetType=MOVIE&sentimentType=THUMBS_UP&accountName=" + ACCOUNT_NAME));
+    @MockBean
+    private TombstoneRepository tombstoneRepository;
 
-        verify(assetSentimentRepository, times(1)).getAssetsWithSentiment(AssetType.MOVIE,
-                ACCOUNT_NAME, SentimentType.THUMBS_UP);
-        verifyNoMoreInteractions(assetSentimentRepository);
-    }
+    @MockBean
+    private AssetCatalog assetCatalog;
 
-    @Test
-    public void getAssets_withReaction_returnsAssets() throws Exception {
-        UserSentiment sentiment = UserSentiment.create(ASSET.getAssetId(), ACCOUNT_NAME, ASSET.getAssetType(),
-                SentimentType.THUMBS_UP, Instant.EPOCH);
-        when(assetSentimentRepository.getAssetsWithSentiment(AssetType.MOVIE, ACCOUNT_NAME, SentimentType.THUMBS_UP))
-                .thenReturn(Arrays.asList(new AssetSentiment(ASSET, sentiment)));
+    @MockBean
+    private SentimentCounters sentimentCounters;
 
-        mockMvc.perform(get("/assets?assetType=MOVIE&sentimentType=THUMBS_UP&accountName=" + ACCOUNT_NAME))
-                .andExpect(status().isOk())
-                .andExpect(jsonPath("$[0].asset.assetId", equalTo(ASSET.getAssetId())))
-                .andExpect(jsonPath("$[0].asset.assetType", equalTo("MOVIE")))
-                .andExpect(jsonPath("$[0].asset.title", equalTo(ASSET.getTitle())));
-    }
+    @MockBean
+    private TrendingScores trendingScores;
+
+    @MockBean
+    private ItemRecommender itemRecommender;
+
+    @MockBean
+    private DeferredSentimentWriter deferredSentimentWriter;
+
+    @MockBean
+    private SentimentJournal sentimentJournal;
+
+    @Autowired
+    private CatalogVersion catalogVersion;
 
     @Test
-    public void getAssets_withUnspecified_invokesRepositoryTwice() throws Exception {
-        mockMvc.perform(get("/assets?assetType=MOVIE&sentimentType=UNSPECIFIED&accountName=" + ACCOUNT_NAME));
+    public void getAssets_invokesCatalog() throws Exception {
+        mockMvc.perform(get("/assets?assetType=MOVIE&sentimentType=THUMBS_UP&accountName=" + ACCOUNT_NAME));
 
-        verify(assetSentimentRepository, times(1)).getAssetsWithSentiment(AssetType.MOVIE,
-                ACCOUNT_NAME, SentimentType.UNSPECIFIED);
-        verify(assetSentimentRepository, times(1)).getAssetsWithoutSentiment(AssetType.MOVIE,
-                ACCOUNT_NAME);
+        verify(assetCatalog, times(1)).getAssets(AssetType.MOVIE, ACCOUNT_NAME, SentimentType.THUMBS_UP);
         verifyNoMoreInteractions(assetSentimentRepository);
     }
 
     @Test
-    public void getAssets_withUnspecified_returnsAssets() throws Exception {
+    public void getAssets_returnsAssets() throws Exception {
         UserSentiment sentiment = UserSentiment.create(ASSET.getAssetId(), ACCOUNT_NAME, ASSET.getAssetType(),
                 SentimentType.UNSPECIFIED, Instant.EPOCH);
         Asset asset2 = AssetUtil.createAsset("assetId2", AssetType.MOVIE, "assetTitle2");
-        when(assetSentimentRepository.getAssetsWithSentiment(AssetType.MOVIE, ACCOUNT_NAME, SentimentType.UNSPECIFIED))
-                .thenReturn(new ArrayList<>(Arrays.asList(new AssetSentiment(ASSET, sentiment))));
-        when(assetSentimentRepository.getAssetsWithoutSentiment(AssetType.MOVIE, ACCOUNT_NAME))
-                .thenReturn(Arrays.asList(new AssetSentiment(asset2, null)));
+        when(assetCatalog.getAssets(AssetType.MOVIE, ACCOUNT_NAME, SentimentType.UNSPECIFIED))
+                .thenReturn(Arrays.asList(new AssetSentiment(ASSET, sentiment), new AssetSentiment(asset2, null)));
 
         mockMvc.perform(get("/assets?assetType=MOVIE&sentimentType=UNSPECIFIED&accountName=" + ACCOUNT_NAME))
                 .andExpect(status().isOk())
@@ -100,22 +117,363 @@ public class AssetSentimentControllerTest {
                 .andExpect(jsonPath("$[1].asset.title", equalTo(asset2.getTitle())));
     }
 
+    @Test
+    public void streamAssets_thumbsUp_streamsFromRepository() throws Exception {
+        when(assetSentimentRepository.streamAssetsWithSentiment(AssetType.MOVIE, ACCOUNT_NAME,
+                SentimentType.THUMBS_UP)).thenReturn(Stream.of(new AssetSentiment(ASSET, SENTIMENT_1)));
+
+        MvcResult result = mockMvc.perform(get("/assets?stream=true&assetType=MOVIE&sentimentType=THUMBS_UP" +
+                "&accountName=" + ACCOUNT_NAME))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].asset.assetId", equalTo(ASSET.getAssetId())))
+                .andExpect(jsonPath("$[0].userSentiment.sentimentType", equalTo("THUMBS_UP")));
+        verifyNoInteractions(assetCatalog);
+    }
+
+    @Test
+    public void streamAssets_unspecified_streamsFromRepository() throws Exception {
+        when(assetSentimentRepository.streamAssetsWithUnspecifiedSentiment(AssetType.MOVIE, ACCOUNT_NAME))
+                .thenReturn(Stream.of(new AssetSentiment(ASSET)));
+
+        MvcResult result = mockMvc.perform(get("/assets?stream=true&assetType=MOVIE&sentimentType=UNSPECIFIED" +
+                "&accountName=" + ACCOUNT_NAME))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].asset.assetId", equalTo(ASSET.getAssetId())))
+                .andExpect(jsonPath("$[0].userSentiment", nullValue()));
+    }
+
+    @Test
+    public void getPopularAssets_returnsAssetsWithCounts() throws Exception {
+        when(sentimentCounters.getPopular(AssetType.MOVIE, 20)).thenReturn(Arrays.asList(
+                new SentimentCount(ASSET.getAssetId(), AssetType.MOVIE, 3L, 1L)));
+        when(assetCatalog.getAsset(ASSET.getAssetId(), AssetType.MOVIE)).thenReturn(ASSET);
+
+        mockMvc.perform(get("/assets/popular?assetType=MOVIE"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].asset.assetId", equalTo(ASSET.getAssetId())))
+                .andExpect(jsonPath("$[0].thumbsUp", equalTo(3)))
+                .andExpect(jsonPath("$[0].thumbsDown", equalTo(1)));
+        verifyNoInteractions(userSentimentRepository);
+    }
+
+    @Test
+    public void getPopularAssets_invalidLimit_returnsBadRequest() throws Exception {
+        mockMvc.perform(get("/assets/popular?assetType=MOVIE&limit=0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void getTrendingAssets_returnsAssetsWithScores() throws Exception {
+        when(trendingScores.getTrending(AssetType.MOVIE, 5)).thenReturn(Arrays.asList(
+                new AssetTrend(ASSET.getAssetId(), AssetType.MOVIE, 1.5)));
+        when(assetCatalog.getAsset(ASSET.getAssetId(), AssetType.MOVIE)).thenReturn(ASSET);
+
+        mockMvc.perform(get("/assets/trending?assetType=MOVIE&limit=5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].asset.assetId", equalTo(ASSET.getAssetId())))
+                .andExpect(jsonPath("$[0].score", equalTo(1.5)));
+    }
+
+    @Test
+    public void getAssets_returnsETag() throws Exception {
+        mockMvc.perform(get("/assets?assetType=MOVIE&sentimentType=THUMBS_UP&accountName=" + ACCOUNT_NAME))
+                .andExpect(header().exists(HttpHeaders.ETAG));
+    }
+
+    @Test
+    public void getAssets_matchingETag_returnsNotModifiedWithoutQuery() throws Exception {
+        final String url = "/assets?assetType=MOVIE&sentimentType=THUMBS_UP&accountName=" + ACCOUNT_NAME;
+        String eTag = mockMvc.perform(get(url)).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+
+        verify(assetCatalog, times(1)).getAssets(AssetType.MOVIE, ACCOUNT_NAME, SentimentType.THUMBS_UP);
+    }
+
+    @Test
+    public void getAssets_eTagForOtherQuery_returnsAssets() throws Exception {
+        String eTag = mockMvc.perform(get("/assets?assetType=SHOW&sentimentType=THUMBS_UP&accountName=" +
+                ACCOUNT_NAME)).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/assets?assetType=MOVIE&sentimentType=THUMBS_UP&accountName=" + ACCOUNT_NAME)
+                .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void getAssets_afterCatalogChange_returnsAssets() throws Exception {
+        final String url = "/assets?assetType=MOVIE&sentimentType=THUMBS_UP&accountName=" + ACCOUNT_NAME;
+        String eTag = mockMvc.perform(get(url)).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        catalogVersion.onCatalogChange(CatalogChangeEvent.saved(SENTIMENT_1));
+
+        mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void getChanges_invokesRepositories() throws Exception {
+        mockMvc.perform(get("/assets/changes?assetType=MOVIE&accountName=" + ACCOUNT_NAME + "&since=" +
+                Instant.EPOCH));
+
+        verify(assetSentimentRepository).getAssetsChangedSince(AssetType.MOVIE, Instant.EPOCH);
+        verify(userSentimentRepository).getSentimentsChangedSince(ACCOUNT_NAME, AssetType.MOVIE, Instant.EPOCH);
+        verify(tombstoneRepository).getTombstonesSince(AssetType.MOVIE, ACCOUNT_NAME, Instant.EPOCH);
+    }
+
+    @Test
+    public void getChanges_withChanges_returnsLatestWatermark() throws Exception {
+        Asset asset = AssetUtil.createAsset("assetId", AssetType.MOVIE, "assetTitle");
+        asset.setTimestamp(Instant.ofEpochSecond(10));
+        UserSentiment sentiment = UserSentiment.create(ACCOUNT_NAME, "assetId", AssetType.MOVIE,
+                SentimentType.THUMBS_UP, Instant.ofEpochSecond(5));
+        sentiment.setChangedAt(Instant.ofEpochSecond(20));
+        when(assetSentimentRepository.getAssetsChangedSince(AssetType.MOVIE, Instant.EPOCH))
+                .thenReturn(Arrays.asList(asset));
+        when(userSentimentRepository.getSentimentsChangedSince(ACCOUNT_NAME, AssetType.MOVIE, Instant.EPOCH))
+                .thenReturn(Arrays.asList(sentiment));
+
+        mockMvc.perform(get("/assets/changes?assetType=MOVIE&accountName=" + ACCOUNT_NAME + "&since=" +
+                Instant.EPOCH))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.assets[0].assetId", equalTo("assetId")))
+                .andExpect(jsonPath("$.sentiments[0].sentimentType", equalTo("THUMBS_UP")))
+                .andExpect(jsonPath("$.watermark", equalTo(Instant.ofEpochSecond(20).toString())));
+    }
+
+    @Test
+    public void getChanges_changeWithinCommitLag_returnsWatermarkBeforeIt() throws Exception {
+        Instant since = Instant.now().minus(Duration.ofHours(1));
+        UserSentiment sentiment = UserSentiment.create(ACCOUNT_NAME, "assetId", AssetType.MOVIE,
+                SentimentType.THUMBS_UP, since);
+        sentiment.setChangedAt(Instant.now().plus(Duration.ofMinutes(1)));
+        when(userSentimentRepository.getSentimentsChangedSince(ACCOUNT_NAME, AssetType.MOVIE, since))
+                .thenReturn(Arrays.asList(sentiment));
+
+        String watermark = JsonPath.read(mockMvc.perform(get("/assets/changes?assetType=MOVIE&accountName=" +
+                ACCOUNT_NAME + "&since=" + since))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(), "$.watermark");
+
+        assertThat(Instant.parse(watermark)).isAfter(since).isBefore(Instant.now().minusSeconds(4));
+    }
+
+    @Test
+    public void getChanges_watermarkOlderThanTombstoneRetention_returnsGone() throws Exception {
+        mockMvc.perform(get("/assets/changes?assetType=MOVIE&accountName=" + ACCOUNT_NAME + "&since=" +
+                Instant.ofEpochSecond(30)))
+                .andExpect(status().isGone());
+    }
+
+    @Test
+    public void getChanges_noChanges_returnsSameWatermark() throws Exception {
+        Instant since = Instant.now().minus(Duration.ofHours(1));
+
+        mockMvc.perform(get("/assets/changes?assetType=MOVIE&accountName=" + ACCOUNT_NAME + "&since=" + since))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.watermark", equalTo(since.toString())));
+    }
+
+    @Test
+    public void getSortedAssets_passesSortAndRange() throws Exception {
+        when(assetSentimentRepository.getSortedAssets(AssetType.MOVIE, ACCOUNT_NAME, SentimentType.UNSPECIFIED,
+                AssetSortField.IMDB_SCORE, Sort.Direction.DESC, 7.0, null, 50)).thenReturn(Arrays.asList(
+                new AssetSentimentSummary(AssetSummary.of(ASSET), null)));
+
+        mockMvc.perform(get("/assets?assetType=MOVIE&sentimentType=UNSPECIFIED&sort=IMDB_SCORE&min=7&accountName=" +
+                ACCOUNT_NAME))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].asset.assetId", equalTo(ASSET.getAssetId())));
+
+        verify(assetCatalog, never()).getAssets(any(), any(), any());
+    }
+
+    @Test
+    public void getSortedAssets_minGreaterThanMax_returnsBadRequest() throws Exception {
+        mockMvc.perform(get("/assets?assetType=MOVIE&sentimentType=UNSPECIFIED&sort=YEAR&min=2010&max=2000" +
+                "&accountName=" + ACCOUNT_NAME))
+                .andExpect(status().isBadRequest());
+
+        verify(assetSentimentRepository, never()).getSortedAssets(any(), any(), any(), any(), any(), any(), any(),
+                anyInt());
+    }
+
+    @Test
+    public void getSortedAssets_invalidLimit_returnsBadRequest() throws Exception {
+        mockMvc.perform(get("/assets?assetType=MOVIE&sentimentType=UNSPECIFIED&sort=RUNTIME&limit=0&accountName=" +
+                ACCOUNT_NAME))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void getSortedAssets_withStream_returnsBadRequest() throws Exception {
+        mockMvc.perform(get("/assets?assetType=MOVIE&sentimentType=UNSPECIFIED&sort=YEAR&stream=true&accountName=" +
+                ACCOUNT_NAME))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$", equalTo("sort can not be combined with stream=true")));
+
+        verify(assetSentimentRepository, never()).getSortedAssets(any(), any(), any(), any(), any(), any(), any(),
+                anyInt());
+        verify(assetSentimentRepository, never()).streamAssetsWithUnspecifiedSentiment(any(), any());
+    }
+
+    @Test
+    public void browseAssets_passesFiltersToCatalog() throws Exception {
+        Map<AssetFacet, List<String>> filters = new EnumMap<>(AssetFacet.class);
+        filters.put(AssetFacet.TYPE, Arrays.asList("MOVIE"));
+        filters.put(AssetFacet.YEAR, Arrays.asList("1990s", "2000s"));
+        when(assetCatalog.browse(ACCOUNT_NAME, SentimentType.UNSPECIFIED, filters, 10, 20)).thenReturn(
+                AssetBrowsePage.create(Arrays.asList(new AssetSentimentSummary(AssetSummary.of(ASSET), null)), 11,
+                        new EnumMap<>(AssetFacet.class)));
+
+        mockMvc.perform(get("/assets/browse?sentimentType=UNSPECIFIED&assetType=MOVIE&year=1990s&year=2000s" +
+                "&offset=10&limit=20&accountName=" + ACCOUNT_NAME))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.assetSentiments[0].asset.assetId", equalTo(ASSET.getAssetId())))
+                .andExpect(jsonPath("$.total", equalTo(11)));
+    }
+
+    @Test
+    public void browseAssets_unknownBucket_returnsBadRequest() throws Exception {
+        mockMvc.perform(get("/assets/browse?sentimentType=UNSPECIFIED&rating=excellent&accountName=" +
+                ACCOUNT_NAME))
+                .andExpect(status().isBadRequest());
+
+        verify(assetCatalog, never()).browse(any(), any(), any(), anyInt(), anyInt());
+    }
+
+    @Test
+    public void getAssetPage_firstPage_seeksFromStart() throws Exception {
+        mockMvc.perform(get("/assets/page?assetType=MOVIE&sentimentType=THUMBS_UP&limit=10&accountName=" +
+                ACCOUNT_NAME));
+
+        verify(assetSentimentRepository).getAssetsWithSentimentAfter(AssetType.MOVIE, ACCOUNT_NAME,
+                SentimentType.THUMBS_UP, "", PageRequest.of(0, 10));
+        verifyNoMoreInteractions(assetSentimentRepository);
+    }
+
+    @Test
+    public void getAssetPage_withCursor_seeksAfterCursor() throws Exception {
+        String cursor = AssetCursor.create(AssetType.MOVIE, "assetId").encode();
+
+        mockMvc.perform(get("/assets/page?assetType=MOVIE&sentimentType=UNSPECIFIED&limit=10&accountName=" +
+                ACCOUNT_NAME + "&cursor=" + cursor));
+
+        verify(assetSentimentRepository).getAssetsWithUnspecifiedSentimentAfter(AssetType.MOVIE, ACCOUNT_NAME,
+                "assetId", PageRequest.of(0, 10));
+        verifyNoMoreInteractions(assetSentimentRepository);
+    }
+
+    @Test
+    public void getAssetPage_hasNext_returnsNextCursor() throws Exception {
+        when(assetSentimentRepository.getAssetsWithUnspecifiedSentimentAfter(AssetType.MOVIE, ACCOUNT_NAME, "",
+                PageRequest.of(0, 1))).thenReturn(new SliceImpl<>(Arrays.asList(
+                        new AssetSentimentSummary(AssetSummary.of(ASSET), null)), PageRequest.of(0, 1), true));
+
+        mockMvc.perform(get("/assets/page?assetType=MOVIE&sentimentType=UNSPECIFIED&limit=1&accountName=" +
+                ACCOUNT_NAME))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.assetSentiments[0].asset.assetId", equalTo(ASSET.getAssetId())))
+                .andExpect(jsonPath("$.nextCursor", equalTo(AssetCursor.create(AssetType.MOVIE,
+                        ASSET.getAssetId()).encode())));
+    }
+
+    @Test
+    public void getAssetPage_lastPage_returnsNullCursor() throws Exception {
+        when(assetSentimentRepository.getAssetsWithUnspecifiedSentimentAfter(AssetType.MOVIE, ACCOUNT_NAME, "",
+                PageRequest.of(0, 1))).thenReturn(new SliceImpl<>(Arrays.asList(
+                        new AssetSentimentSummary(AssetSummary.of(ASSET), null)), PageRequest.of(0, 1), false));
+
+        mockMvc.perform(get("/assets/page?assetType=MOVIE&sentimentType=UNSPECIFIED&limit=1&accountName=" +
+                ACCOUNT_NAME))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.nextCursor", nullValue()));
+    }
+
+    @Test
+    public void getAssetPage_invalidCursor_returnsBadRequest() throws Exception {
+        mockMvc.perform(get("/assets/page?assetType=MOVIE&sentimentType=UNSPECIFIED&cursor=invalid&accountName=" +
+                ACCOUNT_NAME))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void getAssetPage_cursorForOtherType_returnsBadRequest() throws Exception {
+        String cursor = AssetCursor.create(AssetType.SHOW, "assetId").encode();
+
+        mockMvc.perform(get("/assets/page?assetType=MOVIE&sentimentType=UNSPECIFIED&accountName=" + ACCOUNT_NAME +
+                "&cursor=" + cursor))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void getAssetPage_limitTooLarge_returnsBadRequest() throws Exception {
+        mockMvc.perform(get("/assets/page?assetType=MOVIE&sentimentType=UNSPECIFIED&accountName=" + ACCOUNT_NAME +
+                "&limit=" + (AssetSentimentController.MAX_PAGE_SIZE + 1)))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void getAssetPage_returnsSummariesWithoutPlotOrBanner() throws Exception {
+        when(assetSentimentRepository.getAssetsWithUnspecifiedSentimentAfter(AssetType.MOVIE, ACCOUNT_NAME, "",
+                PageRequest.of(0, 1))).thenReturn(new SliceImpl<>(Arrays.asList(new AssetSentimentSummary(
+                AssetSummary.of(ASSET), null)), PageRequest.of(0, 1), false));
+
+        mockMvc.perform(get("/assets/page?assetType=MOVIE&sentimentType=UNSPECIFIED&limit=1&accountName=" +
+                ACCOUNT_NAME))
+                .andExpect(jsonPath("$.assetSentiments[0].asset.title", equalTo(ASSET.getTitle())))
+                .andExpect(jsonPath("$.assetSentiments[0].asset.plot").doesNotExist())
+                .andExpect(jsonPath("$.assetSentiments[0].asset.banner").doesNotExist());
+    }
+
+    @Test
+    public void getAsset_exists_returnsAsset() throws Exception {
+        when(assetSentimentRepository.findById(new Asset.AssetCompositeKey(ASSET.getAssetId(), AssetType.MOVIE)))
+                .thenReturn(Optional.of(ASSET));
+
+        mockMvc.perform(get("/asset/MOVIE/" + ASSET.getAssetId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.assetId", equalTo(ASSET.getAssetId())))
+                .andExpect(jsonPath("$.title", equalTo(ASSET.getTitle())));
+    }
+
+    @Test
+    public void getAsset_missing_returnsNotFound() throws Exception {
+        when(assetSentimentRepository.findById(new Asset.AssetCompositeKey("missing", AssetType.SHOW)))
+                .thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/asset/SHOW/missing"))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     public void updateSentiment_invokesRepository() throws Exception {
         mockMvc.perform(put(UPDATE_SENTIMENT_URL));
 
-        verify(userSentimentRepository).save(SENTIMENT_1);
+        verify(userSentimentRepository).upsertAll(Collections.singletonList(SENTIMENT_1));
     }
 
     @Test
     public void updateSentiment_successful_returnsOk() throws Exception {
+        when(userSentimentRepository.upsertAll(Collections.singletonList(SENTIMENT_1)))
+                .thenReturn(Collections.singletonList(SENTIMENT_1));
+
         mockMvc.perform(put(UPDATE_SENTIMENT_URL))
                 .andExpect(status().isOk());
     }
 
     @Test
     public void updateSentiment_successful_returnsSentiment() throws Exception {
-        when(userSentimentRepository.save(SENTIMENT_1)).thenReturn(SENTIMENT_1);
+        when(userSentimentRepository.upsertAll(Collections.singletonList(SENTIMENT_1)))
+                .thenReturn(Collections.singletonList(SENTIMENT_1));
 
         mockMvc.perform(put(UPDATE_SENTIMENT_URL))
                 .andExpect(jsonPath("$.accountName", equalTo(ACCOUNT_NAME)))
@@ -125,9 +483,32 @@ public class AssetSentimentControllerTest {
                 .andExpect(jsonPath("$.timestamp", equalTo(SENTIMENT_1.getTimestamp().toString())));
     }
 
+    @Test
+    public void updateSentiment_writeBehind_returnsAcceptedWithoutSaving() throws Exception {
+        when(deferredSentimentWriter.enqueue(SENTIMENT_1)).thenReturn(true);
+
+        mockMvc.perform(put(UPDATE_SENTIMENT_URL))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.sentimentType", equalTo(SENTIMENT_1.getSentimentType().toString())));
+
+        verify(userSentimentRepository, never()).upsertAll(any());
+    }
+
+    @Test
+    public void updateSentiment_journal_returnsAcceptedWithoutSaving() throws Exception {
+        when(sentimentJournal.append(Collections.singletonList(SENTIMENT_1))).thenReturn(true);
+
+        mockMvc.perform(put(UPDATE_SENTIMENT_URL))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.sentimentType", equalTo(SENTIMENT_1.getSentimentType().toString())));
+
+        verify(userSentimentRepository, never()).upsertAll(any());
+    }
+
     @Test
     public void updateSentiment_jpaException_returnsBadRequest() throws Exception {
-        when(userSentimentRepository.save(SENTIMENT_1)).thenThrow(JpaSystemException.class);
+        when(userSentimentRepository.upsertAll(Collections.singletonList(SENTIMENT_1)))
+                .thenThrow(JpaSystemException.class);
 
         mockMvc.perform(put(UPDATE_SENTIMENT_URL))
                 .andExpect(status().isBadRequest());
@@ -135,7 +516,8 @@ public class AssetSentimentControllerTest {
 
     @Test
     public void updateSentiment_otherException_returnsServerError() throws Exception {
-        when(userSentimentRepository.save(SENTIMENT_1)).thenThrow(RuntimeException.class);
+        when(userSentimentRepository.upsertAll(Collections.singletonList(SENTIMENT_1)))
+                .thenThrow(RuntimeException.class);
 
         mockMvc.perform(put(UPDATE_SENTIMENT_URL))
                 .andExpect(status().is5xxServerError());
@@ -144,7 +526,8 @@ public class AssetSentimentControllerTest {
     @Test
     public void updateSentiment_failure_returnsError() throws Exception {
         final String errorMessage = "Invalid account name";
-        when(userSentimentRepository.save(SENTIMENT_1)).thenThrow(new RuntimeException(errorMessage));
+        when(userSentimentRepository.upsertAll(Collections.singletonList(SENTIMENT_1)))
+                .thenThrow(new RuntimeException(errorMessage));
 
         mockMvc.perform(put(UPDATE_SENTIMENT_URL))
                 .andExpect(jsonPath("$", equalTo(errorMessage)));
@@ -154,7 +537,7 @@ public class AssetSentimentControllerTest {
     public void updateSentiments_invokesRepository() throws Exception {
         mockMvc.perform(put("/sentiments").contentType(MediaType.APPLICATION_JSON).content(SENTIMENT_LIST_JSON));
 
-        verify(userSentimentRepository).saveAll(Arrays.asList(SENTIMENT_1, SENTIMENT_2));
+        verify(userSentimentRepository).upsertAll(Arrays.asList(SENTIMENT_1, SENTIMENT_2));
     }
 
     @Test
@@ -165,16 +548,35 @@ public class AssetSentimentControllerTest {
 
     @Test
     public void updateSentiments_successful_returnsSentiments() throws Exception {
-        when(userSentimentRepository.saveAll(any(Iterable.class))).thenReturn(Arrays.asList(SENTIMENT_1, SENTIMENT_2));
+        when(userSentimentRepository.upsertAll(anyList())).thenReturn(Arrays.asList(SENTIMENT_1, SENTIMENT_2));
 
         mockMvc.perform(put("/sentiments").contentType(MediaType.APPLICATION_JSON).content(SENTIMENT_LIST_JSON))
                 .andExpect(jsonPath("$[0].sentimentType", equalTo("THUMBS_UP")))
                 .andExpect(jsonPath("$[1].sentimentType", equalTo("THUMBS_DOWN")));
     }
 
+    @Test
+    public void updateSentiments_journal_returnsAcceptedWithoutSaving() throws Exception {
+        when(sentimentJournal.append(Arrays.asList(SENTIMENT_1, SENTIMENT_2))).thenReturn(true);
+
+        mockMvc.perform(put("/sentiments").contentType(MediaType.APPLICATION_JSON).content(SENTIMENT_LIST_JSON))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$[1].sentimentType", equalTo("THUMBS_DOWN")));
+
+        verify(userSentimentRepository, never()).upsertAll(anyList());
+    }
+
     @Test
     public void updateSentiments_jpaException_returnsBadRequest() throws Exception {
-        when(userSentimentRepository.saveAll(any(Iterable.class))).thenThrow(JpaSystemException.class);
+        when(userSentimentRepository.upsertAll(anyList())).thenThrow(JpaSystemException.class);
+
+        mockMvc.perform(put("/sentiments").contentType(MediaType.APPLICATION_JSON).content(SENTIMENT_LIST_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void updateSentiments_missingKey_returnsBadRequest() throws Exception {
+        when(userSentimentRepository.upsertAll(anyList())).thenThrow(new DataIntegrityViolationException("no key"));
 
         mockMvc.perform(put("/sentiments").contentType(MediaType.APPLICATION_JSON).content(SENTIMENT_LIST_JSON))
                 .andExpect(status().isBadRequest());
@@ -182,7 +584,7 @@ public class AssetSentimentControllerTest {
 
     @Test
     public void updateSentiments_otherException_returnsServerError() throws Exception {
-        when(userSentimentRepository.saveAll(any(Iterable.class))).thenThrow(RuntimeException.class);
+        when(userSentimentRepository.upsertAll(anyList())).thenThrow(RuntimeException.class);
 
         mockMvc.perform(put("/sentiments").contentType(MediaType.APPLICATION_JSON).content(SENTIMENT_LIST_JSON))
                 .andExpect(status().is5xxServerError());
@@ -191,7 +593,7 @@ public class AssetSentimentControllerTest {
     @Test
     public void updateSentiments_failure_returnsError() throws Exception {
         final String errorMessage = "Error message";
-        when(userSentimentRepository.saveAll(any(Iterable.class))).thenThrow(new RuntimeException(errorMessage));
+        when(userSentimentRepository.upsertAll(anyList())).thenThrow(new RuntimeException(errorMessage));
 
         mockMvc.perform(put("/sentiments").contentType(MediaType.APPLICATION_JSON).content(SENTIMENT_LIST_JSON))
                 .andExpect(jsonPath("$", equalTo(errorMessage)));
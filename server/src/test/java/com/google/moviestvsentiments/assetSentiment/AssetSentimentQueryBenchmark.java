@@ -0,0 +1,119 @@
+package com.google.moviestvsentiments.assetSentiment;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.google.moviestvsentiments.BenchmarkUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import javax.persistence.EntityManager;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares the single left outer join used for UNSPECIFIED sentiments against the previous pair of queries, which
+ * joined the reacted assets and then looked up the unreacted assets with a correlated NOT EXISTS. Run with
+ * ./gradlew test -Dbenchmark=true --tests '*Benchmark'
+ */
+@DataJpaTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class AssetSentimentQueryBenchmark {
+
+    private static final int ASSET_COUNT = 10_000;
+    private static final int ACCOUNT_COUNT = 1_000;
+    private static final int SENTIMENTS_PER_ACCOUNT = 100;
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int MEASURED_ITERATIONS = 20;
+    private static final String ACCOUNT_NAME = "account0";
+
+    private static final String LEGACY_WITH_SENTIMENT_QUERY =
+            "SELECT new com.google.moviestvsentiments.assetSentiment.AssetSentiment(asset, sentiment) " +
+            "FROM Asset asset " +
+            "INNER JOIN UserSentiment sentiment " +
+            "ON asset.assetId = sentiment.assetId AND asset.assetType = sentiment.assetType " +
+            "WHERE asset.assetType = :assetType AND sentiment.accountName = :accountName " +
+            "AND sentiment.sentimentType = :sentimentType";
+    private static final String LEGACY_WITHOUT_SENTIMENT_QUERY =
+            "SELECT new com.google.moviestvsentiments.assetSentiment.AssetSentiment(asset) " +
+            "FROM Asset asset " +
+            "WHERE asset.assetType = :assetType AND NOT EXISTS " +
+            "(SELECT sentiment FROM UserSentiment sentiment " +
+            "WHERE asset.assetId = sentiment.assetId AND sentiment.accountName = :accountName " +
+            "AND asset.assetType = sentiment.assetType)";
+
+    private final Logger logger = LoggerFactory.getLogger(AssetSentimentQueryBenchmark.class);
+
+    @Autowired
+    private AssetSentimentRepository repository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void loadDataset() {
+        Timestamp timestamp = Timestamp.from(Instant.EPOCH);
+        List<Object[]> assets = new ArrayList<>();
+        for (int i = 0; i < ASSET_COUNT; i++) {
+            assets.add(new Object[] {"tt" + i, AssetType.MOVIE.ordinal(), "title" + i, timestamp});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO asset (asset_id, asset_type, title, timestamp) VALUES (?, ?, ?, ?)",
+                assets);
+
+        SentimentType[] sentimentTypes = SentimentType.values();
+        List<Object[]> sentiments = new ArrayList<>();
+        for (int account = 0; account < ACCOUNT_COUNT; account++) {
+            for (int i = 0; i < SENTIMENTS_PER_ACCOUNT; i++) {
+                int assetIndex = (account * 31 + i * 97) % ASSET_COUNT;
+                sentiments.add(new Object[] {"tt" + assetIndex, "account" + account, AssetType.MOVIE.ordinal(),
+                        sentimentTypes[i % sentimentTypes.length].ordinal(), timestamp});
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO user_sentiment (asset_id, account_name, asset_type, sentiment_type, " +
+                "timestamp) VALUES (?, ?, ?, ?, ?)", sentiments);
+    }
+
+    @Test
+    public void unspecifiedAssets_singleJoinAndTwoQueries_logsTimes() throws Exception {
+        assertThat(runSingleJoin()).isEqualTo(runLegacyQueries());
+
+        long legacyNanos = BenchmarkUtil.meanNanos(WARMUP_ITERATIONS, MEASURED_ITERATIONS, this::runLegacyQueries);
+        long singleJoinNanos = BenchmarkUtil.meanNanos(WARMUP_ITERATIONS, MEASURED_ITERATIONS, this::runSingleJoin);
+
+        logger.info(String.format("UNSPECIFIED assets over %d assets and %d sentiments: two queries %.2f ms, " +
+                        "single join %.2f ms", ASSET_COUNT, ACCOUNT_COUNT * SENTIMENTS_PER_ACCOUNT,
+                legacyNanos / 1e6, singleJoinNanos / 1e6));
+    }
+
+    private int runSingleJoin() {
+        int size = repository.getAssetsWithUnspecifiedSentiment(AssetType.MOVIE, ACCOUNT_NAME).size();
+        entityManager.clear();
+        return size;
+    }
+
+    private int runLegacyQueries() {
+        List<AssetSentiment> withReaction = entityManager.createQuery(LEGACY_WITH_SENTIMENT_QUERY,
+                AssetSentiment.class)
+                .setParameter("assetType", AssetType.MOVIE)
+                .setParameter("accountName", ACCOUNT_NAME)
+                .setParameter("sentimentType", SentimentType.UNSPECIFIED)
+                .getResultList();
+        List<AssetSentiment> withoutReaction = entityManager.createQuery(LEGACY_WITHOUT_SENTIMENT_QUERY,
+                AssetSentiment.class)
+                .setParameter("assetType", AssetType.MOVIE)
+                .setParameter("accountName", ACCOUNT_NAME)
+                .getResultList();
+        withReaction.addAll(withoutReaction);
+        entityManager.clear();
+        return withReaction.size();
+    }
+}
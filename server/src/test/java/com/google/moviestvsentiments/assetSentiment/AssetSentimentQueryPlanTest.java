@@ -0,0 +1,155 @@
+package com.google.moviestvsentiments.assetSentiment;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.hibernate.engine.query.spi.HQLQueryPlan;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.hql.spi.NamedParameterInformation;
+import org.hibernate.hql.spi.QueryTranslator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import javax.persistence.EntityManagerFactory;
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Loads a synthetic dataset into H2 and checks the EXPLAIN plan of every @Query in AssetSentimentRepository. A plan
+ * fails if it reads a table without an index condition, which means a new query needs a matching index on Asset or
+ * UserSentiment.
+ */
+@DataJpaTest
+public class AssetSentimentQueryPlanTest {
+
+    private static final int ASSET_COUNT = 5_000;
+    private static final int ACCOUNT_COUNT = 200;
+    private static final int SENTIMENTS_PER_ACCOUNT = 50;
+
+    // The banner is a LOB, which H2 can not index, and the query only runs when scraping banners. The numeric field
+    // query only runs once at startup.
+    private static final List<String> FULL_SCAN_ALLOWED = Arrays.asList("getAssetsWithoutBanner",
+            "getAssetsWithoutNumericFields");
+
+    // Matches the access comment H2 writes after each table in a plan, such as /* PUBLIC.ASSET.tableScan */.
+    private static final Pattern TABLE_ACCESS = Pattern.compile("/\\* (PUBLIC\\.[^*]*?) \\*/");
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void loadDataset() {
+        Timestamp timestamp = Timestamp.from(Instant.EPOCH);
+        List<Object[]> assets = new ArrayList<>();
+        for (int i = 0; i < ASSET_COUNT; i++) {
+            assets.add(new Object[] {"tt" + i, AssetType.values()[i % AssetType.values().length].ordinal(),
+                    "title" + i, timestamp});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO asset (asset_id, asset_type, title, timestamp) VALUES (?, ?, ?, ?)",
+                assets);
+
+        SentimentType[] sentimentTypes = SentimentType.values();
+        List<Object[]> sentiments = new ArrayList<>();
+        for (int account = 0; account < ACCOUNT_COUNT; account++) {
+            for (int i = 0; i < SENTIMENTS_PER_ACCOUNT; i++) {
+                int assetIndex = (account * 31 + i * 97) % ASSET_COUNT;
+                sentiments.add(new Object[] {"tt" + assetIndex, "account" + account,
+                        AssetType.values()[assetIndex % AssetType.values().length].ordinal(),
+                        sentimentTypes[i % sentimentTypes.length].ordinal(), timestamp});
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO user_sentiment (asset_id, account_name, asset_type, sentiment_type, " +
+                "timestamp) VALUES (?, ?, ?, ?, ?)", sentiments);
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @Test
+    public void repositoryQueries_useIndexes() throws Exception {
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        int checkedQueries = 0;
+
+        for (Method method : AssetSentimentRepository.class.getDeclaredMethods()) {
+            Query query = method.getAnnotation(Query.class);
+            if (query == null || FULL_SCAN_ALLOWED.contains(method.getName())) {
+                continue;
+            }
+            HQLQueryPlan plan = sessionFactory.getQueryPlanCache().getHQLQueryPlan(query.value(), false,
+                    Collections.emptyMap());
+            String planText = explain(plan.getSqlStrings()[0], plan.getTranslators()[0], method);
+            for (String access : tableAccesses(planText)) {
+                assertThat(access).as("%s reads a table without an index condition:%n%s", method.getName(),
+                        planText).doesNotContain("tableScan").contains(":");
+            }
+            checkedQueries++;
+        }
+
+        assertThat(checkedQueries).isGreaterThan(0);
+    }
+
+    /**
+     * Runs EXPLAIN on the given SQL, binding a sample value for each of the method's parameters, and returns the plan.
+     */
+    private String explain(String sql, QueryTranslator translator, Method method) throws Exception {
+        Map<String, Object> values = new HashMap<>();
+        for (Parameter parameter : method.getParameters()) {
+            Param param = parameter.getAnnotation(Param.class);
+            if (param != null) {
+                values.put(param.value(), sampleValue(parameter.getType()));
+            }
+        }
+
+        return jdbcTemplate.execute((ConnectionCallback<String>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+                for (Map.Entry<String, NamedParameterInformation> entry :
+                        translator.getParameterTranslations().getNamedParameterInformationMap().entrySet()) {
+                    for (int location : entry.getValue().getSourceLocations()) {
+                        statement.setObject(location + 1, values.get(entry.getKey()));
+                    }
+                }
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    resultSet.next();
+                    return resultSet.getString(1);
+                }
+            }
+        });
+    }
+
+    private static Object sampleValue(Class<?> type) {
+        if (type == AssetType.class) {
+            return AssetType.MOVIE.ordinal();
+        } else if (type == SentimentType.class) {
+            return SentimentType.THUMBS_UP.ordinal();
+        } else if (type == Instant.class) {
+            return Timestamp.from(Instant.EPOCH);
+        }
+        return "account0";
+    }
+
+    private static List<String> tableAccesses(String plan) {
+        List<String> accesses = new ArrayList<>();
+        Matcher matcher = TABLE_ACCESS.matcher(plan);
+        while (matcher.find()) {
+            accesses.add(matcher.group(1));
+        }
+        return accesses;
+    }
+}
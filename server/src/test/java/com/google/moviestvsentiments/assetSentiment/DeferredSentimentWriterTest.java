@@ -0,0 +1,87 @@
+package com.google.moviestvsentiments.assetSentiment;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import java.time.Instant;
+import java.util.Arrays;
+
+public class DeferredSentimentWriterTest {
+
+    private static final String ACCOUNT_NAME = "testAccount";
+
+    private UserSentimentRepository userSentimentRepository;
+    private DeferredSentimentWriter writer;
+
+    @BeforeEach
+    public void setUp() {
+        userSentimentRepository = mock(UserSentimentRepository.class);
+        writer = createWriter(DeferredSentimentWriter.WRITE_BEHIND_MODE, 100);
+    }
+
+    @Test
+    public void enqueue_directMode_returnsFalse() {
+        DeferredSentimentWriter directWriter = createWriter(DeferredSentimentWriter.DIRECT_MODE, 100);
+
+        assertThat(directWriter.enqueue(sentiment("movie1", SentimentType.THUMBS_UP, 1))).isFalse();
+        assertThat(directWriter.getPendingCount()).isZero();
+    }
+
+    @Test
+    public void enqueue_sameKey_keepsLatestTimestamp() {
+        UserSentiment latest = sentiment("movie1", SentimentType.THUMBS_DOWN, 3);
+        writer.enqueue(sentiment("movie1", SentimentType.THUMBS_UP, 1));
+        writer.enqueue(latest);
+        writer.enqueue(sentiment("movie1", SentimentType.UNSPECIFIED, 2));
+
+        assertThat(writer.getPendingCount()).isEqualTo(1);
+        writer.flush();
+
+        verify(userSentimentRepository).upsertAll(Arrays.asList(latest));
+        assertThat(writer.getPendingCount()).isZero();
+    }
+
+    @Test
+    public void enqueue_queueFull_returnsFalseForNewKeys() {
+        DeferredSentimentWriter smallWriter = createWriter(DeferredSentimentWriter.WRITE_BEHIND_MODE, 1);
+        smallWriter.enqueue(sentiment("movie1", SentimentType.THUMBS_UP, 1));
+
+        assertThat(smallWriter.enqueue(sentiment("movie2", SentimentType.THUMBS_UP, 1))).isFalse();
+        assertThat(smallWriter.enqueue(sentiment("movie1", SentimentType.THUMBS_DOWN, 2))).isTrue();
+    }
+
+    @Test
+    public void flush_emptyQueue_writesNothing() {
+        writer.flush();
+
+        verify(userSentimentRepository, never()).upsertAll(anyList());
+    }
+
+    @Test
+    public void flush_writeFails_requeuesBatch() {
+        when(userSentimentRepository.upsertAll(anyList()))
+                .thenThrow(new DataAccessResourceFailureException("database unavailable"));
+        writer.enqueue(sentiment("movie1", SentimentType.THUMBS_UP, 1));
+
+        writer.flush();
+
+        assertThat(writer.getPendingCount()).isEqualTo(1);
+    }
+
+    private DeferredSentimentWriter createWriter(String writeMode, int maxPending) {
+        return new DeferredSentimentWriter(writeMode, maxPending, userSentimentRepository, new SimpleMeterRegistry());
+    }
+
+    private static UserSentiment sentiment(String assetId, SentimentType sentimentType, long epochSecond) {
+        return UserSentiment.create(ACCOUNT_NAME, assetId, AssetType.MOVIE, sentimentType,
+                Instant.ofEpochSecond(epochSecond));
+    }
+}
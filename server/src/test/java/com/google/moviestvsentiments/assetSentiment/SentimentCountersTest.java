@@ -0,0 +1,154 @@
+package com.google.moviestvsentiments.assetSentiment;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.moviestvsentiments.catalog.CatalogChangeEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class SentimentCountersTest {
+
+    private static final String ACCOUNT_NAME = "testAccount";
+
+    private UserSentimentRepository userSentimentRepository;
+    private JdbcTemplate jdbcTemplate;
+    private SentimentCounters counters;
+
+    @BeforeEach
+    public void setUp() {
+        userSentimentRepository = mock(UserSentimentRepository.class);
+        jdbcTemplate = mock(JdbcTemplate.class);
+        counters = new SentimentCounters(userSentimentRepository, jdbcTemplate);
+    }
+
+    @Test
+    public void backfill_loadsCountsFromRepository() {
+        when(userSentimentRepository.countSentiments()).thenReturn(Arrays.asList(
+                new SentimentCount("movie1", AssetType.MOVIE, 3L, 1L)));
+
+        counters.backfill();
+
+        SentimentCount count = counters.getCount("movie1", AssetType.MOVIE);
+        assertThat(count.getThumbsUp()).isEqualTo(3);
+        assertThat(count.getThumbsDown()).isEqualTo(1);
+    }
+
+    @Test
+    public void backfill_changeCommittedWhileLoading_isKept() {
+        when(userSentimentRepository.countSentiments()).thenAnswer(invocation -> {
+            counters.onCatalogChange(CatalogChangeEvent.saved(sentiment("movie1", SentimentType.THUMBS_DOWN)));
+            return Arrays.asList(new SentimentCount("movie1", AssetType.MOVIE, 3L, 1L));
+        });
+
+        counters.backfill();
+
+        SentimentCount count = counters.getCount("movie1", AssetType.MOVIE);
+        assertThat(count.getThumbsUp()).isEqualTo(3);
+        assertThat(count.getThumbsDown()).isEqualTo(2);
+    }
+
+    @Test
+    public void backfill_replacesEarlierCounts() {
+        counters.onCatalogChange(CatalogChangeEvent.saved(sentiment("movie1", SentimentType.THUMBS_UP)));
+        when(userSentimentRepository.countSentiments()).thenReturn(Arrays.asList(
+                new SentimentCount("movie1", AssetType.MOVIE, 3L, 1L)));
+
+        counters.backfill();
+
+        assertThat(counters.getCount("movie1", AssetType.MOVIE).getThumbsUp()).isEqualTo(3);
+    }
+
+    @Test
+    public void onCatalogChange_newSentiment_incrementsCount() {
+        counters.onCatalogChange(CatalogChangeEvent.saved(sentiment("movie1", SentimentType.THUMBS_UP)));
+
+        assertThat(counters.getCount("movie1", AssetType.MOVIE).getThumbsUp()).isEqualTo(1);
+    }
+
+    @Test
+    public void onCatalogChange_changedSentiment_movesCount() {
+        UserSentiment sentiment = sentiment("movie1", SentimentType.THUMBS_UP);
+        counters.onCatalogChange(CatalogChangeEvent.saved(sentiment));
+        sentiment.onStored();
+
+        sentiment.setSentimentType(SentimentType.THUMBS_DOWN);
+        counters.onCatalogChange(CatalogChangeEvent.saved(sentiment));
+
+        SentimentCount count = counters.getCount("movie1", AssetType.MOVIE);
+        assertThat(count.getThumbsUp()).isEqualTo(0);
+        assertThat(count.getThumbsDown()).isEqualTo(1);
+    }
+
+    @Test
+    public void onCatalogChange_unchangedSentiment_keepsCount() {
+        UserSentiment sentiment = sentiment("movie1", SentimentType.THUMBS_UP);
+        counters.onCatalogChange(CatalogChangeEvent.saved(sentiment));
+        sentiment.onStored();
+
+        counters.onCatalogChange(CatalogChangeEvent.saved(sentiment));
+
+        assertThat(counters.getCount("movie1", AssetType.MOVIE).getThumbsUp()).isEqualTo(1);
+    }
+
+    @Test
+    public void onCatalogChange_deletedSentiment_decrementsCount() {
+        UserSentiment sentiment = sentiment("movie1", SentimentType.THUMBS_DOWN);
+        counters.onCatalogChange(CatalogChangeEvent.saved(sentiment));
+        sentiment.onStored();
+
+        counters.onCatalogChange(CatalogChangeEvent.deleted(sentiment));
+
+        assertThat(counters.getCount("movie1", AssetType.MOVIE).getThumbsDown()).isEqualTo(0);
+    }
+
+    @Test
+    public void getPopular_ranksByNetThumbsUp() {
+        when(userSentimentRepository.countSentiments()).thenReturn(Arrays.asList(
+                new SentimentCount("movie1", AssetType.MOVIE, 5L, 4L),
+                new SentimentCount("movie2", AssetType.MOVIE, 3L, 0L),
+                new SentimentCount("movie3", AssetType.MOVIE, 0L, 2L),
+                new SentimentCount("movie4", AssetType.MOVIE, 2L, 0L),
+                new SentimentCount("show1", AssetType.SHOW, 9L, 0L)));
+        counters.backfill();
+
+        List<String> assetIds = counters.getPopular(AssetType.MOVIE, 2).stream().map(SentimentCount::getAssetId)
+                .collect(Collectors.toList());
+
+        assertThat(assetIds).containsExactly("movie2", "movie4");
+    }
+
+    @Test
+    public void flush_writesChangedCounts() {
+        counters.onCatalogChange(CatalogChangeEvent.saved(sentiment("movie1", SentimentType.THUMBS_UP)));
+
+        counters.flush();
+
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), rows.capture());
+        assertThat(rows.getValue()).hasSize(1);
+        assertThat(rows.getValue().get(0)).containsExactly("movie1", AssetType.MOVIE.ordinal(), 1L, 0L);
+    }
+
+    @Test
+    public void flush_nothingChanged_writesNothing() {
+        counters.flush();
+
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+    }
+
+    private static UserSentiment sentiment(String assetId, SentimentType sentimentType) {
+        return UserSentiment.create(ACCOUNT_NAME, assetId, AssetType.MOVIE, sentimentType, Instant.EPOCH);
+    }
+}
@@ -0,0 +1,235 @@
+package com.google.moviestvsentiments.assetSentiment;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import com.google.moviestvsentiments.catalog.CatalogChangeEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class SentimentEventBroadcasterTest {
+
+    private static final String ACCOUNT_NAME = "testAccount";
+    private static final int MAX_SUBSCRIBERS = 2;
+
+    private static final long SEND_TIMEOUT_MS = 1000;
+    private static final Duration WAIT = Duration.ofSeconds(5);
+
+    private final List<Runnable> pendingTasks = new ArrayList<>();
+
+    @Test
+    public void subscribe_addsSubscriberForAccount() {
+        SentimentEventBroadcaster broadcaster = createBroadcaster(4);
+
+        broadcaster.subscribe(ACCOUNT_NAME);
+        broadcaster.subscribe(ACCOUNT_NAME);
+
+        assertThat(broadcaster.getSubscriberCount(ACCOUNT_NAME)).isEqualTo(2);
+        assertThat(broadcaster.getSubscriberCount("otherAccount")).isZero();
+    }
+
+    @Test
+    public void subscribe_accountAtMaxSubscribers_returnsNull() {
+        SentimentEventBroadcaster broadcaster = createBroadcaster(4);
+        for (int i = 0; i < MAX_SUBSCRIBERS; i++) {
+            broadcaster.subscribe(ACCOUNT_NAME);
+        }
+
+        assertThat(broadcaster.subscribe(ACCOUNT_NAME)).isNull();
+        assertThat(broadcaster.subscribe("otherAccount")).isNotNull();
+        assertThat(broadcaster.getSubscriberCount(ACCOUNT_NAME)).isEqualTo(MAX_SUBSCRIBERS);
+    }
+
+    @Test
+    public void onCatalogChange_userSentiment_schedulesOneDrainPerSubscriber() {
+        SentimentEventBroadcaster broadcaster = createBroadcaster(4);
+        broadcaster.subscribe(ACCOUNT_NAME);
+
+        broadcaster.onCatalogChange(CatalogChangeEvent.saved(sentiment("movie1", ACCOUNT_NAME)));
+        broadcaster.onCatalogChange(CatalogChangeEvent.saved(sentiment("movie2", ACCOUNT_NAME)));
+
+        assertThat(pendingTasks).hasSize(1);
+    }
+
+    @Test
+    public void onCatalogChange_otherAccount_schedulesNothing() {
+        SentimentEventBroadcaster broadcaster = createBroadcaster(4);
+        broadcaster.subscribe(ACCOUNT_NAME);
+
+        broadcaster.onCatalogChange(CatalogChangeEvent.saved(sentiment("movie1", "otherAccount")));
+
+        assertThat(pendingTasks).isEmpty();
+    }
+
+    @Test
+    public void onCatalogChange_bufferFull_dropsSlowSubscriber() {
+        SentimentEventBroadcaster broadcaster = createBroadcaster(2);
+        broadcaster.subscribe(ACCOUNT_NAME);
+
+        for (int i = 0; i < 3; i++) {
+            broadcaster.onCatalogChange(CatalogChangeEvent.saved(sentiment("movie" + i, ACCOUNT_NAME)));
+        }
+
+        assertThat(broadcaster.getSubscriberCount(ACCOUNT_NAME)).isZero();
+    }
+
+    @Test
+    public void onCatalogChange_drained_keepsSubscriber() {
+        SentimentEventBroadcaster broadcaster = createBroadcaster(2);
+        broadcaster.subscribe(ACCOUNT_NAME);
+
+        for (int i = 0; i < 3; i++) {
+            broadcaster.onCatalogChange(CatalogChangeEvent.saved(sentiment("movie" + i, ACCOUNT_NAME)));
+            runPendingTasks();
+        }
+
+        assertThat(broadcaster.getSubscriberCount(ACCOUNT_NAME)).isEqualTo(1);
+    }
+
+    @Test
+    public void sendHeartbeats_schedulesDrainForEachSubscriber() {
+        SentimentEventBroadcaster broadcaster = createBroadcaster(4);
+        broadcaster.subscribe(ACCOUNT_NAME);
+        broadcaster.subscribe("otherAccount");
+
+        broadcaster.sendHeartbeats();
+
+        assertThat(pendingTasks).hasSize(2);
+    }
+
+    @Test
+    public void onCatalogChange_sendFails_removesSubscriber() {
+        SentimentEventBroadcaster broadcaster = createBroadcaster(4);
+        SseEmitter emitter = broadcaster.subscribe(ACCOUNT_NAME);
+        emitter.complete();
+
+        broadcaster.onCatalogChange(CatalogChangeEvent.saved(sentiment("movie1", ACCOUNT_NAME)));
+        runPendingTasks();
+        broadcaster.sendHeartbeats();
+
+        assertThat(broadcaster.getSubscriberCount(ACCOUNT_NAME)).isZero();
+        assertThat(pendingTasks).isEmpty();
+    }
+
+    @Test
+    public void sendHeartbeats_sendBlockedPastTimeout_dropsSubscriberWithoutWaitingForSend() throws Exception {
+        BlockingEmitter emitter = new BlockingEmitter();
+        AtomicLong now = new AtomicLong();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        SentimentEventBroadcaster broadcaster = createBroadcaster(4, emitter, executor, now);
+        try {
+            broadcaster.subscribe(ACCOUNT_NAME);
+            broadcaster.onCatalogChange(CatalogChangeEvent.saved(sentiment("movie1", ACCOUNT_NAME)));
+            assertThat(emitter.sendStarted.await(WAIT.toMillis(), TimeUnit.MILLISECONDS)).isTrue();
+            now.set(TimeUnit.MILLISECONDS.toNanos(2 * SEND_TIMEOUT_MS));
+
+            assertTimeoutPreemptively(WAIT, broadcaster::sendHeartbeats);
+            assertThat(broadcaster.getSubscriberCount(ACCOUNT_NAME)).isZero();
+            assertThat(emitter.completed.getCount()).isEqualTo(1);
+
+            emitter.releaseSend.countDown();
+            assertThat(emitter.completed.await(WAIT.toMillis(), TimeUnit.MILLISECONDS)).isTrue();
+            assertThat(emitter.error).isNotNull();
+        } finally {
+            emitter.releaseSend.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void onCatalogChange_bufferFullWhileSendBlocked_dropsSubscriberWithoutWaitingForSend() throws Exception {
+        BlockingEmitter emitter = new BlockingEmitter();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        SentimentEventBroadcaster broadcaster = createBroadcaster(1, emitter, executor, new AtomicLong());
+        try {
+            broadcaster.subscribe(ACCOUNT_NAME);
+            broadcaster.onCatalogChange(CatalogChangeEvent.saved(sentiment("movie1", ACCOUNT_NAME)));
+            assertThat(emitter.sendStarted.await(WAIT.toMillis(), TimeUnit.MILLISECONDS)).isTrue();
+
+            assertTimeoutPreemptively(WAIT, () -> {
+                broadcaster.onCatalogChange(CatalogChangeEvent.saved(sentiment("movie2", ACCOUNT_NAME)));
+                broadcaster.onCatalogChange(CatalogChangeEvent.saved(sentiment("movie3", ACCOUNT_NAME)));
+            });
+            assertThat(broadcaster.getSubscriberCount(ACCOUNT_NAME)).isZero();
+
+            emitter.releaseSend.countDown();
+            assertThat(emitter.completed.await(WAIT.toMillis(), TimeUnit.MILLISECONDS)).isTrue();
+            assertThat(emitter.sendCount).isEqualTo(1);
+        } finally {
+            emitter.releaseSend.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    private SentimentEventBroadcaster createBroadcaster(int bufferSize) {
+        return new SentimentEventBroadcaster(bufferSize, 0, MAX_SUBSCRIBERS, SEND_TIMEOUT_MS, pendingTasks::add,
+                System::nanoTime, new SimpleMeterRegistry());
+    }
+
+    private static SentimentEventBroadcaster createBroadcaster(int bufferSize, SseEmitter emitter,
+                                                               ExecutorService executor, AtomicLong now) {
+        return new SentimentEventBroadcaster(bufferSize, 0, MAX_SUBSCRIBERS, SEND_TIMEOUT_MS, executor, now::get,
+                new SimpleMeterRegistry()) {
+            @Override
+            SseEmitter createEmitter(long timeoutMillis) {
+                return emitter;
+            }
+        };
+    }
+
+    /**
+     * An emitter whose sends block until released while holding the emitter's lock, like the sends of a Spring
+     * emitter to a client that stopped reading. Completing it waits for the lock, as it does in Spring.
+     */
+    private static class BlockingEmitter extends SseEmitter {
+
+        private final CountDownLatch sendStarted = new CountDownLatch(1);
+        private final CountDownLatch releaseSend = new CountDownLatch(1);
+        private final CountDownLatch completed = new CountDownLatch(1);
+        private volatile int sendCount;
+        private volatile Throwable error;
+
+        @Override
+        public synchronized void send(SseEventBuilder builder) {
+            sendCount++;
+            sendStarted.countDown();
+            try {
+                releaseSend.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public synchronized void complete() {
+            completed.countDown();
+        }
+
+        @Override
+        public synchronized void completeWithError(Throwable error) {
+            this.error = error;
+            completed.countDown();
+        }
+    }
+
+    private void runPendingTasks() {
+        List<Runnable> tasks = new ArrayList<>(pendingTasks);
+        pendingTasks.clear();
+        tasks.forEach(Runnable::run);
+    }
+
+    private static UserSentiment sentiment(String assetId, String accountName) {
+        return UserSentiment.create(accountName, assetId, AssetType.MOVIE, SentimentType.THUMBS_UP,
+                Instant.EPOCH);
+    }
+}
@@ -0,0 +1,204 @@
+package com.google.moviestvsentiments.assetSentiment;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataAccessResourceFailureException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+
+public class SentimentJournalTest {
+
+    private static final String ACCOUNT_NAME = "testAccount";
+    private static final int SIZE_BYTES = 4096;
+    private static final long SYNC_INTERVAL_MS = 50;
+    // Room for the file header, three records and a wrap record.
+    private static final int RING_SIZE_BYTES = 16 + 3 * 47 + 12;
+
+    @TempDir
+    Path directory;
+
+    private UserSentimentRepository userSentimentRepository;
+    private SentimentJournal journal;
+
+    @BeforeEach
+    public void setUp() {
+        userSentimentRepository = mock(UserSentimentRepository.class);
+        journal = createJournal(SentimentJournal.JOURNAL_MODE, SIZE_BYTES);
+    }
+
+    @Test
+    public void append_directMode_returnsFalse() {
+        SentimentJournal directJournal = createJournal(DeferredSentimentWriter.DIRECT_MODE, SIZE_BYTES);
+
+        assertThat(directJournal.append(Arrays.asList(sentiment("movie1", SentimentType.THUMBS_UP, 1)))).isFalse();
+        assertThat(directJournal.getPendingBytes()).isZero();
+    }
+
+    @Test
+    public void append_missingTimestamp_returnsFalse() {
+        UserSentiment sentiment = UserSentiment.create(ACCOUNT_NAME, "movie1", AssetType.MOVIE,
+                SentimentType.THUMBS_UP, null);
+
+        assertThat(journal.append(Arrays.asList(sentiment("movie2", SentimentType.THUMBS_UP, 1), sentiment)))
+                .isFalse();
+        assertThat(journal.getPendingBytes()).isZero();
+    }
+
+    @Test
+    public void append_journalFull_returnsFalse() {
+        SentimentJournal smallJournal = createJournal(SentimentJournal.JOURNAL_MODE, 64);
+
+        assertThat(smallJournal.append(Arrays.asList(sentiment("movie1", SentimentType.THUMBS_UP, 1)))).isTrue();
+        assertThat(smallJournal.append(Arrays.asList(sentiment("movie2", SentimentType.THUMBS_UP, 1)))).isFalse();
+    }
+
+    @Test
+    public void append_journalFull_countsFallbacks() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        SentimentJournal smallJournal = createJournal(SentimentJournal.JOURNAL_MODE, 64, meterRegistry);
+        smallJournal.append(Arrays.asList(sentiment("movie1", SentimentType.THUMBS_UP, 1)));
+
+        smallJournal.append(Arrays.asList(sentiment("movie2", SentimentType.THUMBS_UP, 1),
+                sentiment("movie3", SentimentType.THUMBS_UP, 1)));
+
+        assertThat(meterRegistry.counter("sentiments.journal.fallbacks").count()).isEqualTo(2);
+    }
+
+    @Test
+    public void append_afterCompaction_wrapsAroundIntoCompactedSpace() {
+        SentimentJournal ring = createJournal(SentimentJournal.JOURNAL_MODE, RING_SIZE_BYTES);
+        ring.append(Arrays.asList(sentiment("movie1", SentimentType.THUMBS_UP, 1),
+                sentiment("movie2", SentimentType.THUMBS_UP, 1), sentiment("movie3", SentimentType.THUMBS_UP, 1)));
+        ring.compact();
+        reset(userSentimentRepository);
+        UserSentiment first = sentiment("movie4", SentimentType.THUMBS_DOWN, 2);
+        UserSentiment second = sentiment("movie5", SentimentType.THUMBS_DOWN, 2);
+
+        assertThat(ring.append(Arrays.asList(first, second))).isTrue();
+        ring.compact();
+
+        verify(userSentimentRepository).upsertAll(Arrays.asList(first, second));
+        assertThat(ring.getPendingBytes()).isZero();
+    }
+
+    @Test
+    public void append_wrappedUpToCompactedPosition_returnsFalse() {
+        SentimentJournal ring = createJournal(SentimentJournal.JOURNAL_MODE, RING_SIZE_BYTES);
+        ring.append(Arrays.asList(sentiment("movie1", SentimentType.THUMBS_UP, 1),
+                sentiment("movie2", SentimentType.THUMBS_UP, 1)));
+        ring.compact();
+        ring.append(Arrays.asList(sentiment("movie3", SentimentType.THUMBS_UP, 1)));
+        ring.append(Arrays.asList(sentiment("movie4", SentimentType.THUMBS_UP, 1),
+                sentiment("movie5", SentimentType.THUMBS_UP, 1)));
+
+        assertThat(ring.append(Arrays.asList(sentiment("movie6", SentimentType.THUMBS_UP, 1)))).isFalse();
+    }
+
+    @Test
+    public void compact_sameKey_upsertsLatestTimestamp() {
+        UserSentiment latest = sentiment("movie1", SentimentType.THUMBS_DOWN, 3);
+        UserSentiment other = sentiment("movie2", SentimentType.THUMBS_UP, 1);
+        journal.append(Arrays.asList(sentiment("movie1", SentimentType.THUMBS_UP, 1), other));
+        journal.append(Collections.singletonList(latest));
+        journal.append(Collections.singletonList(sentiment("movie1", SentimentType.UNSPECIFIED, 2)));
+
+        journal.compact();
+
+        verify(userSentimentRepository).upsertAll(Arrays.asList(latest, other));
+        assertThat(journal.getPendingBytes()).isZero();
+    }
+
+    @Test
+    public void compact_writeFails_keepsRecords() {
+        when(userSentimentRepository.upsertAll(anyList()))
+                .thenThrow(new DataAccessResourceFailureException("database unavailable"));
+        journal.append(Arrays.asList(sentiment("movie1", SentimentType.THUMBS_UP, 1)));
+
+        journal.compact();
+
+        assertThat(journal.getPendingBytes()).isPositive();
+    }
+
+    @Test
+    public void replay_afterRestart_upsertsUncompactedRecords() {
+        UserSentiment sentiment = sentiment("movie1", SentimentType.THUMBS_UP, 1);
+        journal.append(Arrays.asList(sentiment));
+
+        SentimentJournal restarted = createJournal(SentimentJournal.JOURNAL_MODE, SIZE_BYTES);
+        restarted.replay();
+
+        verify(userSentimentRepository).upsertAll(Arrays.asList(sentiment));
+        assertThat(restarted.getPendingBytes()).isZero();
+    }
+
+    @Test
+    public void replay_afterCompaction_skipsCompactedRecords() {
+        journal.append(Arrays.asList(sentiment("movie1", SentimentType.THUMBS_UP, 1)));
+        journal.compact();
+        UserSentiment sentiment = sentiment("movie2", SentimentType.THUMBS_DOWN, 2);
+        journal.append(Arrays.asList(sentiment));
+        reset(userSentimentRepository);
+
+        SentimentJournal restarted = createJournal(SentimentJournal.JOURNAL_MODE, SIZE_BYTES);
+        restarted.replay();
+
+        verify(userSentimentRepository, times(1)).upsertAll(anyList());
+        verify(userSentimentRepository).upsertAll(Arrays.asList(sentiment));
+    }
+
+    @Test
+    public void replay_afterWraparound_upsertsRecordsFromBothPasses() {
+        SentimentJournal ring = createJournal(SentimentJournal.JOURNAL_MODE, RING_SIZE_BYTES);
+        ring.append(Arrays.asList(sentiment("movie1", SentimentType.THUMBS_UP, 1),
+                sentiment("movie2", SentimentType.THUMBS_UP, 1)));
+        ring.compact();
+        UserSentiment beforeWrap = sentiment("movie3", SentimentType.THUMBS_DOWN, 2);
+        UserSentiment afterWrap = sentiment("movie4", SentimentType.THUMBS_DOWN, 2);
+        ring.append(Arrays.asList(beforeWrap));
+        ring.append(Arrays.asList(afterWrap));
+        reset(userSentimentRepository);
+
+        SentimentJournal restarted = createJournal(SentimentJournal.JOURNAL_MODE, RING_SIZE_BYTES);
+        restarted.replay();
+
+        verify(userSentimentRepository).upsertAll(Arrays.asList(beforeWrap, afterWrap));
+        assertThat(restarted.getPendingBytes()).isZero();
+    }
+
+    @Test
+    public void replay_nothingJournaled_writesNothing() {
+        journal.replay();
+
+        verify(userSentimentRepository, never()).upsertAll(anyList());
+    }
+
+    private SentimentJournal createJournal(String writeMode, int sizeBytes) {
+        return createJournal(writeMode, sizeBytes, new SimpleMeterRegistry());
+    }
+
+    /**
+     * Returns a journal in a file of its own size, since a journal never maps less than the whole of its file.
+     */
+    private SentimentJournal createJournal(String writeMode, int sizeBytes, SimpleMeterRegistry meterRegistry) {
+        return new SentimentJournal(writeMode, directory.resolve("sentiments-" + sizeBytes + ".journal").toString(),
+                sizeBytes, SYNC_INTERVAL_MS, userSentimentRepository, meterRegistry);
+    }
+
+    private static UserSentiment sentiment(String assetId, SentimentType sentimentType, long epochSecond) {
+        return UserSentiment.create(ACCOUNT_NAME, assetId, AssetType.MOVIE, sentimentType,
+                Instant.ofEpochSecond(epochSecond));
+    }
+}
@@ -0,0 +1,91 @@
+package com.google.moviestvsentiments.assetSentiment;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.google.moviestvsentiments.AssetUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Sort;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@DataJpaTest
+public class SortedAssetRepositoryTest {
+
+    private static final String ACCOUNT_NAME = "testAccount";
+
+    @Autowired
+    private AssetSentimentRepository assetSentimentRepository;
+
+    @Autowired
+    private UserSentimentRepository userSentimentRepository;
+
+    @BeforeEach
+    public void saveAssets() {
+        assetSentimentRepository.save(asset("movie1", "8.5", "142 min", "2008"));
+        assetSentimentRepository.save(asset("movie2", "7.0", "95 min", "1999"));
+        assetSentimentRepository.save(asset("movie3", "9.1", "120 min", "2014"));
+        assetSentimentRepository.save(asset("movie4", "N/A", "N/A", "N/A"));
+        userSentimentRepository.save(UserSentiment.create(ACCOUNT_NAME, "movie3", AssetType.MOVIE,
+                SentimentType.THUMBS_UP, Instant.EPOCH));
+    }
+
+    @Test
+    public void getSortedAssets_sortsAndLeavesOutMissingValues() {
+        List<AssetSentimentSummary> assets = assetSentimentRepository.getSortedAssets(AssetType.MOVIE, ACCOUNT_NAME,
+                SentimentType.UNSPECIFIED, AssetSortField.IMDB_SCORE, Sort.Direction.DESC, null, null, 10);
+
+        assertThat(assetIds(assets)).containsExactly("movie1", "movie2");
+    }
+
+    @Test
+    public void getSortedAssets_range_filtersValues() {
+        List<AssetSentimentSummary> assets = assetSentimentRepository.getSortedAssets(AssetType.MOVIE, ACCOUNT_NAME,
+                SentimentType.UNSPECIFIED, AssetSortField.RUNTIME, Sort.Direction.ASC, 90.5, 142.0, 10);
+
+        assertThat(assetIds(assets)).containsExactly("movie2", "movie1");
+    }
+
+    @Test
+    public void getSortedAssets_thumbsUp_returnsReactedAssets() {
+        List<AssetSentimentSummary> assets = assetSentimentRepository.getSortedAssets(AssetType.MOVIE, ACCOUNT_NAME,
+                SentimentType.THUMBS_UP, AssetSortField.YEAR, Sort.Direction.ASC, 2000.0, null, 10);
+
+        assertThat(assetIds(assets)).containsExactly("movie3");
+        assertThat(assets.get(0).getUserSentiment().getSentimentType()).isEqualTo(SentimentType.THUMBS_UP);
+    }
+
+    @Test
+    public void getSortedAssets_limit_returnsFirstAssets() {
+        List<AssetSentimentSummary> assets = assetSentimentRepository.getSortedAssets(AssetType.MOVIE, ACCOUNT_NAME,
+                SentimentType.UNSPECIFIED, AssetSortField.YEAR, Sort.Direction.ASC, null, null, 1);
+
+        assertThat(assetIds(assets)).containsExactly("movie2");
+    }
+
+    @Test
+    public void getAssetsWithoutNumericFields_returnsUnparsedAssets() {
+        Asset legacy = AssetUtil.createAsset("movie5", AssetType.MOVIE, "Legacy");
+        legacy.setYear("2001");
+        assetSentimentRepository.save(legacy);
+
+        assertThat(assetSentimentRepository.getAssetsWithoutNumericFields()).extracting(Asset::getAssetId)
+                .containsExactlyInAnyOrder("movie4", "movie5");
+    }
+
+    private static Asset asset(String assetId, String imdbRating, String runtime, String year) {
+        Asset asset = AssetUtil.createAsset(assetId, AssetType.MOVIE, assetId);
+        asset.setImdbRating(imdbRating);
+        asset.setRuntime(runtime);
+        asset.setYear(year);
+        asset.updateNumericFields();
+        return asset;
+    }
+
+    private static List<String> assetIds(List<AssetSentimentSummary> assets) {
+        return assets.stream().map(asset -> asset.getAsset().getAssetId()).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,154 @@
+package com.google.moviestvsentiments.assetSentiment;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.moviestvsentiments.catalog.CatalogChangeEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class TrendingScoresTest {
+
+    private static final String ACCOUNT_NAME = "testAccount";
+    private static final Duration HALF_LIFE = Duration.ofHours(1);
+    private static final Instant START = Instant.ofEpochSecond(1_600_000_000L);
+
+    /**
+     * A Clock whose time is set by the test.
+     */
+    private static class TestClock extends Clock {
+        private Instant now = START;
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+
+    private UserSentimentRepository userSentimentRepository;
+    private TestClock clock;
+    private TrendingScores scores;
+
+    @BeforeEach
+    public void setUp() {
+        userSentimentRepository = mock(UserSentimentRepository.class);
+        clock = new TestClock();
+        scores = new TrendingScores(userSentimentRepository, HALF_LIFE, clock);
+    }
+
+    @Test
+    public void getTrending_decaysByHalfLife() {
+        react("movie1", SentimentType.THUMBS_UP, START.minus(HALF_LIFE));
+
+        List<AssetTrend> trending = scores.getTrending(AssetType.MOVIE, 10);
+
+        assertThat(trending).hasSize(1);
+        assertThat(trending.get(0).getScore()).isCloseTo(0.5, within(1e-9));
+    }
+
+    @Test
+    public void getTrending_recentReactionsRankFirst() {
+        react("movie1", SentimentType.THUMBS_UP, START.minus(HALF_LIFE.multipliedBy(3)));
+        react("movie1", SentimentType.THUMBS_UP, START.minus(HALF_LIFE.multipliedBy(3)));
+        react("movie2", SentimentType.THUMBS_UP, START);
+
+        assertThat(assetIds(scores.getTrending(AssetType.MOVIE, 10))).containsExactly("movie2", "movie1");
+    }
+
+    @Test
+    public void getTrending_excludesNegativeScoresAndOtherTypes() {
+        react("movie1", SentimentType.THUMBS_DOWN, START);
+        react("movie2", SentimentType.THUMBS_UP, START);
+        scores.onCatalogChange(CatalogChangeEvent.saved(UserSentiment.create(ACCOUNT_NAME, "show1", AssetType.SHOW,
+                SentimentType.THUMBS_UP, START)));
+
+        assertThat(assetIds(scores.getTrending(AssetType.MOVIE, 10))).containsExactly("movie2");
+    }
+
+    @Test
+    public void onCatalogChange_changedSentiment_replacesContribution() {
+        UserSentiment sentiment = react("movie1", SentimentType.THUMBS_UP, START);
+        react("movie2", SentimentType.THUMBS_UP, START.minus(HALF_LIFE));
+        sentiment.onStored();
+
+        sentiment.setSentimentType(SentimentType.UNSPECIFIED);
+        scores.onCatalogChange(CatalogChangeEvent.saved(sentiment));
+
+        assertThat(assetIds(scores.getTrending(AssetType.MOVIE, 10))).containsExactly("movie2");
+    }
+
+    @Test
+    public void onCatalogChange_futureTimestamp_removesContributionThatWasAdded() {
+        react("movie1", SentimentType.THUMBS_UP, START);
+        UserSentiment sentiment = UserSentiment.create(ACCOUNT_NAME, "movie1", AssetType.MOVIE,
+                SentimentType.THUMBS_UP, START.plus(HALF_LIFE));
+        sentiment.setChangedAt(START);
+        scores.onCatalogChange(CatalogChangeEvent.saved(sentiment));
+        sentiment.onStored();
+        clock.now = START.plus(HALF_LIFE.dividedBy(2));
+
+        sentiment.setSentimentType(SentimentType.UNSPECIFIED);
+        sentiment.setChangedAt(clock.now);
+        scores.onCatalogChange(CatalogChangeEvent.saved(sentiment));
+
+        List<AssetTrend> trending = scores.getTrending(AssetType.MOVIE, 10);
+        assertThat(trending).hasSize(1);
+        assertThat(trending.get(0).getScore()).isCloseTo(Math.pow(2, -0.5), within(1e-9));
+    }
+
+    @Test
+    public void getTrending_afterBaseMoves_keepsRanking() {
+        react("movie1", SentimentType.THUMBS_UP, START);
+        react("movie1", SentimentType.THUMBS_UP, START);
+        clock.now = START.plus(HALF_LIFE.multipliedBy(200));
+        react("movie2", SentimentType.THUMBS_UP, clock.now);
+        react("movie3", SentimentType.THUMBS_UP, clock.now.minus(HALF_LIFE));
+
+        List<AssetTrend> trending = scores.getTrending(AssetType.MOVIE, 10);
+
+        assertThat(assetIds(trending)).containsExactly("movie2", "movie3");
+        assertThat(trending.get(0).getScore()).isCloseTo(1, within(1e-9));
+    }
+
+    @Test
+    public void backfill_loadsRecentReactions() {
+        when(userSentimentRepository.getReactionsSince(any(Instant.class))).thenReturn(Arrays.asList(
+                UserSentiment.create(ACCOUNT_NAME, "movie1", AssetType.MOVIE, SentimentType.THUMBS_UP, START)));
+
+        scores.backfill();
+
+        assertThat(assetIds(scores.getTrending(AssetType.MOVIE, 10))).containsExactly("movie1");
+    }
+
+    private UserSentiment react(String assetId, SentimentType sentimentType, Instant timestamp) {
+        UserSentiment sentiment = UserSentiment.create(ACCOUNT_NAME, assetId, AssetType.MOVIE, sentimentType,
+                timestamp);
+        scores.onCatalogChange(CatalogChangeEvent.saved(sentiment));
+        return sentiment;
+    }
+
+    private static List<String> assetIds(List<AssetTrend> trends) {
+        return trends.stream().map(AssetTrend::getAssetId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,123 @@
+package com.google.moviestvsentiments.assetSentiment;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.google.moviestvsentiments.catalog.CatalogChangeEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+@DataJpaTest
+public class UserSentimentUpsertRepositoryTest {
+
+    private static final String ACCOUNT_NAME = "testAccount";
+    private static final String SELECT_SENTIMENT_TYPE = "SELECT sentiment_type FROM user_sentiment " +
+            "WHERE account_name = ? AND asset_id = ?";
+
+    @TestConfiguration
+    static class RecordedEvents {
+        private final List<CatalogChangeEvent> events = new ArrayList<>();
+
+        @EventListener
+        public void onCatalogChange(CatalogChangeEvent event) {
+            events.add(event);
+        }
+    }
+
+    @Autowired
+    private UserSentimentRepository userSentimentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private RecordedEvents recordedEvents;
+
+    @BeforeEach
+    public void insertStoredSentiment() {
+        recordedEvents.events.clear();
+        jdbcTemplate.update("INSERT INTO user_sentiment (asset_id, account_name, asset_type, sentiment_type, " +
+                "timestamp) VALUES (?, ?, ?, ?, ?)", "movie1", ACCOUNT_NAME, AssetType.MOVIE.ordinal(),
+                SentimentType.THUMBS_DOWN.ordinal(), Timestamp.from(Instant.ofEpochSecond(10)));
+    }
+
+    @Test
+    public void upsertAll_newAndLaterSentiments_writesBoth() {
+        List<UserSentiment> stored = userSentimentRepository.upsertAll(Arrays.asList(
+                sentiment("movie1", SentimentType.THUMBS_UP, 20), sentiment("movie2", SentimentType.THUMBS_UP, 5)));
+
+        assertThat(stored).extracting(UserSentiment::getSentimentType)
+                .containsExactly(SentimentType.THUMBS_UP, SentimentType.THUMBS_UP);
+        assertThat(sentimentType("movie1")).isEqualTo(SentimentType.THUMBS_UP.ordinal());
+        assertThat(sentimentType("movie2")).isEqualTo(SentimentType.THUMBS_UP.ordinal());
+    }
+
+    @Test
+    public void upsertAll_olderSentiment_keepsStoredSentiment() {
+        List<UserSentiment> stored = userSentimentRepository.upsertAll(Arrays.asList(
+                sentiment("movie1", SentimentType.THUMBS_UP, 5)));
+
+        assertThat(stored).containsExactly(sentiment("movie1", SentimentType.THUMBS_DOWN, 10));
+        assertThat(sentimentType("movie1")).isEqualTo(SentimentType.THUMBS_DOWN.ordinal());
+        assertThat(recordedEvents.events).isEmpty();
+    }
+
+    @Test
+    public void upsertAll_duplicateKeys_writesLatest() {
+        List<UserSentiment> stored = userSentimentRepository.upsertAll(Arrays.asList(
+                sentiment("movie2", SentimentType.THUMBS_UP, 30), sentiment("movie2", SentimentType.THUMBS_DOWN, 20)));
+
+        assertThat(stored).containsExactly(sentiment("movie2", SentimentType.THUMBS_UP, 30));
+        assertThat(sentimentType("movie2")).isEqualTo(SentimentType.THUMBS_UP.ordinal());
+    }
+
+    @Test
+    public void upsertAll_publishesEventsWithStoredValues() {
+        userSentimentRepository.upsertAll(Arrays.asList(sentiment("movie1", SentimentType.THUMBS_UP, 20)));
+
+        assertThat(recordedEvents.events).hasSize(1);
+        UserSentiment written = (UserSentiment) recordedEvents.events.get(0).getEntity();
+        assertThat(written.getSentimentType()).isEqualTo(SentimentType.THUMBS_UP);
+        assertThat(written.getStoredSentimentType()).isEqualTo(SentimentType.THUMBS_DOWN);
+        assertThat(written.getStoredTimestamp()).isEqualTo(Instant.ofEpochSecond(10));
+    }
+
+    @Test
+    public void upsertAll_oldClientTimestamp_isChangedSinceLaterWatermark() {
+        Instant watermark = Instant.ofEpochSecond(1000);
+
+        userSentimentRepository.upsertAll(Arrays.asList(sentiment("movie2", SentimentType.THUMBS_UP, 5)));
+
+        assertThat(userSentimentRepository.getSentimentsChangedSince(ACCOUNT_NAME, AssetType.MOVIE, watermark))
+                .extracting(UserSentiment::getAssetId).contains("movie2");
+    }
+
+    @Test
+    public void upsertAll_missingAccountName_throwsException() {
+        UserSentiment sentiment = sentiment("movie2", SentimentType.THUMBS_UP, 1);
+        sentiment.setAccountName(null);
+
+        assertThatThrownBy(() -> userSentimentRepository.upsertAll(Arrays.asList(sentiment)))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    private Integer sentimentType(String assetId) {
+        return jdbcTemplate.queryForObject(SELECT_SENTIMENT_TYPE, Integer.class, ACCOUNT_NAME, assetId);
+    }
+
+    private static UserSentiment sentiment(String assetId, SentimentType sentimentType, long epochSecond) {
+        return UserSentiment.create(ACCOUNT_NAME, assetId, AssetType.MOVIE, sentimentType,
+                Instant.ofEpochSecond(epochSecond));
+    }
+}
@@ -0,0 +1,162 @@
+package com.google.moviestvsentiments.recommendation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.moviestvsentiments.assetSentiment.AssetType;
+import com.google.moviestvsentiments.assetSentiment.SentimentType;
+import com.google.moviestvsentiments.assetSentiment.UserSentiment;
+import com.google.moviestvsentiments.assetSentiment.UserSentimentRepository;
+import com.google.moviestvsentiments.catalog.CatalogChangeEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+public class ItemRecommenderTest {
+
+    private UserSentimentRepository userSentimentRepository;
+    private List<Runnable> scheduledTasks;
+    private ItemRecommender recommender;
+
+    @BeforeEach
+    public void setUp() {
+        userSentimentRepository = mock(UserSentimentRepository.class);
+        scheduledTasks = new ArrayList<>();
+        recommender = new ItemRecommender(userSentimentRepository, 10, scheduledTasks::add);
+    }
+
+    @Test
+    public void score_itemsLikedByTheSameAccounts_areRecommended() {
+        when(userSentimentRepository.getReactions()).thenReturn(Arrays.asList(
+                sentiment("alice", "movie1", SentimentType.THUMBS_UP),
+                sentiment("alice", "movie2", SentimentType.THUMBS_UP),
+                sentiment("bob", "movie1", SentimentType.THUMBS_UP),
+                sentiment("bob", "movie2", SentimentType.THUMBS_UP),
+                sentiment("bob", "movie3", SentimentType.THUMBS_DOWN),
+                sentiment("carol", "movie1", SentimentType.THUMBS_UP)));
+        recommender.rebuild();
+
+        Map<String, Double> scores = recommender.score("carol", AssetType.MOVIE);
+
+        assertThat(scores).containsOnlyKeys("movie2");
+        assertThat(scores.get("movie2")).isCloseTo(2 / Math.sqrt(3 * 2), within(1e-6));
+    }
+
+    @Test
+    public void score_excludesRatedItemsAndOtherTypes() {
+        when(userSentimentRepository.getReactions()).thenReturn(Arrays.asList(
+                sentiment("alice", "movie1", SentimentType.THUMBS_UP),
+                sentiment("alice", "movie2", SentimentType.THUMBS_UP),
+                sentiment("alice", "show1", AssetType.SHOW, SentimentType.THUMBS_UP),
+                sentiment("bob", "movie1", SentimentType.THUMBS_UP),
+                sentiment("bob", "movie2", SentimentType.THUMBS_DOWN)));
+        recommender.rebuild();
+
+        assertThat(recommender.score("bob", AssetType.MOVIE)).isEmpty();
+        assertThat(recommender.score("bob", AssetType.SHOW)).isEmpty();
+        assertThat(recommender.score("unknown", AssetType.MOVIE)).isEmpty();
+    }
+
+    @Test
+    public void refresh_savedSentiment_addsRecommendation() {
+        List<UserSentiment> reactions = withFillers(sentiment("alice", "movie1", SentimentType.THUMBS_UP),
+                sentiment("bob", "movie1", SentimentType.THUMBS_UP));
+        when(userSentimentRepository.getReactions()).thenReturn(reactions);
+        recommender.rebuild();
+
+        recommender.onCatalogChange(CatalogChangeEvent.saved(sentiment("alice", "movie2", SentimentType.THUMBS_UP)));
+        recommender.refresh();
+
+        assertThat(recommender.score("bob", AssetType.MOVIE)).containsOnlyKeys("movie2");
+    }
+
+    @Test
+    public void refresh_removedSentiment_dropsRecommendation() {
+        UserSentiment liked = sentiment("alice", "movie2", SentimentType.THUMBS_UP);
+        List<UserSentiment> reactions = withFillers(sentiment("alice", "movie1", SentimentType.THUMBS_UP), liked,
+                sentiment("bob", "movie1", SentimentType.THUMBS_UP));
+        when(userSentimentRepository.getReactions()).thenReturn(reactions);
+        recommender.rebuild();
+
+        recommender.onCatalogChange(CatalogChangeEvent.deleted(liked));
+        recommender.refresh();
+
+        assertThat(recommender.score("bob", AssetType.MOVIE)).isEmpty();
+    }
+
+    @Test
+    public void rebuild_changeDuringLoad_isReplayedOntoNewMatrix() {
+        List<UserSentiment> reactions = withFillers(sentiment("alice", "movie1", SentimentType.THUMBS_UP),
+                sentiment("bob", "movie1", SentimentType.THUMBS_UP));
+        when(userSentimentRepository.getReactions()).thenAnswer(invocation -> {
+            recommender.onCatalogChange(CatalogChangeEvent.saved(
+                    sentiment("alice", "movie2", SentimentType.THUMBS_UP)));
+            return reactions;
+        });
+
+        recommender.rebuild();
+
+        assertThat(recommender.score("bob", AssetType.MOVIE)).containsOnlyKeys("movie2");
+    }
+
+    @Test
+    public void scheduleRefresh_refreshNotStarted_schedulesOnce() {
+        recommender.scheduleRefresh();
+        recommender.scheduleRefresh();
+
+        assertThat(scheduledTasks).hasSize(1);
+        scheduledTasks.get(0).run();
+        recommender.scheduleRefresh();
+        assertThat(scheduledTasks).hasSize(2);
+    }
+
+    @Test
+    public void rebuild_manyItems_matchesIncrementalRefresh() {
+        List<UserSentiment> reactions = new ArrayList<>();
+        for (int account = 0; account < 50; account++) {
+            for (int i = 0; i < 10; i++) {
+                int movie = (account * 7 + i * 13) % 300;
+                reactions.add(sentiment("account" + account, "movie" + movie,
+                        (account + movie) % 3 == 0 ? SentimentType.THUMBS_DOWN : SentimentType.THUMBS_UP));
+            }
+        }
+        when(userSentimentRepository.getReactions()).thenReturn(reactions);
+        recommender.rebuild();
+        Map<String, Double> rebuilt = recommender.score("account0", AssetType.MOVIE);
+
+        ItemRecommender incremental = new ItemRecommender(userSentimentRepository, 10, Runnable::run);
+        incremental.rebuild();
+        incremental.onCatalogChange(CatalogChangeEvent.saved(reactions.get(0)));
+        incremental.refresh();
+
+        assertThat(rebuilt).isNotEmpty();
+        assertThat(incremental.score("account0", AssetType.MOVIE)).isEqualTo(rebuilt);
+    }
+
+    /**
+     * Returns the given sentiments followed by unrelated ones, so that a single change is refreshed incrementally
+     * instead of by a full rebuild.
+     */
+    private static List<UserSentiment> withFillers(UserSentiment... sentiments) {
+        List<UserSentiment> reactions = new ArrayList<>(Arrays.asList(sentiments));
+        for (int i = 0; i < 20; i++) {
+            reactions.add(sentiment("other" + i, "filler" + i, SentimentType.THUMBS_UP));
+        }
+        return reactions;
+    }
+
+    private static UserSentiment sentiment(String accountName, String assetId, SentimentType sentimentType) {
+        return sentiment(accountName, assetId, AssetType.MOVIE, sentimentType);
+    }
+
+    private static UserSentiment sentiment(String accountName, String assetId, AssetType assetType,
+                                           SentimentType sentimentType) {
+        return UserSentiment.create(accountName, assetId, assetType, sentimentType, Instant.EPOCH);
+    }
+}
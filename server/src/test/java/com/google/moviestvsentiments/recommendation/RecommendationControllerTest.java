@@ -0,0 +1,66 @@
+package com.google.moviestvsentiments.recommendation;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.google.moviestvsentiments.AssetUtil;
+import com.google.moviestvsentiments.assetSentiment.Asset;
+import com.google.moviestvsentiments.assetSentiment.AssetCatalog;
+import com.google.moviestvsentiments.assetSentiment.AssetSentiment;
+import com.google.moviestvsentiments.assetSentiment.AssetType;
+import com.google.moviestvsentiments.assetSentiment.SentimentType;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class RecommendationControllerTest {
+
+    private static final String ACCOUNT_NAME = "testAccount";
+    private static final Asset MOVIE_1 = AssetUtil.createAsset("movie1", AssetType.MOVIE, "Movie 1");
+    private static final Asset MOVIE_2 = AssetUtil.createAsset("movie2", AssetType.MOVIE, "Movie 2");
+    private static final Asset MOVIE_3 = AssetUtil.createAsset("movie3", AssetType.MOVIE, "Movie 3");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private AssetCatalog assetCatalog;
+
+    @MockBean
+    private ItemRecommender itemRecommender;
+
+    @Test
+    public void getRecommendations_ordersUnreactedAssetsByScore() throws Exception {
+        when(assetCatalog.getAssets(AssetType.MOVIE, ACCOUNT_NAME, SentimentType.UNSPECIFIED)).thenReturn(
+                new ArrayList<>(Arrays.asList(new AssetSentiment(MOVIE_1), new AssetSentiment(MOVIE_2),
+                        new AssetSentiment(MOVIE_3))));
+        Map<String, Double> scores = new HashMap<>();
+        scores.put("movie2", 0.5);
+        scores.put("movie3", 1.5);
+        when(itemRecommender.score(ACCOUNT_NAME, AssetType.MOVIE)).thenReturn(scores);
+
+        mockMvc.perform(get("/recommendations?assetType=MOVIE&accountName=" + ACCOUNT_NAME + "&limit=2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()", equalTo(2)))
+                .andExpect(jsonPath("$[0].asset.assetId", equalTo("movie3")))
+                .andExpect(jsonPath("$[1].asset.assetId", equalTo("movie2")));
+    }
+
+    @Test
+    public void getRecommendations_invalidLimit_returnsBadRequest() throws Exception {
+        mockMvc.perform(get("/recommendations?assetType=MOVIE&accountName=" + ACCOUNT_NAME + "&limit=0"))
+                .andExpect(status().isBadRequest());
+    }
+}
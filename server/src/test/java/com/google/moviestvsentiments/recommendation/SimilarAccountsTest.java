@@ -0,0 +1,147 @@
+package com.google.moviestvsentiments.recommendation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.moviestvsentiments.assetSentiment.AssetType;
+import com.google.moviestvsentiments.assetSentiment.SentimentType;
+import com.google.moviestvsentiments.assetSentiment.UserSentiment;
+import com.google.moviestvsentiments.assetSentiment.UserSentimentRepository;
+import com.google.moviestvsentiments.catalog.CatalogChangeEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class SimilarAccountsTest {
+
+    private static final int MAX_CANDIDATES_PER_BUCKET = 1000;
+
+    private UserSentimentRepository userSentimentRepository;
+    private SimilarAccounts similarAccounts;
+
+    @BeforeEach
+    public void setUp() {
+        userSentimentRepository = mock(UserSentimentRepository.class);
+        similarAccounts = new SimilarAccounts(userSentimentRepository, MAX_CANDIDATES_PER_BUCKET);
+    }
+
+    @Test
+    public void getSimilar_ranksAccountsByOverlap() {
+        List<UserSentiment> reactions = new ArrayList<>();
+        reactions.addAll(likes("alice", 0, 100));
+        reactions.addAll(likes("bob", 5, 105));
+        reactions.addAll(likes("carol", 10, 110));
+        reactions.addAll(likes("dave", 500, 600));
+        when(userSentimentRepository.getReactions()).thenReturn(reactions);
+        similarAccounts.rebuild();
+
+        List<SimilarAccount> similar = similarAccounts.getSimilar("alice", 10);
+
+        assertThat(accountNames(similar)).containsExactly("bob", "carol");
+        // The true Jaccard similarities are 95/105 and 90/110.
+        assertThat(similar.get(0).getSimilarity()).isCloseTo(95.0 / 105, within(0.15));
+        assertThat(similar.get(1).getSimilarity()).isCloseTo(90.0 / 110, within(0.15));
+    }
+
+    @Test
+    public void getSimilar_ignoresThumbsDown() {
+        List<UserSentiment> reactions = new ArrayList<>(likes("alice", 0, 20));
+        for (int i = 0; i < 20; i++) {
+            reactions.add(sentiment("bob", "movie" + i, SentimentType.THUMBS_DOWN));
+        }
+        when(userSentimentRepository.getReactions()).thenReturn(reactions);
+        similarAccounts.rebuild();
+
+        assertThat(similarAccounts.getSimilar("alice", 10)).isEmpty();
+        assertThat(similarAccounts.getSimilar("bob", 10)).isEmpty();
+    }
+
+    @Test
+    public void getSimilar_crowdedBuckets_capsCandidatesPerBucket() {
+        SimilarAccounts capped = new SimilarAccounts(userSentimentRepository, 2);
+        List<UserSentiment> reactions = new ArrayList<>(likes("alice", 0, 10));
+        for (int account = 0; account < 100; account++) {
+            reactions.addAll(likes("account" + account, 0, 10));
+        }
+        when(userSentimentRepository.getReactions()).thenReturn(reactions);
+        capped.rebuild();
+
+        List<SimilarAccount> similar = capped.getSimilar("alice", 200);
+
+        assertThat(similar).isNotEmpty().hasSizeLessThanOrEqualTo(2 * MinHash.BANDS);
+        assertThat(accountNames(similar)).doesNotContain("alice");
+    }
+
+    @Test
+    public void onCatalogChange_savedLikes_matchRebuild() {
+        List<UserSentiment> reactions = new ArrayList<>();
+        reactions.addAll(likes("alice", 0, 50));
+        reactions.addAll(likes("bob", 5, 55));
+        reactions.forEach(sentiment -> similarAccounts.onCatalogChange(CatalogChangeEvent.saved(sentiment)));
+        SimilarAccounts rebuilt = new SimilarAccounts(userSentimentRepository, MAX_CANDIDATES_PER_BUCKET);
+        when(userSentimentRepository.getReactions()).thenReturn(reactions);
+        rebuilt.rebuild();
+
+        List<SimilarAccount> similar = similarAccounts.getSimilar("alice", 10);
+        assertThat(accountNames(similar)).containsExactly("bob");
+        assertThat(similar.get(0).getSimilarity())
+                .isEqualTo(rebuilt.getSimilar("alice", 10).get(0).getSimilarity());
+    }
+
+    @Test
+    public void onCatalogChange_unlikedAssets_removeAccount() {
+        List<UserSentiment> aliceLikes = likes("alice", 0, 10);
+        aliceLikes.forEach(sentiment -> similarAccounts.onCatalogChange(CatalogChangeEvent.saved(sentiment)));
+        likes("bob", 0, 10).forEach(sentiment -> similarAccounts.onCatalogChange(CatalogChangeEvent.saved(sentiment)));
+        assertThat(accountNames(similarAccounts.getSimilar("bob", 10))).containsExactly("alice");
+
+        for (UserSentiment like : aliceLikes) {
+            similarAccounts.onCatalogChange(CatalogChangeEvent.saved(sentiment("alice", like.getAssetId(),
+                    SentimentType.THUMBS_DOWN)));
+        }
+
+        assertThat(similarAccounts.getSimilar("bob", 10)).isEmpty();
+        assertThat(similarAccounts.getSimilar("alice", 10)).isEmpty();
+    }
+
+    @Test
+    public void rebuild_duringLoad_servesPreviousIndexAndReplaysChanges() {
+        List<UserSentiment> reactions = new ArrayList<>(likes("alice", 0, 10));
+        reactions.addAll(likes("bob", 0, 10));
+        reactions.forEach(sentiment -> similarAccounts.onCatalogChange(CatalogChangeEvent.saved(sentiment)));
+        List<List<String>> similarDuringLoad = new ArrayList<>();
+        when(userSentimentRepository.getReactions()).thenAnswer(invocation -> {
+            similarDuringLoad.add(accountNames(similarAccounts.getSimilar("bob", 10)));
+            likes("carol", 0, 10).forEach(sentiment ->
+                    similarAccounts.onCatalogChange(CatalogChangeEvent.saved(sentiment)));
+            return likes("alice", 0, 10);
+        });
+
+        similarAccounts.rebuild();
+
+        assertThat(similarDuringLoad).containsExactly(Arrays.asList("alice"));
+        assertThat(accountNames(similarAccounts.getSimilar("alice", 10))).containsExactly("carol");
+    }
+
+    private static List<UserSentiment> likes(String accountName, int fromMovie, int toMovie) {
+        List<UserSentiment> likes = new ArrayList<>();
+        for (int movie = fromMovie; movie < toMovie; movie++) {
+            likes.add(sentiment(accountName, "movie" + movie, SentimentType.THUMBS_UP));
+        }
+        return likes;
+    }
+
+    private static UserSentiment sentiment(String accountName, String assetId, SentimentType sentimentType) {
+        return UserSentiment.create(accountName, assetId, AssetType.MOVIE, sentimentType, Instant.EPOCH);
+    }
+
+    private static List<String> accountNames(List<SimilarAccount> similar) {
+        return similar.stream().map(SimilarAccount::getAccountName).collect(Collectors.toList());
+    }
+}
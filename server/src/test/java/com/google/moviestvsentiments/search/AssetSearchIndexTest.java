@@ -0,0 +1,87 @@
+package com.google.moviestvsentiments.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.google.moviestvsentiments.AssetUtil;
+import com.google.moviestvsentiments.assetSentiment.Asset;
+import com.google.moviestvsentiments.assetSentiment.AssetCatalogRebuiltEvent;
+import com.google.moviestvsentiments.assetSentiment.AssetType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class AssetSearchIndexTest {
+
+    private AssetSearchIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        index = new AssetSearchIndex();
+        index.onCatalogRebuilt(new AssetCatalogRebuiltEvent(Arrays.asList(
+                asset("tt1", AssetType.MOVIE, "The Dark Knight", "Batman fights the Joker in Gotham."),
+                asset("tt2", AssetType.MOVIE, "Batman Begins", "Bruce Wayne becomes Batman."),
+                asset("tt3", AssetType.MOVIE, "Am\u00e9lie", "A shy waitress in Paris."),
+                asset("tt4", AssetType.SHOW, "Gotham", "A young detective in Gotham before Batman.")),
+                Collections.emptyList()));
+    }
+
+    @Test
+    public void search_ranksTitleMatchesFirst() {
+        // tt4 and tt1 both mention the term once in their plot, and the shorter tt4 ranks higher.
+        assertThat(assetIds(index.search("batman", null, 10))).containsExactly("tt2", "tt4", "tt1");
+    }
+
+    @Test
+    public void search_assetType_filtersResults() {
+        assertThat(assetIds(index.search("gotham", AssetType.MOVIE, 10))).containsExactly("tt1");
+    }
+
+    @Test
+    public void search_ignoresCaseAndAccents() {
+        assertThat(assetIds(index.search("AMELIE", null, 10))).containsExactly("tt3");
+    }
+
+    @Test
+    public void search_moreMatchingTerms_rankHigher() {
+        assertThat(assetIds(index.search("joker batman", null, 1))).containsExactly("tt1");
+    }
+
+    @Test
+    public void onCatalogRebuilt_updatedAndRemovedAssets_updateResults() {
+        index.onCatalogRebuilt(new AssetCatalogRebuiltEvent(
+                Arrays.asList(asset("tt3", AssetType.MOVIE, "Am\u00e9lie", "A waitress in Montmartre.")),
+                Arrays.asList(asset("tt2", AssetType.MOVIE, "Batman Begins", null))));
+
+        assertThat(assetIds(index.search("paris", null, 10))).isEmpty();
+        assertThat(assetIds(index.search("montmartre", null, 10))).containsExactly("tt3");
+        assertThat(assetIds(index.search("batman", null, 10))).containsExactly("tt4", "tt1");
+    }
+
+    @Test
+    public void onCatalogRebuilt_manyUpdates_compactsWithoutChangingResults() {
+        for (int i = 0; i < 5; i++) {
+            List<Asset> updated = new ArrayList<>();
+            updated.add(asset("tt1", AssetType.MOVIE, "The Dark Knight", "Batman fights the Joker in Gotham."));
+            updated.add(asset("tt2", AssetType.MOVIE, "Batman Begins", "Bruce Wayne becomes Batman."));
+            index.onCatalogRebuilt(new AssetCatalogRebuiltEvent(updated, Collections.emptyList()));
+        }
+
+        assertThat(assetIds(index.search("batman", null, 10))).containsExactly("tt2", "tt4", "tt1");
+    }
+
+    private static Asset asset(String assetId, AssetType assetType, String title, String plot) {
+        Asset asset = AssetUtil.createAsset(assetId, assetType, title);
+        asset.setPlot(plot);
+        asset.setTimestamp(Instant.EPOCH);
+        return asset;
+    }
+
+    private static List<String> assetIds(List<SearchResult> results) {
+        return results.stream().map(result -> result.getAsset().getAssetId()).collect(Collectors.toList());
+    }
+}
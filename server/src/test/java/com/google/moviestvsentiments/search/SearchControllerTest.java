@@ -0,0 +1,70 @@
+package com.google.moviestvsentiments.search;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.google.moviestvsentiments.AssetUtil;
+import com.google.moviestvsentiments.assetSentiment.AssetSummary;
+import com.google.moviestvsentiments.assetSentiment.AssetType;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+import java.util.Arrays;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class SearchControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private AssetSearchIndex assetSearchIndex;
+
+    @MockBean
+    private TitleSuggester titleSuggester;
+
+    @Test
+    public void search_returnsResults() throws Exception {
+        AssetSummary summary = AssetSummary.of(AssetUtil.createAsset("tt1", AssetType.MOVIE, "The Dark Knight"));
+        when(assetSearchIndex.search("dark knight", AssetType.MOVIE, 20)).thenReturn(Arrays.asList(
+                new SearchResult(summary, 2.5)));
+
+        mockMvc.perform(get("/assets/search?q=dark knight&assetType=MOVIE"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].asset.assetId", equalTo("tt1")))
+                .andExpect(jsonPath("$[0].score", equalTo(2.5)));
+    }
+
+    @Test
+    public void search_noTerms_returnsBadRequest() throws Exception {
+        mockMvc.perform(get("/assets/search?q=!!"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(assetSearchIndex);
+    }
+
+    @Test
+    public void suggest_returnsSuggestions() throws Exception {
+        AssetSummary summary = AssetSummary.of(AssetUtil.createAsset("tt1", AssetType.MOVIE, "The Dark Knight"));
+        when(titleSuggester.suggest("dark k", 10)).thenReturn(Arrays.asList(summary));
+
+        mockMvc.perform(get("/assets/suggest?prefix=dark k"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].assetId", equalTo("tt1")))
+                .andExpect(jsonPath("$[0].title", equalTo("The Dark Knight")));
+    }
+
+    @Test
+    public void suggest_invalidLimit_returnsBadRequest() throws Exception {
+        mockMvc.perform(get("/assets/suggest?prefix=dark&limit=11"))
+                .andExpect(status().isBadRequest());
+    }
+}
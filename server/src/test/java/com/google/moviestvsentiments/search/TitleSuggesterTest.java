@@ -0,0 +1,86 @@
+package com.google.moviestvsentiments.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.google.moviestvsentiments.AssetUtil;
+import com.google.moviestvsentiments.assetSentiment.Asset;
+import com.google.moviestvsentiments.assetSentiment.AssetCatalogRebuiltEvent;
+import com.google.moviestvsentiments.assetSentiment.AssetSummary;
+import com.google.moviestvsentiments.assetSentiment.AssetType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+
+public class TitleSuggesterTest {
+
+    private final List<Runnable> scheduled = new ArrayList<>();
+    private TitleSuggester suggester;
+
+    @BeforeEach
+    public void setUp() {
+        Executor executor = scheduled::add;
+        suggester = new TitleSuggester(executor);
+        suggester.onCatalogRebuilt(new AssetCatalogRebuiltEvent(Arrays.asList(
+                asset("tt1", "The Dark Knight", "9.0"),
+                asset("tt2", "The Dark Knight Rises", "8.4"),
+                asset("tt3", "Dark", "8.8"),
+                asset("tt4", "The Darjeeling Limited", "N/A")),
+                Collections.emptyList()));
+        runScheduled();
+    }
+
+    @Test
+    public void suggest_ranksByRating() {
+        assertThat(assetIds(suggester.suggest("dar", 10))).containsExactly("tt1", "tt3", "tt2", "tt4");
+        assertThat(assetIds(suggester.suggest("dark", 2))).containsExactly("tt1", "tt3");
+    }
+
+    @Test
+    public void suggest_matchesLaterWordsAndIgnoresCase() {
+        assertThat(assetIds(suggester.suggest("KNIGHT R", 10))).containsExactly("tt2");
+        assertThat(assetIds(suggester.suggest("the dark", 10))).containsExactly("tt1", "tt2");
+    }
+
+    @Test
+    public void suggest_noMatch_returnsEmptyList() {
+        assertThat(suggester.suggest("batman", 10)).isEmpty();
+        assertThat(suggester.suggest("  ", 10)).isEmpty();
+    }
+
+    @Test
+    public void onCatalogRebuilt_servesPreviousTrieUntilRebuilt() {
+        suggester.onCatalogRebuilt(new AssetCatalogRebuiltEvent(Arrays.asList(asset("tt5", "Batman Begins", "8.2")),
+                Arrays.asList(asset("tt3", "Dark", "8.8"))));
+        suggester.onCatalogRebuilt(new AssetCatalogRebuiltEvent(Arrays.asList(asset("tt6", "Batman", "7.5")),
+                Collections.emptyList()));
+
+        assertThat(suggester.suggest("batman", 10)).isEmpty();
+        assertThat(scheduled).hasSize(1);
+
+        runScheduled();
+
+        assertThat(assetIds(suggester.suggest("batman", 10))).containsExactly("tt5", "tt6");
+        assertThat(assetIds(suggester.suggest("dark", 10))).containsExactly("tt1", "tt2");
+    }
+
+    private void runScheduled() {
+        List<Runnable> tasks = new ArrayList<>(scheduled);
+        scheduled.clear();
+        tasks.forEach(Runnable::run);
+    }
+
+    private static Asset asset(String assetId, String title, String imdbRating) {
+        Asset asset = AssetUtil.createAsset(assetId, AssetType.MOVIE, title);
+        asset.setImdbRating(imdbRating);
+        return asset;
+    }
+
+    private static List<String> assetIds(List<AssetSummary> summaries) {
+        return summaries.stream().map(AssetSummary::getAssetId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,122 @@
+package com.google.moviestvsentiments.web;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import javax.servlet.DispatcherType;
+
+public class AdmissionControlInterceptorTest {
+
+    private long now;
+    private AdmissionControlInterceptor interceptor;
+
+    @BeforeEach
+    public void setUp() {
+        now = 0;
+        interceptor = new AdmissionControlInterceptor(new TokenBuckets(1, 1, 10), new TokenBuckets(1, 1, 10),
+                new TokenBuckets(1, 2, 1), new TokenBuckets(1, 2, 1), "", () -> now, new SimpleMeterRegistry());
+    }
+
+    @Test
+    public void preHandle_withinBudget_admitsRequest() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertThat(interceptor.preHandle(request("PUT", "10.0.0.1", "account1"), response, null)).isTrue();
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+    }
+
+    @Test
+    public void preHandle_callerOverBudget_returnsTooManyRequestsWithRetryAfter() throws Exception {
+        interceptor.preHandle(request("PUT", "10.0.0.1", "account1"), new MockHttpServletResponse(), null);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertThat(interceptor.preHandle(request("PUT", "10.0.0.1", "account1"), response, null)).isFalse();
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+        assertThat(response.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+    }
+
+    @Test
+    public void preHandle_writesOverBudget_admitsReads() throws Exception {
+        interceptor.preHandle(request("PUT", "10.0.0.1", "account1"), new MockHttpServletResponse(), null);
+
+        assertThat(interceptor.preHandle(request("PUT", "10.0.0.1", "account1"), new MockHttpServletResponse(), null))
+                .isFalse();
+        assertThat(interceptor.preHandle(request("GET", "10.0.0.1", "account1"), new MockHttpServletResponse(), null))
+                .isTrue();
+    }
+
+    @Test
+    public void preHandle_globalOverBudget_rejectsOtherCallers() throws Exception {
+        interceptor.preHandle(request("GET", "10.0.0.1", "account1"), new MockHttpServletResponse(), null);
+        interceptor.preHandle(request("GET", "10.0.0.2", "account2"), new MockHttpServletResponse(), null);
+
+        assertThat(interceptor.preHandle(request("GET", "10.0.0.3", "account3"), new MockHttpServletResponse(), null))
+                .isFalse();
+    }
+
+    @Test
+    public void preHandle_otherAccountName_usesAddressBucket() throws Exception {
+        interceptor.preHandle(request("PUT", "10.0.0.1", "account1"), new MockHttpServletResponse(), null);
+
+        assertThat(interceptor.preHandle(request("PUT", "10.0.0.1", "account2"), new MockHttpServletResponse(), null))
+                .isFalse();
+    }
+
+    @Test
+    public void preHandle_sameAccountNameFromOtherAddress_usesOwnBucket() throws Exception {
+        interceptor.preHandle(request("PUT", "10.0.0.1", "account1"), new MockHttpServletResponse(), null);
+
+        assertThat(interceptor.preHandle(request("PUT", "10.0.0.2", "account1"), new MockHttpServletResponse(), null))
+                .isTrue();
+    }
+
+    @Test
+    public void preHandle_asyncDispatch_admitsWithoutTakingToken() throws Exception {
+        MockHttpServletRequest asyncDispatch = request("GET", "10.0.0.1", "account1");
+        asyncDispatch.setDispatcherType(DispatcherType.ASYNC);
+        interceptor.preHandle(request("GET", "10.0.0.1", "account1"), new MockHttpServletResponse(), null);
+
+        assertThat(interceptor.preHandle(asyncDispatch, new MockHttpServletResponse(), null)).isTrue();
+        assertThat(interceptor.preHandle(request("GET", "10.0.0.2", "account2"), new MockHttpServletResponse(), null))
+                .isTrue();
+    }
+
+    @Test
+    public void preHandle_callerHeader_usesLastForwardedAddress() throws Exception {
+        interceptor = new AdmissionControlInterceptor(new TokenBuckets(1, 1, 10), new TokenBuckets(1, 1, 10),
+                new TokenBuckets(1, 10, 1), new TokenBuckets(1, 10, 1), "X-Forwarded-For", () -> now,
+                new SimpleMeterRegistry());
+        MockHttpServletRequest first = request("PUT", "10.0.0.100", "account1");
+        first.addHeader("X-Forwarded-For", "1.2.3.4, 192.0.2.1");
+        MockHttpServletRequest spoofed = request("PUT", "10.0.0.100", "account1");
+        spoofed.addHeader("X-Forwarded-For", "5.6.7.8, 192.0.2.1");
+        MockHttpServletRequest other = request("PUT", "10.0.0.100", "account1");
+        other.addHeader("X-Forwarded-For", "192.0.2.2");
+        interceptor.preHandle(first, new MockHttpServletResponse(), null);
+
+        assertThat(interceptor.preHandle(spoofed, new MockHttpServletResponse(), null)).isFalse();
+        assertThat(interceptor.preHandle(other, new MockHttpServletResponse(), null)).isTrue();
+    }
+
+    @Test
+    public void preHandle_afterRefill_admitsCaller() throws Exception {
+        interceptor.preHandle(request("PUT", "10.0.0.1", "account1"), new MockHttpServletResponse(), null);
+        now = 1_000_000_000L;
+
+        assertThat(interceptor.preHandle(request("PUT", "10.0.0.1", "account1"), new MockHttpServletResponse(), null))
+                .isTrue();
+    }
+
+    private static MockHttpServletRequest request(String method, String remoteAddress, String accountName) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, "/sentiment");
+        request.setRemoteAddr(remoteAddress);
+        request.setParameter("accountName", accountName);
+        return request;
+    }
+}
@@ -0,0 +1,145 @@
+package com.google.moviestvsentiments.web;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.google.moviestvsentiments.account.Account;
+import com.google.moviestvsentiments.account.AccountRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class ContentNegotiationTest {
+
+    private static final MediaType SMILE = MediaType.valueOf("application/x-jackson-smile");
+    private static final Account ACCOUNT = Account.create("Test Name", Instant.ofEpochSecond(1));
+    private static final String ACCOUNT_LIST_JSON = "[ { \"name\": \"Test Name\", \"timestamp\": 1 } ]";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private AccountRepository accountRepository;
+
+    @Test
+    public void getAccounts_acceptSmile_returnsSmile() throws Exception {
+        when(accountRepository.findAll(any(Sort.class))).thenReturn(Arrays.asList(ACCOUNT));
+
+        byte[] body = mockMvc.perform(get("/accounts").accept(SMILE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(SMILE))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        JsonNode accounts = new ObjectMapper(new SmileFactory()).readTree(body);
+        assertThat(accounts.get(0).get("name").asText()).isEqualTo(ACCOUNT.getName());
+        assertThat(accounts.get(0).get("timestamp").asText()).isEqualTo(ACCOUNT.getTimestamp().toString());
+    }
+
+    @Test
+    public void getAccounts_noAccept_returnsJson() throws Exception {
+        when(accountRepository.findAll(any(Sort.class))).thenReturn(Collections.emptyList());
+
+        mockMvc.perform(get("/accounts"))
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+    }
+
+    @Test
+    public void streamAccounts_acceptSmile_streamsSmile() throws Exception {
+        when(accountRepository.streamAllByName()).thenReturn(Stream.of(ACCOUNT));
+
+        MvcResult result = mockMvc.perform(get("/accounts?stream=true").accept(SMILE))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        byte[] body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(SMILE))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        JsonNode accounts = new ObjectMapper(new SmileFactory()).readTree(body);
+        assertThat(accounts.get(0).get("name").asText()).isEqualTo(ACCOUNT.getName());
+    }
+
+    @Test
+    public void streamAccounts_acceptCborOverJson_streamsCbor() throws Exception {
+        when(accountRepository.streamAllByName()).thenReturn(Stream.of(ACCOUNT));
+
+        MvcResult result = mockMvc.perform(get("/accounts?stream=true")
+                .header(HttpHeaders.ACCEPT, "application/json;q=0.5, application/cbor"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        byte[] body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        JsonNode accounts = new ObjectMapper(new CBORFactory()).readTree(body);
+        assertThat(accounts.get(0).get("name").asText()).isEqualTo(ACCOUNT.getName());
+    }
+
+    @Test
+    public void streamAccounts_acceptUnsupported_returnsNotAcceptable() throws Exception {
+        mockMvc.perform(get("/accounts?stream=true").accept(MediaType.TEXT_PLAIN))
+                .andExpect(status().isNotAcceptable());
+
+        verify(accountRepository, never()).streamAllByName();
+    }
+
+    @Test
+    public void addAccounts_gzipBody_isDecompressed() throws Exception {
+        when(accountRepository.saveAll(any(Iterable.class))).thenReturn(Arrays.asList(ACCOUNT));
+
+        mockMvc.perform(post("/accounts").contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.CONTENT_ENCODING, "gzip").content(gzip(ACCOUNT_LIST_JSON)))
+                .andExpect(status().isOk());
+
+        verify(accountRepository).saveAll(Arrays.asList(ACCOUNT));
+    }
+
+    @Test
+    public void addAccounts_smileBody_isParsed() throws Exception {
+        when(accountRepository.saveAll(any(Iterable.class))).thenReturn(Arrays.asList(ACCOUNT));
+        byte[] body = new ObjectMapper(new SmileFactory()).writeValueAsBytes(
+                new ObjectMapper().readTree(ACCOUNT_LIST_JSON));
+
+        mockMvc.perform(post("/accounts").contentType(SMILE).content(body))
+                .andExpect(status().isOk());
+
+        verify(accountRepository).saveAll(Arrays.asList(ACCOUNT));
+    }
+
+    private static byte[] gzip(String content) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzipStream = new GZIPOutputStream(bytes)) {
+            gzipStream.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,97 @@
+package com.google.moviestvsentiments.web;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.StreamUtils;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+public class GzipRequestFilterTest {
+
+    private static final String BODY = "[ { \"name\": \"Test Name\", \"timestamp\": 1 } ]";
+
+    @Test
+    public void doFilter_gzipBody_passesInflatedBody() throws Exception {
+        MockFilterChain chain = new MockFilterChain();
+
+        new GzipRequestFilter(1024).doFilter(gzipRequest(BODY), new MockHttpServletResponse(), chain);
+
+        ServletInputStream body = chain.getRequest().getInputStream();
+        assertThat(StreamUtils.copyToString(body, StandardCharsets.UTF_8)).isEqualTo(BODY);
+        assertThat(chain.getRequest().getContentLength()).isEqualTo(BODY.length());
+        assertThat(((HttpServletRequest) chain.getRequest()).getHeader(HttpHeaders.CONTENT_ENCODING)).isNull();
+    }
+
+    @Test
+    public void doFilter_bodyOverMax_returnsPayloadTooLarge() throws Exception {
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        new GzipRequestFilter(BODY.length() - 1).doFilter(gzipRequest(BODY), response, chain);
+
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.PAYLOAD_TOO_LARGE.value());
+        assertThat(chain.getRequest()).isNull();
+    }
+
+    @Test
+    public void doFilter_invalidGzip_returnsBadRequest() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/accounts");
+        request.addHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        request.setContent(BODY.getBytes(StandardCharsets.UTF_8));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        new GzipRequestFilter(1024).doFilter(request, response, new MockFilterChain());
+
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.BAD_REQUEST.value());
+    }
+
+    @Test
+    public void setReadListener_notifiesListenerOfWholeBody() throws Exception {
+        MockFilterChain chain = new MockFilterChain();
+        new GzipRequestFilter(1024).doFilter(gzipRequest(BODY), new MockHttpServletResponse(), chain);
+        ServletInputStream body = chain.getRequest().getInputStream();
+        List<String> calls = new ArrayList<>();
+
+        body.setReadListener(new ReadListener() {
+            @Override
+            public void onDataAvailable() {
+                calls.add("onDataAvailable");
+            }
+
+            @Override
+            public void onAllDataRead() {
+                calls.add("onAllDataRead");
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                calls.add("onError");
+            }
+        });
+
+        assertThat(calls).containsExactly("onDataAvailable", "onAllDataRead");
+    }
+
+    private static MockHttpServletRequest gzipRequest(String body) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzipStream = new GZIPOutputStream(bytes)) {
+            gzipStream.write(body.getBytes(StandardCharsets.UTF_8));
+        }
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/accounts");
+        request.addHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        request.setContent(bytes.toByteArray());
+        return request;
+    }
+}
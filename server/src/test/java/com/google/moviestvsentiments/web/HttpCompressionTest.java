@@ -0,0 +1,60 @@
+package com.google.moviestvsentiments.web;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.moviestvsentiments.account.Account;
+import com.google.moviestvsentiments.account.AccountRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Checks response compression against the embedded server, since MockMvc bypasses the compression of the connector.
+ * HttpURLConnection is used because it does not decompress responses itself.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class HttpCompressionTest {
+
+    private static final int ACCOUNT_COUNT = 100;
+
+    @LocalServerPort
+    private int port;
+
+    @MockBean
+    private AccountRepository accountRepository;
+
+    @Test
+    public void getAccounts_acceptGzip_returnsCompressedResponseWithWeakETag() throws Exception {
+        List<Account> accounts = new ArrayList<>();
+        for (int i = 0; i < ACCOUNT_COUNT; i++) {
+            accounts.add(Account.create("Account " + i, Instant.ofEpochSecond(i)));
+        }
+        when(accountRepository.findAll(any(Sort.class))).thenReturn(accounts);
+
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + port + "/accounts")
+                .openConnection();
+        connection.setRequestProperty(HttpHeaders.ACCEPT_ENCODING, "gzip");
+
+        assertThat(connection.getResponseCode()).isEqualTo(200);
+        assertThat(connection.getHeaderField(HttpHeaders.ETAG)).startsWith("W/\"");
+        assertThat(connection.getHeaderField(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        try (InputStream body = new GZIPInputStream(connection.getInputStream())) {
+            JsonNode accountList = new ObjectMapper().readTree(body);
+            assertThat(accountList.size()).isEqualTo(ACCOUNT_COUNT);
+        }
+    }
+}
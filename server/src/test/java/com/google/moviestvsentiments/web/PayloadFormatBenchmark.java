@@ -0,0 +1,94 @@
+package com.google.moviestvsentiments.web;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.google.moviestvsentiments.AssetUtil;
+import com.google.moviestvsentiments.BenchmarkUtil;
+import com.google.moviestvsentiments.assetSentiment.Asset;
+import com.google.moviestvsentiments.assetSentiment.AssetSentiment;
+import com.google.moviestvsentiments.assetSentiment.AssetType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compares the payload size and client parse time of a 10k asset /assets response encoded as JSON, Smile and CBOR,
+ * each with and without gzip. Parsing reads generic maps, as the server's entity classes are not deserializable in
+ * the same way as the client's models. Run with ./gradlew test -Dbenchmark=true --tests '*Benchmark'
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class PayloadFormatBenchmark {
+
+    private static final int ASSET_COUNT = 10_000;
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int MEASURED_ITERATIONS = 20;
+    private static final TypeReference<List<Map<String, Object>>> ASSET_LIST =
+            new TypeReference<List<Map<String, Object>>>() {};
+
+    private final Logger logger = LoggerFactory.getLogger(PayloadFormatBenchmark.class);
+
+    @Test
+    public void assetList_payloadSizeAndParseTime() throws Exception {
+        List<AssetSentiment> assets = createAssets();
+        ObjectMapper[] mappers = {
+                Jackson2ObjectMapperBuilder.json().build(),
+                Jackson2ObjectMapperBuilder.smile().build(),
+                Jackson2ObjectMapperBuilder.cbor().build()
+        };
+        String[] names = {"JSON", "Smile", "CBOR"};
+
+        for (int i = 0; i < mappers.length; i++) {
+            ObjectMapper mapper = mappers[i];
+            byte[] plain = mapper.writeValueAsBytes(assets);
+            byte[] compressed = gzip(plain);
+            assertThat(mapper.readValue(plain, ASSET_LIST)).hasSize(ASSET_COUNT);
+
+            long plainNanos = BenchmarkUtil.meanNanos(WARMUP_ITERATIONS, MEASURED_ITERATIONS,
+                    () -> mapper.readValue(plain, ASSET_LIST));
+            long compressedNanos = BenchmarkUtil.meanNanos(WARMUP_ITERATIONS, MEASURED_ITERATIONS,
+                    () -> mapper.readValue(new GZIPInputStream(new ByteArrayInputStream(compressed)), ASSET_LIST));
+            logger.info(String.format("%s: %d bytes, %.2f ms to parse; gzip %d bytes, %.2f ms to inflate and parse",
+                    names[i], plain.length, plainNanos / 1e6, compressed.length, compressedNanos / 1e6));
+        }
+    }
+
+    private static List<AssetSentiment> createAssets() {
+        List<AssetSentiment> assets = new ArrayList<>();
+        for (int i = 0; i < ASSET_COUNT; i++) {
+            Asset asset = AssetUtil.createAsset("tt" + (1000000 + i), AssetType.MOVIE, "Movie title " + i);
+            asset.setPoster("https://m.media-amazon.com/images/M/poster" + i + "._V1_SX300.jpg");
+            asset.setBanner("https://example.com/banners/" + i + ".jpg");
+            asset.setImdbRating("7." + (i % 10));
+            asset.setRottenTomatoesRating((50 + i % 50) + "%");
+            asset.setPlot("A plot summary for movie " + i + " that is about as long as the ones returned by OMDB.");
+            asset.setRuntime((80 + i % 60) + " min");
+            asset.setYear(Integer.toString(1950 + i % 70));
+            asset.setTimestamp(Instant.ofEpochSecond(1_600_000_000L + i));
+            assets.add(new AssetSentiment(asset));
+        }
+        return assets;
+    }
+
+    private static byte[] gzip(byte[] content) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzipStream = new GZIPOutputStream(bytes)) {
+            gzipStream.write(content);
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,75 @@
+package com.google.moviestvsentiments.web;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+import java.util.concurrent.TimeUnit;
+
+public class TokenBucketsTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    public void tryAcquire_withinBurst_admitsRequests() {
+        TokenBuckets buckets = new TokenBuckets(1, 3, 10);
+
+        assertThat(buckets.tryAcquire("account", 0)).isZero();
+        assertThat(buckets.tryAcquire("account", 0)).isZero();
+        assertThat(buckets.tryAcquire("account", 0)).isZero();
+    }
+
+    @Test
+    public void tryAcquire_overBurst_returnsWaitUntilRefill() {
+        TokenBuckets buckets = new TokenBuckets(2, 2, 10);
+        buckets.tryAcquire("account", 0);
+        buckets.tryAcquire("account", 0);
+
+        assertThat(buckets.tryAcquire("account", 0)).isEqualTo(SECOND / 2);
+        assertThat(buckets.tryAcquire("account", SECOND / 2)).isZero();
+    }
+
+    @Test
+    public void tryAcquire_differentKeys_useSeparateBuckets() {
+        TokenBuckets buckets = new TokenBuckets(1, 1, 10);
+        buckets.tryAcquire("account1", 0);
+
+        assertThat(buckets.tryAcquire("account1", 0)).isPositive();
+        assertThat(buckets.tryAcquire("account2", 0)).isZero();
+    }
+
+    @Test
+    public void tryAcquire_maxKeysReachedByBusyBuckets_rejectsNewKey() {
+        TokenBuckets buckets = new TokenBuckets(1, 1, 1);
+        buckets.tryAcquire("account1", 0);
+
+        assertThat(buckets.tryAcquire("account2", SECOND / 2)).isEqualTo(SECOND);
+        assertThat(buckets.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void tryAcquire_maxKeysReachedByIdleBucket_evictsIt() {
+        TokenBuckets buckets = new TokenBuckets(1, 1, 1);
+        buckets.tryAcquire("account1", 0);
+
+        assertThat(buckets.tryAcquire("account2", 2 * SECOND)).isZero();
+        assertThat(buckets.tryAcquire("account2", 2 * SECOND)).isPositive();
+        assertThat(buckets.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void evictIdle_refilledBucket_removesIt() {
+        TokenBuckets buckets = new TokenBuckets(1, 5, 10);
+        buckets.tryAcquire("idle", 0);
+        buckets.tryAcquire("busy", 10 * SECOND);
+
+        buckets.evictIdle(5 * SECOND);
+
+        assertThat(buckets.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void tokenBuckets_nonPositiveRate_throwsException() {
+        assertThatThrownBy(() -> new TokenBuckets(0, 1, 1)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -1,7 +1,9 @@
 package com.google.moviestvsentiments.webscrape;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.hamcrest.CoreMatchers.equalTo;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
@@ -12,13 +14,16 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 import com.google.moviestvsentiments.AssetUtil;
 import com.google.moviestvsentiments.assetSentiment.Asset;
+import com.google.moviestvsentiments.assetSentiment.AssetCatalog;
 import com.google.moviestvsentiments.assetSentiment.AssetSentimentRepository;
 import com.google.moviestvsentiments.assetSentiment.AssetType;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataAccessResourceFailureException;
 import org.springframework.test.web.servlet.MockMvc;
 import java.io.IOException;
 import java.util.Arrays;
@@ -42,6 +47,9 @@ public class AssetScrapeControllerTest {
     @MockBean
     private AssetScraper scraper;
 
+    @MockBean
+    private AssetCatalog catalog;
+
     @Test
     public void scrapeAssets_invokesDependenciesCorrectly() throws Exception {
         List<String> assetIds = Arrays.asList("assetId1", "assetId2");
@@ -55,7 +63,8 @@ public class AssetScrapeControllerTest {
         verify(scraper).scrapeIds(OMDB_URL);
         verify(scraper).scrapeAssets(assetIds, API_KEY);
         verify(repository).saveAll(assets);
-        verifyNoMoreInteractions(scraper, repository);
+        verify(catalog).rebuild();
+        verifyNoMoreInteractions(scraper, repository, catalog);
     }
 
     @Test
@@ -80,25 +89,74 @@ public class AssetScrapeControllerTest {
     }
 
     @Test
-    public void scrapeBanners_successful_savesAsset() throws Exception {
+    public void scrapeBanners_successful_updatesBanners() throws Exception {
         final String bannerUrl = "testBannerUrl";
-        Asset asset = AssetUtil.createAsset("assetId1", AssetType.MOVIE, "title1");
-        when(repository.getAssetsWithoutBanner()).thenReturn(Arrays.asList(asset));
-        when(scraper.scrapeBannerUrl(API_KEY, asset)).thenReturn(bannerUrl);
+        List<Asset> assets = Arrays.asList(AssetUtil.createAsset("assetId1", AssetType.MOVIE, "title1"));
+        when(repository.getAssetsWithoutBanner()).thenReturn(assets);
+        when(scraper.scrapeBannerUrls(API_KEY, assets)).thenReturn(Arrays.asList(bannerUrl));
+
+        mockMvc.perform(put(SCRAPE_BANNERS_TEST_URL));
+
+        assertThat(updatedAssets()).extracting(Asset::getAssetId, Asset::getBanner)
+                .containsExactly(tuple("assetId1", bannerUrl));
+        assertThat(assets.get(0).getBanner()).isNull();
+    }
+
+    @Test
+    public void scrapeBanners_assetNotStored_returnsAssetId() throws Exception {
+        List<Asset> assets = Arrays.asList(AssetUtil.createAsset("assetId1", AssetType.MOVIE, "title1"),
+                AssetUtil.createAsset("assetId2", AssetType.MOVIE, "title2"));
+        when(repository.getAssetsWithoutBanner()).thenReturn(assets);
+        when(scraper.scrapeBannerUrls(API_KEY, assets)).thenReturn(Arrays.asList("testBannerUrl1", "testBannerUrl2"));
+        when(repository.updateBanners(anyList())).thenReturn(Arrays.asList(
+                AssetUtil.createAsset("assetId2", AssetType.MOVIE, "title2")));
+
+        mockMvc.perform(put(SCRAPE_BANNERS_TEST_URL))
+                .andExpect(jsonPath("$.length()", equalTo(1)))
+                .andExpect(jsonPath("$[0]", equalTo("assetId2")));
+    }
+
+    @Test
+    public void scrapeBanners_rebuildsCatalog() throws Exception {
+        when(repository.getAssetsWithoutBanner()).thenReturn(Arrays.asList());
 
         mockMvc.perform(put(SCRAPE_BANNERS_TEST_URL));
 
-        assertThat(asset.getBanner()).isEqualTo(bannerUrl);
-        verify(repository).save(asset);
+        verify(catalog).rebuild();
     }
 
     @Test
     public void scrapeBanners_failure_returnsAssetId() throws Exception {
         Asset asset = AssetUtil.createAsset("assetId1", AssetType.MOVIE, "title1");
-        when(repository.getAssetsWithoutBanner()).thenReturn(Arrays.asList(asset));
-        when(scraper.scrapeBannerUrl(API_KEY, asset)).thenThrow(new RuntimeException("Scrape failure"));
+        Asset asset2 = AssetUtil.createAsset("assetId2", AssetType.MOVIE, "title2");
+        List<Asset> assets = Arrays.asList(asset, asset2);
+        when(repository.getAssetsWithoutBanner()).thenReturn(assets);
+        when(scraper.scrapeBannerUrls(API_KEY, assets)).thenReturn(Arrays.asList(null, "testBannerUrl"));
 
         mockMvc.perform(put(SCRAPE_BANNERS_TEST_URL))
+                .andExpect(jsonPath("$.length()", equalTo(1)))
                 .andExpect(jsonPath("$[0]", equalTo("assetId1")));
+
+        assertThat(updatedAssets()).extracting(Asset::getAssetId).containsExactly("assetId2");
+    }
+
+    @Test
+    public void scrapeBanners_updateFailure_returnsAllAssetIds() throws Exception {
+        List<Asset> assets = Arrays.asList(AssetUtil.createAsset("assetId1", AssetType.MOVIE, "title1"),
+                AssetUtil.createAsset("assetId2", AssetType.MOVIE, "title2"));
+        when(repository.getAssetsWithoutBanner()).thenReturn(assets);
+        when(scraper.scrapeBannerUrls(API_KEY, assets)).thenReturn(Arrays.asList(null, "testBannerUrl"));
+        when(repository.updateBanners(anyList())).thenThrow(new DataAccessResourceFailureException("Update failure"));
+
+        mockMvc.perform(put(SCRAPE_BANNERS_TEST_URL))
+                .andExpect(jsonPath("$[0]", equalTo("assetId1")))
+                .andExpect(jsonPath("$[1]", equalTo("assetId2")));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Asset> updatedAssets() {
+        ArgumentCaptor<List<Asset>> captor = ArgumentCaptor.forClass(List.class);
+        verify(repository).updateBanners(captor.capture());
+        return captor.getValue();
     }
 }
@@ -0,0 +1,71 @@
+package com.google.moviestvsentiments.webscrape;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.google.moviestvsentiments.AssetUtil;
+import com.google.moviestvsentiments.BenchmarkUtil;
+import com.google.moviestvsentiments.assetSentiment.Asset;
+import com.google.moviestvsentiments.assetSentiment.AssetType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares the time taken to scrape a 250 title chart, and the banners of its titles, from a local stub that answers
+ * each request after 50 ms, with one request at a time and with more in parallel. Run with
+ * ./gradlew test -Dbenchmark=true --tests '*Benchmark'
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class AssetScraperBenchmark {
+
+    private static final int ASSET_COUNT = 250;
+    private static final long LATENCY_MILLIS = 50;
+    private static final int[] PARALLELISMS = {1, 4, 8, 16, 32};
+
+    private final Logger logger = LoggerFactory.getLogger(AssetScraperBenchmark.class);
+
+    @Test
+    public void scrapeAssets_timeByParallelism() throws Exception {
+        List<String> assetIds = new ArrayList<>();
+        for (int i = 0; i < ASSET_COUNT; i++) {
+            assetIds.add("tt" + (1000000 + i));
+        }
+        logTimes("assets", scraper -> scraper.scrapeAssets(assetIds, "apiKey").size());
+    }
+
+    @Test
+    public void scrapeBannerUrls_timeByParallelism() throws Exception {
+        List<Asset> assets = new ArrayList<>();
+        for (int i = 0; i < ASSET_COUNT; i++) {
+            assets.add(AssetUtil.createAsset("tt" + (1000000 + i), AssetType.MOVIE, "Title " + i));
+        }
+        logTimes("banners", scraper -> scraper.scrapeBannerUrls("apiKey", assets).size());
+    }
+
+    /**
+     * Logs the time taken by the given scrape with each parallelism, against a new stub server.
+     */
+    private void logTimes(String name, Scrape scrape) throws Exception {
+        try (ScrapeStubServer server = new ScrapeStubServer(LATENCY_MILLIS, 64)) {
+            for (int parallelism : PARALLELISMS) {
+                AssetScraper scraper = new AssetScraper(server.getOmdbUrl(), server.getBannerSearchUrl(), parallelism,
+                        10000, 60000, 4, 500);
+                try {
+                    long nanos = BenchmarkUtil.meanNanos(0, 1,
+                            () -> assertThat(scrape.run(scraper)).isEqualTo(ASSET_COUNT));
+                    logger.info(String.format("%s, parallelism %d: %.0f ms for %d assets", name, parallelism,
+                            nanos / 1e6, ASSET_COUNT));
+                } finally {
+                    scraper.shutdown();
+                }
+            }
+        }
+    }
+
+    private interface Scrape {
+        int run(AssetScraper scraper) throws Exception;
+    }
+}
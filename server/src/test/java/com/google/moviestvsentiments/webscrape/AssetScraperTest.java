@@ -0,0 +1,180 @@
+package com.google.moviestvsentiments.webscrape;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.google.moviestvsentiments.AssetUtil;
+import com.google.moviestvsentiments.assetSentiment.Asset;
+import com.google.moviestvsentiments.assetSentiment.AssetType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class AssetScraperTest {
+
+    private static final String API_KEY = "testApiKey";
+    private static final int TIMEOUT_MILLIS = 500;
+    private static final int DEADLINE_MILLIS = 5000;
+    private static final int BANNER_ATTEMPTS = 3;
+
+    private ScrapeStubServer server;
+    private AssetScraper scraper;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        server = new ScrapeStubServer(0, 4);
+        scraper = new AssetScraper(server.getOmdbUrl(), server.getBannerSearchUrl(), 4, TIMEOUT_MILLIS,
+                DEADLINE_MILLIS, BANNER_ATTEMPTS, 10);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        scraper.shutdown();
+        server.close();
+    }
+
+    @Test
+    public void scrapeAssets_slowerEarlierIds_returnsAssetsInInputOrder() throws IOException {
+        server.delay("tt1", 300);
+        server.delay("tt2", 150);
+
+        List<Asset> assets = scraper.scrapeAssets(Arrays.asList("tt1", "tt2", "tt3"), API_KEY);
+
+        assertThat(assetIds(assets)).containsExactly("tt1", "tt2", "tt3");
+        assertThat(assets.get(0).getTitle()).isEqualTo("Title tt1");
+        assertThat(assets.get(0).getRottenTomatoesRating()).isEqualTo("90%");
+    }
+
+    @Test
+    public void scrapeAssets_oneIdFails_skipsOnlyThatId() throws IOException {
+        server.fail("tt2", 500);
+
+        List<Asset> assets = scraper.scrapeAssets(Arrays.asList("tt1", "tt2", "tt3"), API_KEY);
+
+        assertThat(assetIds(assets)).containsExactly("tt1", "tt3");
+    }
+
+    @Test
+    public void scrapeAssets_oneIdTimesOut_skipsOnlyThatId() throws IOException {
+        server.delay("tt1", TIMEOUT_MILLIS * 4);
+
+        List<Asset> assets = scraper.scrapeAssets(Arrays.asList("tt1", "tt2"), API_KEY);
+
+        assertThat(assetIds(assets)).containsExactly("tt2");
+    }
+
+    @Test
+    public void scrapeAssets_deadlinePassed_skipsUnfinishedIds() throws IOException {
+        AssetScraper deadlineScraper = new AssetScraper(server.getOmdbUrl(), server.getBannerSearchUrl(), 4,
+                TIMEOUT_MILLIS, TIMEOUT_MILLIS / 2, BANNER_ATTEMPTS, 10);
+        server.delay("tt1", TIMEOUT_MILLIS * 3 / 4);
+
+        try {
+            assertThat(assetIds(deadlineScraper.scrapeAssets(Arrays.asList("tt1", "tt2"), API_KEY)))
+                    .containsExactly("tt2");
+        } finally {
+            deadlineScraper.shutdown();
+        }
+    }
+
+    @Test
+    public void scrapeAssets_moreIdsThanParallelism_extendsDeadlinePerWave() throws IOException {
+        AssetScraper serialScraper = new AssetScraper(server.getOmdbUrl(), server.getBannerSearchUrl(), 1,
+                TIMEOUT_MILLIS, TIMEOUT_MILLIS / 2, BANNER_ATTEMPTS, 10);
+        // Each query fits in the deadline of one wave, but the three together do not.
+        server.delay("tt1", TIMEOUT_MILLIS * 3 / 10);
+        server.delay("tt2", TIMEOUT_MILLIS * 3 / 10);
+        server.delay("tt3", TIMEOUT_MILLIS * 3 / 10);
+
+        try {
+            assertThat(assetIds(serialScraper.scrapeAssets(Arrays.asList("tt1", "tt2", "tt3"), API_KEY)))
+                    .containsExactly("tt1", "tt2", "tt3");
+        } finally {
+            serialScraper.shutdown();
+        }
+    }
+
+    @Test
+    public void scrapeAssets_everyIdFails_throwsIOException() {
+        server.fail("tt1", 401);
+        server.fail("tt2", 401);
+
+        assertThatThrownBy(() -> scraper.scrapeAssets(Arrays.asList("tt1", "tt2"), API_KEY))
+                .isInstanceOf(IOException.class);
+    }
+
+    @Test
+    public void scrapeAssets_noIds_returnsEmptyList() throws IOException {
+        assertThat(scraper.scrapeAssets(Arrays.asList(), API_KEY)).isEmpty();
+    }
+
+    @Test
+    public void scrapeBannerUrls_slowerEarlierAssets_returnsUrlsInInputOrder() throws IOException {
+        server.delay("title1", 200);
+
+        List<String> bannerUrls = scraper.scrapeBannerUrls(API_KEY, createAssets("title1", "title2"));
+
+        assertThat(bannerUrls).containsExactly("https://example.com/banners/title1.jpg",
+                "https://example.com/banners/title2.jpg");
+    }
+
+    @Test
+    public void scrapeBannerUrls_serverErrorThenSuccess_retries() throws IOException {
+        server.fail("title1", 503, BANNER_ATTEMPTS - 1);
+        server.fail("title2", 429, 1);
+
+        List<String> bannerUrls = scraper.scrapeBannerUrls(API_KEY, createAssets("title1", "title2"));
+
+        assertThat(bannerUrls).containsExactly("https://example.com/banners/title1.jpg",
+                "https://example.com/banners/title2.jpg");
+        assertThat(server.getRequestCount("title1")).isEqualTo(BANNER_ATTEMPTS);
+        assertThat(server.getRequestCount("title2")).isEqualTo(2);
+    }
+
+    @Test
+    public void scrapeBannerUrls_serverErrorEveryAttempt_returnsNullForThatAsset() throws IOException {
+        server.fail("title1", 500);
+
+        List<String> bannerUrls = scraper.scrapeBannerUrls(API_KEY, createAssets("title1", "title2"));
+
+        assertThat(bannerUrls).containsExactly(null, "https://example.com/banners/title2.jpg");
+        assertThat(server.getRequestCount("title1")).isEqualTo(BANNER_ATTEMPTS);
+    }
+
+    @Test
+    public void scrapeBannerUrls_clientError_doesNotRetry() throws IOException {
+        server.fail("title1", 403);
+
+        List<String> bannerUrls = scraper.scrapeBannerUrls(API_KEY, createAssets("title1"));
+
+        assertThat(bannerUrls).containsExactly((String) null);
+        assertThat(server.getRequestCount("title1")).isEqualTo(1);
+    }
+
+    @Test
+    public void scrapeBannerUrls_deadlinePassed_returnsNullForUnfinishedAssets() throws IOException {
+        AssetScraper deadlineScraper = new AssetScraper(server.getOmdbUrl(), server.getBannerSearchUrl(), 4,
+                TIMEOUT_MILLIS, TIMEOUT_MILLIS / 2, BANNER_ATTEMPTS, 10);
+        server.delay("title1", TIMEOUT_MILLIS * 3 / 4);
+
+        try {
+            assertThat(deadlineScraper.scrapeBannerUrls(API_KEY, createAssets("title1", "title2")))
+                    .containsExactly(null, "https://example.com/banners/title2.jpg");
+        } finally {
+            deadlineScraper.shutdown();
+        }
+    }
+
+    private static List<Asset> createAssets(String... titles) {
+        return Arrays.stream(titles).map(title -> AssetUtil.createAsset("id" + title, AssetType.MOVIE, title))
+                .collect(Collectors.toList());
+    }
+
+    private static List<String> assetIds(List<Asset> assets) {
+        return assets.stream().map(Asset::getAssetId).collect(Collectors.toList());
+    }
+}
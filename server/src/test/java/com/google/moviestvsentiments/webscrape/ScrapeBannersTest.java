@@ -0,0 +1,114 @@
+package com.google.moviestvsentiments.webscrape;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.moviestvsentiments.assetSentiment.Asset;
+import com.google.moviestvsentiments.assetSentiment.AssetType;
+import com.google.moviestvsentiments.catalog.CatalogChangeEvent;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import javax.persistence.EntityManagerFactory;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Runs PUT /banners against the real repository, to check that the loaded Assets are written once, by the banner
+ * batch, and not again by JPA when the request's persistence context is flushed.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+public class ScrapeBannersTest {
+
+    private static final String API_KEY = "testApiKey";
+    private static final List<String> ASSET_IDS = Arrays.asList("bannerTest1", "bannerTest2", "bannerTestDeleted");
+    private static final String DELETED_ASSET_ID = "bannerTestDeleted";
+
+    @TestConfiguration
+    static class RecordedEvents {
+        private final List<CatalogChangeEvent> events = Collections.synchronizedList(new ArrayList<>());
+
+        @EventListener
+        public void onCatalogChange(CatalogChangeEvent event) {
+            events.add(event);
+        }
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private RecordedEvents recordedEvents;
+
+    @MockBean
+    private AssetScraper scraper;
+
+    @BeforeEach
+    public void insertAssets() {
+        deleteAssets();
+        for (String assetId : ASSET_IDS) {
+            jdbcTemplate.update("INSERT INTO asset (asset_id, asset_type, title, timestamp) VALUES (?, ?, ?, ?)",
+                    assetId, AssetType.MOVIE.ordinal(), "Title " + assetId, Timestamp.from(Instant.EPOCH));
+        }
+        recordedEvents.events.clear();
+    }
+
+    @AfterEach
+    public void deleteAssets() {
+        jdbcTemplate.update("DELETE FROM asset WHERE asset_id IN (?, ?, ?)", ASSET_IDS.toArray());
+    }
+
+    @Test
+    public void scrapeBanners_writesEachAssetOnceAndReportsDeletedAssets() throws Exception {
+        when(scraper.scrapeBannerUrls(eq(API_KEY), anyList())).thenAnswer(invocation -> {
+            // The asset is deleted while its banner is being searched for.
+            jdbcTemplate.update("DELETE FROM asset WHERE asset_id = ?", DELETED_ASSET_ID);
+            List<Asset> assets = invocation.getArgument(1);
+            return assets.stream().map(asset -> ASSET_IDS.contains(asset.getAssetId())
+                    ? "https://example.com/" + asset.getAssetId() + ".jpg" : null).collect(Collectors.toList());
+        });
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        String body = mockMvc.perform(put("/banners?apiKey=" + API_KEY))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(statistics.getEntityUpdateCount()).isZero();
+        List<String> publishedIds = recordedEvents.events.stream().filter(event -> event.getEntity() instanceof Asset)
+                .map(event -> ((Asset) event.getEntity()).getAssetId()).filter(ASSET_IDS::contains)
+                .collect(Collectors.toList());
+        assertThat(publishedIds).containsExactlyInAnyOrder("bannerTest1", "bannerTest2");
+        assertThat(Arrays.asList(new ObjectMapper().readValue(body, String[].class)))
+                .contains(DELETED_ASSET_ID).doesNotContain("bannerTest1", "bannerTest2");
+        assertThat(jdbcTemplate.queryForObject("SELECT banner FROM asset WHERE asset_id = ?", String.class,
+                "bannerTest1")).isEqualTo("https://example.com/bannerTest1.jpg");
+    }
+}
@@ -0,0 +1,141 @@
+package com.google.moviestvsentiments.webscrape;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A local HTTP server that answers OMDB queries and banner image searches for testing AssetScraper. OMDB queries are
+ * keyed by asset id and banner searches by title. Every response is delayed by a fixed latency, and single keys can be
+ * given a longer delay or made to fail.
+ */
+class ScrapeStubServer implements AutoCloseable {
+
+    private static final String OMDB_PATH = "/omdb";
+    private static final String BANNER_SEARCH_PATH = "/customsearch";
+    private static final String BANNER_QUERY_SUFFIX = " banner image";
+
+    private final HttpServer server;
+    private final long latencyMillis;
+    private final Map<String, Long> delayMillisByKey = new ConcurrentHashMap<>();
+    private final Map<String, Integer> statusByKey = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> failuresLeftByKey = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> requestsByKey = new ConcurrentHashMap<>();
+
+    /**
+     * Starts a stub server on a free local port.
+     * @param latencyMillis The time to wait before answering each request.
+     * @param threads The number of requests that the server answers at a time.
+     */
+    ScrapeStubServer(long latencyMillis, int threads) throws IOException {
+        this.latencyMillis = latencyMillis;
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newFixedThreadPool(threads));
+        server.createContext(OMDB_PATH, exchange -> handle(exchange, "i", createOmdbResponse(exchange)));
+        server.createContext(BANNER_SEARCH_PATH, exchange -> handle(exchange, "q", createBannerResponse(exchange)));
+        server.start();
+    }
+
+    /**
+     * Returns the url to query OMDB at.
+     */
+    String getOmdbUrl() {
+        return "http://localhost:" + server.getAddress().getPort() + OMDB_PATH;
+    }
+
+    /**
+     * Returns the url to search for banner images at.
+     */
+    String getBannerSearchUrl() {
+        return "http://localhost:" + server.getAddress().getPort() + BANNER_SEARCH_PATH;
+    }
+
+    /**
+     * Answers requests for the given key after the given delay instead of the server's latency.
+     */
+    void delay(String key, long delayMillis) {
+        delayMillisByKey.put(key, delayMillis);
+    }
+
+    /**
+     * Answers requests for the given key with the given error status.
+     */
+    void fail(String key, int status) {
+        fail(key, status, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Answers the next given number of requests for the given key with the given error status.
+     */
+    void fail(String key, int status, int times) {
+        statusByKey.put(key, status);
+        failuresLeftByKey.put(key, new AtomicInteger(times));
+    }
+
+    /**
+     * Returns the number of requests received for the given key.
+     */
+    int getRequestCount(String key) {
+        AtomicInteger requests = requestsByKey.get(key);
+        return requests == null ? 0 : requests.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        ((ExecutorService) server.getExecutor()).shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange, String keyParameter, String response) throws IOException {
+        String key = getParameter(exchange, keyParameter);
+        if (key.endsWith(BANNER_QUERY_SUFFIX)) {
+            key = key.substring(0, key.length() - BANNER_QUERY_SUFFIX.length());
+        }
+        requestsByKey.computeIfAbsent(key, ignored -> new AtomicInteger()).incrementAndGet();
+        try {
+            Thread.sleep(delayMillisByKey.getOrDefault(key, latencyMillis));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        AtomicInteger failuresLeft = failuresLeftByKey.get(key);
+        boolean failed = failuresLeft != null && failuresLeft.getAndDecrement() > 0;
+        int status = failed ? statusByKey.get(key) : 200;
+        byte[] body = (failed ? "{}" : response).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream stream = exchange.getResponseBody()) {
+            stream.write(body);
+        }
+    }
+
+    private static String createOmdbResponse(HttpExchange exchange) throws IOException {
+        String assetId = getParameter(exchange, "i");
+        return "{\"imdbID\":\"" + assetId + "\",\"Type\":\"movie\",\"Title\":\"Title " + assetId + "\","
+                + "\"imdbRating\":\"7.5\",\"Ratings\":[{\"Source\":\"Rotten Tomatoes\",\"Value\":\"90%\"}],"
+                + "\"Plot\":\"A plot.\",\"Runtime\":\"120 min\",\"Year\":\"2000\"}";
+    }
+
+    private static String createBannerResponse(HttpExchange exchange) throws IOException {
+        String title = getParameter(exchange, "q").replace(BANNER_QUERY_SUFFIX, "");
+        return "{\"items\":[{\"link\":\"https://example.com/banners/" + title + ".jpg\"}]}";
+    }
+
+    private static String getParameter(HttpExchange exchange, String name) throws IOException {
+        for (String parameter : exchange.getRequestURI().getRawQuery().split("&")) {
+            int equals = parameter.indexOf('=');
+            if (parameter.substring(0, equals).equals(name)) {
+                return URLDecoder.decode(parameter.substring(equals + 1), StandardCharsets.UTF_8.name());
+            }
+        }
+        return "";
+    }
+}